@@ -2,13 +2,17 @@ package com.example.demoproject.admin.controller;
 
 import com.example.demoproject.admin.dto.*;
 import com.example.demoproject.admin.service.AdminActivityService;
+import com.example.demoproject.luckydraw.dto.LotteryResult;
 import com.example.demoproject.luckydraw.dto.UserDrawHistory;
 import com.example.demoproject.admin.service.AdminDrawHistoryService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import java.util.List;
@@ -40,12 +44,43 @@ public class AdminActivityController {
         return ResponseEntity.ok(adminActivityService.updateActivity(activityId, request));
     }
 
+    @PostMapping("/{activityId}/ticket-roll")
+    @Operation(summary = "Open ticket roll", description = "Pre-generate the shuffled outcomes of an activity with a fixed number of draws")
+    public ResponseEntity<TicketRollResponse> openTicketRoll(
+            @PathVariable Long activityId,
+            @Valid @RequestBody OpenTicketRollRequest request) {
+        return ResponseEntity.ok(adminActivityService.openTicketRoll(activityId, request));
+    }
+
+    @PostMapping("/{activityId}/lottery/winners")
+    @Operation(summary = "Select lottery winners", description = "Pick and record the winners of a closed lottery now")
+    public ResponseEntity<LotteryResult> selectLotteryWinners(@PathVariable Long activityId) {
+        return ResponseEntity.ok(adminActivityService.selectLotteryWinners(activityId));
+    }
+
     @GetMapping("/{activityId}/history")
-    @Operation(summary = "Get draw history for activity", description = "Retrieve draw history for a specific activity")
-    public ResponseEntity<UserDrawHistory> getDrawHistory(@PathVariable Long activityId) {
-        UserDrawHistory history = adminDrawHistoryService.getDrawHistoryForActivity(activityId);
+    @Operation(summary = "Get draw history for activity",
+               description = "Retrieve one page of draw history for a specific activity, newest first; pass nextCursor as cursor for the next page")
+    public ResponseEntity<UserDrawHistory> getDrawHistory(@PathVariable Long activityId, DrawHistoryQuery query) {
+        UserDrawHistory history = adminDrawHistoryService.getDrawHistoryForActivity(activityId, query);
         return ResponseEntity.ok(history);
     }
 
+    @GetMapping("/{activityId}/history/export")
+    @Operation(summary = "Export draw history for activity",
+               description = "Stream every draw of an activity, oldest first, as gzip-compressed CSV or NDJSON")
+    public ResponseEntity<StreamingResponseBody> exportDrawHistory(
+            @PathVariable Long activityId,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(defaultValue = "false") boolean winnersOnly) {
+        AdminDrawHistoryService.ExportFormat exportFormat = AdminDrawHistoryService.ExportFormat.parse(format);
+        StreamingResponseBody body = adminDrawHistoryService.exportDrawHistory(activityId, exportFormat, winnersOnly);
+        return ResponseEntity.ok()
+            .header(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"activity-" + activityId + "-draws." + exportFormat.getExtension() + ".gz\"")
+            .contentType(MediaType.parseMediaType("application/gzip"))
+            .body(body);
+    }
+
 
 } 
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.example.demoproject.admin.controller;
+
+import com.example.demoproject.luckydraw.service.DrawJournal;
+import com.example.demoproject.luckydraw.service.DrawMetadataCache;
+import com.example.demoproject.luckydraw.service.DrawMetrics;
+import com.example.demoproject.luckydraw.service.PrizeDecrementCombiner;
+import com.example.demoproject.luckydraw.service.LotteryEntryWriter;
+import com.example.demoproject.luckydraw.service.PrizePacer;
+import com.example.demoproject.luckydraw.service.SingleWriterDrawEngine;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@Tag(name = "Admin Metrics", description = "Admin operations for viewing runtime metrics")
+public class AdminMetricsController {
+
+    @Autowired
+    private DrawMetadataCache drawMetadataCache;
+
+    @Autowired
+    private DrawMetrics drawMetrics;
+
+    @Autowired
+    private SingleWriterDrawEngine singleWriterDrawEngine;
+
+    @Autowired
+    private PrizeDecrementCombiner prizeDecrementCombiner;
+
+    @Autowired
+    private PrizePacer prizePacer;
+
+    @Autowired
+    private LotteryEntryWriter lotteryEntryWriter;
+
+    @Autowired
+    private DrawJournal drawJournal;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @GetMapping
+    @Operation(summary = "Get draw metrics", description = "Retrieve draw throughput per execution mode and cache statistics")
+    public ResponseEntity<Map<String, Object>> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("draws", drawMetrics.snapshot());
+        metrics.put("singleWriter", singleWriterDrawEngine.getStats());
+        metrics.put("inventoryCombiner", prizeDecrementCombiner.getStats());
+        metrics.put("pacing", prizePacer.getStats());
+        metrics.put("lotteryEntries", lotteryEntryWriter.getStats());
+        metrics.put("drawJournal", drawJournal.getStats());
+        metrics.put("metadataCache", drawMetadataCache.getStats());
+        metrics.put("connectionPool", getConnectionPoolStats());
+        return ResponseEntity.ok(metrics);
+    }
+
+    /**
+     * Live Hikari pool usage: with short draw transactions, active connections stay well below the pool size
+     */
+    private Map<String, Object> getConnectionPoolStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        try {
+            if (!dataSource.isWrapperFor(HikariDataSource.class)) {
+                return stats;
+            }
+            HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+            HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+            stats.put("maximumPoolSize", hikari.getMaximumPoolSize());
+            if (pool != null) {
+                stats.put("active", pool.getActiveConnections());
+                stats.put("idle", pool.getIdleConnections());
+                stats.put("awaitingConnection", pool.getThreadsAwaitingConnection());
+            }
+        } catch (SQLException e) {
+            stats.put("error", e.getMessage());
+        }
+        return stats;
+    }
+
+    @DeleteMapping("/draws")
+    @Operation(summary = "Reset draw metrics", description = "Clear draw throughput counters before a load test")
+    public ResponseEntity<Void> resetDrawMetrics() {
+        drawMetrics.reset();
+        return ResponseEntity.noContent().build();
+    }
+}
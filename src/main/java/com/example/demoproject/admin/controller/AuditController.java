@@ -9,7 +9,6 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin/audit")
@@ -22,18 +21,12 @@ public class AuditController {
     @GetMapping
     @Operation(summary = "Get all audit logs", description = "Retrieve all audit logs")
     public ResponseEntity<List<AuditLogResponse>> getAllAuditLogs() {
-        List<AuditLogResponse> logs = auditService.getAllAuditLogs().stream()
-            .map(AuditLogResponse::new)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(logs);
+        return ResponseEntity.ok(auditService.getAllAuditLogs());
     }
 
     @GetMapping("/entity/{entityType}")
     @Operation(summary = "Get audit logs by entity type", description = "Retrieve audit logs for a specific entity type")
     public ResponseEntity<List<AuditLogResponse>> getAuditLogsByEntityType(@PathVariable String entityType) {
-        List<AuditLogResponse> logs = auditService.getAuditLogsByEntityType(entityType).stream()
-            .map(AuditLogResponse::new)
-            .collect(Collectors.toList());
-        return ResponseEntity.ok(logs);
+        return ResponseEntity.ok(auditService.getAuditLogsByEntityType(entityType));
     }
 } 
\ No newline at end of file
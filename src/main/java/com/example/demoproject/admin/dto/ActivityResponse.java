@@ -1,5 +1,7 @@
 package com.example.demoproject.admin.dto;
 
+import com.example.demoproject.luckydraw.constants.ActivityType;
+import java.time.LocalDateTime;
 import java.util.List;
 
 public class ActivityResponse {
@@ -9,6 +11,10 @@ public class ActivityResponse {
     private String description;
     private Integer maxDraws;
     private List<PrizeResponse> prizes;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private boolean paced;
+    private ActivityType type;
     
     public ActivityResponse() {}
     
@@ -61,4 +67,36 @@ public class ActivityResponse {
     public void setPrizes(List<PrizeResponse> prizes) {
         this.prizes = prizes;
     }
-} 
\ No newline at end of file
+    
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+    
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+    
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+    
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+    
+    public boolean isPaced() {
+        return paced;
+    }
+    
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+    
+    public ActivityType getType() {
+        return type;
+    }
+    
+    public void setType(ActivityType type) {
+        this.type = type;
+    }
+}
@@ -1,10 +1,9 @@
 package com.example.demoproject.admin.dto;
 
-import com.example.demoproject.admin.entity.AuditLog;
 import java.time.LocalDateTime;
 
 /**
- * DTO for audit log responses
+ * DTO for audit log responses, built directly by the audit log queries
  */
 public class AuditLogResponse {
     
@@ -17,15 +16,16 @@ public class AuditLogResponse {
     private final String newValues;
     private final LocalDateTime timestamp;
 
-    public AuditLogResponse(AuditLog auditLog) {
-        this.id = auditLog.getId();
-        this.adminUsername = auditLog.getAdminUser().getUsername();
-        this.action = auditLog.getAction();
-        this.entityType = auditLog.getEntityType();
-        this.entityId = auditLog.getEntityId();
-        this.oldValues = auditLog.getOldValues();
-        this.newValues = auditLog.getNewValues();
-        this.timestamp = auditLog.getTimestamp();
+    public AuditLogResponse(Long id, String adminUsername, String action, String entityType, Long entityId,
+                            String oldValues, String newValues, LocalDateTime timestamp) {
+        this.id = id;
+        this.adminUsername = adminUsername;
+        this.action = action;
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.oldValues = oldValues;
+        this.newValues = newValues;
+        this.timestamp = timestamp;
     }
 
     // Getters
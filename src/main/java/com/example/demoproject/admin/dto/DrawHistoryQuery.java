@@ -0,0 +1,82 @@
+package com.example.demoproject.admin.dto;
+
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * Page and filters of an activity's draw history, bound from query parameters
+ */
+public class DrawHistoryQuery {
+
+    /**
+     * nextCursor of the previous page; null for the first page
+     */
+    private String cursor;
+
+    /**
+     * Records per page; null for the configured default
+     */
+    private Integer size;
+
+    private boolean winnersOnly;
+
+    private Long userId;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+
+    public DrawHistoryQuery() {}
+
+    // Getters and Setters
+    public String getCursor() {
+        return cursor;
+    }
+
+    public void setCursor(String cursor) {
+        this.cursor = cursor;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public boolean isWinnersOnly() {
+        return winnersOnly;
+    }
+
+    public void setWinnersOnly(boolean winnersOnly) {
+        this.winnersOnly = winnersOnly;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.demoproject.admin.dto;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+public class OpenTicketRollRequest {
+
+    @NotNull(message = "Roll size is required")
+    @Min(value = 1, message = "Roll size must be at least 1")
+    @Max(value = 1000000, message = "Roll size cannot exceed 1000000")
+    private Integer size;
+
+    public OpenTicketRollRequest() {}
+
+    public OpenTicketRollRequest(Integer size) {
+        this.size = size;
+    }
+
+    // Getters and Setters
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+}
@@ -2,6 +2,7 @@ package com.example.demoproject.admin.dto;
 
 import java.time.LocalDateTime;
 import java.math.BigDecimal;
+import java.util.Map;
 
 public class PrizeResponse {
     
@@ -14,6 +15,8 @@ public class PrizeResponse {
     private Long activityId;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
+    private Long version;
+    private Map<String, BigDecimal> segmentMultipliers;
     
     public PrizeResponse() {}
     
@@ -103,4 +106,20 @@ public class PrizeResponse {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
-} 
\ No newline at end of file
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Map<String, BigDecimal> getSegmentMultipliers() {
+        return segmentMultipliers;
+    }
+    
+    public void setSegmentMultipliers(Map<String, BigDecimal> segmentMultipliers) {
+        this.segmentMultipliers = segmentMultipliers;
+    }
+}
\ No newline at end of file
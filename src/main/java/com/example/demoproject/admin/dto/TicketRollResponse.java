@@ -0,0 +1,46 @@
+package com.example.demoproject.admin.dto;
+
+import java.util.Map;
+
+public class TicketRollResponse {
+
+    private Long activityId;
+    private Integer size;
+    private Map<Long, Integer> prizeUnits;
+
+    public TicketRollResponse() {}
+
+    public TicketRollResponse(Long activityId, Integer size, Map<Long, Integer> prizeUnits) {
+        this.activityId = activityId;
+        this.size = size;
+        this.prizeUnits = prizeUnits;
+    }
+
+    // Getters and Setters
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(Long activityId) {
+        this.activityId = activityId;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    /**
+     * Units of each prize placed in the roll, by prize ID
+     */
+    public Map<Long, Integer> getPrizeUnits() {
+        return prizeUnits;
+    }
+
+    public void setPrizeUnits(Map<Long, Integer> prizeUnits) {
+        this.prizeUnits = prizeUnits;
+    }
+}
@@ -3,6 +3,9 @@ package com.example.demoproject.admin.dto;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Min;
 
+import com.example.demoproject.luckydraw.constants.ActivityType;
+import java.time.LocalDateTime;
+
 public class UpdateActivityRequest {
     
     @NotBlank(message = "Activity name is required")
@@ -14,6 +17,20 @@ public class UpdateActivityRequest {
     @Min(value = 1, message = "Max draws must be at least 1")
     private Integer maxDraws;
     
+    private LocalDateTime startTime;
+    
+    private LocalDateTime endTime;
+    
+    /**
+     * Release prize units evenly between start and end time; both are then required
+     */
+    private boolean paced;
+    
+    /**
+     * INSTANT or LOTTERY; null keeps the current type. A lottery needs start and end time.
+     */
+    private ActivityType type;
+    
     public UpdateActivityRequest() {}
     
     public UpdateActivityRequest(String name, String description, Integer maxDraws) {
@@ -46,4 +63,36 @@ public class UpdateActivityRequest {
     public void setMaxDraws(Integer maxDraws) {
         this.maxDraws = maxDraws;
     }
-} 
\ No newline at end of file
+    
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+    
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+    
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+    
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+    
+    public boolean isPaced() {
+        return paced;
+    }
+    
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+    
+    public ActivityType getType() {
+        return type;
+    }
+    
+    public void setType(ActivityType type) {
+        this.type = type;
+    }
+}
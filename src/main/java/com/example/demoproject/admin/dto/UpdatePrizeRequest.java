@@ -6,6 +6,7 @@ import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.DecimalMax;
 import jakarta.validation.constraints.NotNull;
 import java.math.BigDecimal;
+import java.util.Map;
 
 public class UpdatePrizeRequest {
     
@@ -24,6 +25,18 @@ public class UpdatePrizeRequest {
     @DecimalMax(value = "1.0", message = "Probability cannot exceed 1.0")
     private BigDecimal probability;
     
+    /**
+     * Version the admin read; the update is rejected if the prize changed since
+     */
+    @NotNull(message = "Version is required")
+    private Long version;
+    
+    /**
+     * Probability multiplier per user segment (e.g. VIP: 2.0); null leaves the current ones,
+     * an empty map removes them all
+     */
+    private Map<String, BigDecimal> segmentMultipliers;
+    
     public UpdatePrizeRequest() {}
     
     public UpdatePrizeRequest(String name, String description, Integer quantity, BigDecimal probability) {
@@ -65,4 +78,20 @@ public class UpdatePrizeRequest {
     public void setProbability(BigDecimal probability) {
         this.probability = probability;
     }
-} 
\ No newline at end of file
+    
+    public Long getVersion() {
+        return version;
+    }
+    
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    public Map<String, BigDecimal> getSegmentMultipliers() {
+        return segmentMultipliers;
+    }
+    
+    public void setSegmentMultipliers(Map<String, BigDecimal> segmentMultipliers) {
+        this.segmentMultipliers = segmentMultipliers;
+    }
+}
\ No newline at end of file
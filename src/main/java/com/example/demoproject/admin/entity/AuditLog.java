@@ -8,14 +8,16 @@ import java.time.LocalDateTime;
  * Audit log entity for tracking admin actions
  */
 @Entity
-@Table(name = "audit_logs")
+@Table(name = "audit_logs",
+       indexes = @Index(name = "idx_audit_logs_entity_type_timestamp", columnList = "entity_type, timestamp"))
 public class AuditLog {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "audit_logs_seq")
+    @SequenceGenerator(name = "audit_logs_seq", sequenceName = "audit_logs_seq", allocationSize = 50)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "admin_user_id")
     private User adminUser;
     
@@ -1,7 +1,10 @@
 package com.example.demoproject.admin.repository;
 
+import com.example.demoproject.admin.dto.AuditLogResponse;
 import com.example.demoproject.admin.entity.AuditLog;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
@@ -9,7 +12,18 @@ import java.util.List;
 public interface AuditLogRepository extends JpaRepository<AuditLog, Long> {
     
     /**
-     * Find audit logs by entity type
+     * Find all audit logs with the admin's username, in one query
      */
-    List<AuditLog> findByEntityTypeOrderByTimestampDesc(String entityType);
+    @Query("SELECT new com.example.demoproject.admin.dto.AuditLogResponse(" +
+           "a.id, u.username, a.action, a.entityType, a.entityId, a.oldValues, a.newValues, a.timestamp) " +
+           "FROM AuditLog a JOIN a.adminUser u ORDER BY a.id")
+    List<AuditLogResponse> findAllResponses();
+
+    /**
+     * Find audit logs by entity type with the admin's username, in one query
+     */
+    @Query("SELECT new com.example.demoproject.admin.dto.AuditLogResponse(" +
+           "a.id, u.username, a.action, a.entityType, a.entityId, a.oldValues, a.newValues, a.timestamp) " +
+           "FROM AuditLog a JOIN a.adminUser u WHERE a.entityType = :entityType ORDER BY a.timestamp DESC")
+    List<AuditLogResponse> findResponsesByEntityType(@Param("entityType") String entityType);
 } 
\ No newline at end of file
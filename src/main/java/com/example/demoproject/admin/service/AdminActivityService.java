@@ -3,10 +3,17 @@ package com.example.demoproject.admin.service;
 import com.example.demoproject.admin.dto.*;
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import com.example.demoproject.luckydraw.constants.ActivityType;
+import com.example.demoproject.luckydraw.dto.LotteryResult;
+import com.example.demoproject.luckydraw.service.DrawMetadataCache;
+import com.example.demoproject.luckydraw.service.LotteryService;
+import com.example.demoproject.luckydraw.service.TicketRollService;
 import com.example.demoproject.luckydraw.service.UserActivityService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,16 +29,22 @@ public class AdminActivityService {
     @Autowired
     private UserActivityService userActivityService;
 
+    @Autowired
+    private DrawMetadataCache drawMetadataCache;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private TicketRollService ticketRollService;
+
+    @Autowired
+    private LotteryService lotteryService;
+
     public List<ActivityResponse> getAllActivities() {
         List<Activity> activities = activityRepository.findAll();
         return activities.stream()
-            .map(activity -> new ActivityResponse(
-                activity.getId().toString(), // Use id as activityId
-                activity.getName(),
-                activity.getDescription(),
-                activity.getMaxDraws(),
-                null // prizes - will be loaded separately if needed
-            ))
+            .map(this::toResponse)
             .collect(Collectors.toList());
     }
 
@@ -40,26 +53,35 @@ public class AdminActivityService {
         Activity activity = activityRepository.findById(id)
             .orElseThrow(() -> new IllegalArgumentException("Activity not found: " + activityId));
 
+        if (request.isPaced() && (request.getStartTime() == null || request.getEndTime() == null)) {
+            throw new IllegalArgumentException("Start and end time are required for a paced activity");
+        }
+        ActivityType type = request.getType() != null ? request.getType() : activity.getType();
+        if (type == ActivityType.LOTTERY && (request.getStartTime() == null || request.getEndTime() == null)) {
+            throw new IllegalArgumentException("Start and end time are required for a lottery");
+        }
+        if (request.getStartTime() != null && request.getEndTime() != null
+                && !request.getEndTime().isAfter(request.getStartTime())) {
+            throw new IllegalArgumentException("End time must be after start time");
+        }
+
         // Create audit data for old values
-        ActivityAuditData oldData = new ActivityAuditData(
-            activity.getName(),
-            activity.getDescription(),
-            activity.getMaxDraws()
-        );
+        ActivityAuditData oldData = new ActivityAuditData(activity);
 
         // Update activity
         activity.setName(request.getName());
         activity.setDescription(request.getDescription());
         activity.setMaxDraws(request.getMaxDraws());
+        activity.setStartTime(request.getStartTime());
+        activity.setEndTime(request.getEndTime());
+        activity.setPaced(request.isPaced());
+        activity.setType(type);
 
         Activity savedActivity = activityRepository.save(activity);
+        drawMetadataCache.invalidateActivity(id);
 
         // Create audit data for new values
-        ActivityAuditData newData = new ActivityAuditData(
-            savedActivity.getName(),
-            savedActivity.getDescription(),
-            savedActivity.getMaxDraws()
-        );
+        ActivityAuditData newData = new ActivityAuditData(savedActivity);
 
         // Log the audit
         try {
@@ -70,13 +92,59 @@ public class AdminActivityService {
             System.err.println("Error logging activity update audit: " + e.getMessage());
         }
 
-        return new ActivityResponse(
-            savedActivity.getId().toString(),
-            savedActivity.getName(),
-            savedActivity.getDescription(),
-            savedActivity.getMaxDraws(),
+        return toResponse(savedActivity);
+    }
+
+    private ActivityResponse toResponse(Activity activity) {
+        ActivityResponse response = new ActivityResponse(
+            activity.getId().toString(), // Use id as activityId
+            activity.getName(),
+            activity.getDescription(),
+            activity.getMaxDraws(),
             null // prizes - will be loaded separately if needed
         );
+        response.setStartTime(activity.getStartTime());
+        response.setEndTime(activity.getEndTime());
+        response.setPaced(activity.isPaced());
+        response.setType(activity.getType());
+        return response;
+    }
+
+    /**
+     * Open a ticket roll for an activity: from now on its draws come from a pre-shuffled,
+     * fixed sequence of outcomes built from the current prize probabilities and quantities
+     */
+    public TicketRollResponse openTicketRoll(Long activityId, OpenTicketRollRequest request) {
+        Activity activity = activityRepository.findById(activityId)
+            .orElseThrow(() -> new IllegalArgumentException("Activity not found: " + activityId));
+
+        ticketRollService.open(activityId, request.getSize(), prizeRepository.findByActivity(activity));
+        TicketRollResponse response = new TicketRollResponse(activityId, request.getSize(), ticketRollService.getRemaining(activityId));
+
+        try {
+            String adminUsername = userActivityService.getCurrentUsername();
+            auditService.logAction(adminUsername, "OPEN_TICKET_ROLL", "ACTIVITY", activityId, null, response);
+        } catch (Exception e) {
+            // Log error but don't fail the operation
+            System.err.println("Error logging ticket roll audit: " + e.getMessage());
+        }
+        return response;
+    }
+
+    /**
+     * Select the winners of a closed lottery now instead of waiting for the scheduled job
+     */
+    public LotteryResult selectLotteryWinners(Long activityId) {
+        LotteryResult result = lotteryService.selectWinners(activityId);
+
+        try {
+            String adminUsername = userActivityService.getCurrentUsername();
+            auditService.logAction(adminUsername, "SELECT_LOTTERY_WINNERS", "ACTIVITY", activityId, null, result);
+        } catch (Exception e) {
+            // Log error but don't fail the operation
+            System.err.println("Error logging lottery audit: " + e.getMessage());
+        }
+        return result;
     }
 
     /**
@@ -86,17 +154,29 @@ public class AdminActivityService {
         private final String name;
         private final String description;
         private final Integer maxDraws;
-
-        public ActivityAuditData(String name, String description, Integer maxDraws) {
-            this.name = name;
-            this.description = description;
-            this.maxDraws = maxDraws;
+        private final LocalDateTime startTime;
+        private final LocalDateTime endTime;
+        private final boolean paced;
+        private final ActivityType type;
+
+        public ActivityAuditData(Activity activity) {
+            this.name = activity.getName();
+            this.description = activity.getDescription();
+            this.maxDraws = activity.getMaxDraws();
+            this.startTime = activity.getStartTime();
+            this.endTime = activity.getEndTime();
+            this.paced = activity.isPaced();
+            this.type = activity.getType();
         }
 
         // Getters
         public String getName() { return name; }
         public String getDescription() { return description; }
         public Integer getMaxDraws() { return maxDraws; }
+        public LocalDateTime getStartTime() { return startTime; }
+        public LocalDateTime getEndTime() { return endTime; }
+        public boolean isPaced() { return paced; }
+        public ActivityType getType() { return type; }
     }
 
 
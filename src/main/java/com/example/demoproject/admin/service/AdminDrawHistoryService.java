@@ -1,43 +1,311 @@
 package com.example.demoproject.admin.service;
 
-import com.example.demoproject.luckydraw.entity.*;
+import com.example.demoproject.admin.dto.DrawHistoryQuery;
 import com.example.demoproject.luckydraw.repository.*;
 import com.example.demoproject.luckydraw.dto.*;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import com.example.demoproject.auth.entity.User;
-import com.example.demoproject.auth.repository.AuthUserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
 import java.util.List;
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
 
 /**
- * Service for admin draw history operations
+ * Service for admin draw history operations.
+ *
+ * History is read a page at a time with keyset pagination on (draw_time, id): each page starts
+ * right after the last record of the previous one, so a page costs the same however deep it is
+ * and memory stays bounded by the page size.
+ *
+ * Exports stream every draw of an activity as gzip-compressed CSV or NDJSON straight from a
+ * forward-only JDBC cursor, one row at a time, without loading entities.
  */
 @Service
 public class AdminDrawHistoryService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AdminDrawHistoryService.class);
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    static final String EXPORT_SQL = """
+        SELECT r.id, r.user_id, u.username, r.prize_id, p.name, r.draw_time
+        FROM draw_records r
+        JOIN users u ON u.id = r.user_id
+        LEFT JOIN prizes p ON p.id = r.prize_id
+        WHERE r.activity_id = ? AND (? = FALSE OR r.prize_id IS NOT NULL)
+        ORDER BY r.draw_time, r.id
+        """;
+
     @Autowired
     private ActivityRepository activityRepository;
 
     @Autowired
     private DrawRecordRepository drawRecordRepository;
 
+    @Value("${luckydraw.admin.history.page-size:100}")
+    private int defaultPageSize = 100;
+
+    @Value("${luckydraw.admin.history.max-page-size:1000}")
+    private int maxPageSize = 1000;
+
+    @Value("${luckydraw.admin.export.fetch-size:1000}")
+    private int exportFetchSize = 1000;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     /**
-     * Get draw history for a specific activity
+     * Get the first page of draw history for a specific activity
      * @param activityId Activity identifier
      * @return User draw history
      */
     public UserDrawHistory getDrawHistoryForActivity(Long activityId) {
+        return getDrawHistoryForActivity(activityId, new DrawHistoryQuery());
+    }
+
+    /**
+     * Get one page of draw history for a specific activity, newest first
+     * @param activityId Activity identifier
+     * @param query Cursor, page size and filters
+     * @return User draw history with the cursor of the next page
+     */
+    public UserDrawHistory getDrawHistoryForActivity(Long activityId, DrawHistoryQuery query) {
         try {
-            Activity activity = activityRepository.findById(activityId)
-                .orElseThrow(() -> new IllegalArgumentException("Activity not found: " + activityId));
+            if (!activityRepository.existsById(activityId)) {
+                throw new IllegalArgumentException("Activity not found: " + activityId);
+            }
+            int size = query.getSize() == null ? defaultPageSize : query.getSize();
+            if (size < 1 || size > maxPageSize) {
+                throw new IllegalArgumentException("Page size must be between 1 and " + maxPageSize);
+            }
+            LocalDateTime cursorTime = null;
+            Long cursorId = null;
+            if (query.getCursor() != null && !query.getCursor().isEmpty()) {
+                try {
+                    String[] cursor = new String(Base64.getUrlDecoder().decode(query.getCursor()), StandardCharsets.UTF_8).split("\\|", 2);
+                    cursorTime = LocalDateTime.parse(cursor[0]);
+                    cursorId = Long.valueOf(cursor[1]);
+                } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                    throw new IllegalArgumentException("Invalid cursor: " + query.getCursor());
+                }
+            }
 
-            List<DrawRecord> records = drawRecordRepository.findByActivityOrderByDrawTimeDesc(activity);
-            
-            return new UserDrawHistory(activityId, records);
+            // One extra record tells whether there is a next page
+            List<UserDrawHistory.DrawHistoryItem> history = drawRecordRepository.findHistoryPage(activityId, query.isWinnersOnly(),
+                query.getUserId(), query.getFrom(), query.getTo(), cursorTime, cursorId, PageRequest.of(0, size + 1));
+            String nextCursor = null;
+            if (history.size() > size) {
+                history = history.subList(0, size);
+                nextCursor = encodeCursor(history.get(size - 1));
+            }
+
+            return new UserDrawHistory(activityId, history, nextCursor);
         } catch (Exception e) {
             System.err.println("Error in getDrawHistoryForActivity: " + e.getMessage());
             e.printStackTrace();
             throw e;
         }
     }
+
+    /**
+     * Export every draw of an activity, oldest first. The activity is checked here; the rows are
+     * read when the returned body is written, so a failure after that truncates the download
+     * rather than turning into an error response.
+     * @param activityId Activity identifier
+     * @param format Output format
+     * @param winnersOnly Only draws that won a prize
+     * @return Body writing the gzip-compressed export
+     */
+    public StreamingResponseBody exportDrawHistory(Long activityId, ExportFormat format, boolean winnersOnly) {
+        if (!activityRepository.existsById(activityId)) {
+            throw new IllegalArgumentException("Activity not found: " + activityId);
+        }
+        return out -> {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, BUFFER_BYTES);
+            Writer writer = new BufferedWriter(new OutputStreamWriter(gzip, StandardCharsets.UTF_8), BUFFER_BYTES);
+            ExportRowWriter rows = format == ExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(writer);
+            long[] count = new long[1];
+            // PostgreSQL only streams with a fetch size inside a transaction; elsewhere it reads the whole result
+            TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+            readOnly.setReadOnly(true);
+            try {
+                readOnly.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+                    PreparedStatement statement = connection.prepareStatement(EXPORT_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                    statement.setFetchSize(exportFetchSize);
+                    statement.setLong(1, activityId);
+                    statement.setBoolean(2, winnersOnly);
+                    return statement;
+                }, (RowCallbackHandler) rs -> {
+                    try {
+                        rows.write(rs);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    count[0]++;
+                }));
+            } catch (UncheckedIOException e) {
+                // Mostly the client going away
+                logger.warn("Export of activity {} stopped after {} rows: {}", activityId, count[0], e.getCause().getMessage());
+                throw e.getCause();
+            }
+            rows.flush();
+            gzip.finish();
+            logger.info("Exported {} draws of activity {} as {}", count[0], activityId, format);
+        };
+    }
+
+    /**
+     * Export formats, with the file extension of their download
+     */
+    public enum ExportFormat {
+        CSV("csv"),
+        NDJSON("ndjson");
+
+        private final String extension;
+
+        ExportFormat(String extension) {
+            this.extension = extension;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static ExportFormat parse(String format) {
+            try {
+                return valueOf(format.toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unsupported export format: " + format);
+            }
+        }
+    }
+
+    /**
+     * Writes the current row of the export query
+     */
+    private interface ExportRowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void flush() throws IOException;
+    }
+
+    private static final class CsvRowWriter implements ExportRowWriter {
+        private final Writer writer;
+
+        private CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write("recordId,userId,username,prizeId,prizeName,drawTime\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            writer.write(Long.toString(rs.getLong(1)));
+            writer.write(',');
+            writer.write(Long.toString(rs.getLong(2)));
+            writer.write(',');
+            writeField(rs.getString(3));
+            writer.write(',');
+            long prizeId = rs.getLong(4);
+            if (!rs.wasNull()) {
+                writer.write(Long.toString(prizeId));
+            }
+            writer.write(',');
+            writeField(rs.getString(5));
+            writer.write(',');
+            writer.write(drawTime(rs));
+            writer.write('\n');
+        }
+
+        /**
+         * RFC 4180 quoting: fields holding a comma, quote or line break are quoted, quotes doubled
+         */
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+
+    private static final class NdjsonRowWriter implements ExportRowWriter {
+        private final JsonGenerator json;
+
+        private NdjsonRowWriter(Writer writer) throws IOException {
+            this.json = JSON_FACTORY.createGenerator(writer);
+            // Rows are separated by the newline written after each one
+            json.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            json.writeStartObject();
+            json.writeNumberField("recordId", rs.getLong(1));
+            json.writeNumberField("userId", rs.getLong(2));
+            json.writeStringField("username", rs.getString(3));
+            long prizeId = rs.getLong(4);
+            if (rs.wasNull()) {
+                json.writeNullField("prizeId");
+            } else {
+                json.writeNumberField("prizeId", prizeId);
+            }
+            json.writeStringField("prizeName", rs.getString(5));
+            json.writeStringField("drawTime", drawTime(rs));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            json.flush();
+        }
+    }
+
+    private static String drawTime(ResultSet rs) throws SQLException {
+        Timestamp drawTime = rs.getTimestamp(6);
+        return DateTimeFormatter.ISO_LOCAL_DATE_TIME.format(drawTime.toLocalDateTime());
+    }
+
+    static String encodeCursor(UserDrawHistory.DrawHistoryItem item) {
+        String cursor = item.getDrawTime() + "|" + item.getRecordId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
 } 
\ No newline at end of file
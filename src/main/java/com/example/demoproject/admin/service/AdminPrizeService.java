@@ -4,14 +4,29 @@ import com.example.demoproject.admin.dto.PrizeResponse;
 import com.example.demoproject.admin.dto.UpdatePrizeRequest;
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.PrizeSegmentMultiplier;
 import com.example.demoproject.luckydraw.repository.ActivityRepository;
 import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.repository.PrizeSegmentMultiplierRepository;
+import com.example.demoproject.luckydraw.service.DrawMetadataCache;
+import com.example.demoproject.luckydraw.service.PrizeBucketInventory;
+import com.example.demoproject.luckydraw.service.PrizeInventoryLedger;
+import com.example.demoproject.luckydraw.service.PrizeUnitInventory;
+import com.example.demoproject.luckydraw.service.TicketRollService;
 import com.example.demoproject.luckydraw.service.UserActivityService;
+import com.example.demoproject.luckydraw.util.PrizeSelectionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -29,7 +44,40 @@ public class AdminPrizeService {
     @Autowired
     private UserActivityService userActivityService;
 
+    @Autowired
+    private PrizeSelectionUtil prizeSelectionUtil;
+
+    @Autowired
+    private PrizeInventoryLedger prizeInventoryLedger;
+
+    @Autowired
+    private DrawMetadataCache drawMetadataCache;
+
+    @Autowired
+    private PrizeBucketInventory prizeBucketInventory;
+
+    @Autowired
+    private TicketRollService ticketRollService;
+
+    @Autowired
+    private PrizeUnitInventory prizeUnitInventory;
+
+    @Autowired
+    private PrizeSegmentMultiplierRepository prizeSegmentMultiplierRepository;
+
+    /**
+     * Update a prize, its inventory and its segment multipliers in one transaction. Caches are
+     * dropped once it commits, so draws never reload the old rows into them.
+     */
+    @Transactional
     public PrizeResponse updatePrize(Long activityId, Long prizeId, UpdatePrizeRequest request) {
+        if (ticketRollService.isEnabled(activityId)) {
+            throw new IllegalStateException("Prizes of activity " + activityId + " are fixed by its ticket roll");
+        }
+
+        // Write pending ledger decrements first so the admin edits the real remaining quantity
+        prizeInventoryLedger.flush();
+
         Prize prize = prizeRepository.findById(prizeId)
             .orElseThrow(() -> new IllegalArgumentException("Prize not found: " + prizeId));
 
@@ -37,6 +85,12 @@ public class AdminPrizeService {
             throw new IllegalArgumentException("Prize does not belong to activity: " + activityId);
         }
 
+        // Draws decrement the quantity with bulk updates that bump the version; refuse to
+        // overwrite them with a quantity the admin read before those draws
+        if (!request.getVersion().equals(prize.getVersion())) {
+            throw new ObjectOptimisticLockingFailureException(Prize.class, prizeId);
+        }
+
         PrizeAuditData oldData = new PrizeAuditData(
             prize.getName(),
             prize.getDescription(),
@@ -44,15 +98,48 @@ public class AdminPrizeService {
             prize.getProbability()
         );
 
+        if (request.getSegmentMultipliers() != null) {
+            validateSegmentMultipliers(request.getSegmentMultipliers());
+        }
         // Validate total probability before updating
-        validateTotalProbability(activityId, prizeId, request.getProbability());
+        validateTotalProbability(activityId, prizeId, request.getProbability(), request.getSegmentMultipliers());
+
+        if (prizeBucketInventory.isEnabled()) {
+            // The prizes row holds the last split; units the buckets handed out since then are awarded.
+            // Locked until commit, so no draw takes a unit between this count and the resize
+            Integer left = prizeBucketInventory.lockRemaining(prizeId);
+            if (left != null) {
+                prize.setAwardedCount(prize.getAwardedCount() + Math.max(0, prize.getQuantity() - left));
+            }
+        }
 
         prize.setName(request.getName());
         prize.setQuantity(request.getQuantity());
         prize.setDescription(request.getDescription());
         prize.setProbability(request.getProbability());
 
-        Prize savedPrize = prizeRepository.save(prize);
+        // Flush so the response carries the version the next edit has to send
+        Prize savedPrize = prizeRepository.saveAndFlush(prize);
+        if (prizeBucketInventory.isEnabled()) {
+            prizeBucketInventory.resize(prizeId, savedPrize.getQuantity());
+        }
+        if (prizeUnitInventory.isEnabled()) {
+            prizeUnitInventory.resize(prizeId, savedPrize.getQuantity());
+        }
+        if (request.getSegmentMultipliers() != null) {
+            replaceSegmentMultipliers(activityId, prizeId, request.getSegmentMultipliers());
+        }
+
+        // The samplers only depend on probabilities and multipliers; quantity is checked live on every draw
+        boolean resample = oldData.getProbability().compareTo(savedPrize.getProbability()) != 0
+            || request.getSegmentMultipliers() != null;
+        afterCommit(() -> {
+            prizeInventoryLedger.evict(prizeId);
+            drawMetadataCache.invalidatePrizes(activityId);
+            if (resample) {
+                prizeSelectionUtil.invalidate(activityId);
+            }
+        });
 
         PrizeAuditData newData = new PrizeAuditData(
             savedPrize.getName(),
@@ -70,7 +157,7 @@ public class AdminPrizeService {
             System.err.println("Error logging prize update audit: " + e.getMessage());
         }
         
-        return new PrizeResponse(
+        PrizeResponse response = new PrizeResponse(
             savedPrize.getId(),
             savedPrize.getName(),
             savedPrize.getDescription(),
@@ -81,6 +168,65 @@ public class AdminPrizeService {
             null, // createdAt - not available in simplified entity
             null  // updatedAt - not available in simplified entity
         );
+        response.setVersion(savedPrize.getVersion());
+        response.setSegmentMultipliers(toSegmentMultipliers(prizeSegmentMultiplierRepository.findByPrizeId(prizeId)).get(prizeId));
+        return response;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Make the prize's multiplier rows match the requested ones: update kept segments, add new
+     * ones and delete the rest
+     */
+    private void replaceSegmentMultipliers(Long activityId, Long prizeId, Map<String, BigDecimal> multipliers) {
+        Map<String, PrizeSegmentMultiplier> existing = new HashMap<>();
+        prizeSegmentMultiplierRepository.findByPrizeId(prizeId).forEach(row -> existing.put(row.getSegment(), row));
+
+        List<PrizeSegmentMultiplier> rows = new ArrayList<>();
+        multipliers.forEach((segment, multiplier) -> {
+            PrizeSegmentMultiplier row = existing.remove(segment);
+            if (row == null) {
+                row = new PrizeSegmentMultiplier(activityId, prizeId, segment, multiplier);
+            } else {
+                row.setMultiplier(multiplier);
+            }
+            rows.add(row);
+        });
+        prizeSegmentMultiplierRepository.deleteAll(existing.values());
+        prizeSegmentMultiplierRepository.saveAll(rows);
+    }
+
+    /**
+     * Segments are matched against the login token as is; a multiplier scales the prize's probability
+     * @throws IllegalArgumentException if a segment is blank or too long, or a multiplier is missing or negative
+     */
+    private void validateSegmentMultipliers(Map<String, BigDecimal> multipliers) {
+        multipliers.forEach((segment, multiplier) -> {
+            if (segment == null || segment.isBlank() || segment.length() > 32) {
+                throw new IllegalArgumentException("Segment must be 1 to 32 characters: " + segment);
+            }
+            if (multiplier == null || multiplier.signum() < 0) {
+                throw new IllegalArgumentException("Multiplier of segment " + segment + " must be non-negative");
+            }
+        });
+    }
+
+    private Map<Long, Map<String, BigDecimal>> toSegmentMultipliers(List<PrizeSegmentMultiplier> rows) {
+        Map<Long, Map<String, BigDecimal>> byPrize = new HashMap<>();
+        rows.forEach(row -> byPrize.computeIfAbsent(row.getPrizeId(), id -> new HashMap<>()).put(row.getSegment(), row.getMultiplier()));
+        return byPrize;
     }
 
     /**
@@ -112,21 +258,44 @@ public class AdminPrizeService {
                 .orElseThrow(() -> new IllegalArgumentException("Activity not found: " + activityId));
             List<Prize> prizes = prizeRepository.findByActivity(activity);
             System.out.println("DEBUG: Found " + prizes.size() + " prizes for activity " + activityId);
+
+            // With bucketed inventory the prizes row keeps the last split; the buckets hold what is left
+            Map<Long, Integer> bucketRemaining = prizeBucketInventory.isEnabled()
+                ? prizeBucketInventory.getRemaining(prizes.stream().map(Prize::getId).toList())
+                : Map.of();
+            // Unit rows: only unclaimed units count, a prize without any has none left
+            Map<Long, Integer> unitRemaining = prizeUnitInventory.isEnabled()
+                ? prizeUnitInventory.getRemaining(prizes.stream().map(Prize::getId).toList())
+                : null;
+            Map<Long, Map<String, BigDecimal>> segmentMultipliers =
+                toSegmentMultipliers(prizeSegmentMultiplierRepository.findByActivityId(activityId));
+            // A ticket roll holds the activity's whole prize budget
+            Map<Long, Integer> rollRemaining = ticketRollService.isEnabled(activityId)
+                ? ticketRollService.getRemaining(activityId)
+                : null;
             
             List<PrizeResponse> responses = prizes.stream()
                 .map(prize -> {
                     System.out.println("DEBUG: Processing prize: " + prize.getName() + " (ID: " + prize.getId() + ")");
-                    return new PrizeResponse(
+                    Integer quantity = rollRemaining != null
+                        ? rollRemaining.getOrDefault(prize.getId(), 0)
+                        : unitRemaining != null
+                        ? unitRemaining.getOrDefault(prize.getId(), 0)
+                        : bucketRemaining.getOrDefault(prize.getId(), prize.getQuantity());
+                    PrizeResponse response = new PrizeResponse(
                         prize.getId(),
                         prize.getName(),
                         prize.getDescription(),
-                        prize.getQuantity(),
-                        prize.getQuantity(),
+                        quantity,
+                        quantity,
                         prize.getProbability(),
                         prize.getActivity().getId(),
                         null, // createdAt - not available in simplified entity
                         null  // updatedAt - not available in simplified entity
                     );
+                    response.setVersion(prize.getVersion());
+                    response.setSegmentMultipliers(segmentMultipliers.get(prize.getId()));
+                    return response;
                 })
                 .collect(Collectors.toList());
             
@@ -140,13 +309,16 @@ public class AdminPrizeService {
     }
 
     /**
-     * Validate that the total probability of all prizes in an activity is ≤ 1.0
+     * Validate that the total probability of all prizes in an activity is ≤ 1.0, both as configured
+     * and for every user segment with its multipliers applied
      * @param activityId The activity ID
      * @param currentPrizeId The current prize being updated (exclude from calculation)
      * @param newProbability The new probability for the current prize
+     * @param newMultipliers The new segment multipliers of the current prize, or null to keep the stored ones
      * @throws IllegalArgumentException if total probability exceeds 1.0
      */
-    private void validateTotalProbability(Long activityId, Long currentPrizeId, BigDecimal newProbability) {
+    private void validateTotalProbability(Long activityId, Long currentPrizeId, BigDecimal newProbability,
+                                          Map<String, BigDecimal> newMultipliers) {
         Activity activity = activityRepository.findById(activityId)
             .orElseThrow(() -> new IllegalArgumentException("Activity not found: " + activityId));
         
@@ -174,5 +346,31 @@ public class AdminPrizeService {
                     newProbability)
             );
         }
+
+        // The samplers clamp a segment's total at 1.0, which would silently leave its last prizes unwinnable
+        Map<String, Map<Long, BigDecimal>> multipliersBySegment = new HashMap<>();
+        for (PrizeSegmentMultiplier row : prizeSegmentMultiplierRepository.findByActivityId(activityId)) {
+            if (newMultipliers == null || !row.getPrizeId().equals(currentPrizeId)) {
+                multipliersBySegment.computeIfAbsent(row.getSegment(), segment -> new HashMap<>())
+                    .put(row.getPrizeId(), row.getMultiplier());
+            }
+        }
+        if (newMultipliers != null) {
+            newMultipliers.forEach((segment, multiplier) ->
+                multipliersBySegment.computeIfAbsent(segment, s -> new HashMap<>()).put(currentPrizeId, multiplier));
+        }
+        multipliersBySegment.forEach((segment, multipliers) -> {
+            BigDecimal segmentTotal = BigDecimal.ZERO;
+            for (Prize prize : prizes) {
+                if (!prize.getId().equals(currentPrizeId)) {
+                    segmentTotal = segmentTotal.add(prize.getProbability().multiply(multipliers.getOrDefault(prize.getId(), BigDecimal.ONE)));
+                }
+            }
+            segmentTotal = segmentTotal.add(newProbability.multiply(multipliers.getOrDefault(currentPrizeId, BigDecimal.ONE)));
+            if (segmentTotal.compareTo(BigDecimal.ONE) > 0) {
+                throw new IllegalArgumentException(
+                    String.format("Total probability for segment %s (%.4f) exceeds 1.0", segment, segmentTotal));
+            }
+        });
     }
 } 
\ No newline at end of file
@@ -2,7 +2,6 @@ package com.example.demoproject.admin.service;
 
 import com.example.demoproject.admin.dto.CreateUserRequest;
 import com.example.demoproject.admin.dto.UserResponse;
-import com.example.demoproject.auth.entity.User;
 import com.example.demoproject.auth.repository.AuthUserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -18,7 +17,7 @@ public class AdminUserService {
     private AuthUserRepository userRepository;
 
     public List<UserResponse> getAllUsers() {
-        List<User> users = userRepository.findAll();
+        List<AuthUserRepository.UserSummary> users = userRepository.findAllByOrderByIdAsc();
         return users.stream()
             .map(user -> new UserResponse(
                 user.getId().toString(),
@@ -1,11 +1,14 @@
 package com.example.demoproject.admin.service;
 
+import com.example.demoproject.admin.dto.AuditLogResponse;
 import com.example.demoproject.admin.entity.AuditLog;
 import com.example.demoproject.admin.repository.AuditLogRepository;
 import com.example.demoproject.auth.entity.User;
 import com.example.demoproject.auth.repository.AuthUserRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
@@ -22,7 +25,10 @@ public class AuditService {
     @Autowired
     private AuthUserRepository authUserRepository;
 
-    private final ObjectMapper objectMapper = new ObjectMapper();
+    // Audit data can carry dates (activity start and end time); write them as ISO strings
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
 
     /**
      * Log an admin action
@@ -43,14 +49,14 @@ public class AuditService {
     /**
      * Get all audit logs
      */
-    public List<AuditLog> getAllAuditLogs() {
-        return auditLogRepository.findAll();
+    public List<AuditLogResponse> getAllAuditLogs() {
+        return auditLogRepository.findAllResponses();
     }
 
     /**
      * Get audit logs by entity type
      */
-    public List<AuditLog> getAuditLogsByEntityType(String entityType) {
-        return auditLogRepository.findByEntityTypeOrderByTimestampDesc(entityType);
+    public List<AuditLogResponse> getAuditLogsByEntityType(String entityType) {
+        return auditLogRepository.findResponsesByEntityType(entityType);
     }
 } 
\ No newline at end of file
@@ -25,6 +25,10 @@ public class User implements UserDetails {
     @Column(nullable = false)
     private String role = "ROLE_USER"; // Default role
     
+    // Prize odds segment (e.g. VIP, NEW); null draws with the activity's base odds
+    @Column(length = 32)
+    private String segment;
+    
     // Constructors
     public User() {}
     
@@ -100,4 +104,12 @@ public class User implements UserDetails {
     public void setRole(String role) {
         this.role = role;
     }
+    
+    public String getSegment() {
+        return segment;
+    }
+    
+    public void setSegment(String segment) {
+        this.segment = segment;
+    }
 } 
\ No newline at end of file
@@ -4,6 +4,7 @@ import com.example.demoproject.auth.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -22,4 +23,21 @@ public interface AuthUserRepository extends JpaRepository<User, Long> {
      * @return true if user exists, false otherwise
      */
     boolean existsByUsername(String username);
+
+    /**
+     * Find every user, reading only the columns of {@link UserSummary}
+     * @return Users ordered by ID
+     */
+    List<UserSummary> findAllByOrderByIdAsc();
+
+    /**
+     * The columns of a user that lists show; password hashes stay in the database
+     */
+    interface UserSummary {
+        Long getId();
+
+        String getUsername();
+
+        String getRole();
+    }
 }
\ No newline at end of file
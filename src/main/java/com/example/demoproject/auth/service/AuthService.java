@@ -53,7 +53,7 @@ public class AuthService implements UserDetailsService {
             com.example.demoproject.auth.entity.User user = userRepository.findByUsername(userDetails.getUsername())
                 .orElseThrow(() -> new UsernameNotFoundException("User not found: " + userDetails.getUsername()));
             
-            String token = jwtUtil.generateToken(userDetails.getUsername(), role, user.getId());
+            String token = jwtUtil.generateToken(userDetails.getUsername(), role, user.getId(), user.getSegment());
             
             return new LoginResponse(token, userDetails.getUsername());
             
@@ -95,8 +95,9 @@ public class DataInitializer implements CommandLineRunner {
         
         if (!userRepository.existsByUsername("test")) {
             User testUser = new User("test", passwordEncoder.encode("test123"), "ROLE_USER");
+            testUser.setSegment("VIP");
             userRepository.save(testUser);
-            System.out.println("User created: test/test123 (ROLE_USER)");
+            System.out.println("User created: test/test123 (ROLE_USER, segment VIP)");
         }
         
         System.out.println("Users initialized successfully!");
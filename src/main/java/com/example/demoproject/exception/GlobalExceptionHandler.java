@@ -3,6 +3,7 @@ package com.example.demoproject.exception;
 import com.example.demoproject.luckydraw.dto.ErrorResponse;
 import com.example.demoproject.luckydraw.constants.ErrorConstants;
 import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -37,6 +38,19 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
     }
 
+    /**
+     * Handle optimistic locking failures (stale admin edits)
+     */
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ErrorResponse> handleOptimisticLockingFailure(OptimisticLockingFailureException e) {
+        logger.info("Handling OptimisticLockingFailureException: {}", e.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(
+            ErrorConstants.ErrorType.CONCURRENT_MODIFICATION.getCode(),
+            ErrorConstants.ErrorType.CONCURRENT_MODIFICATION.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+
     /**
      * Handle IllegalArgumentException (from calculator, admin, auth packages)
      */
@@ -0,0 +1,16 @@
+package com.example.demoproject.luckydraw.constants;
+
+/**
+ * How the winners of an activity are decided
+ */
+public enum ActivityType {
+    /**
+     * Every draw is decided on the spot (default)
+     */
+    INSTANT,
+
+    /**
+     * Users register entries while the activity runs; winners are selected in one batch once it ends
+     */
+    LOTTERY
+}
@@ -20,7 +20,11 @@ public class ErrorConstants {
         INVALID_STATE(1010, "Invalid state"),
         INVALID_OPERATION(1011, "Invalid operation"),
 
-        SYSTEM_BUSY(1012, "db is busy");
+        SYSTEM_BUSY(1012, "db is busy"),
+        CONCURRENT_MODIFICATION(1013, "The record was changed by someone else, please reload and try again"),
+        INVALID_DRAW_PASS(1014, "Draw pass is invalid, expired or already used"),
+        LOTTERY_NOT_OPEN(1015, "This lottery is not open for entries"),
+        LOTTERY_ALREADY_ENTERED(1016, "You have already entered this lottery");
         
         private final int code;
         private final String message;
@@ -0,0 +1,18 @@
+package com.example.demoproject.luckydraw.constants;
+
+/**
+ * How draw requests are executed
+ * Selected with the luckydraw.execution.mode property
+ */
+public enum ExecutionMode {
+    /**
+     * Each request runs its own transaction on the Tomcat thread (default)
+     */
+    DIRECT,
+
+    /**
+     * Requests are queued per activity shard and executed in micro-batches by one worker thread per shard.
+     * Only one thread writes an activity's prizes, so draws never wait on each other's row locks.
+     */
+    SINGLE_WRITER
+}
@@ -0,0 +1,38 @@
+package com.example.demoproject.luckydraw.constants;
+
+/**
+ * How prize inventory is decremented when a draw wins
+ * Selected with the luckydraw.inventory.mode property
+ */
+public enum InventoryMode {
+    /**
+     * SELECT ... FOR UPDATE on the prize row, then save
+     */
+    PESSIMISTIC_LOCK,
+
+    /**
+     * One UPDATE ... WHERE quantity > 0 per win; the affected row count decides the win (default)
+     */
+    CONDITIONAL_UPDATE,
+
+    /**
+     * In-memory atomic counters, flushed to the prizes table in the background.
+     * Only safe when a single application node serves draws.
+     */
+    LEDGER,
+
+    /**
+     * Each prize's quantity split over several bucket rows; a win decrements one bucket
+     */
+    BUCKETED,
+
+    /**
+     * One row per prize unit; a win claims any unclaimed unit with FOR UPDATE SKIP LOCKED
+     */
+    UNIT_ROWS,
+
+    /**
+     * Decrements of concurrent winners collected over a short window and applied as one UPDATE per prize
+     */
+    COMBINING
+}
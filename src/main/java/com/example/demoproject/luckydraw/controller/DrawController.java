@@ -1,7 +1,11 @@
 package com.example.demoproject.luckydraw.controller;
 
+import com.example.demoproject.luckydraw.constants.ExecutionMode;
 import com.example.demoproject.luckydraw.dto.*;
 import com.example.demoproject.luckydraw.service.DrawExecutionService;
+import com.example.demoproject.luckydraw.service.DrawMetrics;
+import com.example.demoproject.luckydraw.service.DrawPassService;
+import com.example.demoproject.luckydraw.service.SingleWriterDrawEngine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -18,6 +22,15 @@ public class DrawController {
     @Autowired
     private DrawExecutionService drawExecutionService;
 
+    @Autowired
+    private SingleWriterDrawEngine singleWriterDrawEngine;
+
+    @Autowired
+    private DrawMetrics drawMetrics;
+
+    @Autowired
+    private DrawPassService drawPassService;
+
     /**
      * Perform a single draw
      * @param request Draw request
@@ -25,8 +38,8 @@ public class DrawController {
      */
     @PostMapping("/single")
     public ResponseEntity<DrawResult> performDraw(@Valid @RequestBody DrawRequest request) {
-        DrawResult result = drawExecutionService.performDraw(request);
-        return ResponseEntity.ok(result);
+        MultipleDrawResult result = execute(new MultipleDrawRequest(request.getActivityId(), 1));
+        return ResponseEntity.ok(result.getResults().get(0));
     }
 
     /**
@@ -36,7 +49,60 @@ public class DrawController {
      */
     @PostMapping("/multiple")
     public ResponseEntity<MultipleDrawResult> performMultipleDraws(@Valid @RequestBody MultipleDrawRequest request) {
-        MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+        MultipleDrawResult result = execute(request);
         return ResponseEntity.ok(result);
     }
-} 
\ No newline at end of file
+
+    /**
+     * Perform a bulk draw of up to 500 draws, answered with win counts per prize.
+     * Always runs in the caller's thread: one request is already one batch.
+     * @param request Bulk draw request
+     * @return Aggregated bulk draw result
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkDrawResult> performBulkDraw(@Valid @RequestBody BulkDrawRequest request) {
+        long start = System.nanoTime();
+        boolean success = false;
+        int draws = 0;
+        try {
+            BulkDrawResult result = drawExecutionService.performBulkDraw(request);
+            success = true;
+            draws = result.getTotalDraws();
+            return ResponseEntity.ok(result);
+        } finally {
+            drawMetrics.record("BULK", draws, System.nanoTime() - start, success);
+        }
+    }
+
+    /**
+     * Issue a draw pass that prepays the caller's next draws of an activity
+     * @param request Draw request naming the activity
+     * @return Signed pass with its remaining draws
+     */
+    @PostMapping("/pass")
+    public ResponseEntity<DrawPassResponse> issueDrawPass(@Valid @RequestBody DrawRequest request) {
+        return ResponseEntity.ok(drawPassService.issue(request.getActivityId()));
+    }
+
+    /**
+     * Route to the configured execution mode and record its throughput.
+     * Draws paid with a pass always run directly: a batch retry would present the pass twice.
+     */
+    private MultipleDrawResult execute(MultipleDrawRequest request) {
+        ExecutionMode mode = singleWriterDrawEngine.isEnabled() && request.getDrawPass() == null
+            ? ExecutionMode.SINGLE_WRITER : ExecutionMode.DIRECT;
+        long start = System.nanoTime();
+        boolean success = false;
+        int draws = 0;
+        try {
+            MultipleDrawResult result = mode == ExecutionMode.SINGLE_WRITER
+                ? singleWriterDrawEngine.submit(request)
+                : drawExecutionService.performMultipleDraws(request);
+            success = true;
+            draws = result.getTotalDraws();
+            return result;
+        } finally {
+            drawMetrics.record(mode.name(), draws, System.nanoTime() - start, success);
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.demoproject.luckydraw.controller;
+
+import com.example.demoproject.luckydraw.dto.DrawRequest;
+import com.example.demoproject.luckydraw.dto.LotteryEntryResult;
+import com.example.demoproject.luckydraw.service.LotteryService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import jakarta.validation.Valid;
+
+/**
+ * REST Controller for lottery entries
+ */
+@RestController
+@RequestMapping("/api/luckydraw/lottery")
+@CrossOrigin(origins = "*")
+public class LotteryController {
+
+    @Autowired
+    private LotteryService lotteryService;
+
+    /**
+     * Enter a lottery; winners are selected when it closes
+     * @param request Draw request naming the lottery activity
+     * @return Entry result
+     */
+    @PostMapping("/entry")
+    public ResponseEntity<LotteryEntryResult> enter(@Valid @RequestBody DrawRequest request) {
+        return ResponseEntity.ok(lotteryService.enter(request.getActivityId()));
+    }
+}
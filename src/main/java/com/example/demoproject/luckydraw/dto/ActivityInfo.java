@@ -2,6 +2,7 @@ package com.example.demoproject.luckydraw.dto;
 
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.Prize;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -13,13 +14,18 @@ public class ActivityInfo {
     private final String name;
     private final String description;
     private final Integer maxDraws;
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
     private final List<PrizeInfo> prizes;
+    private boolean soldOut;
 
     public ActivityInfo(Activity activity, List<Prize> prizes) {
         this.activityId = activity.getId();
         this.name = activity.getName();
         this.description = activity.getDescription();
         this.maxDraws = activity.getMaxDraws();
+        this.startTime = activity.getStartTime();
+        this.endTime = activity.getEndTime();
         this.prizes = prizes.stream()
             .map(PrizeInfo::new)
             .collect(Collectors.toList());
@@ -41,10 +47,26 @@ public class ActivityInfo {
         return maxDraws;
     }
 
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
     public List<PrizeInfo> getPrizes() {
         return prizes;
     }
 
+    public boolean isSoldOut() {
+        return soldOut;
+    }
+
+    public void setSoldOut(boolean soldOut) {
+        this.soldOut = soldOut;
+    }
+
     /**
      * Inner class for prize information
      */
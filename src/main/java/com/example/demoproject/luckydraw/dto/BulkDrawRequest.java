@@ -0,0 +1,55 @@
+package com.example.demoproject.luckydraw.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.Max;
+
+/**
+ * Request DTO for bulk draws ("open 500 boxes")
+ */
+public class BulkDrawRequest {
+
+    @NotNull(message = "Activity ID is required")
+    private Long activityId;
+
+    @NotNull(message = "Draw count is required")
+    @Min(value = 1, message = "Draw count must be at least 1")
+    @Max(value = 500, message = "Draw count cannot exceed 500")
+    private Integer drawCount;
+
+    /**
+     * Also return one result per draw instead of only the totals
+     */
+    private boolean includeDetails;
+
+    public BulkDrawRequest() {}
+
+    public BulkDrawRequest(Long activityId, Integer drawCount) {
+        this.activityId = activityId;
+        this.drawCount = drawCount;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(Long activityId) {
+        this.activityId = activityId;
+    }
+
+    public Integer getDrawCount() {
+        return drawCount;
+    }
+
+    public void setDrawCount(Integer drawCount) {
+        this.drawCount = drawCount;
+    }
+
+    public boolean isIncludeDetails() {
+        return includeDetails;
+    }
+
+    public void setIncludeDetails(boolean includeDetails) {
+        this.includeDetails = includeDetails;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.demoproject.luckydraw.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Aggregated result DTO for bulk draws
+ */
+public class BulkDrawResult {
+    private final Integer totalDraws;
+    private final Integer thankYouCount;
+    private final List<PrizeWinCount> wins;
+    private final LocalDateTime drawTime;
+    private List<DrawResult> results;
+
+    public BulkDrawResult(Integer totalDraws, Integer thankYouCount, List<PrizeWinCount> wins, LocalDateTime drawTime) {
+        this.totalDraws = totalDraws;
+        this.thankYouCount = thankYouCount;
+        this.wins = wins;
+        this.drawTime = drawTime;
+    }
+
+    public Integer getTotalDraws() {
+        return totalDraws;
+    }
+
+    public Integer getThankYouCount() {
+        return thankYouCount;
+    }
+
+    public List<PrizeWinCount> getWins() {
+        return wins;
+    }
+
+    public LocalDateTime getDrawTime() {
+        return drawTime;
+    }
+
+    /**
+     * One result per draw, only filled when the request asked for details
+     */
+    public List<DrawResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<DrawResult> results) {
+        this.results = results;
+    }
+
+    /**
+     * Number of units won of one prize
+     */
+    public static class PrizeWinCount {
+        private final Long prizeId;
+        private final String prizeName;
+        private final String prizeDescription;
+        private final Integer count;
+
+        public PrizeWinCount(Long prizeId, String prizeName, String prizeDescription, Integer count) {
+            this.prizeId = prizeId;
+            this.prizeName = prizeName;
+            this.prizeDescription = prizeDescription;
+            this.count = count;
+        }
+
+        public Long getPrizeId() {
+            return prizeId;
+        }
+
+        public String getPrizeName() {
+            return prizeName;
+        }
+
+        public String getPrizeDescription() {
+            return prizeDescription;
+        }
+
+        public Integer getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.demoproject.luckydraw.dto;
+
+import java.time.Instant;
+
+/**
+ * Response DTO for a draw pass
+ */
+public class DrawPassResponse {
+    private final String drawPass;
+    private final Integer remaining;
+    private final Instant expiresAt;
+
+    public DrawPassResponse(String drawPass, Integer remaining, Instant expiresAt) {
+        this.drawPass = drawPass;
+        this.remaining = remaining;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getDrawPass() {
+        return drawPass;
+    }
+
+    public Integer getRemaining() {
+        return remaining;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.demoproject.luckydraw.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * Result DTO for a lottery entry
+ */
+public class LotteryEntryResult {
+    private final Long activityId;
+    private final LocalDateTime closesAt;
+
+    public LotteryEntryResult(Long activityId, LocalDateTime closesAt) {
+        this.activityId = activityId;
+        this.closesAt = closesAt;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public LocalDateTime getClosesAt() {
+        return closesAt;
+    }
+}
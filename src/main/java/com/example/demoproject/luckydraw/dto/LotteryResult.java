@@ -0,0 +1,28 @@
+package com.example.demoproject.luckydraw.dto;
+
+/**
+ * Result DTO for the winner selection of a lottery
+ */
+public class LotteryResult {
+    private final Long activityId;
+    private final Long entries;
+    private final Integer winners;
+
+    public LotteryResult(Long activityId, Long entries, Integer winners) {
+        this.activityId = activityId;
+        this.entries = entries;
+        this.winners = winners;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public Long getEntries() {
+        return entries;
+    }
+
+    public Integer getWinners() {
+        return winners;
+    }
+}
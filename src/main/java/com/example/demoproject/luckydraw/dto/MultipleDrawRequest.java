@@ -18,6 +18,9 @@ public class MultipleDrawRequest {
     @Max(value = 10, message = "Draw count cannot exceed 10")
     private Integer drawCount;
 
+    // Optional draw pass; when present the draws are charged to the pass instead of the quota row
+    private String drawPass;
+
     public MultipleDrawRequest() {}
 
     public MultipleDrawRequest(Long activityId, Integer drawCount) {
@@ -40,4 +43,12 @@ public class MultipleDrawRequest {
     public void setDrawCount(Integer drawCount) {
         this.drawCount = drawCount;
     }
-} 
\ No newline at end of file
+
+    public String getDrawPass() {
+        return drawPass;
+    }
+
+    public void setDrawPass(String drawPass) {
+        this.drawPass = drawPass;
+    }
+}
\ No newline at end of file
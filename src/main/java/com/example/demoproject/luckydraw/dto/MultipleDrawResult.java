@@ -8,6 +8,8 @@ import java.util.List;
 public class MultipleDrawResult {
     private final List<DrawResult> results;
     private final Integer totalDraws;
+    // Next pass when the draws were paid with one
+    private DrawPassResponse drawPass;
 
     public MultipleDrawResult(List<DrawResult> results) {
         this.results = results;
@@ -21,4 +23,12 @@ public class MultipleDrawResult {
     public Integer getTotalDraws() {
         return totalDraws;
     }
-} 
\ No newline at end of file
+
+    public DrawPassResponse getDrawPass() {
+        return drawPass;
+    }
+
+    public void setDrawPass(DrawPassResponse drawPass) {
+        this.drawPass = drawPass;
+    }
+}
\ No newline at end of file
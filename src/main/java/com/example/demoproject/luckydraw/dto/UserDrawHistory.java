@@ -1,9 +1,7 @@
 package com.example.demoproject.luckydraw.dto;
 
-import com.example.demoproject.luckydraw.entity.DrawRecord;
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * DTO for user draw history
@@ -12,12 +10,16 @@ public class UserDrawHistory {
 
     private final Long activityId;
     private final List<DrawHistoryItem> history;
+    private final String nextCursor;
 
-    public UserDrawHistory(Long activityId, List<DrawRecord> records) {
+    public UserDrawHistory(Long activityId, List<DrawHistoryItem> history) {
+        this(activityId, history, null);
+    }
+
+    public UserDrawHistory(Long activityId, List<DrawHistoryItem> history, String nextCursor) {
         this.activityId = activityId;
-        this.history = records.stream()
-            .map(DrawHistoryItem::new)
-            .collect(Collectors.toList());
+        this.history = history;
+        this.nextCursor = nextCursor;
     }
 
     public Long getActivityId() {
@@ -29,7 +31,14 @@ public class UserDrawHistory {
     }
 
     /**
-     * Inner class for draw history item
+     * Cursor of the next page, null on the last page
+     */
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    /**
+     * Inner class for draw history item, built directly by the history query
      */
     public static class DrawHistoryItem {
         private final Long recordId;
@@ -38,12 +47,12 @@ public class UserDrawHistory {
         private final String prizeDescription;
         private final LocalDateTime drawTime;
 
-        public DrawHistoryItem(DrawRecord record) {
-            this.recordId = record.getId();
-            this.username = record.getUser().getUsername();
-            this.prizeName = record.getPrize() == null ? "沒有中獎" : record.getPrize().getName();
-            this.prizeDescription = record.getPrize() == null ? "沒有中獎" : record.getPrize().getDescription();
-            this.drawTime = record.getDrawTime();
+        public DrawHistoryItem(Long recordId, String username, String prizeName, String prizeDescription, LocalDateTime drawTime) {
+            this.recordId = recordId;
+            this.username = username;
+            this.prizeName = prizeName == null ? "沒有中獎" : prizeName;
+            this.prizeDescription = prizeName == null ? "沒有中獎" : prizeDescription;
+            this.drawTime = drawTime;
         }
 
         public Long getRecordId() {
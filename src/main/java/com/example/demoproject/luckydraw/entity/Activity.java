@@ -1,6 +1,8 @@
 package com.example.demoproject.luckydraw.entity;
 
+import com.example.demoproject.luckydraw.constants.ActivityType;
 import jakarta.persistence.*;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -22,6 +24,25 @@ public class Activity {
     
     @Column(nullable = false)
     private Integer maxDraws;
+
+    private LocalDateTime startTime;
+
+    private LocalDateTime endTime;
+
+    /**
+     * Release each prize's units evenly between start and end time instead of all at once
+     */
+    @Column(nullable = false)
+    private boolean paced;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private ActivityType type = ActivityType.INSTANT;
+
+    /**
+     * When the winners of a lottery were selected, null until then
+     */
+    private LocalDateTime winnersSelectedAt;
     
     @OneToMany(mappedBy = "activity", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Prize> prizes;
@@ -88,4 +109,48 @@ public class Activity {
     public void setMaxDraws(Integer maxDraws) {
         this.maxDraws = maxDraws;
     }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public void setStartTime(LocalDateTime startTime) {
+        this.startTime = startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    public void setEndTime(LocalDateTime endTime) {
+        this.endTime = endTime;
+    }
+
+    public boolean isPaced() {
+        return paced;
+    }
+
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+
+    public ActivityType getType() {
+        return type;
+    }
+
+    public void setType(ActivityType type) {
+        this.type = type;
+    }
+
+    public boolean isLottery() {
+        return type == ActivityType.LOTTERY;
+    }
+
+    public LocalDateTime getWinnersSelectedAt() {
+        return winnersSelectedAt;
+    }
+
+    public void setWinnersSelectedAt(LocalDateTime winnersSelectedAt) {
+        this.winnersSelectedAt = winnersSelectedAt;
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,57 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * How many frames of one draw journal segment are already in draw_records. Written in the same
+ * transaction as the records it counts, so a segment replayed after a crash resumes where the
+ * last load stopped instead of inserting its records twice.
+ */
+@Entity
+@Table(name = "draw_journal_checkpoints")
+public class DrawJournalCheckpoint {
+
+    @Id
+    @Column(name = "segment_id")
+    private Long segmentId;
+
+    @Column(nullable = false)
+    private Integer loadedFrames;
+
+    @Column(nullable = false)
+    private LocalDateTime loadedAt;
+
+    public DrawJournalCheckpoint() {}
+
+    public DrawJournalCheckpoint(Long segmentId, Integer loadedFrames, LocalDateTime loadedAt) {
+        this.segmentId = segmentId;
+        this.loadedFrames = loadedFrames;
+        this.loadedAt = loadedAt;
+    }
+
+    // Getters and Setters
+    public Long getSegmentId() {
+        return segmentId;
+    }
+
+    public void setSegmentId(Long segmentId) {
+        this.segmentId = segmentId;
+    }
+
+    public Integer getLoadedFrames() {
+        return loadedFrames;
+    }
+
+    public void setLoadedFrames(Integer loadedFrames) {
+        this.loadedFrames = loadedFrames;
+    }
+
+    public LocalDateTime getLoadedAt() {
+        return loadedAt;
+    }
+
+    public void setLoadedAt(LocalDateTime loadedAt) {
+        this.loadedAt = loadedAt;
+    }
+}
@@ -8,28 +8,40 @@ import java.time.LocalDateTime;
  * Draw record entity for tracking lucky draw attempts
  */
 @Entity
-@Table(name = "draw_records")
+@Table(name = "draw_records",
+       uniqueConstraints = @UniqueConstraint(name = "uk_draw_records_activity_roll_position", columnNames = {"activity_id", "roll_position"}),
+       indexes = {
+           @Index(name = "idx_draw_records_activity_time", columnList = "activity_id, draw_time, id"),
+           @Index(name = "idx_draw_records_user_activity_time", columnList = "user_id, activity_id, draw_time, id")
+       })
 public class DrawRecord {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "draw_records_seq")
+    @SequenceGenerator(name = "draw_records_seq", sequenceName = "draw_records_seq", allocationSize = 50)
     private Long id;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id")
     private User user;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "activity_id")
     private Activity activity;
     
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "prize_id")
     private Prize prize;
     
     @Column(nullable = false)
     private LocalDateTime drawTime;
 
+    /**
+     * Ticket roll position this draw claimed, null for sampled draws
+     */
+    @Column(name = "roll_position")
+    private Integer rollPosition;
+
     public DrawRecord() {}
 
     public DrawRecord(User user, Activity activity, Prize prize) {
@@ -79,4 +91,12 @@ public class DrawRecord {
     public void setDrawTime(LocalDateTime drawTime) {
         this.drawTime = drawTime;
     }
-} 
\ No newline at end of file
+
+    public Integer getRollPosition() {
+        return rollPosition;
+    }
+
+    public void setRollPosition(Integer rollPosition) {
+        this.rollPosition = rollPosition;
+    }
+}
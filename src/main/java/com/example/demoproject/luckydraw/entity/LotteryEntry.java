@@ -0,0 +1,70 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One user's entry in a lottery activity. Entries are only ever inserted; the winners are
+ * recorded as draw records when the lottery closes.
+ */
+@Entity
+@Table(name = "lottery_entries",
+       uniqueConstraints = @UniqueConstraint(name = "uk_lottery_entries_activity_user", columnNames = {"activity_id", "user_id"}),
+       indexes = @Index(name = "idx_lottery_entries_activity_id", columnList = "activity_id, id"))
+public class LotteryEntry {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "lottery_entries_seq")
+    @SequenceGenerator(name = "lottery_entries_seq", sequenceName = "lottery_entries_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(nullable = false)
+    private LocalDateTime entryTime;
+
+    public LotteryEntry() {}
+
+    public LotteryEntry(Long activityId, Long userId, LocalDateTime entryTime) {
+        this.activityId = activityId;
+        this.userId = userId;
+        this.entryTime = entryTime;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(Long activityId) {
+        this.activityId = activityId;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public LocalDateTime getEntryTime() {
+        return entryTime;
+    }
+
+    public void setEntryTime(LocalDateTime entryTime) {
+        this.entryTime = entryTime;
+    }
+}
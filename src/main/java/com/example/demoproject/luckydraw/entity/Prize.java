@@ -7,11 +7,13 @@ import java.math.BigDecimal;
  * Prize entity for lucky draw system
  */
 @Entity
-@Table(name = "prizes")
+@Table(name = "prizes",
+       indexes = @Index(name = "idx_prizes_activity_id", columnList = "activity_id"))
 public class Prize {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prizes_seq")
+    @SequenceGenerator(name = "prizes_seq", sequenceName = "prizes_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -25,6 +27,22 @@ public class Prize {
     
     @Column(nullable = false, precision = 5, scale = 4)
     private BigDecimal probability;
+
+    /**
+     * Units taken from quantity over the prize's lifetime, kept in step with it so the
+     * inventory ledger can reconcile against draw_records after a crash. Units won from
+     * inventory buckets or unit rows are added when they are folded back or re-split;
+     * ticket roll wins never count, the roll holds their units.
+     */
+    @Column(nullable = false)
+    private Integer awardedCount = 0;
+
+    /**
+     * Bumped by every inventory change, including the bulk decrements of draws,
+     * so an admin edit based on a stale read fails instead of overwriting them
+     */
+    @Version
+    private Long version;
     
     @ManyToOne
     @JoinColumn(name = "activity_id")
@@ -84,6 +102,22 @@ public class Prize {
         this.probability = probability;
     }
 
+    public Integer getAwardedCount() {
+        return awardedCount;
+    }
+
+    public void setAwardedCount(Integer awardedCount) {
+        this.awardedCount = awardedCount;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public Activity getActivity() {
         return activity;
     }
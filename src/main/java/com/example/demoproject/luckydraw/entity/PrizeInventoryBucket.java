@@ -0,0 +1,72 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * One slice of a prize's remaining quantity, used when luckydraw.inventory.mode=BUCKETED.
+ * Each thread starts decrementing at a bucket derived from its ID and the prize, and moves to the
+ * next one only when that bucket is empty. Concurrent winners of the same prize therefore usually
+ * update different rows instead of queueing on the prize row. A fixed start rather than a random
+ * one makes a request that wins the same prize twice reuse the row it already locked, instead of
+ * locking a second one in an order that could deadlock with another request.
+ */
+@Entity
+@Table(name = "prize_inventory_buckets",
+       uniqueConstraints = @UniqueConstraint(name = "uk_prize_inventory_buckets_prize_bucket", columnNames = {"prize_id", "bucket_index"}))
+public class PrizeInventoryBucket {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prize_inventory_buckets_seq")
+    @SequenceGenerator(name = "prize_inventory_buckets_seq", sequenceName = "prize_inventory_buckets_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "prize_id", nullable = false)
+    private Long prizeId;
+
+    @Column(name = "bucket_index", nullable = false)
+    private Integer bucketIndex;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    public PrizeInventoryBucket() {}
+
+    public PrizeInventoryBucket(Long prizeId, Integer bucketIndex, Integer quantity) {
+        this.prizeId = prizeId;
+        this.bucketIndex = bucketIndex;
+        this.quantity = quantity;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPrizeId() {
+        return prizeId;
+    }
+
+    public void setPrizeId(Long prizeId) {
+        this.prizeId = prizeId;
+    }
+
+    public Integer getBucketIndex() {
+        return bucketIndex;
+    }
+
+    public void setBucketIndex(Integer bucketIndex) {
+        this.bucketIndex = bucketIndex;
+    }
+
+    public Integer getQuantity() {
+        return quantity;
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+import java.math.BigDecimal;
+
+/**
+ * Odds of one prize for one user segment, as a multiplier on the prize's configured probability.
+ * Segments without a row for a prize draw it with the base probability.
+ */
+@Entity
+@Table(name = "prize_segment_multipliers",
+       uniqueConstraints = @UniqueConstraint(name = "uk_prize_segment_multipliers_prize_segment", columnNames = {"prize_id", "segment"}),
+       indexes = @Index(name = "idx_prize_segment_multipliers_activity_id", columnList = "activity_id"))
+public class PrizeSegmentMultiplier {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    @Column(name = "prize_id", nullable = false)
+    private Long prizeId;
+
+    @Column(nullable = false, length = 32)
+    private String segment;
+
+    @Column(nullable = false, precision = 10, scale = 4)
+    private BigDecimal multiplier;
+
+    public PrizeSegmentMultiplier() {}
+
+    public PrizeSegmentMultiplier(Long activityId, Long prizeId, String segment, BigDecimal multiplier) {
+        this.activityId = activityId;
+        this.prizeId = prizeId;
+        this.segment = segment;
+        this.multiplier = multiplier;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(Long activityId) {
+        this.activityId = activityId;
+    }
+
+    public Long getPrizeId() {
+        return prizeId;
+    }
+
+    public void setPrizeId(Long prizeId) {
+        this.prizeId = prizeId;
+    }
+
+    public String getSegment() {
+        return segment;
+    }
+
+    public void setSegment(String segment) {
+        this.segment = segment;
+    }
+
+    public BigDecimal getMultiplier() {
+        return multiplier;
+    }
+
+    public void setMultiplier(BigDecimal multiplier) {
+        this.multiplier = multiplier;
+    }
+}
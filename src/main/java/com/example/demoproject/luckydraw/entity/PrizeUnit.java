@@ -0,0 +1,82 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One unit of a prize, used when luckydraw.inventory.mode=UNIT_ROWS.
+ * A win claims any unclaimed unit of the prize and links it to the draw record that won it
+ */
+@Entity
+@Table(name = "prize_units",
+       indexes = @Index(name = "idx_prize_units_prize_claimed", columnList = "prize_id, claimed_at, id"))
+public class PrizeUnit {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prize_units_seq")
+    @SequenceGenerator(name = "prize_units_seq", sequenceName = "prize_units_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "prize_id", nullable = false)
+    private Long prizeId;
+
+    @Column(name = "claimed_at")
+    private LocalDateTime claimedAt;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "draw_record_id", unique = true)
+    private DrawRecord drawRecord;
+
+    /**
+     * Guards against two transactions claiming the same unit on databases without SKIP LOCKED
+     */
+    @Version
+    private Long version;
+
+    public PrizeUnit() {}
+
+    public PrizeUnit(Long prizeId) {
+        this.prizeId = prizeId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getPrizeId() {
+        return prizeId;
+    }
+
+    public void setPrizeId(Long prizeId) {
+        this.prizeId = prizeId;
+    }
+
+    public LocalDateTime getClaimedAt() {
+        return claimedAt;
+    }
+
+    public void setClaimedAt(LocalDateTime claimedAt) {
+        this.claimedAt = claimedAt;
+    }
+
+    public DrawRecord getDrawRecord() {
+        return drawRecord;
+    }
+
+    public void setDrawRecord(DrawRecord drawRecord) {
+        this.drawRecord = drawRecord;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Pre-generated, shuffled sequence of outcomes for an activity with a fixed number of draws.
+ * Once an activity has a roll, each draw claims the next position instead of sampling
+ * and decrementing prize inventory
+ */
+@Entity
+@Table(name = "ticket_rolls",
+       uniqueConstraints = @UniqueConstraint(name = "uk_ticket_rolls_activity", columnNames = "activity_id"))
+public class TicketRoll {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_rolls_seq")
+    @SequenceGenerator(name = "ticket_rolls_seq", sequenceName = "ticket_rolls_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    /**
+     * Total number of draws the activity offers
+     */
+    @Column(nullable = false)
+    private Integer size;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    public TicketRoll() {}
+
+    public TicketRoll(Long activityId, Integer size) {
+        this.activityId = activityId;
+        this.size = size;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(Long activityId) {
+        this.activityId = activityId;
+    }
+
+    public Integer getSize() {
+        return size;
+    }
+
+    public void setSize(Integer size) {
+        this.size = size;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
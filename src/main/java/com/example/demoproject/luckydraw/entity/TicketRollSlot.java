@@ -0,0 +1,67 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * One outcome of a ticket roll: the prize awarded at that position, or none for "Thank You"
+ */
+@Entity
+@Table(name = "ticket_roll_slots",
+       uniqueConstraints = @UniqueConstraint(name = "uk_ticket_roll_slots_activity_position", columnNames = {"activity_id", "position"}))
+public class TicketRollSlot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ticket_roll_slots_seq")
+    @SequenceGenerator(name = "ticket_roll_slots_seq", sequenceName = "ticket_roll_slots_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    @Column(nullable = false)
+    private Integer position;
+
+    @Column(name = "prize_id")
+    private Long prizeId;
+
+    public TicketRollSlot() {}
+
+    public TicketRollSlot(Long activityId, Integer position, Long prizeId) {
+        this.activityId = activityId;
+        this.position = position;
+        this.prizeId = prizeId;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(Long activityId) {
+        this.activityId = activityId;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public Long getPrizeId() {
+        return prizeId;
+    }
+
+    public void setPrizeId(Long prizeId) {
+        this.prizeId = prizeId;
+    }
+}
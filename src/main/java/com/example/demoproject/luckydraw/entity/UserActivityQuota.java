@@ -0,0 +1,68 @@
+package com.example.demoproject.luckydraw.entity;
+
+import jakarta.persistence.*;
+
+/**
+ * Draws used by one user in one activity, so the per-user limit can be enforced
+ * with a single conditional UPDATE instead of counting draw_records
+ */
+@Entity
+@Table(name = "user_activity_quotas",
+       uniqueConstraints = @UniqueConstraint(name = "uk_user_activity_quotas_user_activity", columnNames = {"user_id", "activity_id"}))
+public class UserActivityQuota {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "user_activity_quotas_seq")
+    @SequenceGenerator(name = "user_activity_quotas_seq", sequenceName = "user_activity_quotas_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "activity_id", nullable = false)
+    private Long activityId;
+
+    @Column(nullable = false)
+    private Integer usedDraws;
+
+    public UserActivityQuota() {}
+
+    public UserActivityQuota(Long userId, Long activityId, Integer usedDraws) {
+        this.userId = userId;
+        this.activityId = activityId;
+        this.usedDraws = usedDraws;
+    }
+
+    // Getters and Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+
+    public void setUserId(Long userId) {
+        this.userId = userId;
+    }
+
+    public Long getActivityId() {
+        return activityId;
+    }
+
+    public void setActivityId(Long activityId) {
+        this.activityId = activityId;
+    }
+
+    public Integer getUsedDraws() {
+        return usedDraws;
+    }
+
+    public void setUsedDraws(Integer usedDraws) {
+        this.usedDraws = usedDraws;
+    }
+}
@@ -1,8 +1,14 @@
 package com.example.demoproject.luckydraw.repository;
 
+import com.example.demoproject.luckydraw.constants.ActivityType;
 import com.example.demoproject.luckydraw.entity.Activity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -26,4 +32,22 @@ public interface ActivityRepository extends JpaRepository<Activity, Long> {
     boolean existsById(Long id);
     
     boolean existsByName(String name);
+
+    /**
+     * Find lotteries that have closed but have no winners yet
+     * @param type Activity type
+     * @param now Current time
+     * @return Activities due for winner selection
+     */
+    List<Activity> findByTypeAndEndTimeBeforeAndWinnersSelectedAtIsNull(ActivityType type, LocalDateTime now);
+
+    /**
+     * Mark a lottery's winners as selected, unless another job got there first
+     * @param id Activity ID
+     * @param now Selection time
+     * @return 1 if this caller claimed the selection, 0 if it was already done
+     */
+    @Modifying
+    @Query("UPDATE Activity a SET a.winnersSelectedAt = :now WHERE a.id = :id AND a.winnersSelectedAt IS NULL")
+    int claimWinnerSelection(@Param("id") Long id, @Param("now") LocalDateTime now);
 } 
\ No newline at end of file
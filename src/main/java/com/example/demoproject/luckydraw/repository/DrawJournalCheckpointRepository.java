@@ -0,0 +1,19 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.DrawJournalCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for DrawJournalCheckpoint entity
+ */
+@Repository
+public interface DrawJournalCheckpointRepository extends JpaRepository<DrawJournalCheckpoint, Long> {
+
+    /**
+     * Highest segment ID ever loaded, so new segments never reuse the ID of a deleted one
+     */
+    @Query("SELECT MAX(c.segmentId) FROM DrawJournalCheckpoint c")
+    Long findMaxSegmentId();
+}
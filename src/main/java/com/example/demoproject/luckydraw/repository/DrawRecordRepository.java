@@ -1,10 +1,15 @@
 package com.example.demoproject.luckydraw.repository;
 
 import com.example.demoproject.auth.entity.User;
+import com.example.demoproject.luckydraw.dto.UserDrawHistory;
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.DrawRecord;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -20,6 +25,14 @@ public interface DrawRecordRepository extends JpaRepository<DrawRecord, Long> {
      * @return Number of draws
      */
     long countByUserAndActivity(User user, Activity activity);
+
+    /**
+     * Count draws by user and activity IDs
+     * @param userId User ID
+     * @param activityId Activity ID
+     * @return Number of draws
+     */
+    long countByUserIdAndActivityId(Long userId, Long activityId);
     
     /**
      * Find all draws by user and activity
@@ -30,9 +43,45 @@ public interface DrawRecordRepository extends JpaRepository<DrawRecord, Long> {
     List<DrawRecord> findByUserAndActivityOrderByDrawTimeDesc(User user, Activity activity);
     
     /**
-     * Find all draws by activity
-     * @param activity Activity entity
-     * @return List of draw records
+     * Find one page of an activity's draws, newest first, after a keyset cursor. Null filters and
+     * a null cursor are ignored. Only the listed columns are read, joined in the same query.
+     * @param activityId Activity ID
+     * @param winnersOnly Only draws that won a prize
+     * @param userId Only draws of this user
+     * @param from Earliest draw time, inclusive
+     * @param to Latest draw time, exclusive
+     * @param cursorTime Draw time of the last record of the previous page
+     * @param cursorId ID of the last record of the previous page
+     * @param pageable Number of records wanted
+     * @return History items ordered by draw time and ID, descending
+     */
+    @Query("SELECT new com.example.demoproject.luckydraw.dto.UserDrawHistory$DrawHistoryItem(" +
+           "r.id, u.username, p.name, p.description, r.drawTime) " +
+           "FROM DrawRecord r JOIN r.user u LEFT JOIN r.prize p " +
+           "WHERE r.activity.id = :activityId " +
+           "AND (:winnersOnly = false OR r.prize IS NOT NULL) " +
+           "AND (:userId IS NULL OR r.user.id = :userId) " +
+           "AND (:from IS NULL OR r.drawTime >= :from) " +
+           "AND (:to IS NULL OR r.drawTime < :to) " +
+           "AND (:cursorTime IS NULL OR r.drawTime < :cursorTime OR (r.drawTime = :cursorTime AND r.id < :cursorId)) " +
+           "ORDER BY r.drawTime DESC, r.id DESC")
+    List<UserDrawHistory.DrawHistoryItem> findHistoryPage(@Param("activityId") Long activityId, @Param("winnersOnly") boolean winnersOnly,
+                                     @Param("userId") Long userId, @Param("from") LocalDateTime from,
+                                     @Param("to") LocalDateTime to, @Param("cursorTime") LocalDateTime cursorTime,
+                                     @Param("cursorId") Long cursorId, Pageable pageable);
+
+    /**
+     * Count winning draws per prize that took prize inventory; ticket roll draws don't
+     * @return Rows of [prizeId, count]
+     */
+    @Query("SELECT r.prize.id, COUNT(r) FROM DrawRecord r WHERE r.prize IS NOT NULL AND r.rollPosition IS NULL GROUP BY r.prize.id")
+    List<Object[]> countAwardedByPrize();
+
+    /**
+     * Ticket roll positions already claimed by committed draws of an activity
+     * @param activityId Activity ID
+     * @return Claimed positions, unordered
      */
-    List<DrawRecord> findByActivityOrderByDrawTimeDesc(Activity activity);
-} 
\ No newline at end of file
+    @Query("SELECT r.rollPosition FROM DrawRecord r WHERE r.activity.id = :activityId AND r.rollPosition IS NOT NULL")
+    List<Integer> findRollPositionsByActivityId(@Param("activityId") Long activityId);
+}
@@ -0,0 +1,51 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.LotteryEntry;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+/**
+ * Repository for LotteryEntry entity
+ */
+@Repository
+public interface LotteryEntryRepository extends JpaRepository<LotteryEntry, Long> {
+
+    /**
+     * Find which of the given users already entered a lottery
+     * @param activityId Activity ID
+     * @param userIds Users to check
+     * @return IDs of the users with an entry
+     */
+    @Query("SELECT e.userId FROM LotteryEntry e WHERE e.activityId = :activityId AND e.userId IN :userIds")
+    List<Long> findUserIds(@Param("activityId") Long activityId, @Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Stream the users of one ID range of a lottery's entries; only scalars are read, so the
+     * persistence context does not grow with the number of entries. Must be consumed in a transaction.
+     * @param activityId Activity ID
+     * @param fromId First entry ID of the range
+     * @param toId Last entry ID of the range
+     * @return User IDs of the entries
+     */
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT e.userId FROM LotteryEntry e WHERE e.activityId = :activityId AND e.id BETWEEN :fromId AND :toId")
+    Stream<Long> streamUserIds(@Param("activityId") Long activityId, @Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    @Query("SELECT MIN(e.id) FROM LotteryEntry e WHERE e.activityId = :activityId")
+    Long findMinId(@Param("activityId") Long activityId);
+
+    @Query("SELECT MAX(e.id) FROM LotteryEntry e WHERE e.activityId = :activityId")
+    Long findMaxId(@Param("activityId") Long activityId);
+
+    long countByActivityId(Long activityId);
+}
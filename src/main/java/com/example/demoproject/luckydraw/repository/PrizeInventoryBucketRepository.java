@@ -0,0 +1,61 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.PrizeInventoryBucket;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for PrizeInventoryBucket entity
+ */
+@Repository
+public interface PrizeInventoryBucketRepository extends JpaRepository<PrizeInventoryBucket, Long> {
+
+    /**
+     * Find the buckets of a prize
+     * @param prizeId Prize ID
+     * @return Buckets ordered by index
+     */
+    List<PrizeInventoryBucket> findByPrizeIdOrderByBucketIndex(Long prizeId);
+
+    /**
+     * Find and lock the buckets of a prize until the transaction ends, so no draw takes from them meanwhile
+     * @param prizeId Prize ID
+     * @return Locked buckets ordered by index
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM PrizeInventoryBucket b WHERE b.prizeId = :prizeId ORDER BY b.bucketIndex")
+    List<PrizeInventoryBucket> findByPrizeIdWithLock(@Param("prizeId") Long prizeId);
+
+    /**
+     * Take one unit from a single bucket
+     * @param prizeId Prize ID
+     * @param bucketIndex Bucket index
+     * @return 1 if a unit was taken, 0 if the bucket is empty or missing
+     */
+    @Modifying
+    @Query("UPDATE PrizeInventoryBucket b SET b.quantity = b.quantity - 1 " +
+           "WHERE b.prizeId = :prizeId AND b.bucketIndex = :bucketIndex AND b.quantity > 0")
+    int decrementIfAvailable(@Param("prizeId") Long prizeId, @Param("bucketIndex") int bucketIndex);
+
+    /**
+     * Sum the bucket quantities of several prizes
+     * @param prizeIds Prize IDs
+     * @return Rows of [prizeId, remaining quantity]; prizes without buckets are absent
+     */
+    @Query("SELECT b.prizeId, SUM(b.quantity) FROM PrizeInventoryBucket b WHERE b.prizeId IN :prizeIds GROUP BY b.prizeId")
+    List<Object[]> sumQuantityByPrizeIds(@Param("prizeIds") Collection<Long> prizeIds);
+
+    /**
+     * Count the buckets of every prize that has any
+     * @return Rows of [prizeId, bucket count]
+     */
+    @Query("SELECT b.prizeId, COUNT(b) FROM PrizeInventoryBucket b GROUP BY b.prizeId")
+    List<Object[]> countBucketsByPrizeId();
+}
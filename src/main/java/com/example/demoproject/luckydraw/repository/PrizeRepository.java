@@ -4,6 +4,7 @@ import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.Prize;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -33,4 +34,55 @@ public interface PrizeRepository extends JpaRepository<Prize, Long> {
     @Query("SELECT p FROM Prize p WHERE p.id = :id")
     Prize findByIdWithLock(@Param("id") Long id);
 
-} 
\ No newline at end of file
+    /**
+     * Apply decrements accumulated by the inventory ledger
+     * @param id Prize ID
+     * @param count Number of units awarded since the last flush
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Prize p SET p.quantity = CASE WHEN p.quantity > :count THEN p.quantity - :count ELSE 0 END, " +
+           "p.awardedCount = p.awardedCount + :count, p.version = p.version + 1 WHERE p.id = :id")
+    int applyLedgerDecrement(@Param("id") Long id, @Param("count") int count);
+
+    /**
+     * Take one unit of a prize in a single statement, without reading or locking it first
+     * @param id Prize ID
+     * @return 1 if a unit was taken, 0 if the prize is sold out
+     */
+    @Modifying
+    @Query("UPDATE Prize p SET p.quantity = p.quantity - 1, p.awardedCount = p.awardedCount + 1, " +
+           "p.version = p.version + 1 WHERE p.id = :id AND p.quantity > 0")
+    int decrementQuantityIfAvailable(@Param("id") Long id);
+
+    /**
+     * Take several units of a prize in a single statement
+     * @param id Prize ID
+     * @param count Units to take
+     * @return 1 if all units were taken, 0 if fewer than count are left
+     */
+    @Modifying
+    @Query("UPDATE Prize p SET p.quantity = p.quantity - :count, p.awardedCount = p.awardedCount + :count, " +
+           "p.version = p.version + 1 WHERE p.id = :id AND p.quantity >= :count")
+    int decrementQuantityBy(@Param("id") Long id, @Param("count") int count);
+
+    /**
+     * Put back units that were taken for draws which never committed
+     * @param id Prize ID
+     * @param count Units to put back
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE Prize p SET p.quantity = p.quantity + :count, p.awardedCount = p.awardedCount - :count, " +
+           "p.version = p.version + 1 WHERE p.id = :id")
+    int restoreQuantity(@Param("id") Long id, @Param("count") int count);
+
+    /**
+     * Read the current quantity of a prize, bypassing any entity already loaded in the session
+     * @param id Prize ID
+     * @return Remaining quantity, or null if the prize does not exist
+     */
+    @Query("SELECT p.quantity FROM Prize p WHERE p.id = :id")
+    Integer findQuantityById(@Param("id") Long id);
+
+}
@@ -0,0 +1,18 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.PrizeSegmentMultiplier;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for PrizeSegmentMultiplier entity
+ */
+@Repository
+public interface PrizeSegmentMultiplierRepository extends JpaRepository<PrizeSegmentMultiplier, Long> {
+
+    List<PrizeSegmentMultiplier> findByActivityId(Long activityId);
+
+    List<PrizeSegmentMultiplier> findByPrizeId(Long prizeId);
+}
@@ -0,0 +1,100 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.PrizeUnit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for PrizeUnit entity
+ */
+@Repository
+public interface PrizeUnitRepository extends JpaRepository<PrizeUnit, Long> {
+
+    /**
+     * Lock unclaimed units of a prize with FOR UPDATE SKIP LOCKED, passing over rows locked by
+     * other winners instead of waiting on them. The -2 lock timeout asks Hibernate for SKIP LOCKED;
+     * only use this on dialects that support it.
+     * @param prizeId Prize ID
+     * @param pageable Number of units wanted
+     * @return Locked units
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT u FROM PrizeUnit u WHERE u.prizeId = :prizeId AND u.claimedAt IS NULL")
+    List<PrizeUnit> findUnclaimedSkipLocked(@Param("prizeId") Long prizeId, Pageable pageable);
+
+    /**
+     * Find IDs of unclaimed units of a prize within an ID range, without locking
+     * @param prizeId Prize ID
+     * @param fromId Lowest unit ID, inclusive
+     * @param toId Highest unit ID, exclusive
+     * @param pageable Number of IDs wanted
+     * @return Unit IDs in ascending order
+     */
+    @Query("SELECT u.id FROM PrizeUnit u WHERE u.prizeId = :prizeId AND u.claimedAt IS NULL " +
+           "AND u.id >= :fromId AND u.id < :toId ORDER BY u.id")
+    List<Long> findUnclaimedIds(@Param("prizeId") Long prizeId, @Param("fromId") Long fromId,
+                                @Param("toId") Long toId, Pageable pageable);
+
+    /**
+     * Claim a unit only if nobody has claimed it yet
+     * @param id Unit ID
+     * @param claimedAt Claim time
+     * @return Number of rows updated (0 if the unit was already claimed)
+     */
+    @Modifying
+    @Query("UPDATE PrizeUnit u SET u.claimedAt = :claimedAt, u.version = u.version + 1 " +
+           "WHERE u.id = :id AND u.claimedAt IS NULL")
+    int claimIfUnclaimed(@Param("id") Long id, @Param("claimedAt") LocalDateTime claimedAt);
+
+    /**
+     * Lowest and highest unit ID of a prize
+     * @param prizeId Prize ID
+     * @return One row of [min ID, max ID], both null if the prize has no units
+     */
+    @Query("SELECT MIN(u.id), MAX(u.id) FROM PrizeUnit u WHERE u.prizeId = :prizeId")
+    List<Object[]> findIdRange(@Param("prizeId") Long prizeId);
+
+    /**
+     * Count unclaimed units of several prizes
+     * @param prizeIds Prize IDs
+     * @return Rows of [prizeId, unclaimed count]; prizes without unclaimed units are absent
+     */
+    @Query("SELECT u.prizeId, COUNT(u) FROM PrizeUnit u WHERE u.prizeId IN :prizeIds AND u.claimedAt IS NULL GROUP BY u.prizeId")
+    List<Object[]> countUnclaimedByPrizeIds(@Param("prizeIds") Collection<Long> prizeIds);
+
+    /**
+     * Count claimed units of several prizes
+     * @param prizeIds Prize IDs
+     * @return Rows of [prizeId, claimed count]; prizes without claimed units are absent
+     */
+    @Query("SELECT u.prizeId, COUNT(u) FROM PrizeUnit u WHERE u.prizeId IN :prizeIds AND u.claimedAt IS NOT NULL GROUP BY u.prizeId")
+    List<Object[]> countClaimedByPrizeIds(@Param("prizeIds") Collection<Long> prizeIds);
+
+    /**
+     * Check whether a prize has been split into units
+     * @param prizeId Prize ID
+     * @return true if any unit exists, claimed or not
+     */
+    boolean existsByPrizeId(Long prizeId);
+
+    /**
+     * Delete the unclaimed units of a prize
+     * @param prizeId Prize ID
+     * @return Number of rows deleted
+     */
+    @Modifying
+    @Query("DELETE FROM PrizeUnit u WHERE u.prizeId = :prizeId AND u.claimedAt IS NULL")
+    int deleteUnclaimed(@Param("prizeId") Long prizeId);
+}
@@ -0,0 +1,19 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.TicketRoll;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository for TicketRoll entity
+ */
+@Repository
+public interface TicketRollRepository extends JpaRepository<TicketRoll, Long> {
+
+    /**
+     * Check whether an activity already has a roll
+     * @param activityId Activity ID
+     * @return true if a roll exists
+     */
+    boolean existsByActivityId(Long activityId);
+}
@@ -0,0 +1,23 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.TicketRollSlot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+/**
+ * Repository for TicketRollSlot entity
+ */
+@Repository
+public interface TicketRollSlotRepository extends JpaRepository<TicketRollSlot, Long> {
+
+    /**
+     * Load the outcomes of a roll without materialising the slot entities
+     * @param activityId Activity ID
+     * @return Prize ID per position, null for "Thank You"
+     */
+    @Query("SELECT s.prizeId FROM TicketRollSlot s WHERE s.activityId = :activityId ORDER BY s.position")
+    List<Long> findOutcomesByActivityId(@Param("activityId") Long activityId);
+}
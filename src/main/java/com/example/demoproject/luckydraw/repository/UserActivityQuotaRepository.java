@@ -0,0 +1,50 @@
+package com.example.demoproject.luckydraw.repository;
+
+import com.example.demoproject.luckydraw.entity.UserActivityQuota;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+/**
+ * Repository for UserActivityQuota entity
+ */
+@Repository
+public interface UserActivityQuotaRepository extends JpaRepository<UserActivityQuota, Long> {
+
+    /**
+     * Find the quota row of a user in an activity
+     * @param userId User ID
+     * @param activityId Activity ID
+     * @return Optional quota
+     */
+    Optional<UserActivityQuota> findByUserIdAndActivityId(Long userId, Long activityId);
+
+    /**
+     * Add draws to the used count only if the result stays within the limit
+     * @param userId User ID
+     * @param activityId Activity ID
+     * @param count Draws to consume
+     * @param maxDraws Per-user limit of the activity
+     * @return 1 if consumed, 0 if the limit would be exceeded or no row exists
+     */
+    @Modifying
+    @Query("UPDATE UserActivityQuota q SET q.usedDraws = q.usedDraws + :count " +
+           "WHERE q.userId = :userId AND q.activityId = :activityId AND q.usedDraws + :count <= :maxDraws")
+    int tryConsume(@Param("userId") Long userId, @Param("activityId") Long activityId,
+                   @Param("count") int count, @Param("maxDraws") int maxDraws);
+
+    /**
+     * Give back draws that were consumed but never recorded
+     * @param userId User ID
+     * @param activityId Activity ID
+     * @param count Draws to release
+     * @return Number of rows updated
+     */
+    @Modifying
+    @Query("UPDATE UserActivityQuota q SET q.usedDraws = q.usedDraws - :count " +
+           "WHERE q.userId = :userId AND q.activityId = :activityId AND q.usedDraws >= :count")
+    int release(@Param("userId") Long userId, @Param("activityId") Long activityId, @Param("count") int count);
+}
@@ -3,6 +3,7 @@ package com.example.demoproject.luckydraw.service;
 import com.example.demoproject.luckydraw.entity.*;
 import com.example.demoproject.luckydraw.repository.*;
 import com.example.demoproject.luckydraw.dto.*;
+import com.example.demoproject.luckydraw.util.PrizeSelectionUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
@@ -16,16 +17,25 @@ import java.util.ArrayList;
 public class ActivityInfoService {
 
     @Autowired
-    private ActivityRepository activityRepository;
+    private DrawMetadataCache drawMetadataCache;
+
+    @Autowired
+    private PrizeSelectionUtil prizeSelectionUtil;
 
     /**
      * Get all available activities for users
+     * Activities come from the metadata cache; those whose prizes have all run out are flagged
+     * sold out from in-memory stock flags
      * @return List of available activities
      */
     public List<ActivityInfo> getAvailableActivities() {
-        List<Activity> activities = activityRepository.findAll();
+        List<Activity> activities = drawMetadataCache.getAllActivities();
         return activities.stream()
-            .map(activity -> new ActivityInfo(activity, new ArrayList<>()))
+            .map(activity -> {
+                ActivityInfo info = new ActivityInfo(activity, new ArrayList<>());
+                info.setSoldOut(prizeSelectionUtil.isSoldOut(activity.getId()));
+                return info;
+            })
             .collect(Collectors.toList());
     }
 } 
\ No newline at end of file
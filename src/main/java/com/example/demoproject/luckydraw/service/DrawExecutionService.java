@@ -4,19 +4,22 @@ import com.example.demoproject.luckydraw.entity.*;
 import com.example.demoproject.luckydraw.repository.*;
 import com.example.demoproject.luckydraw.dto.*;
 import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.constants.ExecutionMode;
+import com.example.demoproject.luckydraw.constants.InventoryMode;
 import com.example.demoproject.luckydraw.exception.LuckyDrawException;
 import com.example.demoproject.luckydraw.util.PrizeSelectionUtil;
 import jakarta.persistence.LockTimeoutException;
 import jakarta.persistence.PessimisticLockException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import com.example.demoproject.auth.entity.User;
 import com.example.demoproject.auth.repository.AuthUserRepository;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.time.LocalDateTime;
+import java.math.BigDecimal;
 import java.util.*;
-import java.util.ArrayList;
+import java.util.function.Supplier;
 
 /**
  * Service for executing draw operations
@@ -42,12 +45,50 @@ public class DrawExecutionService {
     @Autowired
     private PrizeSelectionUtil prizeSelectionUtil;
 
+    @Autowired
+    private PrizeInventoryLedger prizeInventoryLedger;
+
+    @Autowired
+    private DrawQuotaService drawQuotaService;
+
+    @Autowired
+    private PrizeBucketInventory prizeBucketInventory;
+
+    @Autowired
+    private TicketRollService ticketRollService;
+
+    @Autowired
+    private PrizeUnitInventory prizeUnitInventory;
+
+    @Autowired
+    private PrizeDecrementCombiner prizeDecrementCombiner;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DrawMetrics drawMetrics;
+
+    @Autowired
+    private SingleStatementDrawCommit singleStatementDrawCommit;
+
+    @Autowired
+    private PrizePacer prizePacer;
+
+    @Autowired
+    private DrawPassService drawPassService;
+
+    @Autowired
+    private DrawJournal drawJournal;
+
+    @Value("${luckydraw.inventory.mode:CONDITIONAL_UPDATE}")
+    private InventoryMode inventoryMode = InventoryMode.CONDITIONAL_UPDATE;
+
     /**
      * Perform a single draw
      * @param request Draw request
      * @return Draw result
      */
-    @Transactional
     public DrawResult performDraw(DrawRequest request) {
         MultipleDrawRequest multipleRequest = new MultipleDrawRequest(request.getActivityId(), 1);
         MultipleDrawResult result = performMultipleDraws(multipleRequest);
@@ -55,50 +96,614 @@ public class DrawExecutionService {
     }
 
     /**
-     * Perform multiple draws (or single draw with count=1)
+     * Perform multiple draws (or single draw with count=1).
+     * Outcomes are picked before the transaction starts, so the connection is only held for the
+     * quota reservation, the inventory decrements and the record inserts.
      * @param request Multiple draw request
      * @return Multiple draw results
      */
-    @Transactional
     public MultipleDrawResult performMultipleDraws(MultipleDrawRequest request) {
-        List<DrawResult> results = new ArrayList<>();
+        if (request.getDrawPass() != null) {
+            return performPassDraws(userActivityService.getCurrentUserId(), userActivityService.getCurrentSegment(), request);
+        }
+        DrawPlan plan = planDraws(userActivityService.getCurrentUserId(), userActivityService.getCurrentSegment(), request);
+        if (plan.selections != null && singleStatementDrawCommit.isEnabled() && !drawJournal.isEnabled()) {
+            List<DrawRecord> records = commitInOneStatement(ExecutionMode.DIRECT.name(), plan.userId, plan.activity, plan.availablePrizes, plan.selections);
+            if (records != null) {
+                return new MultipleDrawResult(toDrawResults(records));
+            }
+            // No quota row yet, or the limit is reached: the JPA path creates the row or reports the limit
+        }
+        takeCombinedUnits(plan);
+        List<DrawRecord> records;
+        try {
+            records = inTransaction(ExecutionMode.DIRECT.name(), () -> commitDraws(plan));
+        } catch (RuntimeException e) {
+            giveBackCombinedUnits(plan.availablePrizes, plan.combinedUnits);
+            throw e;
+        }
+        return new MultipleDrawResult(toDrawResults(records));
+    }
 
-        Long userId = userActivityService.getCurrentUserId();
-        User user = authUserRepository.findById(userId)
-            .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
+    /**
+     * Draws paid with a draw pass: the quota row is neither read nor written, so the database is
+     * only reached to take inventory and insert the records
+     */
+    private MultipleDrawResult performPassDraws(Long userId, String segment, MultipleDrawRequest request) {
+        DrawPassService.Redemption redemption = drawPassService.redeem(userId, request.getActivityId(), request.getDrawPass(), request.getDrawCount());
+        DrawPassResponse[] nextPass = new DrawPassResponse[1];
+        List<DrawRecord> records;
+        try {
+            DrawPlan plan = planDraws(userId, segment, request);
+            if (plan.selections == null) {
+                // Roll activities hand quota back on their own; passes are not issued for them
+                throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_DRAW_PASS);
+            }
+            plan.prepaid = true;
+            takeCombinedUnits(plan);
+            try {
+                records = inTransaction(ExecutionMode.DIRECT.name(), () -> {
+                    List<DrawRecord> committed = commitDraws(plan);
+                    nextPass[0] = drawPassService.complete(redemption, committed.size());
+                    return committed;
+                });
+            } catch (RuntimeException e) {
+                giveBackCombinedUnits(plan.availablePrizes, plan.combinedUnits);
+                throw e;
+            }
+        } catch (RuntimeException e) {
+            drawPassService.abandon(redemption);
+            throw e;
+        }
+        MultipleDrawResult result = new MultipleDrawResult(toDrawResults(records));
+        result.setDrawPass(nextPass[0]);
+        return result;
+    }
 
-        Activity activity = drawValidationService.findActivity(request.getActivityId());
-        drawValidationService.validateUserMultipleDrawLimit(request.getActivityId(), request.getDrawCount(), activity.getMaxDraws());
+    /**
+     * Run the draws of one request inside the caller's transaction.
+     * Not transactional on its own so a batch worker can run several requests in one transaction;
+     * validation errors are thrown before anything is written.
+     * @param userId User performing the draws
+     * @param segment Prize odds segment of the user, taken from the login token
+     * @param request Multiple draw request
+     * @return Multiple draw results
+     */
+    public MultipleDrawResult executeDraws(Long userId, String segment, MultipleDrawRequest request) {
+        return new MultipleDrawResult(toDrawResults(commitDraws(planDraws(userId, segment, request))));
+    }
+
+    /**
+     * Turn a draw away once every prize of the activity is gone, using only cached metadata.
+     * Activities with a ticket roll are left to the roll, which knows when it is used up.
+     * @param activityId Activity ID
+     * @throws LuckyDrawException NO_PRIZES_AVAILABLE if the activity is sold out
+     */
+    public void rejectIfSoldOut(Long activityId) {
+        Activity activity = drawValidationService.findActivity(activityId);
+        if (!ticketRollService.isEnabled(activity.getId())) {
+            rejectIfSoldOut(drawValidationService.getAvailablePrizes(activity));
+        }
+    }
+
+    private void rejectIfSoldOut(List<Prize> availablePrizes) {
+        if (prizeSelectionUtil.isSoldOut(availablePrizes)) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
+        }
+    }
+
+    /**
+     * Lottery winners are selected when the lottery closes, not drawn on request
+     */
+    private void rejectIfLottery(Activity activity) {
+        if (activity.isLottery()) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_OPERATION);
+        }
+    }
 
+    /**
+     * Everything that needs no connection: cached metadata and the random outcomes
+     */
+    private DrawPlan planDraws(Long userId, String segment, MultipleDrawRequest request) {
+        Activity activity = drawValidationService.findActivity(request.getActivityId());
+        rejectIfLottery(activity);
         List<Prize> availablePrizes = drawValidationService.getAvailablePrizes(activity);
-        //todo I shouldn't save drawRecords one my one I should just put in the list and save once
+        DrawPlan plan = new DrawPlan(userId, activity, availablePrizes, request.getDrawCount());
+        if (ticketRollService.isEnabled(activity.getId())) {
+            // Outcomes come from the claimed roll positions
+            return plan;
+        }
+        rejectIfSoldOut(availablePrizes);
+
+        Map<Long, BigDecimal> multipliers = drawValidationService.getSegmentMultipliers(activity, segment);
+        plan.selections = new ArrayList<>(request.getDrawCount());
         for (int i = 0; i < request.getDrawCount(); i++) {
+            try {
+                Prize selected = prizeSelectionUtil.selectPrize(availablePrizes, segment, multipliers);
+                // A paced prize without a released unit left is a blank, decided without the database
+                plan.selections.add(selected != null && prizePacer.tryAcquire(activity, selected) ? selected : null);
+            } catch (Exception e) {
+                e.printStackTrace();
+                break;
+            }
+        }
+        return plan;
+    }
+
+    /**
+     * The transactional part of a draw: reserve quota, take inventory and insert the records
+     */
+    private List<DrawRecord> commitDraws(DrawPlan plan) {
+        Activity activity = plan.activity;
+        if (!plan.prepaid) {
+            drawValidationService.validateUserMultipleDrawLimit(plan.userId, activity.getId(), plan.drawCount, activity.getMaxDraws());
+        }
+
+        // Only the foreign key is needed for the draw records, so skip loading the user
+        User user = authUserRepository.getReferenceById(plan.userId);
+
+        if (plan.selections == null) {
+            return commitRollDraws(plan.userId, user, activity, plan.availablePrizes, plan.drawCount);
+        }
+
+        // Take inventory in prize ID order: requests winning several prizes then lock rows in the
+        // same order and cannot deadlock each other
+        List<Prize> selections = plan.selections;
+        Integer[] order = new Integer[selections.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> selections.get(i) == null ? 0L : selections.get(i).getId()));
+
+        boolean[] done = new boolean[selections.size()];
+        PrizeUnit[] units = new PrizeUnit[selections.size()];
+        for (int i : order) {
+            Prize selectedPrize = selections.get(i);
+            if (selectedPrize != null) {
+                try {
+                    if (prizeUnitInventory.isEnabled()) {
+                        units[i] = claimPrizeUnit(selectedPrize);
+                    } else if (plan.combinedUnits == null) {
+                        updatePrizeInventory(selectedPrize);
+                    }
+                } catch (LuckyDrawException e) {
+                    if (e.getErrorCode() == ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE.getCode()) {
+                        prizeSelectionUtil.markSoldOut(selectedPrize);
+                    }
+                    selections.set(i, null);
+                    e.printStackTrace();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                    break;
+                }
+            }
+            done[i] = true;
+        }
+
+        List<DrawRecord> records = new ArrayList<>(selections.size());
+        for (int i = 0; i < selections.size(); i++) {
+            if (!done[i]) {
+                continue;
+            }
             DrawRecord record = new DrawRecord(
                     user,
                     activity,
-                    null
+                    selections.get(i)
             );
+            if (units[i] != null) {
+                // Managed entity: the link is written on flush, after the record is inserted
+                units[i].setDrawRecord(record);
+            }
+            records.add(record);
+        }
+
+        // Sequence-generated IDs let Hibernate send all records as one JDBC batch
+        saveRecords(records);
+        // Draws can be dropped on an unexpected error; don't charge the user for draws never made
+        if (!plan.prepaid) {
+            drawQuotaService.release(plan.userId, activity.getId(), plan.drawCount - records.size());
+        }
+        return records;
+    }
+
+    /**
+     * Draws of an activity with a ticket roll: outcomes come from the claimed positions,
+     * so there is no sampling and no prize inventory to take
+     */
+    private List<DrawRecord> commitRollDraws(Long userId, User user, Activity activity, List<Prize> availablePrizes, int drawCount) {
+        List<TicketRollService.Claim> claims = claimFromRoll(userId, activity, drawCount);
+        Map<Long, Prize> prizesById = new HashMap<>();
+        availablePrizes.forEach(prize -> prizesById.put(prize.getId(), prize));
+
+        List<DrawRecord> records = new ArrayList<>(claims.size());
+        for (TicketRollService.Claim claim : claims) {
+            Prize prize = claim.getPrizeId() == null ? null : prizesById.get(claim.getPrizeId());
+            DrawRecord record = new DrawRecord(user, activity, prize);
+            record.setRollPosition(claim.getPosition());
+            records.add(record);
+        }
+
+        saveRecords(records);
+        drawQuotaService.release(userId, activity.getId(), drawCount - records.size());
+        return records;
+    }
+
+    /**
+     * Commit picked outcomes with the single-statement path, timed like a transaction
+     * @return The committed records, or null if the JPA path has to handle the request
+     */
+    private List<DrawRecord> commitInOneStatement(String path, Long userId, Activity activity, List<Prize> availablePrizes, List<Prize> outcomes) {
+        long start = System.nanoTime();
+        List<DrawRecord> records;
+        try {
+            records = singleStatementDrawCommit.commit(userId, activity, availablePrizes, outcomes);
+        } finally {
+            drawMetrics.recordTransaction(path, System.nanoTime() - start);
+        }
+        if (records != null) {
+            // Outcomes that came back as "Thank You" hit a prize that ran out
+            Map<Prize, Integer> shortfall = new HashMap<>();
+            outcomes.stream().filter(Objects::nonNull).forEach(prize -> shortfall.merge(prize, 1, Integer::sum));
+            records.stream().map(DrawRecord::getPrize).filter(Objects::nonNull).forEach(prize -> shortfall.merge(prize, -1, Integer::sum));
+            shortfall.forEach((prize, missing) -> {
+                if (missing > 0) {
+                    prizeSelectionUtil.markSoldOut(prize);
+                }
+            });
+        }
+        return records;
+    }
+
+    /**
+     * Run work in a transaction and record how long it held the connection
+     */
+    private <T> T inTransaction(String path, Supplier<T> work) {
+        long start = System.nanoTime();
+        try {
+            return transactionTemplate.execute(status -> work.get());
+        } finally {
+            drawMetrics.recordTransaction(path, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Claim roll positions, refusing the request once the roll is used up
+     */
+    private List<TicketRollService.Claim> claimFromRoll(Long userId, Activity activity, int drawCount) {
+        List<TicketRollService.Claim> claims = ticketRollService.claim(activity.getId(), drawCount);
+        if (claims.isEmpty()) {
+            // Give the reserved quota back explicitly: a batch worker commits the transaction anyway
+            drawQuotaService.release(userId, activity.getId(), drawCount);
+            throw new LuckyDrawException(ErrorConstants.ErrorType.ACTIVITY_DRAW_LIMIT_REACHED);
+        }
+        return claims;
+    }
+
+    /**
+     * Perform a bulk draw: one multinomial pass decides how many units of each prize are won,
+     * inventory is taken with one decrement per prize and all records are inserted in one batch
+     * @param request Bulk draw request
+     * @return Win counts per prize, with per-draw results if requested
+     */
+    public BulkDrawResult performBulkDraw(BulkDrawRequest request) {
+        Long userId = userActivityService.getCurrentUserId();
+        Activity activity = drawValidationService.findActivity(request.getActivityId());
+        rejectIfLottery(activity);
+        List<Prize> availablePrizes = drawValidationService.getAvailablePrizes(activity);
+
+        if (ticketRollService.isEnabled(activity.getId())) {
+            return inTransaction("BULK", () -> performRollBulkDraw(userId, activity, availablePrizes, request));
+        }
+
+        rejectIfSoldOut(availablePrizes);
+        // Sampled before the transaction starts, like the outcomes of multiple draws
+        String segment = userActivityService.getCurrentSegment();
+        int[] counts = prizeSelectionUtil.sampleCounts(availablePrizes, request.getDrawCount(), segment,
+            drawValidationService.getSegmentMultipliers(activity, segment));
+        for (int i = 0; i < availablePrizes.size(); i++) {
+            int paced = prizePacer.acquire(activity, availablePrizes.get(i), counts[i]);
+            counts[availablePrizes.size()] += counts[i] - paced;
+            counts[i] = paced;
+        }
+        int[] won = new int[availablePrizes.size()];
+        List<DrawRecord> records = singleStatementDrawCommit.isEnabled() && !drawJournal.isEnabled()
+            ? commitBulkInOneStatement(userId, activity, availablePrizes, counts, won, request.getDrawCount())
+            : null;
+        if (records == null) {
+            int[] combined = prizeDecrementCombiner.isEnabled() ? takeCombinedUnits(availablePrizes, counts) : null;
             try {
-                Prize selectedPrize = prizeSelectionUtil.selectPrize(availablePrizes);
-                record.setPrize(selectedPrize);
-                if (selectedPrize == null) {
-                    results.add(new DrawResult("Thank You", "Better luck next time!", record.getDrawTime()));
-                }else{
-                    updatePrizeInventory(selectedPrize);
-                    results.add(new DrawResult(selectedPrize, record.getDrawTime()));
+                records = inTransaction("BULK",
+                    () -> commitBulkDraw(userId, activity, availablePrizes, counts, combined, won, request.getDrawCount()));
+            } catch (RuntimeException e) {
+                giveBackCombinedUnits(availablePrizes, combined);
+                throw e;
+            }
+        }
+
+        List<BulkDrawResult.PrizeWinCount> wins = new ArrayList<>();
+        int wonTotal = 0;
+        for (int i = 0; i < availablePrizes.size(); i++) {
+            Prize prize = availablePrizes.get(i);
+            if (won[i] > 0) {
+                wins.add(new BulkDrawResult.PrizeWinCount(prize.getId(), prize.getName(), prize.getDescription(), won[i]));
+                wonTotal += won[i];
+            }
+        }
+        BulkDrawResult result = new BulkDrawResult(request.getDrawCount(), request.getDrawCount() - wonTotal, wins, records.get(0).getDrawTime());
+        if (request.isIncludeDetails()) {
+            List<DrawResult> results = toDrawResults(records);
+            // Counts carry no order; present the draws as if they were opened one by one
+            Collections.shuffle(results);
+            result.setResults(results);
+        }
+        return result;
+    }
+
+    /**
+     * Bulk draw through the single-statement path: the counts are expanded into one outcome per draw
+     * @param won Filled with the units won per prize
+     * @return The committed records, or null if the JPA path has to handle the request
+     */
+    private List<DrawRecord> commitBulkInOneStatement(Long userId, Activity activity, List<Prize> availablePrizes, int[] counts, int[] won, int drawCount) {
+        List<Prize> outcomes = new ArrayList<>(drawCount);
+        for (int i = 0; i < availablePrizes.size(); i++) {
+            outcomes.addAll(Collections.nCopies(counts[i], availablePrizes.get(i)));
+        }
+        while (outcomes.size() < drawCount) {
+            outcomes.add(null);
+        }
+        List<DrawRecord> records = commitInOneStatement("BULK", userId, activity, availablePrizes, outcomes);
+        if (records != null) {
+            for (DrawRecord record : records) {
+                if (record.getPrize() != null) {
+                    won[availablePrizes.indexOf(record.getPrize())]++;
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * The transactional part of a bulk draw: one decrement per prize and one batch of records
+     * @param combined Units already taken through the decrement combiner, or null to take them here
+     * @param won Filled with the units won per prize
+     */
+    private List<DrawRecord> commitBulkDraw(Long userId, Activity activity, List<Prize> availablePrizes, int[] counts, int[] combined, int[] won, int drawCount) {
+        drawValidationService.validateUserMultipleDrawLimit(userId, activity.getId(), drawCount, activity.getMaxDraws());
+        User user = authUserRepository.getReferenceById(userId);
+
+        // Same prize ID order as multiple draws, so bulk and regular draws can't deadlock each other
+        Integer[] order = new Integer[availablePrizes.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> availablePrizes.get(i).getId()));
+
+        List<List<PrizeUnit>> units = new ArrayList<>(Collections.nCopies(availablePrizes.size(), List.of()));
+        for (int i : order) {
+            if (counts[i] > 0) {
+                // Wins beyond the remaining inventory become "Thank You"
+                if (prizeUnitInventory.isEnabled()) {
+                    units.set(i, prizeUnitInventory.claim(availablePrizes.get(i).getId(), counts[i]));
+                    won[i] = units.get(i).size();
+                } else if (combined != null) {
+                    won[i] = combined[i];
+                } else {
+                    won[i] = takePrizeInventory(availablePrizes.get(i), counts[i]);
+                }
+                if (won[i] < counts[i]) {
+                    prizeSelectionUtil.markSoldOut(availablePrizes.get(i));
+                }
+            }
+        }
+
+        List<DrawRecord> records = new ArrayList<>(drawCount);
+        for (int i = 0; i < availablePrizes.size(); i++) {
+            Prize prize = availablePrizes.get(i);
+            for (int unit = 0; unit < won[i]; unit++) {
+                DrawRecord record = new DrawRecord(user, activity, prize);
+                if (!units.get(i).isEmpty()) {
+                    units.get(i).get(unit).setDrawRecord(record);
+                }
+                records.add(record);
+            }
+        }
+        while (records.size() < drawCount) {
+            records.add(new DrawRecord(user, activity, null));
+        }
+        saveRecords(records);
+        return records;
+    }
+
+    /**
+     * Bulk draw of an activity with a ticket roll: one claim for all draws, counted per prize
+     */
+    private BulkDrawResult performRollBulkDraw(Long userId, Activity activity, List<Prize> availablePrizes, BulkDrawRequest request) {
+        drawValidationService.validateUserMultipleDrawLimit(userId, activity.getId(), request.getDrawCount(), activity.getMaxDraws());
+        User user = authUserRepository.getReferenceById(userId);
+        List<TicketRollService.Claim> claims = claimFromRoll(userId, activity, request.getDrawCount());
+        Map<Long, Prize> prizesById = new HashMap<>();
+        availablePrizes.forEach(prize -> prizesById.put(prize.getId(), prize));
+
+        List<DrawRecord> records = new ArrayList<>(claims.size());
+        Map<Long, Integer> wonByPrize = new TreeMap<>();
+        for (TicketRollService.Claim claim : claims) {
+            Prize prize = claim.getPrizeId() == null ? null : prizesById.get(claim.getPrizeId());
+            DrawRecord record = new DrawRecord(user, activity, prize);
+            record.setRollPosition(claim.getPosition());
+            records.add(record);
+            if (prize != null) {
+                wonByPrize.merge(prize.getId(), 1, Integer::sum);
+            }
+        }
+        saveRecords(records);
+        drawQuotaService.release(userId, activity.getId(), request.getDrawCount() - records.size());
+
+        List<BulkDrawResult.PrizeWinCount> wins = new ArrayList<>();
+        wonByPrize.forEach((prizeId, count) -> {
+            Prize prize = prizesById.get(prizeId);
+            wins.add(new BulkDrawResult.PrizeWinCount(prizeId, prize.getName(), prize.getDescription(), count));
+        });
+        int wonTotal = wonByPrize.values().stream().mapToInt(Integer::intValue).sum();
+        BulkDrawResult result = new BulkDrawResult(records.size(), records.size() - wonTotal, wins, records.get(0).getDrawTime());
+        if (request.isIncludeDetails()) {
+            // Already in roll order
+            result.setResults(toDrawResults(records));
+        }
+        return result;
+    }
+
+    /**
+     * Take the units of the picked prizes through the decrement combiner before the transaction
+     * starts. Wins it can't cover become "Thank You".
+     */
+    private void takeCombinedUnits(DrawPlan plan) {
+        if (!prizeDecrementCombiner.isEnabled() || plan.selections == null) {
+            return;
+        }
+        List<Prize> prizes = plan.availablePrizes;
+        int[] wanted = new int[prizes.size()];
+        for (Prize selected : plan.selections) {
+            if (selected != null) {
+                wanted[indexOf(prizes, selected)]++;
+            }
+        }
+        int[] taken = takeCombinedUnits(prizes, wanted);
+        for (int i = 0; i < prizes.size(); i++) {
+            if (taken[i] < wanted[i]) {
+                prizeSelectionUtil.markSoldOut(prizes.get(i));
+            }
+        }
+
+        int[] left = taken.clone();
+        for (int i = 0; i < plan.selections.size(); i++) {
+            Prize selected = plan.selections.get(i);
+            if (selected != null && left[indexOf(prizes, selected)]-- <= 0) {
+                plan.selections.set(i, null);
+            }
+        }
+        plan.combinedUnits = taken;
+    }
+
+    /**
+     * Take the wanted units of each prize through the decrement combiner, outside any transaction,
+     * so no connection or quota row lock is held while waiting for the combined UPDATE
+     * @return Units taken per prize; all of them are put back if a take fails
+     */
+    private int[] takeCombinedUnits(List<Prize> prizes, int[] wanted) {
+        int[] taken = new int[prizes.size()];
+        try {
+            for (int i = 0; i < prizes.size(); i++) {
+                if (wanted[i] > 0) {
+                    taken[i] = prizeDecrementCombiner.take(prizes.get(i).getId(), wanted[i]);
                 }
-            } catch (LuckyDrawException e) {
-                results.add(new DrawResult("Thank You", "Better luck next time!", LocalDateTime.now()));
-                record.setPrize(null);
-                e.printStackTrace();
-            } catch (Exception e) {
-                e.printStackTrace();
-                break;
             }
-            drawRecordRepository.save(record);
+        } catch (RuntimeException e) {
+            giveBackCombinedUnits(prizes, taken);
+            throw e;
         }
-        
-        return new MultipleDrawResult(results);
+        return taken;
+    }
+
+    /**
+     * Put back units taken through the decrement combiner for draws that were not committed
+     */
+    private void giveBackCombinedUnits(List<Prize> prizes, int[] taken) {
+        if (taken == null) {
+            return;
+        }
+        for (int i = 0; i < prizes.size(); i++) {
+            prizeDecrementCombiner.release(prizes.get(i).getId(), taken[i]);
+        }
+    }
+
+    private static int indexOf(List<Prize> prizes, Prize prize) {
+        for (int i = 0; i < prizes.size(); i++) {
+            if (prizes.get(i).getId().equals(prize.getId())) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Prize " + prize.getId() + " is not in the activity's prize list");
+    }
+
+    /**
+     * Insert draw records, or hand them to the draw journal when it is enabled. Records linked to
+     * prize units are always inserted, since the units reference their IDs.
+     */
+    private void saveRecords(List<DrawRecord> records) {
+        if (drawJournal.isEnabled() && !prizeUnitInventory.isEnabled()) {
+            drawJournal.append(records);
+        } else {
+            drawRecordRepository.saveAll(records);
+        }
+    }
+
+    private List<DrawResult> toDrawResults(List<DrawRecord> records) {
+        List<DrawResult> results = new ArrayList<>(records.size());
+        for (DrawRecord record : records) {
+            if (record.getPrize() == null) {
+                results.add(new DrawResult("Thank You", "Better luck next time!", record.getDrawTime()));
+            } else {
+                results.add(new DrawResult(record.getPrize(), record.getDrawTime()));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Take up to count units of a prize with one decrement
+     * @return Units taken, fewer than count if the prize is running out
+     */
+    private int takePrizeInventory(Prize prize, int count) {
+        if (prizeInventoryLedger.isEnabled()) {
+            return prizeInventoryLedger.take(prize.getId(), count);
+        }
+
+        if (prizeBucketInventory.isEnabled()) {
+            // Buckets hold only a share of the prize, so units are taken one at a time across them
+            int taken = 0;
+            while (taken < count && prizeBucketInventory.tryDecrement(prize.getId())) {
+                taken++;
+            }
+            return taken;
+        }
+
+        if (inventoryMode == InventoryMode.CONDITIONAL_UPDATE) {
+            int wanted = count;
+            while (wanted > 0) {
+                if (prizeRepository.decrementQuantityBy(prize.getId(), wanted) > 0) {
+                    return wanted;
+                }
+                // Not enough left for all of them; retry with what is left now
+                Integer left = prizeRepository.findQuantityById(prize.getId());
+                wanted = Math.min(wanted, left == null ? 0 : left);
+            }
+            return 0;
+        }
+
+        try {
+            Prize lockedPrize = prizeRepository.findByIdWithLock(prize.getId());
+            int taken = Math.min(count, Math.max(0, lockedPrize.getQuantity()));
+            lockedPrize.setQuantity(lockedPrize.getQuantity() - taken);
+            lockedPrize.setAwardedCount(lockedPrize.getAwardedCount() + taken);
+            prizeRepository.save(lockedPrize);
+            return taken;
+        } catch (LockTimeoutException | PessimisticLockException e) {
+            throw new LuckyDrawException(
+                    ErrorConstants.ErrorType.SYSTEM_BUSY
+            );
+        }
+    }
+
+    /**
+     * Claim one unit row of a prize for a win
+     */
+    private PrizeUnit claimPrizeUnit(Prize prize) {
+        List<PrizeUnit> claimed = prizeUnitInventory.claim(prize.getId(), 1);
+        if (claimed.isEmpty()) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
+        }
+        return claimed.get(0);
     }
 
     /**
@@ -106,6 +711,38 @@ public class DrawExecutionService {
      */
     private void updatePrizeInventory(Prize prize) {
 
+        if (prizeInventoryLedger.isEnabled()) {
+            // Lock-free path: the ledger writes the decrement back after commit
+            if (!prizeInventoryLedger.tryDecrement(prize.getId())) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
+            }
+            return;
+        }
+
+        if (prizeBucketInventory.isEnabled()) {
+            // Same conditional UPDATE, but spread over several rows of a hot prize
+            if (!prizeBucketInventory.tryDecrement(prize.getId())) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
+            }
+            return;
+        }
+
+        if (prizeDecrementCombiner.isEnabled()) {
+            // Only inside a batch worker's transaction; other draws take combined units before theirs
+            if (!prizeDecrementCombiner.tryDecrement(prize.getId())) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
+            }
+            return;
+        }
+
+        if (inventoryMode == InventoryMode.CONDITIONAL_UPDATE) {
+            // No read and no lock held until commit: the row count decides whether the win stands
+            if (prizeRepository.decrementQuantityIfAvailable(prize.getId()) == 0) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
+            }
+            return;
+        }
+
         try {
             // Although I use SELECT FOR UPDATE and select by primary key, in MySQL this will only lock a single record.
             // This means it will use a record lock, not a gap lock, so it shouldn't significantly impact performance.
@@ -117,6 +754,7 @@ public class DrawExecutionService {
                 throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
             }
             lockedPrize.setQuantity(lockedPrize.getQuantity() - 1);
+            lockedPrize.setAwardedCount(lockedPrize.getAwardedCount() + 1);
             prizeRepository.save(lockedPrize);
         } catch (LockTimeoutException | PessimisticLockException e) {
             throw new LuckyDrawException(
@@ -124,4 +762,27 @@ public class DrawExecutionService {
             );
         }
     }
-} 
\ No newline at end of file
+
+    /**
+     * What a request draws, decided before its transaction starts
+     */
+    private static class DrawPlan {
+        private final Long userId;
+        private final Activity activity;
+        private final List<Prize> availablePrizes;
+        private final int drawCount;
+        // Outcome of each draw, null entries for "Thank You"; null for activities with a ticket roll
+        private List<Prize> selections;
+        // Draws already reserved by a draw pass, so the quota row is left alone
+        private boolean prepaid;
+        // Units taken through the decrement combiner before the transaction, per available prize
+        private int[] combinedUnits;
+
+        DrawPlan(Long userId, Activity activity, List<Prize> availablePrizes, int drawCount) {
+            this.userId = userId;
+            this.activity = activity;
+            this.availablePrizes = availablePrizes;
+            this.drawCount = drawCount;
+        }
+    }
+}
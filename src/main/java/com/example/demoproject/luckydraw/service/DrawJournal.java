@@ -0,0 +1,503 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.auth.repository.AuthUserRepository;
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.entity.DrawJournalCheckpoint;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.DrawJournalCheckpointRepository;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.util.DrawJournalSegment;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Write-behind journal for draw records, used when luckydraw.journal.enabled=true.
+ *
+ * Before the draw transaction commits its quota and inventory changes, the records are appended
+ * as frames to a memory-mapped segment file and the commit waits until a writer thread has forced
+ * them to disk; appends that arrive during a force share the next one. If the force takes longer
+ * than timeout-ms, the draw fails with SYSTEM_BUSY and rolls back. Frames of a transaction that
+ * rolls back are voided.
+ *
+ * A scheduled loader seals the active segment and bulk-inserts sealed segments into draw_records,
+ * checkpointing each batch in the same transaction. It leaves segments alone while a transaction
+ * with frames in them is still committing. Segments left on disk by a crash or a restart are
+ * loaded at startup, resuming after their checkpoint; startup fails if they cannot be. A crash
+ * between the force and the database commit replays the records of a draw that may not have
+ * committed, rather than losing the records of one that did.
+ *
+ * Draw records reach the table up to load-interval-ms after the draw. If the journal cannot be
+ * written, the records are inserted directly in the draw transaction instead. The journal is per
+ * node and its directory must survive restarts.
+ */
+@Service
+public class DrawJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(DrawJournal.class);
+    private static final String SUFFIX = ".journal";
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    @Autowired
+    private DrawJournalCheckpointRepository drawJournalCheckpointRepository;
+
+    @Autowired
+    private AuthUserRepository authUserRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${luckydraw.journal.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${luckydraw.journal.dir:data/draw-journal}")
+    private String dir = "data/draw-journal";
+
+    @Value("${luckydraw.journal.segment-size-bytes:16777216}")
+    private int segmentSizeBytes = 16 * 1024 * 1024;
+
+    @Value("${luckydraw.journal.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    @Value("${luckydraw.journal.load-batch-size:1000}")
+    private int loadBatchSize = 1000;
+
+    private Path directory;
+    // Guarded by this: the segment being appended to, sealed segments waiting for the loader,
+    // appends per segment whose transaction is still committing, and frame counts appended and
+    // forced so far
+    private DrawJournalSegment active;
+    private final List<Path> sealed = new ArrayList<>();
+    private final Map<Long, Integer> undecided = new HashMap<>();
+    private long nextSegmentId;
+    private long written;
+    private long durable;
+    private volatile boolean running;
+    private Thread syncer;
+    private final Object loadLock = new Object();
+
+    private final LongAdder syncs = new LongAdder();
+    private final LongAdder synced = new LongAdder();
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder fallbackInserts = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        if (segmentSizeBytes < 8 + DrawJournalSegment.FRAME_BYTES) {
+            throw new IllegalStateException("luckydraw.journal.segment-size-bytes is too small for one record");
+        }
+        directory = Paths.get(dir);
+        Files.createDirectories(directory);
+
+        // Segments of an earlier run, including the one it was appending to, are replayed
+        long maxId = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).sorted().toList()) {
+                sealed.add(file);
+                maxId = Math.max(maxId, segmentId(file));
+            }
+        }
+        Long maxLoaded = drawJournalCheckpointRepository.findMaxSegmentId();
+        nextSegmentId = Math.max(maxId, maxLoaded == null ? 0 : maxLoaded) + 1;
+        if (!sealed.isEmpty()) {
+            logger.info("Draw journal has {} segments to replay", sealed.size());
+        }
+
+        running = true;
+        syncer = new Thread(this::runSyncer, "draw-journal-sync");
+        syncer.setDaemon(true);
+        syncer.start();
+        // Before ApplicationReadyEvent, so the inventory ledger and ticket rolls rebuild their
+        // state from complete draw records; they would rebuild it from partial ones otherwise
+        try {
+            loadSealed();
+        } catch (IOException | RuntimeException e) {
+            stop();
+            throw new IllegalStateException("Replaying the draw journal in " + directory + " failed", e);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        syncer.interrupt();
+        try {
+            syncer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (active != null) {
+                // Left for the next start to replay
+                active.force();
+                closeQuietly(active);
+                active = null;
+            }
+            notifyAll();
+        }
+    }
+
+    /**
+     * Journal draw records instead of inserting them. Inside a transaction the records are
+     * written when it commits, together with the other records of the transaction, and the
+     * database commit only starts once they are durable; a rolled back transaction voids them.
+     * @param records New draw records, not yet persisted
+     * @throws LuckyDrawException SYSTEM_BUSY if the records are not durable within timeout-ms,
+     *         thrown from the commit inside a transaction
+     */
+    public void append(List<DrawRecord> records) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            decide(writeOrInsert(records), true);
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        List<DrawRecord> pending = (List<DrawRecord>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<DrawRecord> transactionRecords = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, transactionRecords);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                private Appended appended;
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    appended = writeOrInsert(transactionRecords);
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResource(DrawJournal.this);
+                    decide(appended, status == STATUS_COMMITTED);
+                }
+            });
+            pending = transactionRecords;
+        }
+        pending.addAll(records);
+    }
+
+    /**
+     * Append the records and wait until they are durable. If the journal cannot take them, they
+     * are inserted instead, in the caller's transaction if there is one.
+     * @return The appended frames, to be decided once the draw commits or rolls back; null if
+     *         there were no records or they were inserted
+     * @throws LuckyDrawException SYSTEM_BUSY if the force does not finish within timeout-ms;
+     *         the frames are voided
+     */
+    private Appended writeOrInsert(List<DrawRecord> records) {
+        if (records.isEmpty()) {
+            return null;
+        }
+        Appended appended;
+        try {
+            appended = appendFrames(records);
+        } catch (RuntimeException e) {
+            logger.warn("Draw journal append of {} records failed, inserting them directly: {}", records.size(), e.getMessage());
+            drawRecordRepository.saveAll(records);
+            fallbackInserts.add(records.size());
+            return null;
+        }
+        if (!awaitDurable(appended)) {
+            decide(appended, false);
+            timeouts.increment();
+            logger.warn("Draw journal force of {} records took longer than {} ms, failing the draw", records.size(), timeoutMs);
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+        return appended;
+    }
+
+    /**
+     * Append frames for the writer thread to force. The records of one call go to one segment,
+     * so either all of them are appended or none; the loader leaves that segment alone until
+     * the frames are decided.
+     * @throws LuckyDrawException SYSTEM_BUSY if the journal is stopped
+     * @throws UncheckedIOException if a new segment cannot be created
+     */
+    private synchronized Appended appendFrames(List<DrawRecord> records) {
+        if (!running) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+        if (active == null || active.getRemainingFrames() < records.size()) {
+            roll();
+            if (active.getRemainingFrames() < records.size()) {
+                throw new IllegalArgumentException(records.size() + " records do not fit in one draw journal segment");
+            }
+        }
+        Appended appended = new Appended(active, active.getFrames(), records.size(), written + records.size());
+        records.forEach(active::append);
+        written += records.size();
+        undecided.merge(active.getId(), 1, Integer::sum);
+        notifyAll();
+        return appended;
+    }
+
+    /**
+     * Wait until the writer thread has forced the frames to disk
+     * @return false if that did not happen within timeout-ms
+     */
+    private synchronized boolean awaitDurable(Appended appended) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        try {
+            while (durable < appended.target && running) {
+                long waitMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (waitMs <= 0) {
+                    return false;
+                }
+                wait(waitMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+        return durable >= appended.target;
+    }
+
+    /**
+     * Keep the frames of a committed draw for the loader, or void those of one that rolled back.
+     * The void is forced right away, so a replay after a crash skips the same frames the loader did.
+     */
+    private synchronized void decide(Appended appended, boolean committed) {
+        if (appended == null) {
+            return;
+        }
+        if (!committed) {
+            appended.segment.voidFrames(appended.from, appended.count);
+            appended.segment.force();
+        }
+        undecided.computeIfPresent(appended.segment.getId(), (id, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Force appended frames to disk, one force for everything appended since the last one
+     */
+    private void runSyncer() {
+        while (running) {
+            DrawJournalSegment segment;
+            long target;
+            synchronized (this) {
+                while (running && durable == written) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                segment = active;
+                target = written;
+            }
+            try {
+                // Frames of segments sealed meanwhile were forced by the seal
+                if (segment != null) {
+                    segment.force();
+                }
+            } catch (RuntimeException e) {
+                logger.error("Draw journal force failed", e);
+                try {
+                    Thread.sleep(100);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+                continue;
+            }
+            synchronized (this) {
+                syncs.increment();
+                synced.add(target - durable);
+                durable = Math.max(durable, target);
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Seal the active segment and start a new one; call holding this
+     */
+    private void roll() {
+        seal();
+        Path file = directory.resolve(String.format("%020d%s", nextSegmentId, SUFFIX));
+        try {
+            active = DrawJournalSegment.create(file, nextSegmentId++, segmentSizeBytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void seal() {
+        if (active == null) {
+            return;
+        }
+        active.force();
+        closeQuietly(active);
+        sealed.add(directory.resolve(String.format("%020d%s", active.getId(), SUFFIX)));
+        active = null;
+    }
+
+    /**
+     * Seal the active segment and insert every sealed segment into draw_records
+     */
+    @Scheduled(fixedDelayString = "${luckydraw.journal.load-interval-ms:1000}")
+    public void load() {
+        if (!running) {
+            return;
+        }
+        try {
+            loadSealed();
+        } catch (IOException | RuntimeException e) {
+            // Kept for the next run; later segments wait so records load in order
+        }
+    }
+
+    /**
+     * Seal the active segment and insert sealed segments in order, stopping at the first one
+     * with frames of a draw that is still committing
+     */
+    private void loadSealed() throws IOException {
+        synchronized (loadLock) {
+            List<Path> segments;
+            synchronized (this) {
+                if (active != null && active.getFrames() > 0) {
+                    seal();
+                }
+                segments = new ArrayList<>(sealed);
+            }
+            for (Path file : segments) {
+                synchronized (this) {
+                    if (undecided.containsKey(segmentId(file))) {
+                        return;
+                    }
+                }
+                try {
+                    loadSegment(file);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Loading draw journal segment {} failed: {}", file.getFileName(), e.getMessage());
+                    throw e;
+                }
+                synchronized (this) {
+                    sealed.remove(file);
+                }
+            }
+        }
+    }
+
+    private void loadSegment(Path file) throws IOException {
+        long segmentId = segmentId(file);
+        List<DrawJournalSegment.Frame> frames = DrawJournalSegment.read(file);
+        int done = drawJournalCheckpointRepository.findById(segmentId)
+            .map(DrawJournalCheckpoint::getLoadedFrames)
+            .orElse(0);
+        while (done < frames.size()) {
+            int from = done;
+            int to = Math.min(frames.size(), from + loadBatchSize);
+            transactionTemplate.executeWithoutResult(status -> {
+                List<DrawRecord> records = new ArrayList<>(to - from);
+                for (DrawJournalSegment.Frame frame : frames.subList(from, to)) {
+                    records.add(toRecord(frame));
+                }
+                drawRecordRepository.saveAll(records);
+                drawJournalCheckpointRepository.save(new DrawJournalCheckpoint(segmentId, to, LocalDateTime.now()));
+            });
+            loaded.add(to - from);
+            done = to;
+        }
+        Files.deleteIfExists(file);
+    }
+
+    private DrawRecord toRecord(DrawJournalSegment.Frame frame) {
+        DrawRecord record = new DrawRecord(
+            authUserRepository.getReferenceById(frame.getUserId()),
+            activityRepository.getReferenceById(frame.getActivityId()),
+            frame.getPrizeId() == null ? null : prizeRepository.getReferenceById(frame.getPrizeId()));
+        record.setDrawTime(frame.getDrawTime());
+        record.setRollPosition(frame.getRollPosition());
+        return record;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        long syncCount = syncs.sum();
+        synchronized (this) {
+            stats.put("written", written);
+            stats.put("pendingSegments", sealed.size() + (active != null && active.getFrames() > 0 ? 1 : 0));
+        }
+        stats.put("syncs", syncCount);
+        stats.put("avgRecordsPerSync", syncCount == 0 ? 0.0 : synced.sum() / (double) syncCount);
+        stats.put("loaded", loaded.sum());
+        stats.put("fallbackInserts", fallbackInserts.sum());
+        stats.put("timeouts", timeouts.sum());
+        return stats;
+    }
+
+    private static long segmentId(Path file) {
+        String name = file.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Frames appended by one call, kept until the draw that wrote them commits or rolls back
+     */
+    private static final class Appended {
+        private final DrawJournalSegment segment;
+        private final int from;
+        private final int count;
+        // Frame count the writer thread must have forced for these frames to be durable
+        private final long target;
+
+        Appended(DrawJournalSegment segment, int from, int count, long target) {
+            this.segment = segment;
+            this.from = from;
+            this.count = count;
+            this.target = target;
+        }
+    }
+
+    private static void closeQuietly(DrawJournalSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException e) {
+            logger.warn("Closing draw journal segment {} failed: {}", segment.getId(), e.getMessage());
+        }
+    }
+}
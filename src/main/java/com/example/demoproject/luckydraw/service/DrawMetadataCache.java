@@ -0,0 +1,212 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.PrizeSegmentMultiplier;
+import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.repository.PrizeSegmentMultiplierRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-through cache for activity and prize definitions used on the draw path.
+ *
+ * Entries are detached entities shared between requests and must be treated as read-only.
+ * The quantity of a cached prize is a snapshot: live inventory is always checked by the
+ * inventory update (row lock or ledger), never by this cache. With bucketed or unit row
+ * inventory the snapshot is taken from the buckets or units, not from the prizes row. Admin updates invalidate
+ * entries explicitly; the TTL bounds staleness when another node made the change.
+ */
+@Service
+public class DrawMetadataCache {
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private PrizeSegmentMultiplierRepository prizeSegmentMultiplierRepository;
+
+    @Autowired
+    private PrizeBucketInventory prizeBucketInventory;
+
+    @Autowired
+    private PrizeUnitInventory prizeUnitInventory;
+
+    @Value("${luckydraw.cache.metadata.max-size:1000}")
+    private long maxSize = 1000;
+
+    @Value("${luckydraw.cache.metadata.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    private static final Long ALL_ACTIVITIES = 0L;
+
+    private Cache<Long, Activity> activities;
+    // Single entry under ALL_ACTIVITIES: every activity, for the activity list page
+    private Cache<Long, List<Activity>> activityLists;
+    private Cache<Long, List<Prize>> prizes;
+    // Activity ID -> segment -> prize ID -> multiplier
+    private Cache<Long, Map<String, Map<Long, BigDecimal>>> segmentMultipliers;
+
+    @PostConstruct
+    public void init() {
+        activities = newCache();
+        activityLists = newCache();
+        prizes = newCache();
+        segmentMultipliers = newCache();
+    }
+
+    private <V> Cache<Long, V> newCache() {
+        return Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+            .recordStats()
+            .build();
+    }
+
+    /**
+     * Get an activity, loading it on a miss
+     * @param activityId Activity identifier
+     * @return Cached activity
+     * @throws IllegalArgumentException if the activity does not exist
+     */
+    public Activity getActivity(Long activityId) {
+        Activity activity = activities.get(activityId, id -> activityRepository.findById(id).orElse(null));
+        if (activity == null) {
+            throw new IllegalArgumentException("Activity not found");
+        }
+        return activity;
+    }
+
+    /**
+     * Get every activity, loading them all with one query on a miss
+     * @return Unmodifiable activity list
+     */
+    public List<Activity> getAllActivities() {
+        return activityLists.get(ALL_ACTIVITIES, key -> {
+            List<Activity> loaded = activityRepository.findAll();
+            loaded.forEach(activity -> activities.put(activity.getId(), activity));
+            return List.copyOf(loaded);
+        });
+    }
+
+    /**
+     * Get the prizes of an activity, loading them on a miss
+     * @param activity Activity
+     * @return Unmodifiable prize list in a stable order
+     */
+    public List<Prize> getPrizes(Activity activity) {
+        return prizes.get(activity.getId(), id -> loadPrizes(activity));
+    }
+
+    private List<Prize> loadPrizes(Activity activity) {
+        List<Prize> loaded = prizeRepository.findByActivity(activity);
+        List<Long> prizeIds = loaded.stream().map(Prize::getId).toList();
+        if (prizeBucketInventory.isEnabled()) {
+            // The prizes row keeps the last split; the buckets hold what is left of it
+            Map<Long, Integer> remaining = prizeBucketInventory.getRemaining(prizeIds);
+            loaded = loaded.stream()
+                .map(prize -> {
+                    Integer left = remaining.get(prize.getId());
+                    return left == null ? prize : snapshot(prize, left, Math.max(0, prize.getQuantity() - left));
+                })
+                .toList();
+        } else if (prizeUnitInventory.isEnabled()) {
+            Map<Long, Integer> remaining = prizeUnitInventory.getRemaining(prizeIds);
+            Map<Long, Integer> claimed = prizeUnitInventory.getClaimed(prizeIds);
+            loaded = loaded.stream()
+                .map(prize -> snapshot(prize, remaining.getOrDefault(prize.getId(), 0), claimed.getOrDefault(prize.getId(), 0)))
+                .toList();
+        }
+        return List.copyOf(loaded);
+    }
+
+    /**
+     * Copy of a prize with the live remaining quantity, and the units won since the prizes row
+     * was last written added to its awarded count, so paced prizes see what was already handed out
+     */
+    private static Prize snapshot(Prize prize, int remaining, int awardedSince) {
+        Prize copy = new Prize(prize.getName(), prize.getDescription(), remaining, prize.getProbability(), prize.getActivity());
+        copy.setId(prize.getId());
+        copy.setVersion(prize.getVersion());
+        copy.setAwardedCount(prize.getAwardedCount() + awardedSince);
+        return copy;
+    }
+
+    /**
+     * Get the prize multipliers of one user segment; all segments of an activity load in one query
+     * @param activityId Activity identifier
+     * @param segment User segment, or null
+     * @return Unmodifiable multipliers by prize ID; empty when the segment draws with the base odds
+     */
+    public Map<Long, BigDecimal> getSegmentMultipliers(Long activityId, String segment) {
+        if (segment == null) {
+            return Map.of();
+        }
+        return segmentMultipliers.get(activityId, this::loadSegmentMultipliers).getOrDefault(segment, Map.of());
+    }
+
+    private Map<String, Map<Long, BigDecimal>> loadSegmentMultipliers(Long activityId) {
+        Map<String, Map<Long, BigDecimal>> bySegment = new HashMap<>();
+        for (PrizeSegmentMultiplier row : prizeSegmentMultiplierRepository.findByActivityId(activityId)) {
+            bySegment.computeIfAbsent(row.getSegment(), s -> new HashMap<>()).put(row.getPrizeId(), row.getMultiplier());
+        }
+        bySegment.replaceAll((segment, multipliers) -> Map.copyOf(multipliers));
+        return Map.copyOf(bySegment);
+    }
+
+    /**
+     * Drop a cached activity and its prizes
+     */
+    public void invalidateActivity(Long activityId) {
+        activities.invalidate(activityId);
+        activityLists.invalidateAll();
+        invalidatePrizes(activityId);
+    }
+
+    /**
+     * Drop the cached prize list and segment multipliers of an activity
+     */
+    public void invalidatePrizes(Long activityId) {
+        prizes.invalidate(activityId);
+        segmentMultipliers.invalidate(activityId);
+    }
+
+    /**
+     * Hit/miss statistics of the caches
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("activities", toMap(activities.stats(), activities.estimatedSize()));
+        stats.put("activityLists", toMap(activityLists.stats(), activityLists.estimatedSize()));
+        stats.put("prizes", toMap(prizes.stats(), prizes.estimatedSize()));
+        stats.put("segmentMultipliers", toMap(segmentMultipliers.stats(), segmentMultipliers.estimatedSize()));
+        return stats;
+    }
+
+    private Map<String, Object> toMap(CacheStats stats, long size) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("size", size);
+        map.put("hitCount", stats.hitCount());
+        map.put("missCount", stats.missCount());
+        map.put("hitRate", stats.hitRate());
+        map.put("loadCount", stats.loadCount());
+        map.put("evictionCount", stats.evictionCount());
+        return map;
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.demoproject.luckydraw.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Request counters and latency of the draw endpoints, grouped by execution path,
+ * so the throughput of the execution modes can be compared under the same load
+ */
+@Service
+public class DrawMetrics {
+
+    private final ConcurrentMap<String, PathStats> paths = new ConcurrentHashMap<>();
+
+    /**
+     * Record one finished draw request
+     * @param path Execution path name
+     * @param draws Number of draws performed, 0 if the request failed
+     * @param elapsedNanos Time spent serving the request
+     * @param success Whether the request returned results
+     */
+    public void record(String path, int draws, long elapsedNanos, boolean success) {
+        paths.computeIfAbsent(path, name -> new PathStats()).record(draws, elapsedNanos, success);
+    }
+
+    /**
+     * Record one draw transaction, i.e. how long a request or batch held its database connection
+     * @param path Execution path name
+     * @param elapsedNanos Time from transaction start to commit or rollback
+     */
+    public void recordTransaction(String path, long elapsedNanos) {
+        paths.computeIfAbsent(path, name -> new PathStats()).recordTransaction(elapsedNanos);
+    }
+
+    public Map<String, Object> snapshot() {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        paths.forEach((path, stats) -> snapshot.put(path, stats.toMap()));
+        return snapshot;
+    }
+
+    public void reset() {
+        paths.clear();
+    }
+
+    private static class PathStats {
+        private final long startedAt = System.nanoTime();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder draws = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder transactions = new LongAdder();
+        private final LongAdder transactionNanos = new LongAdder();
+        private final AtomicLong maxTransactionNanos = new AtomicLong();
+
+        void record(int drawCount, long elapsedNanos, boolean success) {
+            requests.increment();
+            if (!success) {
+                failures.increment();
+            }
+            draws.add(drawCount);
+            totalNanos.add(elapsedNanos);
+            maxNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+
+        void recordTransaction(long elapsedNanos) {
+            transactions.increment();
+            transactionNanos.add(elapsedNanos);
+            maxTransactionNanos.accumulateAndGet(elapsedNanos, Math::max);
+        }
+
+        Map<String, Object> toMap() {
+            long count = requests.sum();
+            double seconds = Math.max(1e-9, (System.nanoTime() - startedAt) / 1e9);
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("requests", count);
+            map.put("failures", failures.sum());
+            map.put("draws", draws.sum());
+            map.put("requestsPerSecond", count / seconds);
+            map.put("avgLatencyMs", count == 0 ? 0.0 : totalNanos.sum() / (double) count / TimeUnit.MILLISECONDS.toNanos(1));
+            map.put("maxLatencyMs", maxNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+            long transactionCount = transactions.sum();
+            map.put("transactions", transactionCount);
+            map.put("avgTransactionMs", transactionCount == 0 ? 0.0
+                : transactionNanos.sum() / (double) transactionCount / TimeUnit.MILLISECONDS.toNanos(1));
+            map.put("maxTransactionMs", maxTransactionNanos.get() / (double) TimeUnit.MILLISECONDS.toNanos(1));
+            return map;
+        }
+    }
+}
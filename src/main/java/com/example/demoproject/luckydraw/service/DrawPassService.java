@@ -0,0 +1,273 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.dto.DrawPassResponse;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Date;
+import java.util.Map;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Service for draw passes: signed, short-lived tokens that carry a user's prepaid draws.
+ *
+ * Issuing a pass reserves up to luckydraw.draw-pass.size draws in the user's quota row in one
+ * transaction. A draw that presents the pass is checked against the signature, the remaining
+ * count and the nonce only, so it skips the quota row entirely; the result carries the next pass
+ * with the count lowered and the nonce raised. Each (user, activity) keeps just its last used
+ * nonce in memory, which rejects a replayed or superseded pass.
+ *
+ * Draws left on a pass go back to the quota when the user asks for a new pass or when the pass
+ * expires. The state is per node and lost on restart, so passes are for sticky sessions and
+ * draws reserved by a pass that was never finished stay used after a restart.
+ */
+@Service
+public class DrawPassService {
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private DrawValidationService drawValidationService;
+
+    @Autowired
+    private DrawQuotaService drawQuotaService;
+
+    @Autowired
+    private TicketRollService ticketRollService;
+
+    @Autowired
+    private UserActivityService userActivityService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${luckydraw.draw-pass.enabled:false}")
+    private boolean enabled = false;
+
+    @Value("${luckydraw.draw-pass.size:10}")
+    private int size = 10;
+
+    @Value("${luckydraw.draw-pass.ttl-seconds:300}")
+    private long ttlSeconds = 300;
+
+    private final ConcurrentMap<String, PassState> passes = new ConcurrentHashMap<>();
+    private Clock clock = Clock.systemUTC();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Issue a pass for the current user's next draws
+     */
+    public DrawPassResponse issue(Long activityId) {
+        return issue(userActivityService.getCurrentUserId(), activityId);
+    }
+
+    /**
+     * Issue a pass for the user's next draws, giving back what is left on the previous one
+     * @param userId User ID
+     * @param activityId Activity ID
+     * @return Signed pass
+     */
+    public DrawPassResponse issue(Long userId, Long activityId) {
+        if (!enabled) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_OPERATION);
+        }
+        Activity activity = drawValidationService.findActivity(activityId);
+        if (ticketRollService.isEnabled(activity.getId())) {
+            // A roll that runs out hands quota back itself; it cannot tell prepaid draws apart
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_OPERATION);
+        }
+        String key = key(userId, activityId);
+        while (true) {
+            PassState state = passes.computeIfAbsent(key, k -> new PassState());
+            synchronized (state) {
+                if (passes.get(key) != state) {
+                    // Removed by the sweep in between
+                    continue;
+                }
+                int granted = transactionTemplate.execute(status -> {
+                    if (state.remaining > 0) {
+                        drawQuotaService.release(userId, activityId, state.remaining);
+                    }
+                    int left = activity.getMaxDraws() - drawQuotaService.getUsedDraws(userId, activityId);
+                    int count = Math.min(size, left);
+                    if (count <= 0) {
+                        throw new LuckyDrawException(ErrorConstants.ErrorType.USER_DRAW_LIMIT_REACHED);
+                    }
+                    if (!drawQuotaService.tryConsume(userId, activityId, count, activity.getMaxDraws())) {
+                        throw new LuckyDrawException(ErrorConstants.ErrorType.USER_DRAW_LIMIT_REACHED);
+                    }
+                    return count;
+                });
+                state.passId = UUID.randomUUID().toString();
+                state.lastNonce = 0;
+                state.remaining = granted;
+                state.expiresAt = clock.instant().plusSeconds(ttlSeconds);
+                return sign(state, userId, activityId, 1);
+            }
+        }
+    }
+
+    /**
+     * Accept a pass for a draw without touching the database. The nonce is spent until the draw
+     * is completed or abandoned, so the same pass cannot be used twice in parallel.
+     * @param userId User drawing
+     * @param activityId Activity drawn
+     * @param token Pass presented with the draw
+     * @param drawCount Draws requested
+     * @return The accepted pass, to be handed to {@link #complete(Redemption, int)}
+     * @throws LuckyDrawException INVALID_DRAW_PASS if the pass is forged, expired, replayed or
+     *         for someone else; USER_MULTIPLE_DRAW_LIMIT_REACHED if it has too few draws left
+     */
+    public Redemption redeem(Long userId, Long activityId, String token, int drawCount) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseDrawPass(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_DRAW_PASS);
+        }
+        if (!Objects.equals(userId, claims.get("userId", Long.class))
+                || !Objects.equals(activityId, claims.get("activityId", Long.class))) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_DRAW_PASS);
+        }
+        long nonce = claims.get("nonce", Long.class);
+        int remaining = claims.get("remaining", Integer.class);
+
+        PassState state = passes.get(key(userId, activityId));
+        if (state == null) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_DRAW_PASS);
+        }
+        synchronized (state) {
+            if (!claims.getId().equals(state.passId) || nonce <= state.lastNonce) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_DRAW_PASS);
+            }
+            if (remaining < drawCount) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.USER_MULTIPLE_DRAW_LIMIT_REACHED);
+            }
+            state.lastNonce = nonce;
+        }
+        return new Redemption(state, claims.getId(), userId, activityId, nonce);
+    }
+
+    /**
+     * Charge the recorded draws to an accepted pass; call inside the draw transaction so a pass
+     * superseded meanwhile rolls the draws back instead of charging a released quota
+     * @param redemption Pass accepted by {@link #redeem(Long, Long, String, int)}
+     * @param drawsMade Draws recorded
+     * @return Next pass, with the nonce after the one just used
+     */
+    public DrawPassResponse complete(Redemption redemption, int drawsMade) {
+        PassState state = redemption.state;
+        synchronized (state) {
+            if (!redemption.isCurrent() || passes.get(redemption.key()) != state) {
+                // Superseded by a new pass meanwhile, which released the old remaining count
+                throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_DRAW_PASS);
+            }
+            state.remaining -= drawsMade;
+            state.expiresAt = clock.instant().plusSeconds(ttlSeconds);
+            return sign(state, redemption.userId, redemption.activityId, redemption.nonce + 1);
+        }
+    }
+
+    /**
+     * Let a pass be presented again after its draw failed before anything was recorded
+     */
+    public void abandon(Redemption redemption) {
+        PassState state = redemption.state;
+        synchronized (state) {
+            if (redemption.isCurrent()) {
+                state.lastNonce = redemption.nonce - 1;
+            }
+        }
+    }
+
+    /**
+     * Give the draws of expired passes back to the users' quotas
+     */
+    @Scheduled(fixedDelayString = "${luckydraw.draw-pass.sweep-interval-ms:60000}")
+    public void releaseExpired() {
+        Instant now = clock.instant();
+        for (Map.Entry<String, PassState> entry : passes.entrySet()) {
+            PassState state = entry.getValue();
+            synchronized (state) {
+                if (state.expiresAt != null && state.expiresAt.isAfter(now)) {
+                    continue;
+                }
+                String[] ids = entry.getKey().split(":");
+                int remaining = state.remaining;
+                if (remaining > 0) {
+                    transactionTemplate.executeWithoutResult(status ->
+                        drawQuotaService.release(Long.valueOf(ids[0]), Long.valueOf(ids[1]), remaining));
+                }
+                passes.remove(entry.getKey(), state);
+            }
+        }
+    }
+
+    private DrawPassResponse sign(PassState state, Long userId, Long activityId, long nonce) {
+        String token = jwtUtil.generateDrawPass(state.passId, userId, activityId, nonce, state.remaining,
+            Date.from(state.expiresAt));
+        return new DrawPassResponse(token, state.remaining, state.expiresAt);
+    }
+
+    private static String key(Long userId, Long activityId) {
+        return userId + ":" + activityId;
+    }
+
+    /**
+     * Server side of the current pass of one (user, activity)
+     */
+    private static class PassState {
+        private String passId;
+        private long lastNonce;
+        private int remaining;
+        private Instant expiresAt;
+    }
+
+    /**
+     * A pass accepted for one draw request
+     */
+    public static class Redemption {
+        private final PassState state;
+        private final String passId;
+        private final Long userId;
+        private final Long activityId;
+        private final long nonce;
+
+        private Redemption(PassState state, String passId, Long userId, Long activityId, long nonce) {
+            this.state = state;
+            this.passId = passId;
+            this.userId = userId;
+            this.activityId = activityId;
+            this.nonce = nonce;
+        }
+
+        private String key() {
+            return DrawPassService.key(userId, activityId);
+        }
+
+        /**
+         * Whether the pass state still points at this redemption; call holding the state's lock
+         */
+        private boolean isCurrent() {
+            return passId.equals(state.passId) && nonce == state.lastNonce;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.entity.UserActivityQuota;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.UserActivityQuotaRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+/**
+ * Service for per-user draw quotas
+ *
+ * The used draw count of each (user, activity) lives in its own row and is updated with one
+ * conditional increment, so enforcing the limit does not depend on the size of draw_records.
+ * The row lock taken by the UPDATE is held until the draw transaction ends, which serializes
+ * parallel requests of the same user without affecting anyone else.
+ */
+@Service
+public class DrawQuotaService {
+
+    @Autowired
+    private UserActivityQuotaRepository quotaRepository;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    /**
+     * Reserve draws for a user; must run inside the draw transaction so a rollback returns them
+     * @param userId User ID
+     * @param activityId Activity ID
+     * @param count Draws requested
+     * @param maxDraws Per-user limit of the activity
+     * @return true if the draws were reserved, false if the limit would be exceeded
+     */
+    public boolean tryConsume(Long userId, Long activityId, int count, int maxDraws) {
+        if (quotaRepository.tryConsume(userId, activityId, count, maxDraws) == 1) {
+            return true;
+        }
+        if (quotaRepository.findByUserIdAndActivityId(userId, activityId).isPresent()) {
+            return false;
+        }
+        // First draw of this user in this activity
+        createQuota(userId, activityId);
+        return quotaRepository.tryConsume(userId, activityId, count, maxDraws) == 1;
+    }
+
+    /**
+     * Give back draws that were reserved but not recorded
+     */
+    public void release(Long userId, Long activityId, int count) {
+        if (count > 0) {
+            quotaRepository.release(userId, activityId, count);
+        }
+    }
+
+    /**
+     * Get how many draws a user has used in an activity
+     */
+    public int getUsedDraws(Long userId, Long activityId) {
+        return quotaRepository.findByUserIdAndActivityId(userId, activityId)
+            .map(UserActivityQuota::getUsedDraws)
+            .orElseGet(() -> (int) drawRecordRepository.countByUserIdAndActivityId(userId, activityId));
+    }
+
+    /**
+     * Insert the quota row, seeded from existing draw records, in the draw transaction itself.
+     * A separate transaction would need a second pooled connection per request and can exhaust
+     * the pool under load. If a parallel first draw of the same user wins the insert, the unique
+     * constraint fails this request as busy and the client can retry.
+     */
+    private void createQuota(Long userId, Long activityId) {
+        int used = (int) drawRecordRepository.countByUserIdAndActivityId(userId, activityId);
+        try {
+            quotaRepository.saveAndFlush(new UserActivityQuota(userId, activityId, used));
+        } catch (DataIntegrityViolationException e) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+    }
+}
@@ -1,14 +1,13 @@
 package com.example.demoproject.luckydraw.service;
 
 import com.example.demoproject.luckydraw.entity.*;
-import com.example.demoproject.luckydraw.repository.*;
 import com.example.demoproject.luckydraw.constants.ErrorConstants;
 import com.example.demoproject.luckydraw.exception.LuckyDrawException;
 import org.springframework.beans.factory.annotation.Autowired;
-import com.example.demoproject.auth.entity.User;
-import com.example.demoproject.auth.repository.AuthUserRepository;
 import org.springframework.stereotype.Service;
+import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service for validating draw operations
@@ -17,42 +16,41 @@ import java.util.List;
 public class DrawValidationService {
 
     @Autowired
-    private ActivityRepository activityRepository;
-    
-    @Autowired
-    private PrizeRepository prizeRepository;
-    
-    @Autowired
-    private DrawRecordRepository drawRecordRepository;
+    private DrawMetadataCache drawMetadataCache;
 
     @Autowired
-    private AuthUserRepository authUserRepository;
+    private UserActivityService userActivityService;
 
     @Autowired
-    private UserActivityService userActivityService;
+    private DrawQuotaService drawQuotaService;
 
     /**
      * Validate activity exists and is active
      */
     public Activity findActivity(Long activityId) {
-        return activityRepository.findById(activityId)
-            .orElseThrow(() -> new IllegalArgumentException("Activity not found"));
+        if (activityId == null) {
+            throw new IllegalArgumentException("Activity ID is required");
+        }
+        return drawMetadataCache.getActivity(activityId);
     }
 
     /**
      * Validate user multiple draw limit (using Activity's maxDraws)
+     * Reserves the draws in the user's quota; call inside the draw transaction
      */
     public void validateUserMultipleDrawLimit(Long activityId, int drawCount, Integer maxDraws) {
+        validateUserMultipleDrawLimit(userActivityService.getCurrentUserId(), activityId, drawCount, maxDraws);
+    }
+
+    /**
+     * Validate user multiple draw limit for a given user (for callers without a security context)
+     */
+    public void validateUserMultipleDrawLimit(Long userId, Long activityId, int drawCount, Integer maxDraws) {
+        if (activityId == null) {
+            throw new IllegalArgumentException("Activity ID is required");
+        }
 
-        Long userId = userActivityService.getCurrentUserId();
-        User user = authUserRepository.findById(userId)
-            .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
-        
-        Activity activity = activityRepository.findById(activityId)
-            .orElseThrow(() -> new IllegalArgumentException("Activity not found: " + activityId));
-        long userDrawCount = drawRecordRepository.countByUserAndActivity(user, activity);
-        
-        if (userDrawCount + drawCount > maxDraws) {
+        if (!drawQuotaService.tryConsume(userId, activityId, drawCount, maxDraws)) {
             throw new LuckyDrawException(ErrorConstants.ErrorType.USER_MULTIPLE_DRAW_LIMIT_REACHED);
         }
     }
@@ -61,10 +59,17 @@ public class DrawValidationService {
      * Get available prizes for activity
      */
     public List<Prize> getAvailablePrizes(Activity activity) {
-        List<Prize> prizes = prizeRepository.findByActivity(activity);
+        List<Prize> prizes = drawMetadataCache.getPrizes(activity);
         if (prizes.isEmpty()) {
             throw new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE);
         }
         return prizes;
     }
+
+    /**
+     * Get the prize multipliers of a user segment for an activity
+     */
+    public Map<Long, BigDecimal> getSegmentMultipliers(Activity activity, String segment) {
+        return drawMetadataCache.getSegmentMultipliers(activity.getId(), segment);
+    }
 } 
\ No newline at end of file
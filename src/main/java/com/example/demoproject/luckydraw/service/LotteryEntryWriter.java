@@ -0,0 +1,229 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.entity.LotteryEntry;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.LotteryEntryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit of lottery entries.
+ *
+ * Registrations queue their entry and wait. A writer thread collects entries for up to
+ * window-ms or until max-batch are waiting, drops users who already entered with one lookup per
+ * activity and inserts the rest as one JDBC batch in a single transaction. Entries are
+ * append-only and touch no prize rows, so registration needs no inventory locks at all.
+ *
+ * The unique (activity, user) constraint backs up the lookup when two nodes take the same
+ * user in the same window; the batch is then retried one entry at a time.
+ */
+@Service
+public class LotteryEntryWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(LotteryEntryWriter.class);
+
+    @Autowired
+    private LotteryEntryRepository lotteryEntryRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${luckydraw.lottery.entries.window-ms:10}")
+    private long windowMs = 10;
+
+    @Value("${luckydraw.lottery.entries.max-batch:500}")
+    private int maxBatch = 500;
+
+    @Value("${luckydraw.lottery.entries.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    private final BlockingQueue<Registration> queue = new LinkedBlockingQueue<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRegistrations = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private volatile boolean running;
+    private Thread worker;
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        worker = new Thread(this::runWorker, "lottery-entry-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Registration> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        leftover.forEach(registration -> registration.future.completeExceptionally(
+            new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY)));
+    }
+
+    /**
+     * Add a user's entry to a lottery through the next batch
+     * @param activityId Activity ID
+     * @param userId User ID
+     * @return true if the entry was written, false if the user had already entered
+     * @throws LuckyDrawException SYSTEM_BUSY if the writer is stopped or the batch fails or takes too long
+     */
+    public boolean append(Long activityId, Long userId) {
+        if (!running) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+        Registration registration = new Registration(activityId, userId);
+        queue.add(registration);
+        try {
+            return registration.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // The entry may still be written; registering again then reports it as already entered
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        } catch (ExecutionException e) {
+            logger.warn("Lottery entry of user {} in activity {} failed: {}", userId, activityId, e.getCause().getMessage());
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", queue.size());
+        stats.put("batches", batches.sum());
+        stats.put("written", written.sum());
+        long batchCount = batches.sum();
+        stats.put("avgBatchSize", batchCount == 0 ? 0.0 : batchedRegistrations.sum() / (double) batchCount);
+        return stats;
+    }
+
+    private void runWorker() {
+        List<Registration> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxBatch) {
+                    Registration next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Lottery entry writer failed to write a batch of {}", batch.size(), e);
+                batch.forEach(registration -> registration.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Write one batch; each registration is answered once the transaction has committed
+     */
+    void write(List<Registration> batch) {
+        Map<Registration, Boolean> results = new LinkedHashMap<>();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                results.clear();
+                insertNew(batch, results);
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node entered one of these users meanwhile
+            results.clear();
+            for (Registration registration : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> insertNew(List.of(registration), results));
+                } catch (DataIntegrityViolationException duplicate) {
+                    results.put(registration, false);
+                }
+            }
+        }
+        batches.increment();
+        batchedRegistrations.add(batch.size());
+        results.forEach((registration, inserted) -> {
+            if (inserted) {
+                written.increment();
+            }
+            registration.future.complete(inserted);
+        });
+    }
+
+    private void insertNew(List<Registration> batch, Map<Registration, Boolean> results) {
+        Map<Long, List<Registration>> byActivity = new LinkedHashMap<>();
+        batch.forEach(registration -> byActivity.computeIfAbsent(registration.activityId, id -> new ArrayList<>()).add(registration));
+
+        LocalDateTime now = LocalDateTime.now();
+        List<LotteryEntry> entries = new ArrayList<>(batch.size());
+        byActivity.forEach((activityId, registrations) -> {
+            Set<Long> entered = new HashSet<>(lotteryEntryRepository.findUserIds(activityId,
+                registrations.stream().map(registration -> registration.userId).toList()));
+            for (Registration registration : registrations) {
+                // add() also catches a user registering twice within one batch
+                boolean inserted = entered.add(registration.userId);
+                if (inserted) {
+                    entries.add(new LotteryEntry(activityId, registration.userId, now));
+                }
+                results.put(registration, inserted);
+            }
+        });
+        lotteryEntryRepository.saveAll(entries);
+        lotteryEntryRepository.flush();
+    }
+
+    /**
+     * A queued entry waiting for its batch
+     */
+    static class Registration {
+        private final Long activityId;
+        private final Long userId;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        Registration(Long activityId, Long userId) {
+            this.activityId = activityId;
+            this.userId = userId;
+        }
+
+        CompletableFuture<Boolean> getFuture() {
+            return future;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.auth.repository.AuthUserRepository;
+import com.example.demoproject.luckydraw.constants.ActivityType;
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.dto.LotteryEntryResult;
+import com.example.demoproject.luckydraw.dto.LotteryResult;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.LotteryEntryRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.util.WinnerSampler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+/**
+ * Service for lottery activities: users register one entry each while the activity runs, and
+ * once it ends every prize unit goes to a distinct entry picked uniformly at random.
+ *
+ * Winners are picked by streaming the entries in parallel ID ranges, each keeping a bottom-k
+ * sample, and merging the samples; memory grows with the number of prize units, not entries.
+ * The winners' draw records and the prize decrements are written in one transaction that first
+ * claims the activity, so only one node can record winners.
+ */
+@Service
+public class LotteryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LotteryService.class);
+
+    @Autowired
+    private DrawValidationService drawValidationService;
+
+    @Autowired
+    private UserActivityService userActivityService;
+
+    @Autowired
+    private LotteryEntryWriter lotteryEntryWriter;
+
+    @Autowired
+    private LotteryEntryRepository lotteryEntryRepository;
+
+    @Autowired
+    private ActivityRepository activityRepository;
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    @Autowired
+    private AuthUserRepository authUserRepository;
+
+    @Autowired
+    private DrawMetadataCache drawMetadataCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${luckydraw.lottery.selection-threads:4}")
+    private int selectionThreads = 4;
+
+    private Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * Enter the current user in a lottery
+     * @param activityId Activity ID
+     * @return Entry result with the closing time
+     */
+    public LotteryEntryResult enter(Long activityId) {
+        Activity activity = drawValidationService.findActivity(activityId);
+        if (!activity.isLottery()) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_OPERATION);
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (activity.getWinnersSelectedAt() != null
+                || (activity.getStartTime() != null && now.isBefore(activity.getStartTime()))
+                || (activity.getEndTime() != null && !now.isBefore(activity.getEndTime()))) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.LOTTERY_NOT_OPEN);
+        }
+        if (!lotteryEntryWriter.append(activityId, userActivityService.getCurrentUserId())) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.LOTTERY_ALREADY_ENTERED);
+        }
+        return new LotteryEntryResult(activityId, activity.getEndTime());
+    }
+
+    /**
+     * Select and record the winners of a closed lottery
+     * @param activityId Activity ID
+     * @return Number of entries and winners
+     */
+    public LotteryResult selectWinners(Long activityId) {
+        Activity activity = activityRepository.findById(activityId)
+            .orElseThrow(() -> new LuckyDrawException(ErrorConstants.ErrorType.ACTIVITY_NOT_FOUND));
+        if (!activity.isLottery()) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_OPERATION);
+        }
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (activity.getWinnersSelectedAt() != null || activity.getEndTime() == null || now.isBefore(activity.getEndTime())) {
+            // Still open, or already drawn
+            throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_STATE);
+        }
+
+        List<Prize> prizes = new ArrayList<>(prizeRepository.findByActivity(activity));
+        prizes.sort(Comparator.comparing(Prize::getId));
+        int units = prizes.stream().mapToInt(Prize::getQuantity).sum();
+
+        WinnerSampler sample = sampleEntries(activityId, units);
+        List<Long> winners = sample.winners();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (activityRepository.claimWinnerSelection(activityId, now) == 0) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.INVALID_STATE);
+            }
+            // Winners come in random order, so handing out prizes in ID order is fair
+            List<DrawRecord> records = new ArrayList<>(winners.size());
+            int next = 0;
+            for (Prize prize : prizes) {
+                int won = Math.min(prize.getQuantity(), winners.size() - next);
+                if (won == 0) {
+                    continue;
+                }
+                if (prizeRepository.decrementQuantityBy(prize.getId(), won) == 0) {
+                    // Quantity changed since it was read; nothing is recorded
+                    throw new LuckyDrawException(ErrorConstants.ErrorType.CONCURRENT_MODIFICATION);
+                }
+                for (int i = 0; i < won; i++) {
+                    records.add(new DrawRecord(authUserRepository.getReferenceById(winners.get(next++)), activity, prize));
+                }
+            }
+            drawRecordRepository.saveAll(records);
+        });
+        drawMetadataCache.invalidateActivity(activityId);
+
+        logger.info("Lottery {} drew {} winners from {} entries", activityId, winners.size(), sample.getSeen());
+        return new LotteryResult(activityId, sample.getSeen(), winners.size());
+    }
+
+    /**
+     * Select the winners of every lottery that has closed
+     */
+    @Scheduled(fixedDelayString = "${luckydraw.lottery.check-interval-ms:60000}")
+    public void selectDueWinners() {
+        List<Activity> due = activityRepository.findByTypeAndEndTimeBeforeAndWinnersSelectedAtIsNull(
+            ActivityType.LOTTERY, LocalDateTime.now(clock));
+        for (Activity activity : due) {
+            try {
+                selectWinners(activity.getId());
+            } catch (RuntimeException e) {
+                logger.warn("Winner selection of lottery {} failed: {}", activity.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Stream the entries in parallel ID ranges and merge their samples
+     */
+    WinnerSampler sampleEntries(Long activityId, int winners) {
+        WinnerSampler sample = new WinnerSampler(winners);
+        Long minId = lotteryEntryRepository.findMinId(activityId);
+        Long maxId = lotteryEntryRepository.findMaxId(activityId);
+        if (minId == null || maxId == null) {
+            return sample;
+        }
+        int partitions = (int) Math.max(1, Math.min(selectionThreads, maxId - minId + 1));
+        long span = (maxId - minId) / partitions + 1;
+
+        ExecutorService pool = Executors.newFixedThreadPool(partitions);
+        try {
+            List<Future<WinnerSampler>> parts = new ArrayList<>(partitions);
+            for (int p = 0; p < partitions; p++) {
+                long fromId = minId + p * span;
+                long toId = Math.min(maxId, fromId + span - 1);
+                parts.add(pool.submit(() -> transactionTemplate.execute(status -> {
+                    WinnerSampler part = new WinnerSampler(winners);
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    try (Stream<Long> users = lotteryEntryRepository.streamUserIds(activityId, fromId, toId)) {
+                        users.forEach(userId -> part.offer(userId, random));
+                    }
+                    return part;
+                })));
+            }
+            for (Future<WinnerSampler> part : parts) {
+                sample.merge(part.get());
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Winner selection of lottery " + activityId + " failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        } finally {
+            pool.shutdownNow();
+        }
+        return sample;
+    }
+}
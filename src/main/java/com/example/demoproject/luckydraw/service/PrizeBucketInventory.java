@@ -0,0 +1,191 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.PrizeInventoryBucket;
+import com.example.demoproject.luckydraw.repository.PrizeInventoryBucketRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prize inventory split across several rows, used when luckydraw.inventory.mode=BUCKETED.
+ *
+ * Each prize's quantity is spread over bucket-count rows of prize_inventory_buckets. A win takes
+ * a unit from one bucket with a conditional UPDATE and moves on to the next bucket only when that
+ * one is empty, so concurrent winners of a hot prize mostly lock different rows. The prizes row
+ * keeps the quantity of the last split and is not touched by draws.
+ *
+ * When the mode is switched off, the remaining bucket quantities are folded back into the prizes
+ * table on startup.
+ */
+@Service
+public class PrizeBucketInventory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrizeBucketInventory.class);
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private PrizeInventoryBucketRepository prizeInventoryBucketRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${luckydraw.inventory.mode:CONDITIONAL_UPDATE}")
+    private InventoryMode inventoryMode = InventoryMode.CONDITIONAL_UPDATE;
+
+    @Value("${luckydraw.inventory.buckets:8}")
+    private int bucketCount = 8;
+
+    public boolean isEnabled() {
+        return inventoryMode == InventoryMode.BUCKETED;
+    }
+
+    /**
+     * Take one unit of a prize from its buckets
+     * @param prizeId Prize ID
+     * @return true if a unit was taken, false if every bucket is empty
+     */
+    public boolean tryDecrement(Long prizeId) {
+        // Start from a bucket chosen by thread, so a request winning the same prize twice reuses
+        // the row it already locked instead of locking a second one in a random order
+        int start = Math.floorMod(Thread.currentThread().getId() + prizeId, bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            if (prizeInventoryBucketRepository.decrementIfAvailable(prizeId, (start + i) % bucketCount) > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Remaining quantity of each prize, summed over its buckets
+     * @param prizeIds Prize IDs
+     * @return Remaining quantity by prize ID; prizes without buckets are absent
+     */
+    public Map<Long, Integer> getRemaining(Collection<Long> prizeIds) {
+        Map<Long, Integer> remaining = new HashMap<>();
+        if (prizeIds.isEmpty()) {
+            return remaining;
+        }
+        for (Object[] row : prizeInventoryBucketRepository.sumQuantityByPrizeIds(prizeIds)) {
+            remaining.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return remaining;
+    }
+
+    /**
+     * Lock a prize's buckets until the caller's transaction ends and sum what is left in them.
+     * Call in a transaction, before {@link #resize} replaces that quantity.
+     * @param prizeId Prize ID
+     * @return Remaining quantity, or null if the prize has no buckets
+     */
+    public Integer lockRemaining(Long prizeId) {
+        List<PrizeInventoryBucket> buckets = prizeInventoryBucketRepository.findByPrizeIdWithLock(prizeId);
+        return buckets.isEmpty() ? null : buckets.stream().mapToInt(PrizeInventoryBucket::getQuantity).sum();
+    }
+
+    /**
+     * Spread a new quantity over the prize's buckets, replacing what is left in them
+     * @param prizeId Prize ID
+     * @param quantity New total quantity
+     */
+    public void resize(Long prizeId, int quantity) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<PrizeInventoryBucket> buckets = prizeInventoryBucketRepository.findByPrizeIdOrderByBucketIndex(prizeId);
+            if (buckets.size() != bucketCount) {
+                // Bucket count changed since the last split; delete right away so the inserts don't clash
+                prizeInventoryBucketRepository.deleteAllInBatch(buckets);
+                buckets = new ArrayList<>();
+                for (int i = 0; i < bucketCount; i++) {
+                    buckets.add(new PrizeInventoryBucket(prizeId, i, 0));
+                }
+            }
+            for (int i = 0; i < bucketCount; i++) {
+                buckets.get(i).setQuantity(share(quantity, i));
+            }
+            prizeInventoryBucketRepository.saveAll(buckets);
+        });
+    }
+
+    /**
+     * Split prizes that have no buckets yet and re-split those split into a different bucket count,
+     * or fold buckets back into the prizes table when the mode is off. Runs before the inventory
+     * ledger reconciles, so the units taken from the buckets are in the awarded counts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void initialize() {
+        if (isEnabled()) {
+            Map<Long, Long> bucketsByPrize = new HashMap<>();
+            for (Object[] row : prizeInventoryBucketRepository.countBucketsByPrizeId()) {
+                bucketsByPrize.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            for (Prize prize : prizeRepository.findAll()) {
+                Long buckets = bucketsByPrize.get(prize.getId());
+                if (buckets == null) {
+                    resize(prize.getId(), prize.getQuantity());
+                } else if (buckets != bucketCount) {
+                    // Draws never reach buckets at or above the count, so what is left in them would be stranded
+                    resplit(prize.getId());
+                }
+            }
+            logger.info("Prize inventory split into {} buckets per prize", bucketCount);
+        } else if (prizeInventoryBucketRepository.count() > 0) {
+            foldBack();
+        }
+    }
+
+    /**
+     * Spread what is left in a prize's buckets over the configured bucket count
+     */
+    private void resplit(Long prizeId) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Integer left = lockRemaining(prizeId);
+            Prize prize = prizeRepository.findById(prizeId)
+                .orElseThrow(() -> new IllegalArgumentException("Prize not found: " + prizeId));
+            // prizes.quantity still holds the total of the last split
+            prize.setAwardedCount(prize.getAwardedCount() + Math.max(0, prize.getQuantity() - left));
+            prize.setQuantity(left);
+            prizeRepository.save(prize);
+            resize(prizeId, left);
+        });
+    }
+
+    private void foldBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Prize> prizes = prizeRepository.findAll();
+            Map<Long, Integer> remaining = getRemaining(prizes.stream().map(Prize::getId).toList());
+            for (Prize prize : prizes) {
+                Integer left = remaining.get(prize.getId());
+                if (left != null) {
+                    // prizes.quantity still holds the total of the last split
+                    prize.setAwardedCount(prize.getAwardedCount() + Math.max(0, prize.getQuantity() - left));
+                    prize.setQuantity(left);
+                }
+            }
+            prizeRepository.saveAll(prizes);
+            prizeInventoryBucketRepository.deleteAllInBatch();
+        });
+        logger.info("Prize inventory buckets folded back into the prizes table");
+    }
+
+    private int share(int quantity, int bucketIndex) {
+        return quantity / bucketCount + (bucketIndex < quantity % bucketCount ? 1 : 0);
+    }
+}
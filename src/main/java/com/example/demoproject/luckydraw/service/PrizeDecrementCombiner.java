@@ -0,0 +1,303 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Group commit of prize decrements, used when luckydraw.inventory.mode=COMBINING.
+ *
+ * Winning draws queue their decrement and wait. A combiner thread collects decrements for up to
+ * window-ms or until max-batch are waiting, then applies one conditional UPDATE per prize in a
+ * single transaction and hands out units in arrival order up to what the prize has left. During a
+ * launch spike a hot prize row is locked once per window instead of once per winner.
+ *
+ * The combined UPDATE commits before the draws that asked for it. Units of a draw that rolls back,
+ * or that gave up waiting, are put back by the next batch; a crash in between loses those units
+ * rather than over-awarding them.
+ */
+@Service
+public class PrizeDecrementCombiner {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrizeDecrementCombiner.class);
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${luckydraw.inventory.mode:CONDITIONAL_UPDATE}")
+    private InventoryMode inventoryMode = InventoryMode.CONDITIONAL_UPDATE;
+
+    @Value("${luckydraw.inventory.combining.window-ms:5}")
+    private long windowMs = 5;
+
+    @Value("${luckydraw.inventory.combining.max-batch:64}")
+    private int maxBatch = 64;
+
+    @Value("${luckydraw.inventory.combining.timeout-ms:2000}")
+    private long timeoutMs = 2000;
+
+    private final BlockingQueue<Decrement> queue = new LinkedBlockingQueue<>();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedDecrements = new LongAdder();
+    private volatile boolean running;
+    private Thread worker;
+
+    public boolean isEnabled() {
+        return inventoryMode == InventoryMode.COMBINING;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        worker = new Thread(this::runWorker, "prize-combiner");
+        worker.setDaemon(true);
+        worker.start();
+        logger.info("Prize decrement combiner started, window {} ms, max batch {}", windowMs, maxBatch);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<Decrement> leftover = new ArrayList<>();
+        queue.drainTo(leftover);
+        leftover.forEach(decrement -> decrement.future.completeExceptionally(
+            new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY)));
+    }
+
+    /**
+     * Take one unit of a prize through the next combined UPDATE
+     * @param prizeId Prize ID
+     * @return true if a unit was granted, false if the prize is sold out
+     */
+    public boolean tryDecrement(Long prizeId) {
+        return take(prizeId, 1) == 1;
+    }
+
+    /**
+     * Take up to count units of a prize through the next combined UPDATE. Draws call this before
+     * their transaction starts: waiting inside it would hold a pooled connection and the quota row
+     * lock while the combiner needs a connection of its own. If called inside a transaction, the
+     * units are put back when it rolls back.
+     * @param prizeId Prize ID
+     * @param count Units wanted
+     * @return Units granted, fewer than count if the prize is running out
+     * @throws LuckyDrawException SYSTEM_BUSY if the combiner is stopped or the batch fails or takes too long
+     */
+    public int take(Long prizeId, int count) {
+        Decrement decrement = new Decrement(prizeId, count);
+        if (!running) {
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+        queue.add(decrement);
+
+        int granted;
+        try {
+            granted = decrement.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // If the batch completes after this, it sees the cancelled future and puts the units back
+            decrement.future.cancel(false);
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            decrement.future.cancel(false);
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        } catch (ExecutionException e) {
+            logger.warn("Combined decrement of prize {} failed: {}", prizeId, e.getCause().getMessage());
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+
+        if (granted > 0 && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        restore(prizeId, granted);
+                    }
+                }
+            });
+        }
+        return granted;
+    }
+
+    /**
+     * Put back units taken for a draw that was not committed
+     * @param prizeId Prize ID
+     * @param units Units to put back
+     */
+    public void release(Long prizeId, int units) {
+        if (units > 0) {
+            restore(prizeId, units);
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("queued", queue.size());
+        stats.put("batches", batches.sum());
+        long batchCount = batches.sum();
+        stats.put("avgBatchSize", batchCount == 0 ? 0.0 : batchedDecrements.sum() / (double) batchCount);
+        return stats;
+    }
+
+    private void runWorker() {
+        List<Decrement> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            try {
+                batch.add(queue.take());
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(windowMs);
+                while (batch.size() < maxBatch) {
+                    Decrement next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Prize combiner failed to apply a batch of {}", batch.size(), e);
+                for (Decrement decrement : batch) {
+                    if (decrement.count < 0) {
+                        // Keep restores for the next batch rather than losing the units
+                        queue.add(decrement);
+                    } else {
+                        decrement.future.completeExceptionally(e);
+                    }
+                }
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Apply one batch: restores first, then one decrement per prize in prize ID order
+     */
+    void apply(List<Decrement> batch) {
+        Map<Long, List<Decrement>> byPrize = new TreeMap<>();
+        for (Decrement decrement : batch) {
+            if (decrement.count > 0 && decrement.future.isCancelled()) {
+                continue;
+            }
+            byPrize.computeIfAbsent(decrement.prizeId, id -> new ArrayList<>()).add(decrement);
+        }
+        if (byPrize.isEmpty()) {
+            return;
+        }
+        batches.increment();
+        batchedDecrements.add(batch.size());
+
+        Map<Decrement, Integer> grants = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            grants.clear();
+            byPrize.forEach((prizeId, decrements) -> {
+                int restored = 0;
+                int wanted = 0;
+                for (Decrement decrement : decrements) {
+                    if (decrement.count < 0) {
+                        restored -= decrement.count;
+                    } else {
+                        wanted += decrement.count;
+                    }
+                }
+                if (restored > 0) {
+                    prizeRepository.restoreQuantity(prizeId, restored);
+                }
+                int left = wanted > 0 ? decrementUpTo(prizeId, wanted) : 0;
+                for (Decrement decrement : decrements) {
+                    if (decrement.count > 0) {
+                        int granted = Math.min(decrement.count, left);
+                        left -= granted;
+                        grants.put(decrement, granted);
+                    }
+                }
+            });
+        });
+
+        // Only hand out units once the UPDATE is committed
+        grants.forEach((decrement, granted) -> {
+            if (!decrement.future.complete(granted) && granted > 0) {
+                restore(decrement.prizeId, granted);
+            }
+        });
+    }
+
+    /**
+     * Take up to wanted units with a conditional UPDATE, retrying with what is left when short
+     */
+    private int decrementUpTo(Long prizeId, int wanted) {
+        while (wanted > 0) {
+            if (prizeRepository.decrementQuantityBy(prizeId, wanted) > 0) {
+                return wanted;
+            }
+            Integer left = prizeRepository.findQuantityById(prizeId);
+            wanted = Math.min(wanted, left == null ? 0 : left);
+        }
+        return 0;
+    }
+
+    private void restore(Long prizeId, int units) {
+        queue.add(new Decrement(prizeId, -units));
+    }
+
+    /**
+     * A queued decrement; a negative count puts units back and has no waiting caller
+     */
+    static class Decrement {
+        private final Long prizeId;
+        private final int count;
+        private final CompletableFuture<Integer> future = new CompletableFuture<>();
+
+        Decrement(Long prizeId, int count) {
+            this.prizeId = prizeId;
+            this.count = count;
+        }
+
+        CompletableFuture<Integer> getFuture() {
+            return future;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory prize inventory used when luckydraw.inventory.mode=LEDGER.
+ *
+ * Each prize's remaining quantity lives in an AtomicInteger and winning draws take a unit
+ * with a compare-and-set, so no row lock is held on the draw path. Decrements are queued once
+ * the draw transaction commits and written back to the prizes table by a background flusher.
+ * On startup, prizes are reconciled against draw_records so decrements lost in a crash are
+ * re-applied before any counter is loaded.
+ *
+ * Units taken but not yet in the prizes table (held by an open draw transaction, queued, or being
+ * flushed) are counted per prize, and a counter loaded from the table starts below its quantity
+ * by that many. An evicted counter can therefore be reloaded at any time without handing out
+ * units twice.
+ *
+ * The counters are per JVM: this mode must only be enabled when one node serves draws.
+ */
+@Service
+public class PrizeInventoryLedger {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrizeInventoryLedger.class);
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${luckydraw.inventory.mode:CONDITIONAL_UPDATE}")
+    private InventoryMode inventoryMode = InventoryMode.CONDITIONAL_UPDATE;
+
+    private final ConcurrentMap<Long, AtomicInteger> remaining = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, AtomicInteger> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, AtomicInteger> outstanding = new ConcurrentHashMap<>();
+    // Held while a counter is loaded, so it reads the quantity and the outstanding units of the
+    // same moment: flushes and give-backs change both under it
+    private final Object loadLock = new Object();
+
+    public boolean isEnabled() {
+        return inventoryMode == InventoryMode.LEDGER;
+    }
+
+    /**
+     * Take one unit of a prize without touching the database
+     * @param prizeId Prize ID
+     * @return true if a unit was reserved, false if the prize is sold out
+     */
+    public boolean tryDecrement(Long prizeId) {
+        return take(prizeId, 1) == 1;
+    }
+
+    /**
+     * Take up to count units of a prize with a single compare-and-set
+     * @param prizeId Prize ID
+     * @param count Units wanted
+     * @return Units reserved, fewer than count if the prize is running out
+     */
+    public int take(Long prizeId, int count) {
+        AtomicInteger units = outstanding(prizeId);
+        int taken;
+        while (true) {
+            AtomicInteger counter = getCounter(prizeId);
+            // Counted before the compare-and-set, so a counter loaded meanwhile leaves them out
+            units.addAndGet(count);
+            taken = takeFrom(counter, count);
+            if (remaining.get(prizeId) == counter) {
+                units.addAndGet(taken - count);
+                break;
+            }
+            // Evicted meanwhile; the units came from the old counter, take them from the new one
+            counter.addAndGet(taken);
+            units.addAndGet(-count);
+        }
+        if (taken == 0) {
+            return 0;
+        }
+
+        int reserved = taken;
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // Only queue the write-back once the draw record is committed; give the units back otherwise
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_COMMITTED) {
+                        addPending(prizeId, reserved);
+                    } else {
+                        giveBack(prizeId, reserved);
+                    }
+                }
+            });
+        } else {
+            addPending(prizeId, reserved);
+        }
+        return reserved;
+    }
+
+    /**
+     * Remaining quantity as seen by the ledger, or null if the prize has not been loaded yet
+     */
+    public Integer getRemaining(Long prizeId) {
+        AtomicInteger counter = remaining.get(prizeId);
+        return counter == null ? null : counter.get();
+    }
+
+    /**
+     * Forget a prize's counter so the next draw reloads it from the database, less the units
+     * taken but not yet written back. Call once the quantity was changed outside the ledger.
+     */
+    public void evict(Long prizeId) {
+        remaining.remove(prizeId);
+    }
+
+    /**
+     * Write queued decrements back to the prizes table in one transaction. Joins the caller's
+     * transaction if there is one and queues the decrements again if that rolls back.
+     */
+    @Scheduled(fixedDelayString = "${luckydraw.inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        if (!isEnabled() || pending.isEmpty()) {
+            return;
+        }
+
+        Map<Long, Integer> batch = new HashMap<>();
+        pending.forEach((prizeId, count) -> {
+            int drained = count.getAndSet(0);
+            if (drained > 0) {
+                batch.put(prizeId, drained);
+            }
+        });
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        boolean joined = TransactionSynchronizationManager.isActualTransactionActive();
+        try {
+            if (joined) {
+                transactionTemplate.executeWithoutResult(status -> {
+                    batch.forEach((prizeId, count) -> prizeRepository.applyLedgerDecrement(prizeId, count));
+                    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                        // Before the caller's own afterCommit work, which may evict counters
+                        @Override
+                        public void afterCommit() {
+                            flushed(batch);
+                        }
+
+                        @Override
+                        public void afterCompletion(int status) {
+                            if (status != STATUS_COMMITTED) {
+                                batch.forEach(PrizeInventoryLedger.this::addPending);
+                            }
+                        }
+                    });
+                });
+            } else {
+                synchronized (loadLock) {
+                    transactionTemplate.executeWithoutResult(status ->
+                        batch.forEach((prizeId, count) -> prizeRepository.applyLedgerDecrement(prizeId, count)));
+                    flushed(batch);
+                }
+            }
+        } catch (RuntimeException e) {
+            // Keep the decrements for the next run rather than losing them
+            batch.forEach(this::addPending);
+            logger.warn("Inventory ledger flush failed for {} prizes: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Re-apply decrements that were committed as draw records but never flushed. Runs after bucket
+     * and unit inventories left from an earlier mode have been folded back into the prizes table.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void reconcile() {
+        if (!isEnabled()) {
+            return;
+        }
+
+        Map<Long, Long> awardedByPrize = new HashMap<>();
+        for (Object[] row : drawRecordRepository.countAwardedByPrize()) {
+            awardedByPrize.put((Long) row[0], (Long) row[1]);
+        }
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Prize> prizes = prizeRepository.findAll();
+            for (Prize prize : prizes) {
+                long awarded = awardedByPrize.getOrDefault(prize.getId(), 0L);
+                long missing = awarded - prize.getAwardedCount();
+                if (missing > 0) {
+                    logger.warn("Reconciling prize {}: {} awarded units were not flushed", prize.getId(), missing);
+                    prizeRepository.applyLedgerDecrement(prize.getId(), (int) missing);
+                }
+            }
+        });
+        remaining.clear();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        flush();
+    }
+
+    private AtomicInteger getCounter(Long prizeId) {
+        AtomicInteger counter = remaining.get(prizeId);
+        if (counter != null) {
+            return counter;
+        }
+        synchronized (loadLock) {
+            counter = remaining.get(prizeId);
+            if (counter != null) {
+                return counter;
+            }
+            Prize prize = prizeRepository.findById(prizeId)
+                .orElseThrow(() -> new IllegalArgumentException("Prize not found: " + prizeId));
+            AtomicInteger loaded = new AtomicInteger(Math.max(0, prize.getQuantity() - outstanding(prizeId).get()));
+            remaining.put(prizeId, loaded);
+            return loaded;
+        }
+    }
+
+    private static int takeFrom(AtomicInteger counter, int count) {
+        int current;
+        int taken;
+        do {
+            current = counter.get();
+            taken = Math.min(current, count);
+            if (taken <= 0) {
+                return 0;
+            }
+        } while (!counter.compareAndSet(current, current - taken));
+        return taken;
+    }
+
+    /**
+     * Return units of a rolled back draw to the current counter, which may have been reloaded
+     * since they were taken
+     */
+    private void giveBack(Long prizeId, int count) {
+        synchronized (loadLock) {
+            AtomicInteger counter = remaining.get(prizeId);
+            if (counter != null) {
+                counter.addAndGet(count);
+            }
+            outstanding(prizeId).addAndGet(-count);
+        }
+    }
+
+    /**
+     * The flushed decrements are in the prizes table now
+     */
+    private void flushed(Map<Long, Integer> batch) {
+        synchronized (loadLock) {
+            batch.forEach((prizeId, count) -> outstanding(prizeId).addAndGet(-count));
+        }
+    }
+
+    private AtomicInteger outstanding(Long prizeId) {
+        return outstanding.computeIfAbsent(prizeId, id -> new AtomicInteger());
+    }
+
+    private void addPending(Long prizeId, int count) {
+        pending.computeIfAbsent(prizeId, id -> new AtomicInteger()).addAndGet(count);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket per prize for paced activities.
+ *
+ * A paced activity releases each prize's units evenly between its start and end time: by a given
+ * moment, the share of the window that has passed of (quantity + awarded) units can be won.
+ * Tokens not won yet carry over. A draw that picks a prize without a token gets "Thank You"
+ * before its transaction starts, so the expensive prizes are not all fought over in the launch
+ * spike and their row locks are spread over the campaign.
+ *
+ * Tokens are counted per node and only checked against the inventory's awarded count when a
+ * fresh prize snapshot is loaded, so with several nodes the release can run ahead of schedule
+ * by up to one metadata cache TTL; the inventory still caps the total. A token taken by a draw
+ * that then rolls back is not returned.
+ */
+@Service
+public class PrizePacer {
+
+    private final ConcurrentMap<Long, AtomicInteger> takenByPrize = new ConcurrentHashMap<>();
+    private final LongAdder granted = new LongAdder();
+    private final LongAdder withheld = new LongAdder();
+    private Clock clock = Clock.systemDefaultZone();
+
+    /**
+     * Take up to count tokens of a prize
+     * @param activity Activity the prize belongs to
+     * @param prize Prize that was drawn, as a cached snapshot
+     * @param count Units wanted
+     * @return Tokens granted; count for activities that are not paced
+     */
+    public int acquire(Activity activity, Prize prize, int count) {
+        if (!activity.isPaced() || count <= 0) {
+            return count;
+        }
+        long released = releasedBy(activity, prize, LocalDateTime.now(clock));
+        AtomicInteger taken = takenByPrize.computeIfAbsent(prize.getId(), id -> new AtomicInteger());
+        while (true) {
+            int current = taken.get();
+            // Units awarded elsewhere (another node, or before a restart) already used their tokens
+            int used = Math.max(current, prize.getAwardedCount() == null ? 0 : prize.getAwardedCount());
+            int available = (int) Math.max(0, Math.min(count, released - used));
+            if (taken.compareAndSet(current, used + available)) {
+                granted.add(available);
+                withheld.add(count - available);
+                return available;
+            }
+        }
+    }
+
+    /**
+     * Take one token of a prize
+     * @return true if the win can stand, false if the draw becomes "Thank You"
+     */
+    public boolean tryAcquire(Activity activity, Prize prize) {
+        return acquire(activity, prize, 1) == 1;
+    }
+
+    /**
+     * Units of a prize released by a moment of a paced activity
+     */
+    long releasedBy(Activity activity, Prize prize, LocalDateTime now) {
+        long total = (long) prize.getQuantity() + (prize.getAwardedCount() == null ? 0 : prize.getAwardedCount());
+        if (activity.getStartTime() == null || activity.getEndTime() == null || !now.isBefore(activity.getEndTime())) {
+            return total;
+        }
+        if (!now.isAfter(activity.getStartTime())) {
+            return 0;
+        }
+        long window = Duration.between(activity.getStartTime(), activity.getEndTime()).toMillis();
+        long elapsed = Duration.between(activity.getStartTime(), now).toMillis();
+        return total * elapsed / window;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pacedPrizes", takenByPrize.size());
+        stats.put("granted", granted.sum());
+        stats.put("withheld", withheld.sum());
+        return stats;
+    }
+}
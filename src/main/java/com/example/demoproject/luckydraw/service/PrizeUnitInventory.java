@@ -0,0 +1,220 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.PrizeUnit;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.repository.PrizeUnitRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Prize inventory kept as one row per unit, used when luckydraw.inventory.mode=UNIT_ROWS.
+ *
+ * A win locks any unclaimed unit of the prize with SELECT ... FOR UPDATE SKIP LOCKED and marks it
+ * claimed; the draw then links the unit to its record. On PostgreSQL concurrent winners of the
+ * same prize never wait on each other. Databases without SKIP LOCKED (H2 in the dev profile) read
+ * candidate IDs without a lock, starting at a random unit to keep winners on different rows, and
+ * claim each one with a conditional UPDATE; a unit another winner got first is passed over.
+ *
+ * When the mode is switched off, unclaimed units are folded back into the prizes table on startup.
+ */
+@Service
+public class PrizeUnitInventory {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrizeUnitInventory.class);
+
+    @Autowired
+    private PrizeRepository prizeRepository;
+
+    @Autowired
+    private PrizeUnitRepository prizeUnitRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${luckydraw.inventory.mode:CONDITIONAL_UPDATE}")
+    private InventoryMode inventoryMode = InventoryMode.CONDITIONAL_UPDATE;
+
+    private volatile boolean skipLocked;
+    private final ConcurrentMap<Long, long[]> idRanges = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return inventoryMode == InventoryMode.UNIT_ROWS;
+    }
+
+    /**
+     * Claim up to count unclaimed units of a prize inside the caller's transaction
+     * @param prizeId Prize ID
+     * @param count Units wanted
+     * @return Claimed units, fewer than count if the prize is running out
+     */
+    public List<PrizeUnit> claim(Long prizeId, int count) {
+        LocalDateTime claimedAt = LocalDateTime.now();
+        if (!skipLocked) {
+            return claimWithoutSkipLocked(prizeId, count, claimedAt);
+        }
+
+        List<PrizeUnit> units = prizeUnitRepository.findUnclaimedSkipLocked(prizeId, PageRequest.of(0, count));
+        // Flushed before the next unit query, so the same transaction can't pick these up again
+        units.forEach(unit -> unit.setClaimedAt(claimedAt));
+        return units;
+    }
+
+    /**
+     * Unclaimed units of each prize
+     * @param prizeIds Prize IDs
+     * @return Unclaimed count by prize ID; prizes without unclaimed units are absent
+     */
+    public Map<Long, Integer> getRemaining(Collection<Long> prizeIds) {
+        Map<Long, Integer> remaining = new HashMap<>();
+        if (prizeIds.isEmpty()) {
+            return remaining;
+        }
+        for (Object[] row : prizeUnitRepository.countUnclaimedByPrizeIds(prizeIds)) {
+            remaining.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return remaining;
+    }
+
+    /**
+     * Claimed units of each prize, which the prizes row does not count until they are folded back
+     * @param prizeIds Prize IDs
+     * @return Claimed units by prize ID; prizes without claimed units are absent
+     */
+    public Map<Long, Integer> getClaimed(Collection<Long> prizeIds) {
+        Map<Long, Integer> claimed = new HashMap<>();
+        if (prizeIds.isEmpty()) {
+            return claimed;
+        }
+        for (Object[] row : prizeUnitRepository.countClaimedByPrizeIds(prizeIds)) {
+            claimed.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        return claimed;
+    }
+
+    /**
+     * Replace the unclaimed units of a prize with a new quantity; claimed units are kept
+     * @param prizeId Prize ID
+     * @param quantity New number of unclaimed units
+     */
+    public void resize(Long prizeId, int quantity) {
+        transactionTemplate.executeWithoutResult(status -> {
+            prizeUnitRepository.deleteUnclaimed(prizeId);
+            List<PrizeUnit> units = new ArrayList<>(quantity);
+            for (int i = 0; i < quantity; i++) {
+                units.add(new PrizeUnit(prizeId));
+            }
+            prizeUnitRepository.saveAll(units);
+        });
+        idRanges.remove(prizeId);
+    }
+
+    /**
+     * Split prizes that have no units yet, or fold units back into the prizes table when the mode is off.
+     * Runs before the inventory ledger reconciles, so the claimed units are in the awarded counts.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void initialize() {
+        if (isEnabled()) {
+            skipLocked = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices().getDialect().supportsSkipLocked();
+            for (Prize prize : prizeRepository.findAll()) {
+                if (!prizeUnitRepository.existsByPrizeId(prize.getId())) {
+                    resize(prize.getId(), prize.getQuantity());
+                }
+            }
+            logger.info("Prize inventory kept as unit rows, SKIP LOCKED {}", skipLocked ? "supported" : "not supported");
+        } else if (prizeUnitRepository.count() > 0) {
+            foldBack();
+        }
+    }
+
+    private void foldBack() {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Prize> prizes = prizeRepository.findAll();
+            List<Long> prizeIds = prizes.stream().map(Prize::getId).toList();
+            Map<Long, Integer> remaining = getRemaining(prizeIds);
+            Map<Long, Integer> claimed = getClaimed(prizeIds);
+            for (Prize prize : prizes) {
+                if (remaining.containsKey(prize.getId()) || claimed.containsKey(prize.getId())) {
+                    prize.setAwardedCount(prize.getAwardedCount() + claimed.getOrDefault(prize.getId(), 0));
+                    prize.setQuantity(remaining.getOrDefault(prize.getId(), 0));
+                }
+            }
+            prizeRepository.saveAll(prizes);
+            // Draw records keep the prize; the unit links are only meaningful in this mode
+            prizeUnitRepository.deleteAllInBatch();
+        });
+        logger.info("Prize units folded back into the prizes table");
+    }
+
+    private List<PrizeUnit> claimWithoutSkipLocked(Long prizeId, int count, LocalDateTime claimedAt) {
+        long[] range = getIdRange(prizeId);
+        if (range == null) {
+            return List.of();
+        }
+        List<PrizeUnit> units = new ArrayList<>(count);
+        long start = ThreadLocalRandom.current().nextLong(range[0], range[1] + 1);
+        claimInRange(prizeId, start, Long.MAX_VALUE, count, claimedAt, units);
+        if (units.size() < count) {
+            claimInRange(prizeId, Long.MIN_VALUE, start, count, claimedAt, units);
+        }
+        return units;
+    }
+
+    private void claimInRange(Long prizeId, long fromId, long toId, int count, LocalDateTime claimedAt, List<PrizeUnit> units) {
+        long next = fromId;
+        while (units.size() < count) {
+            List<Long> ids = prizeUnitRepository.findUnclaimedIds(prizeId, next, toId, PageRequest.of(0, count - units.size()));
+            if (ids.isEmpty()) {
+                return;
+            }
+            for (Long id : ids) {
+                // The row count tells whether another winner claimed the unit since it was read
+                if (prizeUnitRepository.claimIfUnclaimed(id, claimedAt) > 0) {
+                    units.add(prizeUnitRepository.getReferenceById(id));
+                }
+            }
+            next = ids.get(ids.size() - 1) + 1;
+        }
+    }
+
+    private long[] getIdRange(Long prizeId) {
+        long[] range = idRanges.get(prizeId);
+        if (range != null) {
+            return range;
+        }
+        List<Object[]> rows = prizeUnitRepository.findIdRange(prizeId);
+        if (rows.isEmpty() || rows.get(0)[0] == null) {
+            return null;
+        }
+        range = new long[]{(Long) rows.get(0)[0], (Long) rows.get(0)[1]};
+        idRanges.put(prizeId, range);
+        return range;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.entity.Prize;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Draw commit in one PostgreSQL statement, used with CONDITIONAL_UPDATE inventory on PostgreSQL.
+ *
+ * A data-modifying CTE reserves the user's quota, locks and decrements the won prizes in prize ID
+ * order and inserts every draw record, returning the outcomes. It runs in auto-commit, so a
+ * request costs one round trip instead of one per statement plus BEGIN and COMMIT. Wins beyond a
+ * prize's remaining quantity are recorded as "Thank You", as on the JPA path.
+ *
+ * The statement only updates an existing quota row. For a user's first draw in an activity, or
+ * when the limit is reached, it writes nothing and the caller falls back to the JPA path, which
+ * creates the row or reports the limit. Other databases (H2 in dev) always use the JPA path.
+ *
+ * Off by default: the statement has no test against a real PostgreSQL database yet.
+ */
+@Service
+public class SingleStatementDrawCommit {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleStatementDrawCommit.class);
+
+    static final String COMMIT_SQL = """
+        WITH quota AS (
+            UPDATE user_activity_quotas SET used_draws = used_draws + :drawCount
+            WHERE user_id = :userId AND activity_id = :activityId AND used_draws + :drawCount <= :maxDraws
+            RETURNING id
+        ),
+        outcomes AS (
+            SELECT o.prize_id, o.ord
+            FROM unnest(CAST(:outcomes AS bigint[])) WITH ORDINALITY AS o(prize_id, ord)
+        ),
+        wanted AS (
+            SELECT prize_id, count(*) AS wanted FROM outcomes WHERE prize_id IS NOT NULL GROUP BY prize_id
+        ),
+        locked AS (
+            SELECT p.id, LEAST(p.quantity, w.wanted) AS granted
+            FROM prizes p JOIN wanted w ON w.prize_id = p.id
+            WHERE p.quantity > 0 AND EXISTS (SELECT 1 FROM quota)
+            ORDER BY p.id
+            FOR UPDATE OF p
+        ),
+        taken AS (
+            UPDATE prizes p
+            SET quantity = p.quantity - l.granted, awarded_count = p.awarded_count + l.granted, version = p.version + 1
+            FROM locked l
+            WHERE p.id = l.id
+            RETURNING p.id, l.granted
+        ),
+        ranked AS (
+            SELECT o.prize_id, o.ord, row_number() OVER (PARTITION BY o.prize_id ORDER BY o.ord) AS rn
+            FROM outcomes o
+        ),
+        inserted AS (
+            INSERT INTO draw_records (id, user_id, activity_id, prize_id, draw_time)
+            SELECT nextval('draw_records_seq'), :userId, :activityId,
+                   CASE WHEN r.rn <= t.granted THEN r.prize_id END, LOCALTIMESTAMP
+            FROM ranked r LEFT JOIN taken t ON t.id = r.prize_id
+            WHERE EXISTS (SELECT 1 FROM quota)
+            RETURNING prize_id, draw_time
+        )
+        SELECT prize_id, draw_time FROM inserted
+        """;
+
+    @Autowired
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${luckydraw.draw.single-statement-commit:false}")
+    private boolean configured = false;
+
+    @Value("${luckydraw.inventory.mode:CONDITIONAL_UPDATE}")
+    private InventoryMode inventoryMode = InventoryMode.CONDITIONAL_UPDATE;
+
+    private volatile boolean postgres;
+
+    public boolean isEnabled() {
+        return configured && postgres && inventoryMode == InventoryMode.CONDITIONAL_UPDATE;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void detectDatabase() {
+        postgres = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getJdbcServices().getDialect() instanceof PostgreSQLDialect;
+        if (configured && postgres) {
+            logger.info("Draws committed with a single statement{}",
+                isEnabled() ? "" : " (inactive: inventory mode " + inventoryMode + ")");
+        }
+    }
+
+    /**
+     * Reserve quota, take inventory and insert the records of picked outcomes in one statement
+     * @param userId User performing the draws
+     * @param activity Activity
+     * @param availablePrizes Prizes the outcomes were picked from
+     * @param outcomes Picked prize of each draw, null entries for "Thank You"
+     * @return Unsaved records describing the committed draws, or null if nothing was written
+     *         and the JPA path has to handle the request
+     */
+    public List<DrawRecord> commit(Long userId, Activity activity, List<Prize> availablePrizes, List<Prize> outcomes) {
+        Map<Long, Prize> prizesById = new HashMap<>();
+        availablePrizes.forEach(prize -> prizesById.put(prize.getId(), prize));
+        Long[] outcomeIds = outcomes.stream().map(prize -> prize == null ? null : prize.getId()).toArray(Long[]::new);
+
+        MapSqlParameterSource params = new MapSqlParameterSource()
+            .addValue("userId", userId)
+            .addValue("activityId", activity.getId())
+            .addValue("drawCount", outcomeIds.length)
+            .addValue("maxDraws", activity.getMaxDraws())
+            .addValue("outcomes", outcomeIds);
+
+        List<DrawRecord> records = jdbcTemplate.query(COMMIT_SQL, params, (rs, rowNum) -> {
+            long prizeId = rs.getLong("prize_id");
+            DrawRecord record = new DrawRecord(null, activity, rs.wasNull() ? null : prizesById.get(prizeId));
+            record.setDrawTime(rs.getTimestamp("draw_time").toLocalDateTime());
+            return record;
+        });
+        return records.isEmpty() ? null : records;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.constants.ExecutionMode;
+import com.example.demoproject.luckydraw.dto.MultipleDrawRequest;
+import com.example.demoproject.luckydraw.dto.MultipleDrawResult;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Draw execution used when luckydraw.execution.mode=SINGLE_WRITER.
+ *
+ * Requests are routed by activity ID to a shard, each with a bounded queue and one worker thread.
+ * The worker drains up to batch-size requests and runs them in a single transaction, so only one
+ * thread ever decrements an activity's prizes and the commit cost is shared by the whole batch.
+ * Callers block on a future that completes once the batch has committed.
+ *
+ * If a batch fails at the database level it is rolled back and every request is retried in its own
+ * transaction, so one bad request cannot fail its neighbours.
+ */
+@Service
+public class SingleWriterDrawEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(SingleWriterDrawEngine.class);
+
+    @Autowired
+    private DrawExecutionService drawExecutionService;
+
+    @Autowired
+    private UserActivityService userActivityService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DrawMetrics drawMetrics;
+
+    @Value("${luckydraw.execution.mode:DIRECT}")
+    private ExecutionMode executionMode = ExecutionMode.DIRECT;
+
+    @Value("${luckydraw.execution.single-writer.shards:4}")
+    private int shardCount = 4;
+
+    @Value("${luckydraw.execution.single-writer.queue-capacity:1024}")
+    private int queueCapacity = 1024;
+
+    @Value("${luckydraw.execution.single-writer.batch-size:64}")
+    private int batchSize = 64;
+
+    @Value("${luckydraw.execution.single-writer.timeout-ms:5000}")
+    private long timeoutMs = 5000;
+
+    private final List<Shard> shards = new ArrayList<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedRequests = new LongAdder();
+    private final LongAdder batchRetries = new LongAdder();
+    private volatile boolean running;
+
+    public boolean isEnabled() {
+        return executionMode == ExecutionMode.SINGLE_WRITER;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!isEnabled()) {
+            return;
+        }
+        running = true;
+        for (int i = 0; i < shardCount; i++) {
+            Shard shard = new Shard(i, new ArrayBlockingQueue<>(queueCapacity));
+            shard.worker = new Thread(() -> runWorker(shard), "draw-writer-" + i);
+            shard.worker.setDaemon(true);
+            shard.worker.start();
+            shards.add(shard);
+        }
+        logger.info("Single-writer draw engine started with {} shards", shardCount);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Shard shard : shards) {
+            shard.worker.interrupt();
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.worker.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            List<DrawTask> leftover = new ArrayList<>();
+            shard.queue.drainTo(leftover);
+            leftover.forEach(task -> task.future.completeExceptionally(
+                new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY)));
+        }
+    }
+
+    /**
+     * Queue a draw request and wait for its result
+     * @param request Multiple draw request
+     * @return Multiple draw results
+     * @throws LuckyDrawException SYSTEM_BUSY if the shard queue is full or the worker does not start the draw in time,
+     *         NO_PRIZES_AVAILABLE if the activity is sold out
+     */
+    public MultipleDrawResult submit(MultipleDrawRequest request) {
+        if (running) {
+            // Don't take a queue slot for an activity with nothing left to win
+            drawExecutionService.rejectIfSoldOut(request.getActivityId());
+        }
+        // The worker thread has no security context, so resolve the user here
+        DrawTask task = new DrawTask(userActivityService.getCurrentUserId(), userActivityService.getCurrentSegment(), request);
+        if (!running || !shardFor(request.getActivityId()).queue.offer(task)) {
+            rejected.increment();
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        }
+
+        try {
+            return task.future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // Only busy if the worker has not picked it up yet; a started draw may commit, so wait for its result
+            if (task.claim() && task.future.cancel(false)) {
+                throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+            }
+            try {
+                return task.future.join();
+            } catch (CompletionException joinFailure) {
+                throw unwrap(joinFailure.getCause());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new LuckyDrawException(ErrorConstants.ErrorType.SYSTEM_BUSY);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    private Shard shardFor(Long activityId) {
+        return shards.get(Math.floorMod(activityId.hashCode(), shards.size()));
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", isEnabled());
+        stats.put("shards", shards.size());
+        stats.put("queued", shards.stream().mapToInt(shard -> shard.queue.size()).sum());
+        stats.put("rejected", rejected.sum());
+        stats.put("batches", batches.sum());
+        long batchCount = batches.sum();
+        stats.put("avgBatchSize", batchCount == 0 ? 0.0 : batchedRequests.sum() / (double) batchCount);
+        stats.put("batchRetries", batchRetries.sum());
+        return stats;
+    }
+
+    private void runWorker(Shard shard) {
+        List<DrawTask> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                batch.add(shard.queue.take());
+                shard.queue.drainTo(batch, batchSize - 1);
+                processBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("Draw writer {} failed to process a batch", shard.id, e);
+                batch.forEach(task -> task.future.completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void processBatch(List<DrawTask> batch) {
+        // Tasks whose caller already gave up are skipped; the rest can no longer time out as busy
+        batch.removeIf(task -> !task.claim());
+        if (batch.isEmpty()) {
+            return;
+        }
+        batches.increment();
+        batchedRequests.add(batch.size());
+
+        Map<DrawTask, Object> outcomes = new LinkedHashMap<>();
+        long start = System.nanoTime();
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                outcomes.clear();
+                for (DrawTask task : batch) {
+                    outcomes.put(task, execute(task));
+                }
+            });
+            drawMetrics.recordTransaction(ExecutionMode.SINGLE_WRITER.name(), System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            if (batch.size() == 1) {
+                outcomes.put(batch.get(0), e);
+            } else {
+                batchRetries.increment();
+                logger.warn("Draw batch of {} failed, retrying one by one: {}", batch.size(), e.getMessage());
+                outcomes.clear();
+                for (DrawTask task : batch) {
+                    outcomes.put(task, executeAlone(task));
+                }
+            }
+        }
+
+        // Only hand out results once they are committed
+        outcomes.forEach((task, outcome) -> {
+            if (outcome instanceof MultipleDrawResult result) {
+                task.future.complete(result);
+            } else {
+                task.future.completeExceptionally((Throwable) outcome);
+            }
+        });
+    }
+
+    /**
+     * Run one request inside the batch transaction. Validation errors are returned rather than thrown:
+     * they happen before the request writes anything, so the rest of the batch can still commit.
+     */
+    private Object execute(DrawTask task) {
+        try {
+            return drawExecutionService.executeDraws(task.userId, task.segment, task.request);
+        } catch (LuckyDrawException | IllegalArgumentException e) {
+            return e;
+        }
+    }
+
+    private Object executeAlone(DrawTask task) {
+        try {
+            return transactionTemplate.execute(status -> drawExecutionService.executeDraws(task.userId, task.segment, task.request));
+        } catch (RuntimeException e) {
+            return e;
+        }
+    }
+
+    private static class Shard {
+        private final int id;
+        private final BlockingQueue<DrawTask> queue;
+        private Thread worker;
+
+        Shard(int id, BlockingQueue<DrawTask> queue) {
+            this.id = id;
+            this.queue = queue;
+        }
+    }
+
+    private static class DrawTask {
+        private final Long userId;
+        // Captured on the request thread; the worker has no security context
+        private final String segment;
+        private final MultipleDrawRequest request;
+        private final CompletableFuture<MultipleDrawResult> future = new CompletableFuture<>();
+        // Taken by whichever comes first: the worker starting the draw or the caller timing out
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        DrawTask(Long userId, String segment, MultipleDrawRequest request) {
+            this.userId = userId;
+            this.segment = segment;
+            this.request = request;
+        }
+
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.example.demoproject.luckydraw.service;
+
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.TicketRoll;
+import com.example.demoproject.luckydraw.entity.TicketRollSlot;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.TicketRollRepository;
+import com.example.demoproject.luckydraw.repository.TicketRollSlotRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ticket rolls for activities with a fixed total number of draws.
+ *
+ * Opening a roll writes a shuffled array of outcomes to ticket_roll_slots: each prize appears
+ * probability x size times, capped by its quantity, and the rest are blanks. Draws then claim
+ * the next position from an in-memory cursor, so a draw is O(1), never locks a prize row and can
+ * never hand out more than the roll holds. The claimed position is stored on the draw record;
+ * positions of rolled-back draws are handed out again.
+ *
+ * On startup the cursor is restored from the positions found in draw_records. Like the inventory
+ * ledger, the cursor is per JVM: rolls must only be used when one node serves draws.
+ */
+@Service
+public class TicketRollService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TicketRollService.class);
+
+    @Autowired
+    private TicketRollRepository ticketRollRepository;
+
+    @Autowired
+    private TicketRollSlotRepository ticketRollSlotRepository;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final ConcurrentMap<Long, Roll> rolls = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Whether draws of the activity are served from a ticket roll
+     */
+    public boolean isEnabled(Long activityId) {
+        return activityId != null && rolls.containsKey(activityId);
+    }
+
+    /**
+     * Generate and persist the roll of an activity
+     * @param activityId Activity ID
+     * @param size Total number of draws the activity offers
+     * @param prizes Prizes of the activity
+     * @throws IllegalStateException if the activity already has a roll
+     */
+    public void open(Long activityId, int size, List<Prize> prizes) {
+        long[] outcomes = generate(size, prizes);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (ticketRollRepository.existsByActivityId(activityId)) {
+                throw new IllegalStateException("Ticket roll already opened for activity: " + activityId);
+            }
+            ticketRollRepository.save(new TicketRoll(activityId, size));
+            List<TicketRollSlot> slots = new ArrayList<>(size);
+            for (int position = 0; position < size; position++) {
+                slots.add(new TicketRollSlot(activityId, position, outcomes[position] == 0 ? null : outcomes[position]));
+            }
+            ticketRollSlotRepository.saveAll(slots);
+        });
+        rolls.put(activityId, new Roll(outcomes, 0, new BitSet()));
+        logger.info("Ticket roll of {} draws opened for activity {}", size, activityId);
+    }
+
+    /**
+     * Claim the next positions of an activity's roll. If the surrounding transaction rolls back,
+     * the positions are returned to the roll.
+     * @param activityId Activity ID
+     * @param count Draws wanted
+     * @return Claimed positions, fewer than count once the roll runs out
+     */
+    public List<Claim> claim(Long activityId, int count) {
+        Roll roll = rolls.get(activityId);
+        if (roll == null) {
+            throw new IllegalStateException("No ticket roll for activity: " + activityId);
+        }
+
+        List<Claim> claims = new ArrayList<>(count);
+        Integer returned;
+        while (claims.size() < count && (returned = roll.returned.poll()) != null) {
+            claims.add(roll.claimAt(returned));
+        }
+        int wanted = count - claims.size();
+        if (wanted > 0) {
+            int size = roll.outcomes.length;
+            int start = roll.cursor.getAndAccumulate(wanted, (current, n) -> Math.min(size, current + n));
+            for (int position = start; position < Math.min(size, start + wanted); position++) {
+                claims.add(roll.claimAt(position));
+            }
+        }
+
+        if (!claims.isEmpty() && TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        claims.forEach(claim -> roll.returned.add(claim.getPosition()));
+                    }
+                }
+            });
+        }
+        return claims;
+    }
+
+    /**
+     * Units of each prize left in the unclaimed part of a roll
+     * @param activityId Activity ID
+     * @return Remaining units by prize ID, empty if the activity has no roll
+     */
+    public Map<Long, Integer> getRemaining(Long activityId) {
+        Map<Long, Integer> remaining = new HashMap<>();
+        Roll roll = rolls.get(activityId);
+        if (roll == null) {
+            return remaining;
+        }
+        for (int position = roll.cursor.get(); position < roll.outcomes.length; position++) {
+            roll.count(position, remaining);
+        }
+        for (Integer position : roll.returned) {
+            roll.count(position, remaining);
+        }
+        return remaining;
+    }
+
+    /**
+     * Load persisted rolls and move each cursor past the positions committed draws already claimed
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (TicketRoll ticketRoll : ticketRollRepository.findAll()) {
+            List<Long> slots = ticketRollSlotRepository.findOutcomesByActivityId(ticketRoll.getActivityId());
+            long[] outcomes = new long[slots.size()];
+            for (int position = 0; position < outcomes.length; position++) {
+                Long prizeId = slots.get(position);
+                outcomes[position] = prizeId == null ? 0 : prizeId;
+            }
+
+            BitSet claimed = new BitSet(outcomes.length);
+            int cursor = 0;
+            for (Integer position : drawRecordRepository.findRollPositionsByActivityId(ticketRoll.getActivityId())) {
+                claimed.set(position);
+                cursor = Math.max(cursor, position + 1);
+            }
+            rolls.put(ticketRoll.getActivityId(), new Roll(outcomes, cursor, claimed));
+            logger.info("Ticket roll of activity {} loaded at position {}/{}", ticketRoll.getActivityId(), cursor, outcomes.length);
+        }
+    }
+
+    /**
+     * Build the shuffled outcomes; 0 marks a blank
+     */
+    long[] generate(int size, List<Prize> prizes) {
+        long[] outcomes = new long[size];
+        int filled = 0;
+        List<Prize> ordered = new ArrayList<>(prizes);
+        ordered.sort(Comparator.comparing(Prize::getId));
+        for (Prize prize : ordered) {
+            int expected = prize.getProbability().multiply(BigDecimal.valueOf(size))
+                .setScale(0, RoundingMode.HALF_UP).intValue();
+            int units = Math.min(Math.min(expected, prize.getQuantity()), size - filled);
+            for (int i = 0; i < units; i++) {
+                outcomes[filled++] = prize.getId();
+            }
+        }
+        // Fisher-Yates; SecureRandom so the order can't be predicted from earlier draws
+        for (int i = size - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            long swap = outcomes[i];
+            outcomes[i] = outcomes[j];
+            outcomes[j] = swap;
+        }
+        return outcomes;
+    }
+
+    /**
+     * One claimed roll position and its outcome
+     */
+    public static class Claim {
+        private final int position;
+        private final Long prizeId;
+
+        public Claim(int position, Long prizeId) {
+            this.position = position;
+            this.prizeId = prizeId;
+        }
+
+        public int getPosition() {
+            return position;
+        }
+
+        /**
+         * Prize won at this position, null for "Thank You"
+         */
+        public Long getPrizeId() {
+            return prizeId;
+        }
+    }
+
+    private static class Roll {
+        private final long[] outcomes;
+        private final AtomicInteger cursor;
+        private final Queue<Integer> returned = new ConcurrentLinkedQueue<>();
+
+        Roll(long[] outcomes, int cursor, BitSet claimed) {
+            this.outcomes = outcomes;
+            this.cursor = new AtomicInteger(cursor);
+            // Positions below the cursor without a committed draw were claimed by draws that never committed
+            for (int position = claimed.nextClearBit(0); position < cursor; position = claimed.nextClearBit(position + 1)) {
+                returned.add(position);
+            }
+        }
+
+        Claim claimAt(int position) {
+            return new Claim(position, outcomes[position] == 0 ? null : outcomes[position]);
+        }
+
+        void count(int position, Map<Long, Integer> remaining) {
+            if (outcomes[position] != 0) {
+                remaining.merge(outcomes[position], 1, Integer::sum);
+            }
+        }
+    }
+}
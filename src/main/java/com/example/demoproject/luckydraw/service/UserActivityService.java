@@ -1,7 +1,6 @@
 package com.example.demoproject.luckydraw.service;
 
 import com.example.demoproject.luckydraw.entity.*;
-import com.example.demoproject.luckydraw.repository.*;
 import com.example.demoproject.luckydraw.dto.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import com.example.demoproject.auth.entity.User;
@@ -22,9 +21,10 @@ public class UserActivityService {
     private AuthUserRepository authUserRepository;
 
     @Autowired
-    private ActivityRepository activityRepository;
+    private DrawMetadataCache drawMetadataCache;
+
     @Autowired
-    private DrawRecordRepository drawRecordRepository;
+    private DrawQuotaService drawQuotaService;
 
 
     /**
@@ -48,6 +48,18 @@ public class UserActivityService {
         throw new IllegalStateException("User ID not found in authentication context");
     }
 
+    /**
+     * Get the prize odds segment of the current user from the login token
+     * @return Segment, or null for the base odds
+     */
+    public String getCurrentSegment() {
+        Object details = SecurityContextHolder.getContext().getAuthentication().getDetails();
+        if (details instanceof Map) {
+            return (String) ((Map<?, ?>) details).get("segment");
+        }
+        return null;
+    }
+
     /**
      * Get user activity information for current user and activity
      * @param activityId Activity identifier
@@ -58,15 +70,14 @@ public class UserActivityService {
         User user = authUserRepository.findById(userId)
             .orElseThrow(() -> new IllegalArgumentException("User not found with ID: " + userId));
         
-        Activity activity = activityRepository.findById(activityId)
-            .orElseThrow(() -> new IllegalArgumentException("Activity not found"));
-        long userDrawCount = drawRecordRepository.countByUserAndActivity(user, activity);
+        Activity activity = drawMetadataCache.getActivity(activityId);
+        int userDrawCount = drawQuotaService.getUsedDraws(userId, activityId);
         
         return new UserActivityInfo(
             user.getUsername(),
             activityId,
             activity.getMaxDraws(),
-            (int) userDrawCount
+            userDrawCount
         );
     }
 } 
\ No newline at end of file
@@ -0,0 +1,210 @@
+package com.example.demoproject.luckydraw.util;
+
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * One file of the draw journal: a preallocated, memory-mapped, append-only log of draw records.
+ *
+ * The file starts with a magic number and a format version, followed by frames of
+ * [payload length][CRC32C of the payload][payload]. The payload holds the user, activity and
+ * prize IDs, the draw time and the roll position. The unused tail of the file is zeros, so a zero
+ * length ends the segment; so does a frame whose checksum does not match, which a crash tore
+ * before it was forced to disk. A frame whose length is -1 was voided because its draw rolled back,
+ * and is skipped.
+ *
+ * Not thread-safe for appends; {@link #force()} may run while another thread appends.
+ */
+public final class DrawJournalSegment implements Closeable {
+
+    private static final int MAGIC = 0x444A4E4C; // "DJNL"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int PAYLOAD_BYTES = 40;
+    public static final int FRAME_BYTES = 8 + PAYLOAD_BYTES;
+    private static final long NONE = -1L;
+    private static final int VOIDED = -1;
+
+    private final long id;
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private int frames;
+
+    private DrawJournalSegment(long id, FileChannel channel, MappedByteBuffer buffer) {
+        this.id = id;
+        this.channel = channel;
+        this.buffer = buffer;
+    }
+
+    /**
+     * Create and map a new segment file of a fixed size
+     * @param file Path of the new file; must not exist
+     * @param id Segment ID
+     * @param sizeBytes File size, which bounds the frames it can take
+     */
+    public static DrawJournalSegment create(Path file, long id, int sizeBytes) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, sizeBytes);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        return new DrawJournalSegment(id, channel, buffer);
+    }
+
+    /**
+     * Append one record as a frame; the frame is only durable after {@link #force()}
+     * @return false if the segment is full
+     */
+    public boolean append(DrawRecord record) {
+        if (buffer.remaining() < FRAME_BYTES) {
+            return false;
+        }
+        int start = buffer.position();
+        LocalDateTime drawTime = record.getDrawTime();
+        buffer.position(start + 8);
+        buffer.putLong(record.getUser().getId())
+            .putLong(record.getActivity().getId())
+            .putLong(record.getPrize() == null ? NONE : record.getPrize().getId())
+            .putLong(drawTime.toEpochSecond(ZoneOffset.UTC))
+            .putInt(drawTime.getNano())
+            .putInt(record.getRollPosition() == null ? (int) NONE : record.getRollPosition());
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.slice(start + 8, PAYLOAD_BYTES));
+        buffer.putInt(start + 4, (int) crc.getValue());
+        buffer.putInt(start, PAYLOAD_BYTES);
+        frames++;
+        return true;
+    }
+
+    /**
+     * Mark appended frames to be skipped on read; durable after {@link #force()}
+     * @param from Index of the first frame
+     * @param count Number of frames
+     */
+    public void voidFrames(int from, int count) {
+        for (int frame = from; frame < from + count; frame++) {
+            buffer.putInt(HEADER_BYTES + frame * FRAME_BYTES, VOIDED);
+        }
+    }
+
+    /**
+     * Write the appended frames through to the disk
+     */
+    public void force() {
+        buffer.force();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getFrames() {
+        return frames;
+    }
+
+    /**
+     * How many more frames fit
+     */
+    public int getRemainingFrames() {
+        return buffer.remaining() / FRAME_BYTES;
+    }
+
+    /**
+     * Close the file; the mapping stays valid until it is garbage collected
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Read the intact frames of a segment file, stopping at the end marker or a torn frame
+     * @param file Segment file
+     * @return Frames in append order, without voided ones
+     * @throws IOException if the file cannot be read or is not a journal segment
+     */
+    public static List<Frame> read(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        if (buffer.remaining() < HEADER_BYTES || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Not a draw journal segment: " + file);
+        }
+        List<Frame> frames = new ArrayList<>();
+        while (buffer.remaining() >= FRAME_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length == VOIDED) {
+                buffer.position(start + FRAME_BYTES);
+                continue;
+            }
+            if (length != PAYLOAD_BYTES) {
+                break;
+            }
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(start + 8, PAYLOAD_BYTES));
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            long userId = buffer.getLong();
+            long activityId = buffer.getLong();
+            long prizeId = buffer.getLong();
+            long epochSecond = buffer.getLong();
+            int nano = buffer.getInt();
+            int rollPosition = buffer.getInt();
+            frames.add(new Frame(userId, activityId, prizeId == NONE ? null : prizeId,
+                LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC),
+                rollPosition == NONE ? null : rollPosition));
+        }
+        return frames;
+    }
+
+    /**
+     * A draw record as read back from the journal
+     */
+    public static final class Frame {
+        private final long userId;
+        private final long activityId;
+        private final Long prizeId;
+        private final LocalDateTime drawTime;
+        private final Integer rollPosition;
+
+        Frame(long userId, long activityId, Long prizeId, LocalDateTime drawTime, Integer rollPosition) {
+            this.userId = userId;
+            this.activityId = activityId;
+            this.prizeId = prizeId;
+            this.drawTime = drawTime;
+            this.rollPosition = rollPosition;
+        }
+
+        public long getUserId() {
+            return userId;
+        }
+
+        public long getActivityId() {
+            return activityId;
+        }
+
+        public Long getPrizeId() {
+            return prizeId;
+        }
+
+        public LocalDateTime getDrawTime() {
+            return drawTime;
+        }
+
+        public Integer getRollPosition() {
+            return rollPosition;
+        }
+    }
+}
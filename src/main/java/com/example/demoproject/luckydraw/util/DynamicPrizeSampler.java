@@ -0,0 +1,276 @@
+package com.example.demoproject.luckydraw.util;
+
+import com.example.demoproject.luckydraw.entity.Prize;
+
+import java.math.BigDecimal;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.StampedLock;
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted sampler over one activity's prize list backed by a Fenwick tree, so prizes can be
+ * switched off when they sell out and back on when restocked in O(log n) without a rebuild.
+ *
+ * Weights are the configured probabilities in integer parts per {@link #SCALE}, truncated like the
+ * cumulative probability method. The last slot is "Thank You" with weight 1 - sum(p); it never
+ * sells out. A sold-out prize drops out of the total, so the other prizes and "Thank You" keep
+ * their ratios and share its probability.
+ *
+ * A bitset of the prizes still in stock tells when the whole activity is sold out, so draws
+ * can be turned away before they reach the database.
+ *
+ * Sampling takes an optimistic read of the tree and only locks if an update raced with it.
+ */
+public final class DynamicPrizeSampler {
+
+    static final long SCALE = 1_000_000_000L;
+
+    private final long[] prizeIds;
+    private final long[] weights;
+    private final long[] tree;
+    private final BitSet inStock;
+    private final Map<Long, Integer> slotsByPrizeId;
+    private final int blankSlot;
+    private final Map<Long, BigDecimal> multipliers;
+    private final StampedLock lock = new StampedLock();
+    private long total;
+    private volatile boolean soldOut = true;
+    private volatile List<Prize> source;
+
+    private DynamicPrizeSampler(long[] prizeIds, long[] weights, Map<Long, BigDecimal> multipliers) {
+        this.prizeIds = prizeIds;
+        this.weights = weights;
+        this.multipliers = multipliers;
+        this.tree = new long[weights.length + 1];
+        this.inStock = new BitSet(prizeIds.length);
+        this.slotsByPrizeId = new HashMap<>();
+        this.blankSlot = prizeIds.length;
+        for (int slot = 0; slot < prizeIds.length; slot++) {
+            slotsByPrizeId.put(prizeIds[slot], slot);
+        }
+    }
+
+    /**
+     * Build a sampler from the prize list in its current order; prizes with no quantity left start switched off
+     * @param prizes Prizes of one activity
+     * @return Sampler whose slot i maps to prizes.get(i)
+     */
+    public static DynamicPrizeSampler build(List<Prize> prizes) {
+        return build(prizes, Map.of());
+    }
+
+    /**
+     * Build a sampler for one user segment, like {@link PrizeSampler#build(List, Map)}
+     * @param prizes Prizes of one activity
+     * @param multipliers Multiplier by prize ID; prizes without one keep their probability
+     * @return Sampler whose slot i maps to prizes.get(i)
+     */
+    public static DynamicPrizeSampler build(List<Prize> prizes, Map<Long, BigDecimal> multipliers) {
+        int n = prizes.size();
+        long[] prizeIds = new long[n];
+        long[] weights = new long[n + 1];
+
+        long cumulative = 0;
+        for (int i = 0; i < n; i++) {
+            Prize prize = prizes.get(i);
+            prizeIds[i] = Objects.requireNonNullElse(prize.getId(), -1L);
+            BigDecimal probability = prize.getProbability() == null ? BigDecimal.ZERO : prize.getProbability();
+            BigDecimal multiplier = prize.getId() == null ? null : multipliers.get(prize.getId());
+            if (multiplier != null) {
+                probability = probability.multiply(multiplier);
+            }
+            long p = probability.multiply(BigDecimal.valueOf(SCALE)).longValue();
+            weights[i] = Math.max(0L, Math.min(p, SCALE - cumulative));
+            cumulative += weights[i];
+        }
+        weights[n] = SCALE - cumulative;
+
+        DynamicPrizeSampler sampler = new DynamicPrizeSampler(prizeIds, weights, multipliers);
+        // "Thank You" never sells out
+        sampler.add(n, weights[n]);
+        for (int slot = 0; slot < n; slot++) {
+            sampler.setAvailable(slot, prizes.get(slot).getQuantity() > 0);
+        }
+        sampler.source = prizes;
+        return sampler;
+    }
+
+    /**
+     * Pick a slot among the prizes still in stock and "Thank You"
+     * @param randomValue Uniform value in [0, 1)
+     * @return Prize slot, or {@link #getBlankSlot()} for "Thank You"
+     */
+    public int sample(double randomValue) {
+        long stamp = lock.tryOptimisticRead();
+        int slot = find(randomValue);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                slot = find(randomValue);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return slot;
+    }
+
+    private int find(double randomValue) {
+        long current = total;
+        if (current <= 0) {
+            return blankSlot;
+        }
+        long target = Math.min((long) (randomValue * current), current - 1);
+        // Descend the tree to the first slot whose prefix sum exceeds the target
+        int position = 0;
+        for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+            int next = position + step;
+            if (next <= weights.length && tree[next] <= target) {
+                position = next;
+                target -= tree[next];
+            }
+        }
+        return Math.min(position, blankSlot);
+    }
+
+    /**
+     * Spread a number of draws over the slots in one multinomial pass, like
+     * {@link PrizeSampler#sampleCounts(int, RandomGenerator)} but over the prizes still in stock
+     * @param draws Number of draws
+     * @param random Random source
+     * @return Count per slot, indexed like {@link #sample(double)} results
+     */
+    public int[] sampleCounts(int draws, RandomGenerator random) {
+        long[] current = new long[weights.length];
+        long mass;
+        long stamp = lock.readLock();
+        try {
+            for (int slot = 0; slot < weights.length; slot++) {
+                current[slot] = slot == blankSlot || inStock.get(slot) ? weights[slot] : 0L;
+            }
+            mass = total;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+
+        int[] counts = new int[weights.length];
+        if (mass <= 0) {
+            counts[blankSlot] = draws;
+            return counts;
+        }
+        int left = draws;
+        for (int slot = 0; slot < blankSlot && left > 0; slot++) {
+            double p = mass <= 0 ? 0.0 : Math.min(1.0, current[slot] / (double) mass);
+            counts[slot] = PrizeSampler.binomial(left, p, random);
+            left -= counts[slot];
+            mass -= current[slot];
+        }
+        counts[blankSlot] += left;
+        return counts;
+    }
+
+    /**
+     * Switch a prize off when it sells out or back on when restocked
+     * @param prizeId Prize ID
+     * @param inStock Whether the prize can be won
+     * @return false if the prize is not part of this sampler
+     */
+    public boolean setInStock(Long prizeId, boolean inStock) {
+        Integer slot = slotsByPrizeId.get(prizeId);
+        if (slot == null) {
+            return false;
+        }
+        setAvailable(slot, inStock);
+        return true;
+    }
+
+    /**
+     * Bring stock flags up to date with a newly loaded prize list. The list the flags were last
+     * taken from is accepted as is, so only a reload costs a pass over the prizes.
+     * @param prizes Prize list of the activity
+     * @return false if the list no longer holds the same prizes in the same order and the sampler must be rebuilt
+     */
+    public boolean refresh(List<Prize> prizes) {
+        if (source == prizes) {
+            return true;
+        }
+        if (!matches(prizes)) {
+            return false;
+        }
+        for (int slot = 0; slot < blankSlot; slot++) {
+            setAvailable(slot, prizes.get(slot).getQuantity() > 0);
+        }
+        source = prizes;
+        return true;
+    }
+
+    /**
+     * Whether the sampler was built from this very multiplier map, see {@link PrizeSampler#isBuiltWith(Map)}
+     */
+    public boolean isBuiltWith(Map<Long, BigDecimal> multipliers) {
+        return this.multipliers == multipliers || (this.multipliers.isEmpty() && multipliers.isEmpty());
+    }
+
+    private void setAvailable(int slot, boolean available) {
+        long stamp = lock.writeLock();
+        try {
+            if (inStock.get(slot) == available) {
+                return;
+            }
+            inStock.set(slot, available);
+            add(slot, available ? weights[slot] : -weights[slot]);
+            soldOut = inStock.isEmpty();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void add(int slot, long delta) {
+        for (int i = slot + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+        total += delta;
+    }
+
+    public boolean isInStock(int slot) {
+        long stamp = lock.readLock();
+        try {
+            return inStock.get(slot);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Whether no prize is left; only "Thank You" can still be drawn
+     */
+    public boolean isSoldOut() {
+        return soldOut;
+    }
+
+    public int getBlankSlot() {
+        return blankSlot;
+    }
+
+    public int size() {
+        return prizeIds.length;
+    }
+
+    /**
+     * Check that every slot maps to the prize at the same position in the list
+     */
+    public boolean matches(List<Prize> prizes) {
+        if (prizes.size() != prizeIds.length) {
+            return false;
+        }
+        for (int slot = 0; slot < prizeIds.length; slot++) {
+            if (prizeIds[slot] != Objects.requireNonNullElse(prizes.get(slot).getId(), -1L)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
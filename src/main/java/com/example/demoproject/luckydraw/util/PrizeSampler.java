@@ -0,0 +1,222 @@
+package com.example.demoproject.luckydraw.util;
+
+import com.example.demoproject.luckydraw.entity.Prize;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * Immutable alias table (Vose's method) for one activity's prize list.
+ * The last slot is the implicit "Thank You" outcome with weight 1 - sum(p),
+ * so the distribution matches the cumulative probability method exactly.
+ * Building is O(n); sampling is O(1) and allocation free.
+ */
+public final class PrizeSampler {
+
+    private final long[] prizeIds;
+    private final double[] weights;
+    private final double[] probability;
+    private final int[] alias;
+    private final int blankSlot;
+    private final Map<Long, BigDecimal> multipliers;
+
+    private PrizeSampler(long[] prizeIds, double[] weights, double[] probability, int[] alias, Map<Long, BigDecimal> multipliers) {
+        this.prizeIds = prizeIds;
+        this.weights = weights;
+        this.probability = probability;
+        this.alias = alias;
+        this.blankSlot = prizeIds.length;
+        this.multipliers = multipliers;
+    }
+
+    /**
+     * Build a sampler from the prize list in its current order
+     * @param prizes Prizes of one activity
+     * @return Sampler whose slot i maps to prizes.get(i)
+     */
+    public static PrizeSampler build(List<Prize> prizes) {
+        return build(prizes, Map.of());
+    }
+
+    /**
+     * Build a sampler for one user segment: each prize's probability is scaled by its multiplier
+     * before the truncation, and "Thank You" takes whatever is left
+     * @param prizes Prizes of one activity
+     * @param multipliers Multiplier by prize ID; prizes without one keep their probability
+     * @return Sampler whose slot i maps to prizes.get(i)
+     */
+    public static PrizeSampler build(List<Prize> prizes, Map<Long, BigDecimal> multipliers) {
+        int n = prizes.size();
+        int slots = n + 1;
+        long[] prizeIds = new long[n];
+        double[] weights = new double[slots];
+
+        // Same truncation as the cumulative scan: once the running sum reaches 1.0
+        // the remaining prizes can never be hit.
+        double cumulative = 0.0;
+        for (int i = 0; i < n; i++) {
+            Prize prize = prizes.get(i);
+            prizeIds[i] = prize.getId() == null ? -1L : prize.getId();
+            double p = prize.getProbability() == null ? 0.0 : prize.getProbability().doubleValue();
+            BigDecimal multiplier = prize.getId() == null ? null : multipliers.get(prize.getId());
+            if (multiplier != null) {
+                p *= multiplier.doubleValue();
+            }
+            double effective = Math.max(0.0, Math.min(p, 1.0 - cumulative));
+            weights[i] = effective;
+            cumulative += effective;
+        }
+        weights[n] = Math.max(0.0, 1.0 - cumulative);
+
+        double[] probability = new double[slots];
+        int[] alias = new int[slots];
+        fillAliasTable(weights, probability, alias);
+        return new PrizeSampler(prizeIds, weights, probability, alias, multipliers);
+    }
+
+    private static void fillAliasTable(double[] weights, double[] probability, int[] alias) {
+        int slots = weights.length;
+        double total = 0.0;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        double[] scaled = new double[slots];
+        int[] small = new int[slots];
+        int[] large = new int[slots];
+        int smallSize = 0;
+        int largeSize = 0;
+        for (int i = 0; i < slots; i++) {
+            scaled[i] = weights[i] * slots / total;
+            if (scaled[i] < 1.0) {
+                small[smallSize++] = i;
+            } else {
+                large[largeSize++] = i;
+            }
+        }
+
+        while (smallSize > 0 && largeSize > 0) {
+            int less = small[--smallSize];
+            int more = large[--largeSize];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0;
+            if (scaled[more] < 1.0) {
+                small[smallSize++] = more;
+            } else {
+                large[largeSize++] = more;
+            }
+        }
+        // Leftovers are only off from 1.0 by rounding error
+        while (largeSize > 0) {
+            int slot = large[--largeSize];
+            probability[slot] = 1.0;
+            alias[slot] = slot;
+        }
+        while (smallSize > 0) {
+            int slot = small[--smallSize];
+            probability[slot] = 1.0;
+            alias[slot] = slot;
+        }
+    }
+
+    /**
+     * Pick a slot using a single uniform random value
+     * @param randomValue Uniform value in [0, 1)
+     * @return Prize slot, or {@link #getBlankSlot()} for "Thank You"
+     */
+    public int sample(double randomValue) {
+        double scaled = randomValue * probability.length;
+        int column = Math.min((int) scaled, probability.length - 1);
+        return (scaled - column) < probability[column] ? column : alias[column];
+    }
+
+    /**
+     * Spread a number of draws over all slots in one multinomial pass instead of sampling each draw.
+     * Each prize's count is a binomial draw from what the earlier prizes left over, conditioned on
+     * its share of the remaining weight; whatever is left at the end is "Thank You".
+     * @param draws Number of draws
+     * @param random Random source
+     * @return Count per slot, indexed like {@link #sample(double)} results
+     */
+    public int[] sampleCounts(int draws, RandomGenerator random) {
+        int[] counts = new int[weights.length];
+        int left = draws;
+        double mass = 1.0;
+        for (int slot = 0; slot < blankSlot && left > 0; slot++) {
+            double p = mass <= 0.0 ? 0.0 : Math.min(1.0, weights[slot] / mass);
+            counts[slot] = binomial(left, p, random);
+            left -= counts[slot];
+            mass -= weights[slot];
+        }
+        counts[blankSlot] += left;
+        return counts;
+    }
+
+    /**
+     * Exact binomial sample that jumps from one success to the next with geometric gaps,
+     * so the cost grows with the number of successes rather than with n
+     */
+    static int binomial(int n, double p, RandomGenerator random) {
+        if (p <= 0.0 || n <= 0) {
+            return 0;
+        }
+        if (p >= 1.0) {
+            return n;
+        }
+        if (p > 0.5) {
+            return n - binomial(n, 1.0 - p, random);
+        }
+        double logFailure = Math.log1p(-p);
+        int successes = 0;
+        double position = 0.0;
+        while (true) {
+            position += Math.floor(Math.log(1.0 - random.nextDouble()) / logFailure) + 1.0;
+            if (position > n) {
+                return successes;
+            }
+            successes++;
+        }
+    }
+
+    public int getBlankSlot() {
+        return blankSlot;
+    }
+
+    public int size() {
+        return prizeIds.length;
+    }
+
+    /**
+     * Whether the sampler was built from this very multiplier map; the metadata cache hands out the
+     * same instance until it reloads, so the check is by identity. Any empty map means the base odds.
+     */
+    public boolean isBuiltWith(Map<Long, BigDecimal> multipliers) {
+        return this.multipliers == multipliers || (this.multipliers.isEmpty() && multipliers.isEmpty());
+    }
+
+    /**
+     * Check that the slot still refers to the same prize (list order is not guaranteed by the repository)
+     */
+    public boolean isSlotFor(int slot, Prize prize) {
+        return prizeIds[slot] == Objects.requireNonNullElse(prize.getId(), -1L);
+    }
+
+    /**
+     * Check that every slot maps to the prize at the same position in the list
+     */
+    public boolean matches(List<Prize> prizes) {
+        if (prizes.size() != prizeIds.length) {
+            return false;
+        }
+        for (int slot = 0; slot < prizeIds.length; slot++) {
+            if (!isSlotFor(slot, prizes.get(slot))) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
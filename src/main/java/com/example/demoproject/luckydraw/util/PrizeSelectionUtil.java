@@ -1,10 +1,15 @@
 package com.example.demoproject.luckydraw.util;
 
+import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.Prize;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ThreadLocalRandom;
 
 /**
@@ -13,40 +18,225 @@ import java.util.concurrent.ThreadLocalRandom;
 @Component
 public class PrizeSelectionUtil {
 
+    /**
+     * Key of the samplers built with the activity's base odds, shared by every segment without multipliers
+     */
+    private static final String BASE_SEGMENT = "";
+
+    /**
+     * Alias tables keyed by activity ID and user segment, built on first draw and dropped by {@link #invalidate(Long)}
+     */
+    private final ConcurrentMap<Long, ConcurrentMap<String, PrizeSampler>> samplers = new ConcurrentHashMap<>();
+
+    /**
+     * Fenwick-tree samplers keyed by activity ID and user segment, used when sold-out prizes are skipped;
+     * their stock flags also tell when an activity is sold out
+     */
+    private final ConcurrentMap<Long, ConcurrentMap<String, DynamicPrizeSampler>> dynamicSamplers = new ConcurrentHashMap<>();
+
+    /**
+     * Whether draws skip sold-out prizes and share their probability with the rest,
+     * instead of turning a hit on a sold-out prize into "Thank You"
+     */
+    @Value("${luckydraw.selection.skip-sold-out:true}")
+    private boolean skipSoldOut = true;
+
     /**
      * Select a prize from the list based on probability distribution
-     * Uses cumulative probability method for fair selection
+     * Uses a cached Fenwick tree per activity that skips sold-out prizes, so each draw is O(log n);
+     * with skip-sold-out off, a cached alias table with O(1) draws
      * 
      * @param prizes List of available prizes
      * @return Selected prize or null if no prize is available
      */
     public Prize selectPrize(List<Prize> prizes) {
+        return selectPrize(prizes, null, Map.of());
+    }
+
+    /**
+     * Select a prize with the odds of one user segment. Every segment has its own cached sampler,
+     * so a draw costs the same two map lookups however many segments an activity has.
+     *
+     * @param prizes List of available prizes
+     * @param segment User segment, or null for the base odds
+     * @param multipliers Probability multipliers of the segment by prize ID, as cached by the caller
+     * @return Selected prize or null if no prize is available
+     */
+    public Prize selectPrize(List<Prize> prizes, String segment, Map<Long, BigDecimal> multipliers) {
         if (prizes == null || prizes.isEmpty()) {
             return null;
         }
 
-        // Generate random number between 0 and 1
+        if (skipSoldOut) {
+            DynamicPrizeSampler sampler = getDynamicSampler(prizes, segment, multipliers);
+            int slot = sampler.sample(ThreadLocalRandom.current().nextDouble());
+            return slot == sampler.getBlankSlot() ? null : prizes.get(slot);
+        }
+
         double random = ThreadLocalRandom.current().nextDouble();
-        BigDecimal randomBigDecimal = BigDecimal.valueOf(random);
+        PrizeSampler sampler = getSampler(prizes, segment, multipliers);
+        int slot = sampler.sample(random);
+        if (slot == sampler.getBlankSlot()) {
+            return null;
+        }
 
-        // Calculate cumulative probability and select prize
-        BigDecimal cumulativeProbability = BigDecimal.ZERO;
-        for (Prize prize : prizes) {
-            cumulativeProbability = cumulativeProbability.add(prize.getProbability());
-            if (randomBigDecimal.compareTo(cumulativeProbability) <= 0) {
-                // Check if prize is still available
-                if (prize.getQuantity() > 0) {
-                    return prize;
-                } else {
-                    return null;
-                }
+        Prize prize = prizes.get(slot);
+        if (!sampler.isSlotFor(slot, prize)) {
+            // Prize list came back in a different order, rebuild against this one
+            sampler = rebuildSampler(prizes, segment, multipliers);
+            slot = sampler.sample(random);
+            if (slot == sampler.getBlankSlot()) {
+                return null;
             }
+            prize = prizes.get(slot);
         }
-        return null;
+
+        // Check if prize is still available
+        return prize.getQuantity() > 0 ? prize : null;
+    }
+
+    /**
+     * Split a number of draws over the prizes in one multinomial pass
+     * Counts are not capped by quantity; the caller takes what the inventory allows
+     *
+     * @param prizes List of available prizes
+     * @param draws Number of draws
+     * @return Wins per prize, indexed like the list, plus the "Thank You" count in the last position
+     */
+    public int[] sampleCounts(List<Prize> prizes, int draws) {
+        return sampleCounts(prizes, draws, null, Map.of());
+    }
+
+    /**
+     * Split a number of draws over the prizes with the odds of one user segment
+     *
+     * @param prizes List of available prizes
+     * @param draws Number of draws
+     * @param segment User segment, or null for the base odds
+     * @param multipliers Probability multipliers of the segment by prize ID
+     * @return Wins per prize, indexed like the list, plus the "Thank You" count in the last position
+     */
+    public int[] sampleCounts(List<Prize> prizes, int draws, String segment, Map<Long, BigDecimal> multipliers) {
+        if (prizes == null || prizes.isEmpty()) {
+            return new int[]{draws};
+        }
+
+        if (skipSoldOut) {
+            return getDynamicSampler(prizes, segment, multipliers).sampleCounts(draws, ThreadLocalRandom.current());
+        }
+
+        PrizeSampler sampler = getSampler(prizes, segment, multipliers);
+        if (!sampler.matches(prizes)) {
+            sampler = rebuildSampler(prizes, segment, multipliers);
+        }
+        return sampler.sampleCounts(draws, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Drop the cached samplers of an activity, all segments included, so the next draw rebuilds them
+     * @param activityId Activity identifier
+     */
+    public void invalidate(Long activityId) {
+        if (activityId != null) {
+            samplers.remove(activityId);
+            dynamicSamplers.remove(activityId);
+        }
+    }
+
+    /**
+     * Stop drawing a prize whose inventory ran out; O(log n), the sampler is not rebuilt.
+     * A restock is picked up when the prize list is reloaded.
+     * @param prize Prize that could not be taken
+     */
+    public void markSoldOut(Prize prize) {
+        if (prize.getActivity() == null) {
+            return;
+        }
+        // Segments share the inventory, so the prize is gone for all of them
+        Map<String, DynamicPrizeSampler> segments = dynamicSamplers.get(prize.getActivity().getId());
+        if (segments != null) {
+            segments.values().forEach(sampler -> sampler.setInStock(prize.getId(), false));
+        }
+    }
+
+    /**
+     * Check whether every prize in the list has run out, as far as this node has seen
+     * @param prizes List of available prizes
+     * @return true if only "Thank You" can still be drawn
+     */
+    public boolean isSoldOut(List<Prize> prizes) {
+        return prizes == null || prizes.isEmpty() || getDynamicSampler(prizes, null, Map.of()).isSoldOut();
+    }
+
+    /**
+     * Check whether an activity is known to be sold out, without loading anything
+     * @param activityId Activity identifier
+     * @return true if a draw on this node found every prize gone; false if unknown
+     */
+    public boolean isSoldOut(Long activityId) {
+        Map<String, DynamicPrizeSampler> segments = dynamicSamplers.get(activityId);
+        return segments != null && segments.values().stream().anyMatch(DynamicPrizeSampler::isSoldOut);
+    }
+
+    private DynamicPrizeSampler getDynamicSampler(List<Prize> prizes, String segment, Map<Long, BigDecimal> multipliers) {
+        Long activityId = getActivityId(prizes);
+        if (activityId == null) {
+            return DynamicPrizeSampler.build(prizes, multipliers);
+        }
+        ConcurrentMap<String, DynamicPrizeSampler> segments = segmentsOf(dynamicSamplers, activityId);
+        String key = samplerKey(segment, multipliers);
+        DynamicPrizeSampler sampler = segments.get(key);
+        // A reloaded list carries fresh quantities: restocked prizes come back, sold-out ones drop out.
+        // Reloaded multipliers (another node's admin update) change the weights and need a rebuild.
+        if (sampler == null || !sampler.isBuiltWith(multipliers) || !sampler.refresh(prizes)) {
+            sampler = DynamicPrizeSampler.build(prizes, multipliers);
+            segments.put(key, sampler);
+        }
+        return sampler;
+    }
+
+    private PrizeSampler getSampler(List<Prize> prizes, String segment, Map<Long, BigDecimal> multipliers) {
+        Long activityId = getActivityId(prizes);
+        if (activityId == null) {
+            return PrizeSampler.build(prizes, multipliers);
+        }
+        PrizeSampler sampler = segmentsOf(samplers, activityId).get(samplerKey(segment, multipliers));
+        if (sampler == null || sampler.size() != prizes.size() || !sampler.isBuiltWith(multipliers)) {
+            sampler = rebuildSampler(prizes, segment, multipliers);
+        }
+        return sampler;
+    }
+
+    private PrizeSampler rebuildSampler(List<Prize> prizes, String segment, Map<Long, BigDecimal> multipliers) {
+        PrizeSampler sampler = PrizeSampler.build(prizes, multipliers);
+        Long activityId = getActivityId(prizes);
+        if (activityId != null) {
+            segmentsOf(samplers, activityId).put(samplerKey(segment, multipliers), sampler);
+        }
+        return sampler;
+    }
+
+    private static <S> ConcurrentMap<String, S> segmentsOf(ConcurrentMap<Long, ConcurrentMap<String, S>> cache, Long activityId) {
+        ConcurrentMap<String, S> segments = cache.get(activityId);
+        return segments != null ? segments : cache.computeIfAbsent(activityId, id -> new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Segments without multipliers draw with the base odds and share its sampler
+     */
+    private static String samplerKey(String segment, Map<Long, BigDecimal> multipliers) {
+        return segment == null || multipliers.isEmpty() ? BASE_SEGMENT : segment;
+    }
+
+    private Long getActivityId(List<Prize> prizes) {
+        Activity activity = prizes.get(0).getActivity();
+        return activity == null ? null : activity.getId();
     }
 
     /**
      * Select a prize with custom random number (useful for testing)
+     * Walks the list with the cumulative probability method; the cached sampler
+     * must produce the same distribution as this reference implementation.
      * 
      * @param prizes List of available prizes
      * @param randomValue Custom random value between 0 and 1
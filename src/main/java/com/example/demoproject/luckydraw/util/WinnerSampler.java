@@ -0,0 +1,85 @@
+package com.example.demoproject.luckydraw.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.random.RandomGenerator;
+
+/**
+ * Uniform sample of a fixed number of entries from a stream of unknown length.
+ *
+ * Every entry gets a random key and the entries with the smallest keys are kept (bottom-k
+ * sampling, the equal-weight form of reservoir sampling), so one pass with O(k) memory picks
+ * each k-subset with equal probability. Samples of disjoint partitions merge into a sample of
+ * their union, which lets a lottery's entries be streamed in parallel.
+ */
+public final class WinnerSampler {
+
+    private final int capacity;
+    // Largest key on top, so it is the one replaced
+    private final PriorityQueue<Candidate> heap;
+    private long seen;
+
+    public WinnerSampler(int capacity) {
+        this.capacity = capacity;
+        this.heap = new PriorityQueue<>(Math.max(1, capacity), Comparator.comparingDouble((Candidate c) -> c.key).reversed());
+    }
+
+    /**
+     * Offer one entry with a fresh random key
+     * @param userId User of the entry
+     * @param random Random source
+     */
+    public void offer(long userId, RandomGenerator random) {
+        offer(userId, random.nextDouble());
+    }
+
+    void offer(long userId, double key) {
+        seen++;
+        if (heap.size() < capacity) {
+            heap.add(new Candidate(userId, key));
+        } else if (capacity > 0 && key < heap.peek().key) {
+            heap.poll();
+            heap.add(new Candidate(userId, key));
+        }
+    }
+
+    /**
+     * Fold the sample of another partition into this one
+     */
+    public void merge(WinnerSampler other) {
+        for (Candidate candidate : other.heap) {
+            offer(candidate.userId, candidate.key);
+        }
+        seen += other.seen - other.heap.size();
+    }
+
+    /**
+     * The sampled users in ascending key order, which is itself a random order
+     */
+    public List<Long> winners() {
+        List<Candidate> sorted = new ArrayList<>(heap);
+        sorted.sort(Comparator.comparingDouble(c -> c.key));
+        List<Long> winners = new ArrayList<>(sorted.size());
+        sorted.forEach(candidate -> winners.add(candidate.userId));
+        return winners;
+    }
+
+    /**
+     * Number of entries offered, including merged partitions
+     */
+    public long getSeen() {
+        return seen;
+    }
+
+    private static final class Candidate {
+        private final long userId;
+        private final double key;
+
+        private Candidate(long userId, double key) {
+            this.userId = userId;
+            this.key = key;
+        }
+    }
+}
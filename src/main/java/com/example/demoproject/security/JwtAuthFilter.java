@@ -31,6 +31,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String username = null;
         String role = null;
         Long userId = null;
+        String segment = null;
 
         if (header != null && header.startsWith("Bearer ")) {
             token = header.substring(7);
@@ -38,6 +39,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
                 username = jwtUtil.getUsernameFromToken(token);
                 role = jwtUtil.getRoleFromToken(token);
                 userId = jwtUtil.getUserIdFromToken(token);
+                segment = jwtUtil.getSegmentFromToken(token);
             }
         }
 
@@ -49,6 +51,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
             // Store user ID in authentication details for easy access
             Map<String, Object> details = new HashMap<>();
             details.put("userId", userId);
+            details.put("segment", segment);
             auth.setDetails(details);
             
             SecurityContextHolder.getContext().setAuthentication(auth);
@@ -11,16 +11,25 @@ import java.util.Date;
 public class JwtUtil {
     private final String jwtSecret = "your-256-bit-secret-your-256-bit-secret"; // 32+ chars
     private final long jwtExpirationMs = 86400000; // 1 day
+    private static final String DRAW_PASS_TYPE = "draw-pass";
 
     private Key getSigningKey() {
         return Keys.hmacShaKeyFor(jwtSecret.getBytes());
     }
 
     public String generateToken(String username, String role, Long userId) {
+        return generateToken(username, role, userId, null);
+    }
+
+    /**
+     * Sign a login token; the segment claim selects the user's prize odds and is left out when null
+     */
+    public String generateToken(String username, String role, Long userId, String segment) {
         return Jwts.builder()
                 .setSubject(username)
                 .claim("role", role)
                 .claim("userId", userId)
+                .claim("segment", segment)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
                 .signWith(getSigningKey())
@@ -42,6 +51,11 @@ public class JwtUtil {
                 .parseClaimsJws(token).getBody().get("userId", Long.class);
     }
 
+    public String getSegmentFromToken(String token) {
+        return Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
+                .parseClaimsJws(token).getBody().get("segment", String.class);
+    }
+
     public boolean validateJwtToken(String authToken) {
         try {
             Jwts.parserBuilder().setSigningKey(getSigningKey()).build().parseClaimsJws(authToken);
@@ -50,4 +64,34 @@ public class JwtUtil {
             return false;
         }
     }
+
+    /**
+     * Sign a draw pass. It has no subject, so the auth filter never accepts it as a login token.
+     */
+    public String generateDrawPass(String passId, Long userId, Long activityId, long nonce, int remaining, Date expiresAt) {
+        return Jwts.builder()
+                .setId(passId)
+                .claim("typ", DRAW_PASS_TYPE)
+                .claim("userId", userId)
+                .claim("activityId", activityId)
+                .claim("nonce", nonce)
+                .claim("remaining", remaining)
+                .setIssuedAt(new Date())
+                .setExpiration(expiresAt)
+                .signWith(getSigningKey())
+                .compact();
+    }
+
+    /**
+     * Verify a draw pass and return its claims
+     * @throws JwtException if the pass is forged, expired or not a draw pass
+     */
+    public Claims parseDrawPass(String token) {
+        Claims claims = Jwts.parserBuilder().setSigningKey(getSigningKey()).build()
+                .parseClaimsJws(token).getBody();
+        if (!DRAW_PASS_TYPE.equals(claims.get("typ", String.class))) {
+            throw new MalformedJwtException("Not a draw pass");
+        }
+        return claims;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,56 @@
+-- Tables and constraints of the lucky draw schema before Flyway owned it, as existing databases
+-- already have them. Those are baselined at this version; later changes are V2 onwards.
+-- Shared by H2 and PostgreSQL.
+
+create table users (
+    id bigint generated by default as identity,
+    username varchar(255) not null,
+    password varchar(255) not null,
+    role varchar(255) not null,
+    primary key (id),
+    constraint uk_users_username unique (username)
+);
+
+create table activities (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    description varchar(255) not null,
+    max_draws integer not null,
+    primary key (id)
+);
+
+create table prizes (
+    id bigint generated by default as identity,
+    name varchar(255) not null,
+    description varchar(255) not null,
+    quantity integer not null,
+    probability numeric(5,4) not null,
+    activity_id bigint,
+    primary key (id),
+    constraint fk_prizes_activity foreign key (activity_id) references activities (id)
+);
+
+create table draw_records (
+    id bigint generated by default as identity,
+    user_id bigint,
+    activity_id bigint,
+    prize_id bigint,
+    draw_time timestamp(6) not null,
+    primary key (id),
+    constraint fk_draw_records_user foreign key (user_id) references users (id),
+    constraint fk_draw_records_activity foreign key (activity_id) references activities (id),
+    constraint fk_draw_records_prize foreign key (prize_id) references prizes (id)
+);
+
+create table audit_logs (
+    id bigint generated by default as identity,
+    admin_user_id bigint,
+    action varchar(255) not null,
+    entity_type varchar(255) not null,
+    entity_id bigint not null,
+    old_values text,
+    new_values text,
+    timestamp timestamp(6) not null,
+    primary key (id),
+    constraint fk_audit_logs_admin_user foreign key (admin_user_id) references users (id)
+);
@@ -0,0 +1,113 @@
+-- Columns, tables and sequences the draw features added on top of V1. New not null columns get
+-- a default so existing rows take them; awarded_count is backfilled by V3.
+
+-- Optimistic admin prize edits
+alter table prizes add column version bigint default 0;
+
+-- Prize wins counted apart from the remaining quantity
+alter table prizes add column awarded_count integer default 0 not null;
+
+-- Per-user draw quotas
+create sequence user_activity_quotas_seq start with 1 increment by 50;
+
+create table user_activity_quotas (
+    id bigint not null,
+    user_id bigint not null,
+    activity_id bigint not null,
+    used_draws integer not null,
+    primary key (id),
+    constraint uk_user_activity_quotas_user_activity unique (user_id, activity_id)
+);
+
+-- Sharded inventory buckets
+create sequence prize_inventory_buckets_seq start with 1 increment by 50;
+
+create table prize_inventory_buckets (
+    id bigint not null,
+    prize_id bigint not null,
+    bucket_index integer not null,
+    quantity integer not null,
+    primary key (id),
+    constraint uk_prize_inventory_buckets_prize_bucket unique (prize_id, bucket_index)
+);
+
+-- Ticket rolls
+alter table draw_records add column roll_position integer;
+alter table draw_records add constraint uk_draw_records_activity_roll_position unique (activity_id, roll_position);
+
+create sequence ticket_rolls_seq start with 1 increment by 50;
+create sequence ticket_roll_slots_seq start with 1 increment by 50;
+
+create table ticket_rolls (
+    id bigint not null,
+    activity_id bigint not null,
+    size integer not null,
+    created_at timestamp(6) not null,
+    primary key (id),
+    constraint uk_ticket_rolls_activity unique (activity_id)
+);
+
+create table ticket_roll_slots (
+    id bigint not null,
+    activity_id bigint not null,
+    position integer not null,
+    prize_id bigint,
+    primary key (id),
+    constraint uk_ticket_roll_slots_activity_position unique (activity_id, position)
+);
+
+-- Prize unit claim rows
+create sequence prize_units_seq start with 1 increment by 50;
+
+create table prize_units (
+    id bigint not null,
+    prize_id bigint not null,
+    claimed_at timestamp(6),
+    draw_record_id bigint,
+    version bigint,
+    primary key (id),
+    constraint uk_prize_units_draw_record unique (draw_record_id),
+    constraint fk_prize_units_draw_record foreign key (draw_record_id) references draw_records (id)
+);
+
+-- Time-paced prize release
+alter table activities add column start_time timestamp(6);
+alter table activities add column end_time timestamp(6);
+alter table activities add column paced boolean default false not null;
+
+-- Lottery activities
+alter table activities add column type varchar(16) default 'INSTANT' not null;
+alter table activities add column winners_selected_at timestamp(6);
+alter table activities add constraint ck_activities_type check (type in ('INSTANT', 'LOTTERY'));
+
+create sequence lottery_entries_seq start with 1 increment by 50;
+
+create table lottery_entries (
+    id bigint not null,
+    activity_id bigint not null,
+    user_id bigint not null,
+    entry_time timestamp(6) not null,
+    primary key (id),
+    constraint uk_lottery_entries_activity_user unique (activity_id, user_id)
+);
+
+-- Per-segment prize odds
+alter table users add column segment varchar(32);
+
+create table prize_segment_multipliers (
+    id bigint generated by default as identity,
+    prize_id bigint not null,
+    activity_id bigint not null,
+    segment varchar(32) not null,
+    multiplier numeric(10,4) not null,
+    primary key (id),
+    constraint uk_prize_segment_multipliers_prize_segment unique (prize_id, segment)
+);
+
+-- Draw journal load checkpoints
+create table draw_journal_checkpoints (
+    segment_id bigint not null,
+    loaded_frames integer not null,
+    loaded_at timestamp(6) not null,
+    primary key (segment_id)
+);
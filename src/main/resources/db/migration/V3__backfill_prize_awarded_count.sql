@@ -0,0 +1,8 @@
+-- awarded_count starts at 0 for prizes that already have winning draws. Count the wins that took
+-- inventory from the prizes row (ticket roll draws don't), so the inventory ledger does not take
+-- them again when it reconciles.
+
+update prizes set awarded_count = (
+    select count(*) from draw_records r
+    where r.prize_id = prizes.id and r.roll_position is null
+);
@@ -0,0 +1,17 @@
+-- Secondary indexes behind the hot queries. "if not exists" lets a database that already has
+-- some of them, added by hand before Flyway owned the schema, keep them.
+
+-- Per-user draw counts and history: countByUserAndActivity, the user filter of the admin history
+create index if not exists idx_draw_records_user_activity_time on draw_records (user_id, activity_id, draw_time, id);
+-- Admin history pages and exports, newest or oldest first
+create index if not exists idx_draw_records_activity_time on draw_records (activity_id, draw_time, id);
+-- Prizes of an activity: findByActivity
+create index if not exists idx_prizes_activity_id on prizes (activity_id);
+-- Audit log by entity type, newest first
+create index if not exists idx_audit_logs_entity_type_timestamp on audit_logs (entity_type, timestamp);
+-- Unclaimed units of a prize
+create index if not exists idx_prize_units_prize_claimed on prize_units (prize_id, claimed_at, id);
+-- Lottery entries of an activity, in entry order
+create index if not exists idx_lottery_entries_activity_id on lottery_entries (activity_id, id);
+-- Segment multipliers of an activity
+create index if not exists idx_prize_segment_multipliers_activity_id on prize_segment_multipliers (activity_id);
@@ -1,9 +1,18 @@
 package com.example.demoproject.admin.service;
 
 import com.example.demoproject.admin.dto.ActivityResponse;
+import com.example.demoproject.admin.dto.OpenTicketRollRequest;
+import com.example.demoproject.admin.dto.TicketRollResponse;
 import com.example.demoproject.admin.dto.UpdateActivityRequest;
+import com.example.demoproject.luckydraw.constants.ActivityType;
+import com.example.demoproject.luckydraw.dto.LotteryResult;
 import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
 import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.service.DrawMetadataCache;
+import com.example.demoproject.luckydraw.service.LotteryService;
+import com.example.demoproject.luckydraw.service.TicketRollService;
 import com.example.demoproject.luckydraw.service.UserActivityService;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,8 +22,11 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -34,6 +46,18 @@ class AdminActivityServiceTest {
     @Mock
     private UserActivityService userActivityService;
 
+    @Mock
+    private DrawMetadataCache drawMetadataCache;
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private TicketRollService ticketRollService;
+
+    @Mock
+    private LotteryService lotteryService;
+
     @InjectMocks
     private AdminActivityService adminActivityService;
 
@@ -98,6 +122,7 @@ class AdminActivityServiceTest {
         
         verify(activityRepository).findById(1L);
         verify(activityRepository).save(any(Activity.class));
+        verify(drawMetadataCache).invalidateActivity(1L);
         verify(userActivityService).getCurrentUsername();
         verify(auditService).logAction(eq("admin"), eq("UPDATE_ACTIVITY"), eq("ACTIVITY"), eq(1L), any(), any());
     }
@@ -138,4 +163,78 @@ class AdminActivityServiceTest {
         verify(userActivityService).getCurrentUsername();
         verify(auditService, never()).logAction(any(), any(), any(), any(), any(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void openTicketRollBuildsRollFromActivityPrizes() throws JsonProcessingException {
+        List<Prize> prizes = List.of(new Prize("AirPods Pro", "Wireless earbuds", 20, new BigDecimal("0.1"), testActivity));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(prizes);
+        when(ticketRollService.getRemaining(1L)).thenReturn(Map.of(1L, 10));
+        when(userActivityService.getCurrentUsername()).thenReturn("admin");
+
+        TicketRollResponse response = adminActivityService.openTicketRoll(1L, new OpenTicketRollRequest(100));
+
+        assertEquals(100, response.getSize());
+        assertEquals(Map.of(1L, 10), response.getPrizeUnits());
+        verify(ticketRollService).open(1L, 100, prizes);
+        verify(auditService).logAction(eq("admin"), eq("OPEN_TICKET_ROLL"), eq("ACTIVITY"), eq(1L), any(), any());
+    }
+
+    @Test
+    void openTicketRollActivityNotFound() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.empty());
+
+        assertThrows(IllegalArgumentException.class,
+            () -> adminActivityService.openTicketRoll(1L, new OpenTicketRollRequest(100)));
+        verifyNoInteractions(ticketRollService);
+    }
+
+    @Test
+    void updateActivitySetsPacingWindow() throws JsonProcessingException {
+        LocalDateTime start = LocalDateTime.of(2024, 6, 1, 0, 0);
+        updateRequest.setStartTime(start);
+        updateRequest.setEndTime(start.plusDays(7));
+        updateRequest.setPaced(true);
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(activityRepository.save(any(Activity.class))).thenReturn(testActivity);
+
+        ActivityResponse result = adminActivityService.updateActivity("1", updateRequest);
+
+        assertTrue(testActivity.isPaced());
+        assertEquals(start, testActivity.getStartTime());
+        assertEquals(start.plusDays(7), result.getEndTime());
+        assertTrue(result.isPaced());
+    }
+
+    @Test
+    void updateActivityRejectsPacingWithoutWindow() {
+        updateRequest.setPaced(true);
+        updateRequest.setStartTime(LocalDateTime.of(2024, 6, 1, 0, 0));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+
+        assertThrows(IllegalArgumentException.class, () -> adminActivityService.updateActivity("1", updateRequest));
+
+        updateRequest.setEndTime(updateRequest.getStartTime());
+        assertThrows(IllegalArgumentException.class, () -> adminActivityService.updateActivity("1", updateRequest));
+        verify(activityRepository, never()).save(any());
+    }
+
+    @Test
+    void updateActivityRejectsLotteryWithoutWindow() {
+        updateRequest.setType(ActivityType.LOTTERY);
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+
+        assertThrows(IllegalArgumentException.class, () -> adminActivityService.updateActivity("1", updateRequest));
+        verify(activityRepository, never()).save(any());
+    }
+
+    @Test
+    void selectLotteryWinnersIsAudited() throws JsonProcessingException {
+        LotteryResult result = new LotteryResult(1L, 1000L, 10);
+        when(lotteryService.selectWinners(1L)).thenReturn(result);
+        when(userActivityService.getCurrentUsername()).thenReturn("admin");
+
+        assertSame(result, adminActivityService.selectLotteryWinners(1L));
+        verify(auditService).logAction(eq("admin"), eq("SELECT_LOTTERY_WINNERS"), eq("ACTIVITY"), eq(1L), any(), eq(result));
+    }
+}
@@ -1,7 +1,7 @@
 package com.example.demoproject.admin.service;
 
+import com.example.demoproject.admin.dto.DrawHistoryQuery;
 import com.example.demoproject.auth.entity.User;
-import com.example.demoproject.auth.repository.AuthUserRepository;
 import com.example.demoproject.luckydraw.dto.UserDrawHistory;
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.DrawRecord;
@@ -14,13 +14,28 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.Arrays;
-import java.util.Optional;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -32,42 +47,28 @@ class AdminDrawHistoryServiceTest {
     @Mock
     private DrawRecordRepository drawRecordRepository;
 
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
     @InjectMocks
     private AdminDrawHistoryService adminDrawHistoryService;
 
-    private User testUser;
-    private Activity testActivity;
-    private Prize testPrize;
-    private DrawRecord testDrawRecord;
+    private UserDrawHistory.DrawHistoryItem testItem;
 
     @BeforeEach
     void setUp() {
-        testUser = new User();
-        testUser.setId(1L);
-        testUser.setUsername("testuser");
-
-        testActivity = new Activity("Test Activity", "Test Description", 10);
-        testActivity.setId(1L);
-
-        testPrize = new Prize();
-        testPrize.setId(1L);
-        testPrize.setName("Test Prize");
-        testPrize.setDescription("Test Prize Description");
-
-        testDrawRecord = new DrawRecord();
-        testDrawRecord.setId(1L);
-        testDrawRecord.setUser(testUser);
-        testDrawRecord.setActivity(testActivity);
-        testDrawRecord.setPrize(testPrize);
-        testDrawRecord.setDrawTime(LocalDateTime.now());
+        testItem = new UserDrawHistory.DrawHistoryItem(1L, "testuser", "Test Prize", "Test Prize Description", LocalDateTime.now());
     }
 
     @Test
     void getDrawHistoryForActivityShouldReturnDrawHistory() {
 
-        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(drawRecordRepository.findByActivityOrderByDrawTimeDesc(testActivity))
-            .thenReturn(Arrays.asList(testDrawRecord));
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        when(drawRecordRepository.findHistoryPage(1L, false, null, null, null, null, null, PageRequest.of(0, 101)))
+            .thenReturn(Arrays.asList(testItem));
 
         UserDrawHistory result = adminDrawHistoryService.getDrawHistoryForActivity(1L);
 
@@ -82,27 +83,27 @@ class AdminDrawHistoryServiceTest {
         assertEquals("Test Prize Description", historyItem.getPrizeDescription());
         assertNotNull(historyItem.getDrawTime());
         
-        verify(activityRepository).findById(1L);
-        verify(drawRecordRepository).findByActivityOrderByDrawTimeDesc(testActivity);
+        verify(activityRepository).existsById(1L);
+        verify(drawRecordRepository).findHistoryPage(1L, false, null, null, null, null, null, PageRequest.of(0, 101));
     }
 
     @Test
     void getDrawHistoryForActivityWhenActivityNotFoundShouldThrowException() {
 
-        when(activityRepository.findById(1L)).thenReturn(Optional.empty());
+        when(activityRepository.existsById(1L)).thenReturn(false);
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
             () -> adminDrawHistoryService.getDrawHistoryForActivity(1L));
         
         assertEquals("Activity not found: 1", exception.getMessage());
-        verify(activityRepository).findById(1L);
-        verify(drawRecordRepository, never()).findByActivityOrderByDrawTimeDesc(any());
+        verify(activityRepository).existsById(1L);
+        verify(drawRecordRepository, never()).findHistoryPage(any(), anyBoolean(), any(), any(), any(), any(), any(), any());
     }
 
     @Test
     void getDrawHistoryForActivityWhenNoDrawRecordsShouldReturnEmptyHistory() {
-        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(drawRecordRepository.findByActivityOrderByDrawTimeDesc(testActivity))
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        when(drawRecordRepository.findHistoryPage(1L, false, null, null, null, null, null, PageRequest.of(0, 101)))
             .thenReturn(Arrays.asList());
 
         UserDrawHistory result = adminDrawHistoryService.getDrawHistoryForActivity(1L);
@@ -111,23 +112,18 @@ class AdminDrawHistoryServiceTest {
         assertEquals(1L, result.getActivityId());
         assertTrue(result.getHistory().isEmpty());
         
-        verify(activityRepository).findById(1L);
-        verify(drawRecordRepository).findByActivityOrderByDrawTimeDesc(testActivity);
+        verify(activityRepository).existsById(1L);
+        verify(drawRecordRepository).findHistoryPage(1L, false, null, null, null, null, null, PageRequest.of(0, 101));
     }
 
     @Test
     void getDrawHistoryForActivityWhenDrawRecordHasNoPrizeShouldHandleCorrectly() {
         // Arrange
-        DrawRecord noPrizeRecord = new DrawRecord();
-        noPrizeRecord.setId(2L);
-        noPrizeRecord.setUser(testUser);
-        noPrizeRecord.setActivity(testActivity);
-        noPrizeRecord.setPrize(null);
-        noPrizeRecord.setDrawTime(LocalDateTime.now());
+        UserDrawHistory.DrawHistoryItem noPrizeItem = new UserDrawHistory.DrawHistoryItem(2L, "testuser", null, null, LocalDateTime.now());
 
-        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
-        when(drawRecordRepository.findByActivityOrderByDrawTimeDesc(testActivity))
-            .thenReturn(Arrays.asList(noPrizeRecord));
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        when(drawRecordRepository.findHistoryPage(1L, false, null, null, null, null, null, PageRequest.of(0, 101)))
+            .thenReturn(Arrays.asList(noPrizeItem));
 
         UserDrawHistory result = adminDrawHistoryService.getDrawHistoryForActivity(1L);
 
@@ -142,21 +138,140 @@ class AdminDrawHistoryServiceTest {
         assertEquals("沒有中獎", historyItem.getPrizeName());
         assertEquals("沒有中獎", historyItem.getPrizeDescription());
         
-        verify(activityRepository).findById(1L);
-        verify(drawRecordRepository).findByActivityOrderByDrawTimeDesc(testActivity);
+        verify(activityRepository).existsById(1L);
+        verify(drawRecordRepository).findHistoryPage(1L, false, null, null, null, null, null, PageRequest.of(0, 101));
     }
 
     @Test
     void getDrawHistoryForActivityWhenExceptionOccursShouldPropagateException() {
         // Arrange
-        when(activityRepository.findById(1L)).thenThrow(new RuntimeException("Database error"));
+        when(activityRepository.existsById(1L)).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class, 
             () -> adminDrawHistoryService.getDrawHistoryForActivity(1L));
         
         assertEquals("Database error", exception.getMessage());
-        verify(activityRepository).findById(1L);
-        verify(drawRecordRepository, never()).findByActivityOrderByDrawTimeDesc(any());
+        verify(activityRepository).existsById(1L);
+        verify(drawRecordRepository, never()).findHistoryPage(any(), anyBoolean(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void getDrawHistoryForActivityShouldContinueAfterCursor() {
+        UserDrawHistory.DrawHistoryItem newer = item(5L, LocalDateTime.of(2024, 5, 1, 12, 0, 2));
+        UserDrawHistory.DrawHistoryItem older = item(4L, LocalDateTime.of(2024, 5, 1, 12, 0, 1));
+        UserDrawHistory.DrawHistoryItem oldest = item(3L, LocalDateTime.of(2024, 5, 1, 12, 0, 1));
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        when(drawRecordRepository.findHistoryPage(1L, false, null, null, null, null, null, PageRequest.of(0, 3)))
+            .thenReturn(List.of(newer, older, oldest));
+        when(drawRecordRepository.findHistoryPage(1L, false, null, null, null, older.getDrawTime(), 4L, PageRequest.of(0, 3)))
+            .thenReturn(List.of(oldest));
+        DrawHistoryQuery query = new DrawHistoryQuery();
+        query.setSize(2);
+
+        UserDrawHistory first = adminDrawHistoryService.getDrawHistoryForActivity(1L, query);
+        query.setCursor(first.getNextCursor());
+        UserDrawHistory second = adminDrawHistoryService.getDrawHistoryForActivity(1L, query);
+
+        assertEquals(List.of(5L, 4L), first.getHistory().stream().map(UserDrawHistory.DrawHistoryItem::getRecordId).toList());
+        assertNotNull(first.getNextCursor());
+        assertEquals(List.of(3L), second.getHistory().stream().map(UserDrawHistory.DrawHistoryItem::getRecordId).toList());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getDrawHistoryForActivityShouldPassFilters() {
+        LocalDateTime from = LocalDateTime.of(2024, 5, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2024, 5, 2, 0, 0);
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        when(drawRecordRepository.findHistoryPage(1L, true, 7L, from, to, null, null, PageRequest.of(0, 101)))
+            .thenReturn(List.of(testItem));
+        DrawHistoryQuery query = new DrawHistoryQuery();
+        query.setWinnersOnly(true);
+        query.setUserId(7L);
+        query.setFrom(from);
+        query.setTo(to);
+
+        UserDrawHistory result = adminDrawHistoryService.getDrawHistoryForActivity(1L, query);
+
+        assertEquals(1, result.getHistory().size());
+        assertNull(result.getNextCursor());
+    }
+
+    @Test
+    void getDrawHistoryForActivityShouldRejectInvalidCursorAndPageSize() {
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        DrawHistoryQuery badCursor = new DrawHistoryQuery();
+        badCursor.setCursor("not-a-cursor");
+        DrawHistoryQuery badSize = new DrawHistoryQuery();
+        badSize.setSize(1001);
+
+        assertThrows(IllegalArgumentException.class, () -> adminDrawHistoryService.getDrawHistoryForActivity(1L, badCursor));
+        assertThrows(IllegalArgumentException.class, () -> adminDrawHistoryService.getDrawHistoryForActivity(1L, badSize));
+        verify(drawRecordRepository, never()).findHistoryPage(any(), anyBoolean(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void exportDrawHistoryShouldStreamGzippedCsv() throws Exception {
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        stubExportRows();
+
+        StreamingResponseBody body = adminDrawHistoryService.exportDrawHistory(1L, AdminDrawHistoryService.ExportFormat.CSV, false);
+
+        assertEquals("recordId,userId,username,prizeId,prizeName,drawTime\n" +
+            "1,7,alice,3,\"Gift card, \"\"gold\"\"\",2024-05-01T12:00:00\n" +
+            "2,8,bob,,,2024-05-01T12:00:01\n", export(body));
+    }
+
+    @Test
+    void exportDrawHistoryShouldStreamGzippedNdjson() throws Exception {
+        when(activityRepository.existsById(1L)).thenReturn(true);
+        stubExportRows();
+
+        StreamingResponseBody body = adminDrawHistoryService.exportDrawHistory(1L, AdminDrawHistoryService.ExportFormat.NDJSON, true);
+
+        assertEquals("{\"recordId\":1,\"userId\":7,\"username\":\"alice\",\"prizeId\":3,\"prizeName\":\"Gift card, \\\"gold\\\"\",\"drawTime\":\"2024-05-01T12:00:00\"}\n" +
+            "{\"recordId\":2,\"userId\":8,\"username\":\"bob\",\"prizeId\":null,\"prizeName\":null,\"drawTime\":\"2024-05-01T12:00:01\"}\n", export(body));
+    }
+
+    @Test
+    void exportDrawHistoryShouldRejectUnknownActivityAndFormat() {
+        when(activityRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class,
+            () -> adminDrawHistoryService.exportDrawHistory(1L, AdminDrawHistoryService.ExportFormat.CSV, false));
+        assertThrows(IllegalArgumentException.class, () -> AdminDrawHistoryService.ExportFormat.parse("xml"));
+        assertEquals(AdminDrawHistoryService.ExportFormat.NDJSON, AdminDrawHistoryService.ExportFormat.parse("ndjson"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    private void stubExportRows() throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong(1)).thenReturn(1L, 2L);
+        when(rs.getLong(2)).thenReturn(7L, 8L);
+        when(rs.getString(3)).thenReturn("alice", "bob");
+        when(rs.getLong(4)).thenReturn(3L, 0L);
+        when(rs.wasNull()).thenReturn(false, true);
+        when(rs.getString(5)).thenReturn("Gift card, \"gold\"", (String) null);
+        when(rs.getTimestamp(6)).thenReturn(Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 12, 0)),
+            Timestamp.valueOf(LocalDateTime.of(2024, 5, 1, 12, 0, 1)));
+        doAnswer(invocation -> {
+            RowCallbackHandler handler = invocation.getArgument(1);
+            handler.processRow(rs);
+            handler.processRow(rs);
+            return null;
+        }).when(jdbcTemplate).query(any(PreparedStatementCreator.class), any(RowCallbackHandler.class));
+    }
+
+    private static String export(StreamingResponseBody body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body.writeTo(out);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static UserDrawHistory.DrawHistoryItem item(Long id, LocalDateTime drawTime) {
+        return new UserDrawHistory.DrawHistoryItem(id, "testuser", null, null, drawTime);
     }
 }
\ No newline at end of file
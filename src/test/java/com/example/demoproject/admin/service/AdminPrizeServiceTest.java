@@ -7,10 +7,21 @@ import com.example.demoproject.admin.dto.PrizeResponse;
 import com.example.demoproject.admin.dto.UpdatePrizeRequest;
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.PrizeSegmentMultiplier;
 import com.example.demoproject.luckydraw.repository.ActivityRepository;
 import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.repository.PrizeSegmentMultiplierRepository;
+import com.example.demoproject.luckydraw.service.DrawMetadataCache;
+import com.example.demoproject.luckydraw.service.PrizeBucketInventory;
+import com.example.demoproject.luckydraw.service.PrizeUnitInventory;
+import com.example.demoproject.luckydraw.service.PrizeInventoryLedger;
+import com.example.demoproject.luckydraw.service.TicketRollService;
 import com.example.demoproject.luckydraw.service.UserActivityService;
+import com.example.demoproject.luckydraw.util.PrizeSelectionUtil;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,7 +31,9 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
@@ -38,6 +51,27 @@ class AdminPrizeServiceTest {
     @Mock
     private UserActivityService userActivityService;
 
+    @Mock
+    private PrizeSelectionUtil prizeSelectionUtil;
+
+    @Mock
+    private PrizeInventoryLedger prizeInventoryLedger;
+
+    @Mock
+    private DrawMetadataCache drawMetadataCache;
+
+    @Mock
+    private PrizeBucketInventory prizeBucketInventory;
+
+    @Mock
+    private TicketRollService ticketRollService;
+
+    @Mock
+    private PrizeUnitInventory prizeUnitInventory;
+
+    @Mock
+    private PrizeSegmentMultiplierRepository prizeSegmentMultiplierRepository;
+
     @InjectMocks
     private AdminPrizeService adminPrizeService;
 
@@ -58,8 +92,10 @@ class AdminPrizeServiceTest {
         testPrize.setQuantity(10);
         testPrize.setProbability(new BigDecimal("0.3"));
         testPrize.setActivity(testActivity);
+        testPrize.setVersion(0L);
 
         updateRequest = new UpdatePrizeRequest();
+        updateRequest.setVersion(0L);
         updateRequest.setName("Updated Prize");
         updateRequest.setDescription("Updated Description");
         updateRequest.setQuantity(20);
@@ -70,7 +106,7 @@ class AdminPrizeServiceTest {
     void updatePrizeSuccess() throws JsonProcessingException {
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
         when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
-        when(prizeRepository.save(any(Prize.class))).thenReturn(testPrize);
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenReturn(testPrize);
         when(userActivityService.getCurrentUsername()).thenReturn("admin");
 
         PrizeResponse result = adminPrizeService.updatePrize(1L, 1L, updateRequest);
@@ -84,10 +120,122 @@ class AdminPrizeServiceTest {
         assertEquals(1L, result.getActivityId());
 
         verify(prizeRepository).findById(1L);
-        verify(prizeRepository).save(any(Prize.class));
+        verify(prizeRepository).saveAndFlush(any(Prize.class));
+        verify(prizeInventoryLedger).flush();
+        verify(prizeInventoryLedger).evict(1L);
+        verify(drawMetadataCache).invalidatePrizes(1L);
         verify(auditService).logAction(eq("admin"), eq("UPDATE_PRIZE"), eq("PRIZE"), eq(1L), any(), any());
     }
 
+    @Test
+    void updatePrizeDropsCachesOnlyAfterCommit() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenReturn(testPrize);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            adminPrizeService.updatePrize(1L, 1L, updateRequest);
+
+            verify(drawMetadataCache, never()).invalidatePrizes(any());
+            verify(prizeInventoryLedger, never()).evict(any());
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        verify(prizeInventoryLedger).evict(1L);
+        verify(drawMetadataCache).invalidatePrizes(1L);
+        verify(prizeSelectionUtil).invalidate(1L);
+    }
+
+    @Test
+    void updatePrizeProbabilityChangedInvalidatesSampler() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenReturn(testPrize);
+
+        adminPrizeService.updatePrize(1L, 1L, updateRequest);
+
+        verify(prizeSelectionUtil).invalidate(1L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatePrizeReplacesSegmentMultipliersAndInvalidatesSamplers() {
+        updateRequest.setProbability(new BigDecimal("0.30"));
+        updateRequest.setSegmentMultipliers(Map.of("VIP", new BigDecimal("3"), "NEW", new BigDecimal("1.5")));
+        PrizeSegmentMultiplier vip = new PrizeSegmentMultiplier(1L, 1L, "VIP", new BigDecimal("2"));
+        PrizeSegmentMultiplier staff = new PrizeSegmentMultiplier(1L, 1L, "STAFF", new BigDecimal("0"));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenReturn(testPrize);
+        when(prizeSegmentMultiplierRepository.findByPrizeId(1L)).thenReturn(List.of(vip, staff));
+
+        adminPrizeService.updatePrize(1L, 1L, updateRequest);
+
+        assertEquals(new BigDecimal("3"), vip.getMultiplier());
+        verify(prizeSegmentMultiplierRepository).deleteAll(argThat(rows -> List.copyOf((Collection<PrizeSegmentMultiplier>) rows).equals(List.of(staff))));
+        verify(prizeSegmentMultiplierRepository).saveAll(argThat(rows -> ((List<PrizeSegmentMultiplier>) rows).size() == 2
+            && ((List<PrizeSegmentMultiplier>) rows).contains(vip)));
+        verify(drawMetadataCache).invalidatePrizes(1L);
+        verify(prizeSelectionUtil).invalidate(1L);
+    }
+
+    @Test
+    void updatePrizeNegativeSegmentMultiplierThrowsException() {
+        updateRequest.setSegmentMultipliers(Map.of("VIP", new BigDecimal("-1")));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+
+        assertThrows(IllegalArgumentException.class, () -> adminPrizeService.updatePrize(1L, 1L, updateRequest));
+
+        verify(prizeRepository, never()).save(any());
+        verifyNoInteractions(prizeSegmentMultiplierRepository);
+    }
+
+    @Test
+    void updatePrizeSameProbabilityKeepsSampler() {
+        updateRequest.setProbability(new BigDecimal("0.30"));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenReturn(testPrize);
+
+        adminPrizeService.updatePrize(1L, 1L, updateRequest);
+
+        verify(prizeSelectionUtil, never()).invalidate(any());
+    }
+
+    @Test
+    void updatePrizeStaleVersionIsRejected() {
+        testPrize.setVersion(5L);
+        updateRequest.setVersion(4L);
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+
+        assertThrows(ObjectOptimisticLockingFailureException.class,
+            () -> adminPrizeService.updatePrize(1L, 1L, updateRequest));
+
+        verify(prizeRepository, never()).save(any());
+        verifyNoInteractions(drawMetadataCache);
+    }
+
+    @Test
+    void updatePrizeCurrentVersionIsSaved() {
+        testPrize.setVersion(5L);
+        updateRequest.setVersion(5L);
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenAnswer(invocation -> {
+            Prize saved = invocation.getArgument(0);
+            saved.setVersion(6L);
+            return saved;
+        });
+
+        PrizeResponse result = adminPrizeService.updatePrize(1L, 1L, updateRequest);
+
+        assertEquals(6L, result.getVersion());
+        verify(prizeRepository).saveAndFlush(testPrize);
+    }
+
     @Test
     void updatePrizePrizeNotFound() {
 
@@ -133,11 +281,50 @@ class AdminPrizeServiceTest {
         assertTrue(exception.getMessage().contains("exceeds 1.0"));
     }
 
+    @Test
+    void updatePrizeSegmentMultiplierPushingSegmentOverOneThrowsException() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        Prize otherPrize = new Prize();
+        otherPrize.setId(2L);
+        otherPrize.setProbability(new BigDecimal("0.4"));
+        otherPrize.setActivity(testActivity);
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(Arrays.asList(testPrize, otherPrize));
+        when(prizeSegmentMultiplierRepository.findByActivityId(1L))
+            .thenReturn(List.of(new PrizeSegmentMultiplier(1L, 2L, "VIP", new BigDecimal("1.5"))));
+
+        // 0.4 * 1.5 + 0.3 * 2 = 1.2
+        updateRequest.setProbability(new BigDecimal("0.3"));
+        updateRequest.setSegmentMultipliers(Map.of("VIP", new BigDecimal("2")));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> adminPrizeService.updatePrize(1L, 1L, updateRequest));
+        assertTrue(exception.getMessage().contains("segment VIP"));
+        verify(prizeRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void updatePrizeProbabilityPushingStoredSegmentOverOneThrowsException() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(List.of(testPrize));
+        when(prizeSegmentMultiplierRepository.findByActivityId(1L))
+            .thenReturn(List.of(new PrizeSegmentMultiplier(1L, 1L, "VIP", new BigDecimal("3"))));
+
+        // Base total 0.4 is fine, but VIP draws would get 0.4 * 3
+        updateRequest.setProbability(new BigDecimal("0.4"));
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> adminPrizeService.updatePrize(1L, 1L, updateRequest));
+        assertTrue(exception.getMessage().contains("segment VIP"));
+        verify(prizeRepository, never()).saveAndFlush(any());
+    }
+
     @Test
     void updatePrizeAuditServiceThrowsException() throws JsonProcessingException {
 
         when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
-        when(prizeRepository.save(any(Prize.class))).thenReturn(testPrize);
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenReturn(testPrize);
         when(userActivityService.getCurrentUsername()).thenReturn("admin");
         when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
         when(prizeRepository.findByActivity(testActivity)).thenReturn(Arrays.asList(testPrize));
@@ -146,7 +333,7 @@ class AdminPrizeServiceTest {
         PrizeResponse result = adminPrizeService.updatePrize(1L, 1L, updateRequest);
 
         assertNotNull(result);
-        verify(prizeRepository).save(any(Prize.class));
+        verify(prizeRepository).saveAndFlush(any(Prize.class));
     }
 
     @Test
@@ -168,6 +355,64 @@ class AdminPrizeServiceTest {
         assertEquals(1L, result.getActivityId());
     }
 
+    @Test
+    void getPrizesShowsBucketTotalInBucketedMode() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(Arrays.asList(testPrize));
+        when(prizeBucketInventory.isEnabled()).thenReturn(true);
+        when(prizeBucketInventory.getRemaining(List.of(1L))).thenReturn(Map.of(1L, 3));
+
+        PrizeResponse result = adminPrizeService.getPrizes(1L).get(0);
+
+        assertEquals(3, result.getQuantity());
+        assertEquals(3, result.getRemainingQuantity());
+    }
+
+    @Test
+    void updatePrizeResizesBucketsInBucketedMode() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(prizeRepository.saveAndFlush(any(Prize.class))).thenReturn(testPrize);
+        when(prizeBucketInventory.isEnabled()).thenReturn(true);
+        when(prizeBucketInventory.lockRemaining(1L)).thenReturn(4);
+
+        adminPrizeService.updatePrize(1L, 1L, updateRequest);
+
+        verify(prizeBucketInventory).resize(1L, updateRequest.getQuantity());
+        // 6 of the 10 units of the last split were won from the buckets
+        assertEquals(6, testPrize.getAwardedCount());
+    }
+
+    @Test
+    void getPrizesCountsUnclaimedUnitsInUnitMode() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(Arrays.asList(testPrize));
+        when(prizeUnitInventory.isEnabled()).thenReturn(true);
+        when(prizeUnitInventory.getRemaining(List.of(1L))).thenReturn(Map.of());
+
+        PrizeResponse result = adminPrizeService.getPrizes(1L).get(0);
+
+        assertEquals(0, result.getQuantity());
+    }
+
+    @Test
+    void updatePrizeRejectedWhenActivityHasTicketRoll() {
+        when(ticketRollService.isEnabled(1L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> adminPrizeService.updatePrize(1L, 1L, updateRequest));
+        verify(prizeRepository, never()).save(any());
+    }
+
+    @Test
+    void getPrizesShowsRollRemainingWhenActivityHasTicketRoll() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(Arrays.asList(testPrize));
+        when(ticketRollService.isEnabled(1L)).thenReturn(true);
+        when(ticketRollService.getRemaining(1L)).thenReturn(Map.of());
+
+        assertEquals(0, adminPrizeService.getPrizes(1L).get(0).getQuantity());
+    }
+
     @Test
     void getPrizes_ActivityNotFound() {
 
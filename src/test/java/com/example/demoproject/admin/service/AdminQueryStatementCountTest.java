@@ -0,0 +1,99 @@
+package com.example.demoproject.admin.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.demoproject.admin.dto.AuditLogResponse;
+import com.example.demoproject.admin.dto.UserResponse;
+import com.example.demoproject.admin.entity.AuditLog;
+import com.example.demoproject.auth.entity.User;
+import com.example.demoproject.luckydraw.dto.UserDrawHistory;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.entity.Prize;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Counts the SQL statements behind the admin history, audit and user lists, which must not grow
+ * with the number of rows returned.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({AdminDrawHistoryService.class, AuditService.class, AdminUserService.class})
+class AdminQueryStatementCountTest {
+
+    private static final int USERS = 5;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AdminDrawHistoryService adminDrawHistoryService;
+
+    @Autowired
+    private AuditService auditService;
+
+    @Autowired
+    private AdminUserService adminUserService;
+
+    private Statistics statistics;
+    private Activity activity;
+
+    @BeforeEach
+    void setUp() {
+        activity = entityManager.persist(new Activity("Activity", "Description", 10));
+        Prize prize = entityManager.persist(new Prize("Prize", "Description", 10, new BigDecimal("0.5"), activity));
+        for (int i = 0; i < USERS; i++) {
+            User user = entityManager.persist(new User("user" + i, "password", "ROLE_ADMIN"));
+            entityManager.persist(new DrawRecord(user, activity, i % 2 == 0 ? prize : null));
+            entityManager.persist(new AuditLog(user, "UPDATE_PRIZE", "PRIZE", prize.getId(), null, "{}"));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void drawHistoryUsesOneQueryForThePage() {
+        UserDrawHistory history = adminDrawHistoryService.getDrawHistoryForActivity(activity.getId());
+
+        assertEquals(USERS, history.getHistory().size());
+        assertEquals("沒有中獎", history.getHistory().get(1).getPrizeName());
+        // Activity check plus the page
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void auditLogsUseOneQuery() {
+        List<AuditLogResponse> all = auditService.getAllAuditLogs();
+        List<AuditLogResponse> prizeLogs = auditService.getAuditLogsByEntityType("PRIZE");
+
+        assertEquals(USERS, all.size());
+        assertEquals("user0", all.get(0).getAdminUsername());
+        assertEquals(USERS, prizeLogs.size());
+        assertEquals(2, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void usersUseOneQuery() {
+        List<UserResponse> users = adminUserService.getAllUsers();
+
+        assertEquals(USERS, users.size());
+        assertEquals("user0", users.get(0).getUsername());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
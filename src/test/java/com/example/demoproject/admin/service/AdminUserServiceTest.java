@@ -4,7 +4,6 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.example.demoproject.admin.dto.UserResponse;
-import com.example.demoproject.auth.entity.User;
 import com.example.demoproject.auth.repository.AuthUserRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -25,26 +24,19 @@ class AdminUserServiceTest {
     @InjectMocks
     private AdminUserService adminUserService;
 
-    private User testUser1;
-    private User testUser2;
+    private AuthUserRepository.UserSummary testUser1;
+    private AuthUserRepository.UserSummary testUser2;
 
     @BeforeEach
     void setUp() {
-        testUser1 = new User();
-        testUser1.setId(1L);
-        testUser1.setUsername("admin");
-        testUser1.setRole("ADMIN");
-
-        testUser2 = new User();
-        testUser2.setId(2L);
-        testUser2.setUsername("user");
-        testUser2.setRole("USER");
+        testUser1 = summary(1L, "admin", "ADMIN");
+        testUser2 = summary(2L, "user", "USER");
     }
 
     @Test
     void getAllUsersSuccess() {
         // Arrange
-        when(userRepository.findAll()).thenReturn(Arrays.asList(testUser1, testUser2));
+        when(userRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList(testUser1, testUser2));
 
         // Act
         List<UserResponse> results = adminUserService.getAllUsers();
@@ -67,13 +59,13 @@ class AdminUserServiceTest {
         assertNull(secondUser.getCreatedAt());
         assertNull(secondUser.getUpdatedAt());
 
-        verify(userRepository).findAll();
+        verify(userRepository).findAllByOrderByIdAsc();
     }
 
     @Test
     void getAllUsersEmptyList() {
         // Arrange
-        when(userRepository.findAll()).thenReturn(Arrays.asList());
+        when(userRepository.findAllByOrderByIdAsc()).thenReturn(Arrays.asList());
 
         // Act
         List<UserResponse> results = adminUserService.getAllUsers();
@@ -81,6 +73,25 @@ class AdminUserServiceTest {
         // Assert
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(userRepository).findAll();
+        verify(userRepository).findAllByOrderByIdAsc();
+    }
+
+    private static AuthUserRepository.UserSummary summary(Long id, String username, String role) {
+        return new AuthUserRepository.UserSummary() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+
+            @Override
+            public String getUsername() {
+                return username;
+            }
+
+            @Override
+            public String getRole() {
+                return role;
+            }
+        };
     }
 }
\ No newline at end of file
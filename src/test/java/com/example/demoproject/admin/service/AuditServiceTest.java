@@ -3,6 +3,7 @@ package com.example.demoproject.admin.service;
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
+import com.example.demoproject.admin.dto.AuditLogResponse;
 import com.example.demoproject.admin.entity.AuditLog;
 import com.example.demoproject.admin.repository.AuditLogRepository;
 import com.example.demoproject.auth.entity.User;
@@ -103,131 +104,117 @@ class AuditServiceTest {
     @Test
     void getAllAuditLogsSuccess() {
         // Arrange
-        AuditLog auditLog2 = new AuditLog();
-        auditLog2.setId(2L);
-        auditLog2.setAdminUser(testUser);
-        auditLog2.setAction("CREATE_ACTIVITY");
-        auditLog2.setEntityType("ACTIVITY");
-        auditLog2.setEntityId(2L);
+        AuditLogResponse auditLog1 = response(1L, "UPDATE_PRIZE", "PRIZE");
+        AuditLogResponse auditLog2 = response(2L, "CREATE_ACTIVITY", "ACTIVITY");
 
-        when(auditLogRepository.findAll()).thenReturn(Arrays.asList(testAuditLog, auditLog2));
+        when(auditLogRepository.findAllResponses()).thenReturn(Arrays.asList(auditLog1, auditLog2));
 
         // Act
-        List<AuditLog> results = auditService.getAllAuditLogs();
+        List<AuditLogResponse> results = auditService.getAllAuditLogs();
 
         // Assert
         assertNotNull(results);
         assertEquals(2, results.size());
         assertEquals("UPDATE_PRIZE", results.get(0).getAction());
+        assertEquals("admin", results.get(0).getAdminUsername());
         assertEquals("CREATE_ACTIVITY", results.get(1).getAction());
-        verify(auditLogRepository).findAll();
+        verify(auditLogRepository).findAllResponses();
     }
 
     @Test
     void getAllAuditLogsEmptyList() {
         // Arrange
-        when(auditLogRepository.findAll()).thenReturn(Arrays.asList());
+        when(auditLogRepository.findAllResponses()).thenReturn(Arrays.asList());
 
         // Act
-        List<AuditLog> results = auditService.getAllAuditLogs();
+        List<AuditLogResponse> results = auditService.getAllAuditLogs();
 
         // Assert
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(auditLogRepository).findAll();
+        verify(auditLogRepository).findAllResponses();
     }
 
     @Test
     void getAllAuditLogsRepositoryThrowsException() {
         // Arrange
-        when(auditLogRepository.findAll()).thenThrow(new RuntimeException("Database error"));
+        when(auditLogRepository.findAllResponses()).thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class,
             () -> auditService.getAllAuditLogs());
         assertEquals("Database error", exception.getMessage());
-        verify(auditLogRepository).findAll();
+        verify(auditLogRepository).findAllResponses();
     }
 
     @Test
     void getAuditLogsByEntityTypeSuccess() {
         // Arrange
-        AuditLog prizeAuditLog = new AuditLog();
-        prizeAuditLog.setId(1L);
-        prizeAuditLog.setEntityType("PRIZE");
-        prizeAuditLog.setAction("UPDATE_PRIZE");
+        AuditLogResponse prizeAuditLog = response(1L, "UPDATE_PRIZE", "PRIZE");
 
-        AuditLog activityAuditLog = new AuditLog();
-        activityAuditLog.setId(2L);
-        activityAuditLog.setEntityType("ACTIVITY");
-        activityAuditLog.setAction("CREATE_ACTIVITY");
-
-        when(auditLogRepository.findByEntityTypeOrderByTimestampDesc("PRIZE"))
+        when(auditLogRepository.findResponsesByEntityType("PRIZE"))
             .thenReturn(Arrays.asList(prizeAuditLog));
 
         // Act
-        List<AuditLog> results = auditService.getAuditLogsByEntityType("PRIZE");
+        List<AuditLogResponse> results = auditService.getAuditLogsByEntityType("PRIZE");
 
         // Assert
         assertNotNull(results);
         assertEquals(1, results.size());
         assertEquals("PRIZE", results.get(0).getEntityType());
         assertEquals("UPDATE_PRIZE", results.get(0).getAction());
-        verify(auditLogRepository).findByEntityTypeOrderByTimestampDesc("PRIZE");
+        verify(auditLogRepository).findResponsesByEntityType("PRIZE");
     }
 
     @Test
     void getAuditLogsByEntityTypeEmptyList() {
         // Arrange
-        when(auditLogRepository.findByEntityTypeOrderByTimestampDesc("NONEXISTENT"))
+        when(auditLogRepository.findResponsesByEntityType("NONEXISTENT"))
             .thenReturn(Arrays.asList());
 
         // Act
-        List<AuditLog> results = auditService.getAuditLogsByEntityType("NONEXISTENT");
+        List<AuditLogResponse> results = auditService.getAuditLogsByEntityType("NONEXISTENT");
 
         // Assert
         assertNotNull(results);
         assertTrue(results.isEmpty());
-        verify(auditLogRepository).findByEntityTypeOrderByTimestampDesc("NONEXISTENT");
+        verify(auditLogRepository).findResponsesByEntityType("NONEXISTENT");
     }
 
     @Test
     void getAuditLogsByEntityTypeMultipleLogs() {
         // Arrange
-        AuditLog auditLog1 = new AuditLog();
-        auditLog1.setId(1L);
-        auditLog1.setEntityType("PRIZE");
-        auditLog1.setAction("CREATE_PRIZE");
-
-        AuditLog auditLog2 = new AuditLog();
-        auditLog2.setId(2L);
-        auditLog2.setEntityType("PRIZE");
-        auditLog2.setAction("UPDATE_PRIZE");
+        AuditLogResponse auditLog1 = response(1L, "CREATE_PRIZE", "PRIZE");
+        AuditLogResponse auditLog2 = response(2L, "UPDATE_PRIZE", "PRIZE");
 
-        when(auditLogRepository.findByEntityTypeOrderByTimestampDesc("PRIZE"))
+        when(auditLogRepository.findResponsesByEntityType("PRIZE"))
             .thenReturn(Arrays.asList(auditLog1, auditLog2));
 
         // Act
-        List<AuditLog> results = auditService.getAuditLogsByEntityType("PRIZE");
+        List<AuditLogResponse> results = auditService.getAuditLogsByEntityType("PRIZE");
 
         // Assert
         assertNotNull(results);
         assertEquals(2, results.size());
         assertEquals("PRIZE", results.get(0).getEntityType());
         assertEquals("PRIZE", results.get(1).getEntityType());
-        verify(auditLogRepository).findByEntityTypeOrderByTimestampDesc("PRIZE");
+        verify(auditLogRepository).findResponsesByEntityType("PRIZE");
     }
 
     @Test
     void getAuditLogsByEntityTypeRepositoryThrowsException() {
         // Arrange
-        when(auditLogRepository.findByEntityTypeOrderByTimestampDesc("PRIZE"))
+        when(auditLogRepository.findResponsesByEntityType("PRIZE"))
             .thenThrow(new RuntimeException("Database error"));
 
         // Act & Assert
         RuntimeException exception = assertThrows(RuntimeException.class,
             () -> auditService.getAuditLogsByEntityType("PRIZE"));
         assertEquals("Database error", exception.getMessage());
-        verify(auditLogRepository).findByEntityTypeOrderByTimestampDesc("PRIZE");
+        verify(auditLogRepository).findResponsesByEntityType("PRIZE");
+    }
+
+    private static AuditLogResponse response(Long id, String action, String entityType) {
+        return new AuditLogResponse(id, "admin", action, entityType, id, null, null, LocalDateTime.now());
     }
 }
\ No newline at end of file
@@ -0,0 +1,93 @@
+package com.example.demoproject.luckydraw.repository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.demoproject.auth.entity.User;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Runs the hot draw record queries against the schema built by the migrations and checks the
+ * H2 plan of the SQL Hibernate generates for them: an index lookup, not a table scan.
+ */
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+    + "com.example.demoproject.luckydraw.repository.DrawRecordRepositoryExplainTest$RecordingInspector")
+class DrawRecordRepositoryExplainTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private DrawRecordRepository drawRecordRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private User user;
+    private Activity activity;
+
+    @BeforeEach
+    void setUp() {
+        user = entityManager.persist(new User("user", "password"));
+        activity = entityManager.persist(new Activity("Activity", "Description", 10));
+        for (int i = 0; i < 3; i++) {
+            entityManager.persist(new DrawRecord(user, activity, null));
+        }
+        entityManager.flush();
+        entityManager.clear();
+        RecordingInspector.STATEMENTS.clear();
+    }
+
+    @Test
+    void countByUserAndActivityUsesUserActivityIndex() {
+        assertEquals(3, drawRecordRepository.countByUserAndActivity(user, activity));
+
+        String plan = explainLastSelect();
+        assertTrue(plan.contains("IDX_DRAW_RECORDS_USER_ACTIVITY_TIME: USER_ID = ?1"), plan);
+        assertFalse(plan.contains("tableScan"), plan);
+    }
+
+    @Test
+    void historyPageUsesActivityIndex() {
+        assertEquals(3, drawRecordRepository.findHistoryPage(activity.getId(), false, null, null, null,
+            null, null, PageRequest.of(0, 10)).size());
+
+        // H2 also backs the activity foreign key with an index of its own and may pick that one
+        String plan = explainLastSelect();
+        assertTrue(plan.matches("(?s).*/\\* PUBLIC\\.\\w+: ACTIVITY_ID = \\?1 \\*/.*"), plan);
+        assertFalse(plan.contains("DRAW_RECORDS.tableScan"), plan);
+    }
+
+    private String explainLastSelect() {
+        List<String> selects = RecordingInspector.STATEMENTS.stream()
+            .filter(sql -> sql.startsWith("select"))
+            .toList();
+        assertFalse(selects.isEmpty());
+        // H2 plans statements without their parameters bound
+        return jdbcTemplate.queryForObject("explain " + selects.get(selects.size() - 1), String.class);
+    }
+
+    /**
+     * Records every SQL statement Hibernate prepares
+     */
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -5,9 +5,9 @@ import static org.mockito.Mockito.*;
 
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.Prize;
-import com.example.demoproject.luckydraw.repository.ActivityRepository;
 import com.example.demoproject.luckydraw.repository.PrizeRepository;
 import com.example.demoproject.luckydraw.dto.ActivityInfo;
+import com.example.demoproject.luckydraw.util.PrizeSelectionUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -24,7 +24,9 @@ import java.util.List;
 class ActivityInfoServiceTest {
 
     @Mock
-    private ActivityRepository activityRepository;
+    private DrawMetadataCache drawMetadataCache;
+    @Mock
+    private PrizeSelectionUtil prizeSelectionUtil;
     @InjectMocks
     private ActivityInfoService activityInfoService;
 
@@ -66,7 +68,7 @@ class ActivityInfoServiceTest {
         activity2.setId(2L);
         List<Activity> activities = Arrays.asList(activity1, activity2);
 
-        when(activityRepository.findAll()).thenReturn(activities);
+        when(drawMetadataCache.getAllActivities()).thenReturn(activities);
 
         // Act
         List<ActivityInfo> result = activityInfoService.getAvailableActivities();
@@ -89,13 +91,13 @@ class ActivityInfoServiceTest {
         assertEquals(activity2.getMaxDraws(), secondActivity.getMaxDraws());
         assertTrue(secondActivity.getPrizes().isEmpty()); // Empty prize list as per service logic
 
-        verify(activityRepository).findAll();
+        verify(drawMetadataCache).getAllActivities();
     }
 
     @Test
     void getAvailableActivitiesWhenNoActivitiesExistShouldReturnEmptyList() {
         // Arrange
-        when(activityRepository.findAll()).thenReturn(Arrays.asList());
+        when(drawMetadataCache.getAllActivities()).thenReturn(Arrays.asList());
 
         // Act
         List<ActivityInfo> result = activityInfoService.getAvailableActivities();
@@ -104,6 +106,21 @@ class ActivityInfoServiceTest {
         assertNotNull(result);
         assertTrue(result.isEmpty());
 
-        verify(activityRepository).findAll();
+        verify(drawMetadataCache).getAllActivities();
+    }
+
+    @Test
+    void getAvailableActivitiesFlagsSoldOutActivities() {
+        Activity activity1 = new Activity("Activity 1", "Description 1", 5);
+        activity1.setId(1L);
+        Activity activity2 = new Activity("Activity 2", "Description 2", 10);
+        activity2.setId(2L);
+        when(drawMetadataCache.getAllActivities()).thenReturn(Arrays.asList(activity1, activity2));
+        when(prizeSelectionUtil.isSoldOut(1L)).thenReturn(true);
+
+        List<ActivityInfo> result = activityInfoService.getAvailableActivities();
+
+        assertTrue(result.get(0).isSoldOut());
+        assertFalse(result.get(1).isSoldOut());
     }
-}
\ No newline at end of file
+}
@@ -5,20 +5,29 @@ import com.example.demoproject.luckydraw.entity.*;
 import com.example.demoproject.luckydraw.repository.*;
 import com.example.demoproject.auth.entity.User;
 import com.example.demoproject.auth.repository.AuthUserRepository;
+import com.example.demoproject.luckydraw.constants.ActivityType;
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
 import com.example.demoproject.luckydraw.util.PrizeSelectionUtil;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -50,6 +59,42 @@ class DrawExecutionServiceTest {
     @Mock
     private PrizeSelectionUtil prizeSelectionUtil;
 
+    @Mock
+    private PrizeInventoryLedger prizeInventoryLedger;
+
+    @Mock
+    private DrawQuotaService drawQuotaService;
+
+    @Mock
+    private PrizeBucketInventory prizeBucketInventory;
+
+    @Mock
+    private TicketRollService ticketRollService;
+
+    @Mock
+    private PrizeUnitInventory prizeUnitInventory;
+
+    @Mock
+    private PrizeDecrementCombiner prizeDecrementCombiner;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DrawMetrics drawMetrics;
+
+    @Mock
+    private SingleStatementDrawCommit singleStatementDrawCommit;
+
+    @Spy
+    private PrizePacer prizePacer = new PrizePacer();
+
+    @Mock
+    private DrawPassService drawPassService;
+
+    @Mock
+    private DrawJournal drawJournal;
+
     @InjectMocks
     private DrawExecutionService drawExecutionService;
 
@@ -60,7 +105,13 @@ class DrawExecutionServiceTest {
     private List<Prize> testPrizes;
 
     @BeforeEach
+    @SuppressWarnings("unchecked")
     void setUp() {
+        // Most tests below exercise the row-lock path
+        ReflectionTestUtils.setField(drawExecutionService, "inventoryMode", InventoryMode.PESSIMISTIC_LOCK);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+
         // Setup test user
         testUser = new User();
         testUser.setId(1L);
@@ -90,16 +141,10 @@ class DrawExecutionServiceTest {
             // Given
             DrawRequest request = new DrawRequest(1L);
             when(userActivityService.getCurrentUserId()).thenReturn(1L);
-            when(authUserRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
             when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
             when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
-            when(prizeSelectionUtil.selectPrize(testPrizes)).thenReturn(testPrize1);
-            when(drawRecordRepository.save(any(DrawRecord.class))).thenAnswer(invocation -> {
-                DrawRecord record = invocation.getArgument(0);
-                record.setId(1L);
-                record.setDrawTime(LocalDateTime.now());
-                return record;
-            });
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
             when(prizeRepository.findByIdWithLock(1L)).thenReturn(testPrize1);
             when(prizeRepository.save(any(Prize.class))).thenReturn(testPrize1);
 
@@ -113,24 +158,59 @@ class DrawExecutionServiceTest {
             assertEquals(testPrize1.getDescription(), result.getPrizeDescription());
 
             verify(drawValidationService).findActivity(1L);
-            verify(drawValidationService).validateUserMultipleDrawLimit(1L, 1, 5);
+            verify(drawValidationService).validateUserMultipleDrawLimit(1L, 1L, 1, 5);
             verify(drawValidationService).getAvailablePrizes(testActivity);
-            verify(prizeSelectionUtil).selectPrize(testPrizes);
-            verify(drawRecordRepository).save(any(DrawRecord.class));
+            verify(prizeSelectionUtil).selectPrize(testPrizes, null, Map.of());
+            verify(drawRecordRepository).saveAll(argThat(records -> ((List<DrawRecord>) records).size() == 1));
             verify(prizeRepository).findByIdWithLock(1L);
             verify(prizeRepository).save(any(Prize.class));
         }
 
+        @Test
+        @DisplayName("Should draw with the odds of the user's segment")
+        void shouldDrawWithSegmentOdds() {
+            Map<Long, BigDecimal> vipMultipliers = Map.of(1L, new BigDecimal("2.0"));
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(userActivityService.getCurrentSegment()).thenReturn("VIP");
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(drawValidationService.getSegmentMultipliers(testActivity, "VIP")).thenReturn(vipMultipliers);
+            when(prizeSelectionUtil.selectPrize(testPrizes, "VIP", vipMultipliers)).thenReturn(null);
+
+            DrawResult result = drawExecutionService.performDraw(new DrawRequest(1L));
+
+            assertNull(result.getPrizeId());
+            verify(prizeSelectionUtil).selectPrize(testPrizes, "VIP", vipMultipliers);
+        }
+
+        @Test
+        @DisplayName("Should hand the records to the draw journal when it is enabled")
+        void shouldJournalRecordsWhenJournalEnabled() {
+            when(drawJournal.isEnabled()).thenReturn(true);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(null);
+
+            drawExecutionService.performDraw(new DrawRequest(1L));
+
+            verify(drawJournal).append(argThat(records -> records.size() == 1));
+            verify(drawRecordRepository, never()).saveAll(any());
+            verify(singleStatementDrawCommit, never()).commit(any(), any(), any(), any());
+        }
+
         @Test
         @DisplayName("Should return thank you message when no prize selected")
         void shouldReturnThankYouMessageWhenNoPrizeSelected() {
             // Given
             DrawRequest request = new DrawRequest(1L);
             when(userActivityService.getCurrentUserId()).thenReturn(1L);
-            when(authUserRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
             when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
             when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
-            when(prizeSelectionUtil.selectPrize(testPrizes)).thenReturn(null);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(null);
 
             DrawResult result = drawExecutionService.performDraw(request);
 
@@ -139,25 +219,29 @@ class DrawExecutionServiceTest {
             assertEquals("Thank You", result.getPrizeName());
             assertEquals("Better luck next time!", result.getPrizeDescription());
 
-            verify(prizeSelectionUtil).selectPrize(testPrizes);
-            verify(drawRecordRepository).save(any(DrawRecord.class));
+            verify(prizeSelectionUtil).selectPrize(testPrizes, null, Map.of());
+            verify(drawRecordRepository).saveAll(argThat(records -> ((List<DrawRecord>) records).size() == 1));
             verify(prizeRepository, never()).findByIdWithLock(any());
             verify(prizeRepository, never()).save(any());
         }
 
         @Test
-        @DisplayName("Should throw exception when user not found")
-        void shouldThrowExceptionWhenUserNotFound() {
+        @DisplayName("Should not load the user entity")
+        void shouldNotLoadUserEntity() {
             // Given
             DrawRequest request = new DrawRequest(1L);
             when(userActivityService.getCurrentUserId()).thenReturn(1L);
-            when(authUserRepository.findById(1L)).thenReturn(Optional.empty());
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(Arrays.asList(testPrize1));
+            when(prizeSelectionUtil.selectPrize(anyList(), any(), anyMap())).thenReturn(null);
+
+            // When
+            drawExecutionService.performDraw(request);
 
-            // When & Then
-            IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, () -> {
-                drawExecutionService.performDraw(request);
-            });
-            assertEquals("User not found with ID: 1", exception.getMessage());
+            // Then
+            verify(authUserRepository).getReferenceById(1L);
+            verify(authUserRepository, never()).findById(any());
         }
     }
 
@@ -165,16 +249,171 @@ class DrawExecutionServiceTest {
     @DisplayName("Multiple Draw Tests")
     class MultipleDrawTests {
 
+        @Test
+        @DisplayName("Should pick outcomes before the transaction and record its duration")
+        void shouldSelectOutsideTransaction() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 2);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(null);
+
+            drawExecutionService.performMultipleDraws(request);
+
+            InOrder inOrder = inOrder(prizeSelectionUtil, transactionTemplate, drawValidationService, drawRecordRepository, drawMetrics);
+            inOrder.verify(prizeSelectionUtil, times(2)).selectPrize(testPrizes, null, Map.of());
+            inOrder.verify(transactionTemplate).execute(any());
+            inOrder.verify(drawValidationService).validateUserMultipleDrawLimit(1L, 1L, 2, 5);
+            inOrder.verify(drawRecordRepository).saveAll(any());
+            inOrder.verify(drawMetrics).recordTransaction(eq("DIRECT"), anyLong());
+        }
+
+        @Test
+        @DisplayName("Should refuse instant draws on a lottery activity")
+        void shouldRejectDrawsOnLottery() {
+            testActivity.setType(ActivityType.LOTTERY);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+
+            LuckyDrawException e = assertThrows(LuckyDrawException.class,
+                () -> drawExecutionService.performMultipleDraws(new MultipleDrawRequest(1L, 1)));
+
+            assertEquals(ErrorConstants.ErrorType.INVALID_OPERATION.getCode(), e.getErrorCode());
+            verifyNoInteractions(prizeSelectionUtil, transactionTemplate);
+        }
+
+        @Test
+        @DisplayName("Should charge draws to a draw pass without touching the quota")
+        void shouldChargeDrawPassInsteadOfQuota() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 2);
+            request.setDrawPass("pass");
+            DrawPassService.Redemption redemption = mock(DrawPassService.Redemption.class);
+            DrawPassResponse nextPass = new DrawPassResponse("next", 8, null);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(drawPassService.redeem(1L, 1L, "pass", 2)).thenReturn(redemption);
+            when(drawPassService.complete(redemption, 2)).thenReturn(nextPass);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(null);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals(2, result.getTotalDraws());
+            assertSame(nextPass, result.getDrawPass());
+            verify(drawValidationService, never()).validateUserMultipleDrawLimit(anyLong(), anyLong(), anyInt(), any());
+            verifyNoInteractions(drawQuotaService, singleStatementDrawCommit);
+        }
+
+        @Test
+        @DisplayName("Should let a draw pass be presented again when its draw fails")
+        void shouldAbandonDrawPassOnFailure() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+            request.setDrawPass("pass");
+            DrawPassService.Redemption redemption = mock(DrawPassService.Redemption.class);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(drawPassService.redeem(1L, 1L, "pass", 1)).thenReturn(redemption);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.isSoldOut(testPrizes)).thenReturn(true);
+
+            assertThrows(LuckyDrawException.class, () -> drawExecutionService.performMultipleDraws(request));
+
+            verify(drawPassService).abandon(redemption);
+            verify(drawPassService, never()).complete(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should turn a paced prize without a released unit into a blank before the transaction")
+        void shouldBlankPacedPrizeWithoutToken() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 2);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
+            doReturn(true, false).when(prizePacer).tryAcquire(testActivity, testPrize1);
+            when(prizeRepository.findByIdWithLock(1L)).thenReturn(testPrize1);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals(testPrize1.getId(), result.getResults().get(0).getPrizeId());
+            assertNull(result.getResults().get(1).getPrizeId());
+            verify(prizeRepository, times(1)).findByIdWithLock(1L);
+        }
+
+        @Test
+        @DisplayName("Should reject draws of a sold-out activity without touching the database")
+        void shouldRejectSoldOutActivityWithoutDatabase() {
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.isSoldOut(testPrizes)).thenReturn(true);
+
+            LuckyDrawException multiple = assertThrows(LuckyDrawException.class,
+                () -> drawExecutionService.performMultipleDraws(new MultipleDrawRequest(1L, 2)));
+            LuckyDrawException bulk = assertThrows(LuckyDrawException.class,
+                () -> drawExecutionService.performBulkDraw(new BulkDrawRequest(1L, 100)));
+
+            assertEquals(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE.getCode(), multiple.getErrorCode());
+            assertEquals(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE.getCode(), bulk.getErrorCode());
+            verifyNoInteractions(transactionTemplate, prizeRepository, drawRecordRepository, authUserRepository);
+            verify(prizeSelectionUtil, never()).selectPrize(any(), any(), any());
+        }
+
+        @Test
+        @DisplayName("Should commit in one statement when enabled")
+        void shouldCommitInOneStatementWhenEnabled() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 2);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1).thenReturn(null);
+            when(singleStatementDrawCommit.isEnabled()).thenReturn(true);
+            DrawRecord won = new DrawRecord(null, testActivity, testPrize1);
+            DrawRecord lost = new DrawRecord(null, testActivity, null);
+            when(singleStatementDrawCommit.commit(1L, testActivity, testPrizes, Arrays.asList(testPrize1, null)))
+                .thenReturn(List.of(won, lost));
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals(2, result.getResults().size());
+            assertEquals(testPrize1.getId(), result.getResults().get(0).getPrizeId());
+            assertNull(result.getResults().get(1).getPrizeId());
+            verify(transactionTemplate, never()).execute(any());
+            verify(drawRecordRepository, never()).saveAll(any());
+            verify(drawMetrics).recordTransaction(eq("DIRECT"), anyLong());
+        }
+
+        @Test
+        @DisplayName("Should fall back to JPA when the single statement writes nothing")
+        void shouldFallBackWhenSingleStatementWritesNothing() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 2);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(null);
+            when(singleStatementDrawCommit.isEnabled()).thenReturn(true);
+            when(singleStatementDrawCommit.commit(any(), any(), any(), any())).thenReturn(null);
+
+            drawExecutionService.performMultipleDraws(request);
+
+            verify(drawValidationService).validateUserMultipleDrawLimit(1L, 1L, 2, 5);
+            verify(drawRecordRepository).saveAll(any());
+        }
+
         @Test
         @DisplayName("Should perform multiple draws successfully with prizes")
         void shouldPerformMultipleDrawsSuccessfullyWithPrizes() {
             //
             MultipleDrawRequest request = new MultipleDrawRequest(1L, 3);
             when(userActivityService.getCurrentUserId()).thenReturn(1L);
-            when(authUserRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
             when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
             when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
-            when(prizeSelectionUtil.selectPrize(testPrizes))
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of()))
                 .thenReturn(testPrize1)  // First draw
                 .thenReturn(testPrize2)  // Second draw
                 .thenReturn(null);  // Third draw - no prize
@@ -201,8 +440,8 @@ class DrawExecutionServiceTest {
             assertNull(thirdResult.getPrizeId());
             assertEquals("Thank You", thirdResult.getPrizeName());
 
-            verify(prizeSelectionUtil, times(3)).selectPrize(testPrizes);
-            verify(drawRecordRepository, times(3)).save(any(DrawRecord.class));
+            verify(prizeSelectionUtil, times(3)).selectPrize(testPrizes, null, Map.of());
+            verify(drawRecordRepository).saveAll(argThat(records -> ((List<DrawRecord>) records).size() == 3));
             verify(prizeRepository, times(2)).findByIdWithLock(any());
             verify(prizeRepository, times(2)).save(any());
         }
@@ -213,10 +452,10 @@ class DrawExecutionServiceTest {
             // Given
             MultipleDrawRequest request = new MultipleDrawRequest(1L, 2);
             when(userActivityService.getCurrentUserId()).thenReturn(1L);
-            when(authUserRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
             when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
             when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
-            when(prizeSelectionUtil.selectPrize(testPrizes))
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of()))
                 .thenReturn(null)  // First draw
                 .thenReturn(null); // Second draw
 
@@ -231,8 +470,8 @@ class DrawExecutionServiceTest {
                 assertEquals("Better luck next time!", drawResult.getPrizeDescription());
             }
 
-            verify(prizeSelectionUtil, times(2)).selectPrize(testPrizes);
-            verify(drawRecordRepository, times(2)).save(any(DrawRecord.class));
+            verify(prizeSelectionUtil, times(2)).selectPrize(testPrizes, null, Map.of());
+            verify(drawRecordRepository).saveAll(argThat(records -> ((List<DrawRecord>) records).size() == 2));
             verify(prizeRepository, never()).findByIdWithLock(any());
             verify(prizeRepository, never()).save(any());
         }
@@ -243,10 +482,10 @@ class DrawExecutionServiceTest {
             // Given
             MultipleDrawRequest request = new MultipleDrawRequest(1L, 3);
             when(userActivityService.getCurrentUserId()).thenReturn(1L);
-            when(authUserRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
             when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
             when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
-            when(prizeSelectionUtil.selectPrize(testPrizes))
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of()))
                     .thenReturn(testPrize1)
                     .thenReturn(testPrize2);
 
@@ -259,6 +498,8 @@ class DrawExecutionServiceTest {
 
             assertNotNull(result);
             assertEquals(1, result.getResults().size()); // Should stop on error and return empty list
+            verify(drawRecordRepository).saveAll(argThat(records -> ((List<DrawRecord>) records).size() == 1));
+            verify(drawQuotaService).release(1L, 1L, 2);
         }
     }
 
@@ -275,10 +516,10 @@ class DrawExecutionServiceTest {
             
             MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
             when(userActivityService.getCurrentUserId()).thenReturn(1L);
-            when(authUserRepository.findById(1L)).thenReturn(Optional.of(testUser));
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
             when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
             when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(Arrays.asList(zeroQuantityPrize));
-            when(prizeSelectionUtil.selectPrize(Arrays.asList(zeroQuantityPrize))).thenReturn(zeroQuantityPrize);
+            when(prizeSelectionUtil.selectPrize(Arrays.asList(zeroQuantityPrize), null, Map.of())).thenReturn(zeroQuantityPrize);
 
             when(prizeRepository.findByIdWithLock(1L)).thenReturn(zeroQuantityPrize);
 
@@ -292,5 +533,359 @@ class DrawExecutionServiceTest {
                 assertEquals("Better luck next time!", drawResult.getPrizeDescription());
             }
         }
+
+        @Test
+        @DisplayName("Should decrement through the ledger without locking in ledger mode")
+        void shouldUseLedgerInLedgerMode() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
+            when(prizeInventoryLedger.isEnabled()).thenReturn(true);
+            when(prizeInventoryLedger.tryDecrement(1L)).thenReturn(true);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals(testPrize1.getId(), result.getResults().get(0).getPrizeId());
+            verify(prizeRepository, never()).findByIdWithLock(any());
+            verify(prizeRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Show thank you when the ledger is sold out")
+        void shouldShowThankYouWhenLedgerSoldOut() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
+            when(prizeInventoryLedger.isEnabled()).thenReturn(true);
+            when(prizeInventoryLedger.tryDecrement(1L)).thenReturn(false);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertNull(result.getResults().get(0).getPrizeId());
+            assertEquals("Thank You", result.getResults().get(0).getPrizeName());
+        }
+
+        @Test
+        @DisplayName("Should decrement with one conditional update in conditional update mode")
+        void shouldUseConditionalUpdateWithoutLocking() {
+            ReflectionTestUtils.setField(drawExecutionService, "inventoryMode", InventoryMode.CONDITIONAL_UPDATE);
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
+            when(prizeRepository.decrementQuantityIfAvailable(1L)).thenReturn(1);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals(testPrize1.getId(), result.getResults().get(0).getPrizeId());
+            verify(prizeRepository).decrementQuantityIfAvailable(1L);
+            verify(prizeRepository, never()).findByIdWithLock(any());
+            verify(prizeRepository, never()).save(any());
+        }
+
+        @Test
+        @DisplayName("Show thank you when the conditional update finds the prize sold out")
+        void shouldShowThankYouWhenConditionalUpdateMisses() {
+            ReflectionTestUtils.setField(drawExecutionService, "inventoryMode", InventoryMode.CONDITIONAL_UPDATE);
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
+            when(prizeRepository.decrementQuantityIfAvailable(1L)).thenReturn(0);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertNull(result.getResults().get(0).getPrizeId());
+            assertEquals("Thank You", result.getResults().get(0).getPrizeName());
+            verify(drawRecordRepository).saveAll(argThat(records -> ((List<DrawRecord>) records).get(0).getPrize() == null));
+            verify(prizeSelectionUtil).markSoldOut(testPrize1);
+        }
+
+        @Test
+        @DisplayName("Should take inventory in prize ID order but keep the draw order in results")
+        void shouldTakeInventoryInPrizeIdOrder() {
+            ReflectionTestUtils.setField(drawExecutionService, "inventoryMode", InventoryMode.CONDITIONAL_UPDATE);
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 3);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of()))
+                .thenReturn(testPrize2)
+                .thenReturn(null)
+                .thenReturn(testPrize1);
+            when(prizeRepository.decrementQuantityIfAvailable(anyLong())).thenReturn(1);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            InOrder inOrder = inOrder(prizeRepository);
+            inOrder.verify(prizeRepository).decrementQuantityIfAvailable(1L);
+            inOrder.verify(prizeRepository).decrementQuantityIfAvailable(2L);
+            assertEquals(testPrize2.getId(), result.getResults().get(0).getPrizeId());
+            assertNull(result.getResults().get(1).getPrizeId());
+            assertEquals(testPrize1.getId(), result.getResults().get(2).getPrizeId());
+        }
+
+        @Test
+        @DisplayName("Should take the unit from a bucket in bucketed mode")
+        void shouldUseBucketsInBucketedMode() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
+            when(prizeBucketInventory.isEnabled()).thenReturn(true);
+            when(prizeBucketInventory.tryDecrement(1L)).thenReturn(false);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals("Thank You", result.getResults().get(0).getPrizeName());
+            verify(prizeBucketInventory).tryDecrement(1L);
+            verify(prizeRepository, never()).decrementQuantityIfAvailable(any());
+            verify(prizeRepository, never()).findByIdWithLock(any());
+        }
+
+        @Test
+        @DisplayName("Should take combined units before the transaction starts in combining mode")
+        void shouldUseCombinerInCombiningMode() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 3);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of()))
+                .thenReturn(testPrize1)
+                .thenReturn(testPrize2)
+                .thenReturn(testPrize1);
+            when(prizeDecrementCombiner.isEnabled()).thenReturn(true);
+            when(prizeDecrementCombiner.take(1L, 2)).thenReturn(2);
+            when(prizeDecrementCombiner.take(2L, 1)).thenReturn(0);
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals(testPrize1.getId(), result.getResults().get(0).getPrizeId());
+            assertEquals("Thank You", result.getResults().get(1).getPrizeName());
+            assertEquals(testPrize1.getId(), result.getResults().get(2).getPrizeId());
+            // No connection is held while waiting for the combined UPDATE
+            InOrder inOrder = inOrder(prizeDecrementCombiner, transactionTemplate);
+            inOrder.verify(prizeDecrementCombiner).take(1L, 2);
+            inOrder.verify(transactionTemplate).execute(any());
+            verify(prizeDecrementCombiner, never()).tryDecrement(any());
+            verify(prizeDecrementCombiner, never()).release(any(), anyInt());
+            verify(prizeSelectionUtil).markSoldOut(testPrize2);
+            verify(prizeRepository, never()).decrementQuantityIfAvailable(any());
+            verify(prizeRepository, never()).findByIdWithLock(any());
+        }
+
+        @Test
+        @DisplayName("Should give combined units back when the draw transaction fails")
+        void shouldGiveCombinedUnitsBackOnRollback() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1);
+            when(prizeDecrementCombiner.isEnabled()).thenReturn(true);
+            when(prizeDecrementCombiner.take(1L, 1)).thenReturn(1);
+            doThrow(new LuckyDrawException(ErrorConstants.ErrorType.USER_MULTIPLE_DRAW_LIMIT_REACHED))
+                .when(drawValidationService).validateUserMultipleDrawLimit(1L, 1L, 1, 5);
+
+            assertThrows(LuckyDrawException.class, () -> drawExecutionService.performMultipleDraws(request));
+
+            verify(prizeDecrementCombiner).release(1L, 1);
+            verify(drawRecordRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should claim a unit row and link it to the draw record in unit mode")
+        void shouldLinkClaimedUnitInUnitMode() {
+            MultipleDrawRequest request = new MultipleDrawRequest(1L, 2);
+            PrizeUnit unit = new PrizeUnit(1L);
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(prizeSelectionUtil.selectPrize(testPrizes, null, Map.of())).thenReturn(testPrize1).thenReturn(testPrize2);
+            when(prizeUnitInventory.isEnabled()).thenReturn(true);
+            when(prizeUnitInventory.claim(1L, 1)).thenReturn(List.of(unit));
+            when(prizeUnitInventory.claim(2L, 1)).thenReturn(List.of());
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(request);
+
+            assertEquals(testPrize1.getId(), result.getResults().get(0).getPrizeId());
+            assertEquals("Thank You", result.getResults().get(1).getPrizeName());
+            assertNotNull(unit.getDrawRecord());
+            assertEquals(testPrize1, unit.getDrawRecord().getPrize());
+            verify(prizeRepository, never()).decrementQuantityIfAvailable(any());
+        }
+    }
+
+    @Nested
+    @DisplayName("Bulk Draw Tests")
+    class BulkDrawTests {
+
+        @BeforeEach
+        void setUpBulk() {
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+        }
+
+        @Test
+        @DisplayName("Should take each prize with one decrement and cap wins at the remaining inventory")
+        @SuppressWarnings("unchecked")
+        void shouldDecrementOncePerPrizeAndCapAtInventory() {
+            ReflectionTestUtils.setField(drawExecutionService, "inventoryMode", InventoryMode.CONDITIONAL_UPDATE);
+            when(prizeSelectionUtil.sampleCounts(testPrizes, 500, null, Map.of())).thenReturn(new int[]{3, 2, 495});
+            when(prizeRepository.decrementQuantityBy(1L, 3)).thenReturn(1);
+            when(prizeRepository.decrementQuantityBy(2L, 2)).thenReturn(0);
+            when(prizeRepository.findQuantityById(2L)).thenReturn(1);
+            when(prizeRepository.decrementQuantityBy(2L, 1)).thenReturn(1);
+
+            BulkDrawResult result = drawExecutionService.performBulkDraw(new BulkDrawRequest(1L, 500));
+
+            assertEquals(500, result.getTotalDraws());
+            assertEquals(496, result.getThankYouCount());
+            assertEquals(2, result.getWins().size());
+            assertEquals(3, result.getWins().get(0).getCount());
+            assertEquals(1, result.getWins().get(1).getCount());
+            assertNull(result.getResults());
+            verify(drawValidationService).validateUserMultipleDrawLimit(1L, 1L, 500, 5);
+            verify(drawRecordRepository, times(1)).saveAll(argThat(records -> ((List<DrawRecord>) records).size() == 500));
+            verify(prizeRepository, never()).decrementQuantityIfAvailable(any());
+            verify(prizeSelectionUtil).markSoldOut(testPrize2);
+            verify(prizeSelectionUtil, never()).markSoldOut(testPrize1);
+        }
+
+        @Test
+        @DisplayName("Should take combined units before the bulk draw transaction in combining mode")
+        void shouldTakeCombinedUnitsBeforeBulkTransaction() {
+            when(prizeDecrementCombiner.isEnabled()).thenReturn(true);
+            when(prizeSelectionUtil.sampleCounts(testPrizes, 10, null, Map.of())).thenReturn(new int[]{3, 0, 7});
+            when(prizeDecrementCombiner.take(1L, 3)).thenReturn(2);
+
+            BulkDrawResult result = drawExecutionService.performBulkDraw(new BulkDrawRequest(1L, 10));
+
+            assertEquals(8, result.getThankYouCount());
+            assertEquals(2, result.getWins().get(0).getCount());
+            InOrder inOrder = inOrder(prizeDecrementCombiner, transactionTemplate);
+            inOrder.verify(prizeDecrementCombiner).take(1L, 3);
+            inOrder.verify(transactionTemplate).execute(any());
+            verify(prizeSelectionUtil).markSoldOut(testPrize1);
+            verify(prizeRepository, never()).decrementQuantityBy(any(), anyInt());
+        }
+
+        @Test
+        @DisplayName("Should return one result per draw when details are requested")
+        void shouldReturnDetailsOnRequest() {
+            ReflectionTestUtils.setField(drawExecutionService, "inventoryMode", InventoryMode.CONDITIONAL_UPDATE);
+            BulkDrawRequest request = new BulkDrawRequest(1L, 5);
+            request.setIncludeDetails(true);
+            when(prizeSelectionUtil.sampleCounts(testPrizes, 5, null, Map.of())).thenReturn(new int[]{1, 0, 4});
+            when(prizeRepository.decrementQuantityBy(1L, 1)).thenReturn(1);
+
+            BulkDrawResult result = drawExecutionService.performBulkDraw(request);
+
+            assertEquals(5, result.getResults().size());
+            assertEquals(1, result.getResults().stream().filter(r -> testPrize1.getId().equals(r.getPrizeId())).count());
+            assertEquals(4, result.getResults().stream().filter(r -> r.getPrizeId() == null).count());
+        }
+
+        @Test
+        @DisplayName("Should take what is left under the row lock in pessimistic mode")
+        void shouldCapAtLockedQuantityInPessimisticMode() {
+            Prize lockedPrize = new Prize("iPhone 15", "Latest iPhone", 2, new BigDecimal("0.3"), testActivity);
+            lockedPrize.setId(1L);
+            when(prizeSelectionUtil.sampleCounts(testPrizes, 10, null, Map.of())).thenReturn(new int[]{5, 0, 5});
+            when(prizeRepository.findByIdWithLock(1L)).thenReturn(lockedPrize);
+
+            BulkDrawResult result = drawExecutionService.performBulkDraw(new BulkDrawRequest(1L, 10));
+
+            assertEquals(2, result.getWins().get(0).getCount());
+            assertEquals(8, result.getThankYouCount());
+            assertEquals(0, lockedPrize.getQuantity());
+            assertEquals(2, lockedPrize.getAwardedCount());
+            verify(prizeRepository, times(1)).save(lockedPrize);
+        }
+    }
+
+    @Nested
+    @DisplayName("Ticket Roll Tests")
+    class TicketRollTests {
+
+        @BeforeEach
+        void setUpRoll() {
+            when(userActivityService.getCurrentUserId()).thenReturn(1L);
+            when(authUserRepository.getReferenceById(1L)).thenReturn(testUser);
+            when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+            when(drawValidationService.getAvailablePrizes(testActivity)).thenReturn(testPrizes);
+            when(ticketRollService.isEnabled(1L)).thenReturn(true);
+        }
+
+        @Test
+        @DisplayName("Should take outcomes from the roll without sampling or touching inventory")
+        @SuppressWarnings("unchecked")
+        void shouldDrawFromRoll() {
+            when(ticketRollService.claim(1L, 3)).thenReturn(List.of(
+                new TicketRollService.Claim(7, 2L),
+                new TicketRollService.Claim(8, null)));
+
+            MultipleDrawResult result = drawExecutionService.performMultipleDraws(new MultipleDrawRequest(1L, 3));
+
+            assertEquals(2, result.getTotalDraws());
+            assertEquals(testPrize2.getId(), result.getResults().get(0).getPrizeId());
+            assertEquals("Thank You", result.getResults().get(1).getPrizeName());
+            verify(drawRecordRepository).saveAll(argThat(records -> {
+                List<DrawRecord> saved = (List<DrawRecord>) records;
+                return saved.get(0).getRollPosition() == 7 && saved.get(1).getRollPosition() == 8;
+            }));
+            verify(drawQuotaService).release(1L, 1L, 1);
+            verifyNoInteractions(prizeSelectionUtil);
+            verify(prizeRepository, never()).decrementQuantityIfAvailable(any());
+            verify(prizeRepository, never()).findByIdWithLock(any());
+        }
+
+        @Test
+        @DisplayName("Should refuse draws and give the quota back once the roll is used up")
+        void shouldRejectWhenRollIsUsedUp() {
+            when(ticketRollService.claim(1L, 2)).thenReturn(List.of());
+
+            LuckyDrawException exception = assertThrows(LuckyDrawException.class,
+                () -> drawExecutionService.performMultipleDraws(new MultipleDrawRequest(1L, 2)));
+
+            assertEquals(ErrorConstants.ErrorType.ACTIVITY_DRAW_LIMIT_REACHED.getCode(), exception.getErrorCode());
+            verify(drawQuotaService).release(1L, 1L, 2);
+            verify(drawRecordRepository, never()).saveAll(any());
+        }
+
+        @Test
+        @DisplayName("Should count bulk draws per prize from the roll")
+        void shouldBulkDrawFromRoll() {
+            when(ticketRollService.claim(1L, 4)).thenReturn(List.of(
+                new TicketRollService.Claim(0, 1L),
+                new TicketRollService.Claim(1, null),
+                new TicketRollService.Claim(2, 1L),
+                new TicketRollService.Claim(3, 2L)));
+
+            BulkDrawResult result = drawExecutionService.performBulkDraw(new BulkDrawRequest(1L, 4));
+
+            assertEquals(4, result.getTotalDraws());
+            assertEquals(1, result.getThankYouCount());
+            assertEquals(2, result.getWins().get(0).getCount());
+            assertEquals(1, result.getWins().get(1).getCount());
+            verify(prizeSelectionUtil, never()).sampleCounts(any(), anyInt(), any(), any());
+        }
     }
 }
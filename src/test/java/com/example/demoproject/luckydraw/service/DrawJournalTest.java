@@ -0,0 +1,289 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.auth.entity.User;
+import com.example.demoproject.auth.repository.AuthUserRepository;
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawJournalCheckpoint;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.DrawJournalCheckpointRepository;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.util.DrawJournalSegment;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+class DrawJournalTest {
+
+    @Mock
+    private DrawRecordRepository drawRecordRepository;
+
+    @Mock
+    private DrawJournalCheckpointRepository drawJournalCheckpointRepository;
+
+    @Mock
+    private AuthUserRepository authUserRepository;
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private DrawJournal drawJournal;
+
+    @TempDir
+    Path dir;
+
+    private Activity activity;
+    private Prize prize;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(drawJournal, "enabled", true);
+        ReflectionTestUtils.setField(drawJournal, "dir", dir.toString());
+        ReflectionTestUtils.setField(drawJournal, "segmentSizeBytes", 4096);
+        ReflectionTestUtils.setField(drawJournal, "loadBatchSize", 2);
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        activity = new Activity("Activity", "Description", 5);
+        activity.setId(3L);
+        prize = new Prize("Prize", "Description", 10, new BigDecimal("0.5"), activity);
+        prize.setId(11L);
+        lenient().when(authUserRepository.getReferenceById(anyLong())).thenAnswer(invocation -> user(invocation.getArgument(0)));
+        lenient().when(activityRepository.getReferenceById(3L)).thenReturn(activity);
+        lenient().when(prizeRepository.getReferenceById(11L)).thenReturn(prize);
+    }
+
+    @AfterEach
+    void tearDown() {
+        drawJournal.stop();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void loadInsertsJournaledRecordsInBatchesWithCheckpoints() throws IOException {
+        drawJournal.start();
+        DrawRecord win = new DrawRecord(user(1L), activity, prize);
+        drawJournal.append(List.of(win, new DrawRecord(user(2L), activity, null), new DrawRecord(user(1L), activity, null)));
+
+        Map<String, Object> stats = drawJournal.getStats();
+        assertEquals(3L, stats.get("written"));
+        assertTrue((Long) stats.get("syncs") >= 1);
+        verify(drawRecordRepository, never()).saveAll(any());
+
+        drawJournal.load();
+
+        ArgumentCaptor<List<DrawRecord>> saved = ArgumentCaptor.forClass(List.class);
+        verify(drawRecordRepository, times(2)).saveAll(saved.capture());
+        assertEquals(2, saved.getAllValues().get(0).size());
+        assertEquals(1, saved.getAllValues().get(1).size());
+        DrawRecord loaded = saved.getAllValues().get(0).get(0);
+        assertEquals(1L, loaded.getUser().getId());
+        assertSame(prize, loaded.getPrize());
+        assertEquals(win.getDrawTime(), loaded.getDrawTime());
+        assertNull(saved.getAllValues().get(0).get(1).getPrize());
+
+        ArgumentCaptor<DrawJournalCheckpoint> checkpoints = ArgumentCaptor.forClass(DrawJournalCheckpoint.class);
+        verify(drawJournalCheckpointRepository, times(2)).save(checkpoints.capture());
+        assertEquals(List.of(2, 3), checkpoints.getAllValues().stream().map(DrawJournalCheckpoint::getLoadedFrames).toList());
+        assertEquals(3L, drawJournal.getStats().get("loaded"));
+        try (var files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void startReplaysSegmentsAfterTheirCheckpoint() throws IOException {
+        try (DrawJournalSegment segment = DrawJournalSegment.create(dir.resolve(String.format("%020d.journal", 5)), 5L, 4096)) {
+            for (long userId = 1; userId <= 3; userId++) {
+                segment.append(new DrawRecord(user(userId), activity, null));
+            }
+            segment.force();
+        }
+        when(drawJournalCheckpointRepository.findMaxSegmentId()).thenReturn(5L);
+        when(drawJournalCheckpointRepository.findById(5L))
+            .thenReturn(Optional.of(new DrawJournalCheckpoint(5L, 2, null)));
+
+        drawJournal.start();
+
+        ArgumentCaptor<List<DrawRecord>> saved = ArgumentCaptor.forClass(List.class);
+        verify(drawRecordRepository).saveAll(saved.capture());
+        assertEquals(1, saved.getValue().size());
+        assertEquals(3L, saved.getValue().get(0).getUser().getId());
+        assertFalse(Files.exists(dir.resolve(String.format("%020d.journal", 5))));
+
+        // New segments continue after the replayed one
+        drawJournal.append(List.of(new DrawRecord(user(4L), activity, null)));
+        assertTrue(Files.exists(dir.resolve(String.format("%020d.journal", 6))));
+    }
+
+    @Test
+    void appendInTransactionWritesOnceBeforeCommit() throws IOException {
+        drawJournal.start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            drawJournal.append(List.of(new DrawRecord(user(1L), activity, null)));
+            drawJournal.append(List.of(new DrawRecord(user(2L), activity, null)));
+            assertEquals(0L, drawJournal.getStats().get("written"));
+
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, synchronizations.size());
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            assertEquals(2L, drawJournal.getStats().get("written"));
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertFalse(TransactionSynchronizationManager.hasResource(drawJournal));
+    }
+
+    @Test
+    void appendInTransactionLeavesNothingOnRollback() throws IOException {
+        drawJournal.start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            drawJournal.append(List.of(new DrawRecord(user(1L), activity, null)));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(0L, drawJournal.getStats().get("written"));
+        assertFalse(TransactionSynchronizationManager.hasResource(drawJournal));
+    }
+
+    @Test
+    void rollbackAfterForceVoidsTheFrames() throws IOException {
+        drawJournal.start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            drawJournal.append(List.of(new DrawRecord(user(1L), activity, null)));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            // The database commit failed after the records were forced
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertEquals(1L, drawJournal.getStats().get("written"));
+        drawJournal.load();
+
+        verify(drawRecordRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void loadWaitsForDrawsThatAreStillCommitting() throws IOException {
+        drawJournal.start();
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            drawJournal.append(List.of(new DrawRecord(user(1L), activity, null)));
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+
+            drawJournal.load();
+            verify(drawRecordRepository, never()).saveAll(any());
+
+            synchronizations.forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        drawJournal.load();
+        verify(drawRecordRepository).saveAll(any());
+    }
+
+    @Test
+    void forceTimeoutFailsTheDrawAndVoidsTheFrames() throws Exception {
+        ReflectionTestUtils.setField(drawJournal, "timeoutMs", 50L);
+        drawJournal.start();
+        // Nothing forces the frames from here on
+        Thread syncer = (Thread) ReflectionTestUtils.getField(drawJournal, "syncer");
+        syncer.interrupt();
+        syncer.join();
+
+        LuckyDrawException exception = assertThrows(LuckyDrawException.class,
+            () -> drawJournal.append(List.of(new DrawRecord(user(1L), activity, null))));
+
+        assertEquals(ErrorConstants.ErrorType.SYSTEM_BUSY.getCode(), exception.getErrorCode());
+        assertEquals(1L, drawJournal.getStats().get("timeouts"));
+        drawJournal.stop();
+        assertEquals(List.of(), DrawJournalSegment.read(dir.resolve(String.format("%020d.journal", 1))));
+        verify(drawRecordRepository, never()).saveAll(any());
+    }
+
+    @Test
+    void startFailsWhenReplayFails() throws IOException {
+        try (DrawJournalSegment segment = DrawJournalSegment.create(dir.resolve(String.format("%020d.journal", 5)), 5L, 4096)) {
+            segment.append(new DrawRecord(user(1L), activity, null));
+            segment.force();
+        }
+        doThrow(new IllegalStateException("Database is down")).when(transactionTemplate).executeWithoutResult(any());
+
+        assertThrows(IllegalStateException.class, drawJournal::start);
+
+        assertFalse((Boolean) ReflectionTestUtils.getField(drawJournal, "running"));
+        assertTrue(Files.exists(dir.resolve(String.format("%020d.journal", 5))));
+    }
+
+    @Test
+    void appendInsertsDirectlyWhenJournalIsStopped() throws IOException {
+        drawJournal.start();
+        drawJournal.stop();
+        List<DrawRecord> records = new ArrayList<>(List.of(new DrawRecord(user(1L), activity, prize)));
+
+        drawJournal.append(records);
+
+        verify(drawRecordRepository).saveAll(records);
+        assertEquals(1L, drawJournal.getStats().get("fallbackInserts"));
+    }
+
+    private static User user(Long id) {
+        User user = new User();
+        user.setId(id);
+        return user;
+    }
+}
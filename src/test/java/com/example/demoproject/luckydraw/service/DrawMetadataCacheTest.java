@@ -0,0 +1,165 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class DrawMetadataCacheTest {
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private PrizeBucketInventory prizeBucketInventory;
+
+    @Mock
+    private PrizeUnitInventory prizeUnitInventory;
+
+    @InjectMocks
+    private DrawMetadataCache drawMetadataCache;
+
+    private Activity testActivity;
+    private List<Prize> testPrizes;
+
+    @BeforeEach
+    void setUp() {
+        drawMetadataCache.init();
+
+        testActivity = new Activity("Test Activity", "Test Description", 10);
+        testActivity.setId(1L);
+        Prize prize = new Prize("AirPods Pro", "Wireless earbuds", 5, new BigDecimal("0.1"), testActivity);
+        prize.setId(1L);
+        testPrizes = new ArrayList<>(List.of(prize));
+    }
+
+    @Test
+    void getActivityLoadsOnceUntilInvalidated() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+
+        assertSame(testActivity, drawMetadataCache.getActivity(1L));
+        assertSame(testActivity, drawMetadataCache.getActivity(1L));
+        verify(activityRepository, times(1)).findById(1L);
+
+        drawMetadataCache.invalidateActivity(1L);
+        drawMetadataCache.getActivity(1L);
+        verify(activityRepository, times(2)).findById(1L);
+    }
+
+    @Test
+    void getActivityNotFoundIsNotCached() {
+        when(activityRepository.findById(999L)).thenReturn(Optional.empty());
+
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+            () -> drawMetadataCache.getActivity(999L));
+        assertEquals("Activity not found", exception.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> drawMetadataCache.getActivity(999L));
+
+        verify(activityRepository, times(2)).findById(999L);
+    }
+
+    @Test
+    void getAllActivitiesLoadsOnceUntilAnActivityIsInvalidated() {
+        when(activityRepository.findAll()).thenReturn(List.of(testActivity));
+
+        assertEquals(List.of(testActivity), drawMetadataCache.getAllActivities());
+        assertEquals(List.of(testActivity), drawMetadataCache.getAllActivities());
+        // The list load also fills the per-activity entries
+        assertSame(testActivity, drawMetadataCache.getActivity(1L));
+        verify(activityRepository, times(1)).findAll();
+        verify(activityRepository, never()).findById(any());
+
+        drawMetadataCache.invalidateActivity(1L);
+        drawMetadataCache.getAllActivities();
+        verify(activityRepository, times(2)).findAll();
+    }
+
+    @Test
+    void getPrizesReturnsUnmodifiableSnapshot() {
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(testPrizes);
+
+        List<Prize> first = drawMetadataCache.getPrizes(testActivity);
+        List<Prize> second = drawMetadataCache.getPrizes(testActivity);
+
+        assertSame(first, second);
+        assertThrows(UnsupportedOperationException.class, () -> first.add(testPrizes.get(0)));
+        verify(prizeRepository, times(1)).findByActivity(testActivity);
+    }
+
+    @Test
+    void getPrizesTakesBucketedQuantityFromBuckets() {
+        testPrizes.get(0).setAwardedCount(2);
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(testPrizes);
+        when(prizeBucketInventory.isEnabled()).thenReturn(true);
+        when(prizeBucketInventory.getRemaining(List.of(1L))).thenReturn(Map.of(1L, 3));
+
+        Prize cached = drawMetadataCache.getPrizes(testActivity).get(0);
+
+        assertEquals(1L, cached.getId());
+        assertEquals(3, cached.getQuantity());
+        assertEquals(4, cached.getAwardedCount());
+        // The loaded entity is left as it was
+        assertEquals(5, testPrizes.get(0).getQuantity());
+    }
+
+    @Test
+    void getPrizesTakesUnitQuantityFromUnclaimedUnits() {
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(testPrizes);
+        when(prizeUnitInventory.isEnabled()).thenReturn(true);
+        when(prizeUnitInventory.getRemaining(List.of(1L))).thenReturn(Map.of());
+        when(prizeUnitInventory.getClaimed(List.of(1L))).thenReturn(Map.of(1L, 5));
+
+        Prize cached = drawMetadataCache.getPrizes(testActivity).get(0);
+
+        assertEquals(0, cached.getQuantity());
+        assertEquals(5, cached.getAwardedCount());
+    }
+
+    @Test
+    void invalidatePrizesKeepsActivity() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(testPrizes);
+        drawMetadataCache.getActivity(1L);
+        drawMetadataCache.getPrizes(testActivity);
+
+        drawMetadataCache.invalidatePrizes(1L);
+        drawMetadataCache.getActivity(1L);
+        drawMetadataCache.getPrizes(testActivity);
+
+        verify(activityRepository, times(1)).findById(1L);
+        verify(prizeRepository, times(2)).findByActivity(testActivity);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void getStatsCountsHitsAndMisses() {
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        drawMetadataCache.getActivity(1L);
+        drawMetadataCache.getActivity(1L);
+        drawMetadataCache.getActivity(1L);
+
+        Map<String, Object> activities = (Map<String, Object>) drawMetadataCache.getStats().get("activities");
+
+        assertEquals(2L, activities.get("hitCount"));
+        assertEquals(1L, activities.get("missCount"));
+    }
+}
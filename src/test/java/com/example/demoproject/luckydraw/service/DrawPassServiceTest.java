@@ -0,0 +1,172 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.dto.DrawPassResponse;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.security.JwtUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+class DrawPassServiceTest {
+
+    // Real time: the signed expiry is checked against the system clock
+    private static final Instant NOW = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+
+    @Spy
+    private JwtUtil jwtUtil = new JwtUtil();
+
+    @Mock
+    private DrawValidationService drawValidationService;
+
+    @Mock
+    private DrawQuotaService drawQuotaService;
+
+    @Mock
+    private TicketRollService ticketRollService;
+
+    @Mock
+    private UserActivityService userActivityService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private DrawPassService drawPassService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(drawPassService, "enabled", true);
+        ReflectionTestUtils.setField(drawPassService, "clock", Clock.fixed(NOW, ZoneOffset.UTC));
+        Activity activity = new Activity("Test Activity", "Test Description", 25);
+        activity.setId(1L);
+        lenient().when(drawValidationService.findActivity(1L)).thenReturn(activity);
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void issueReservesUpToPassSize() {
+        when(drawQuotaService.getUsedDraws(7L, 1L)).thenReturn(20);
+        when(drawQuotaService.tryConsume(7L, 1L, 5, 25)).thenReturn(true);
+
+        DrawPassResponse pass = drawPassService.issue(7L, 1L);
+
+        assertEquals(5, pass.getRemaining());
+        assertEquals(NOW.plusSeconds(300), pass.getExpiresAt());
+        assertEquals(1L, jwtUtil.parseDrawPass(pass.getDrawPass()).get("nonce", Long.class));
+    }
+
+    @Test
+    void issueFailsWhenQuotaIsUsedUp() {
+        when(drawQuotaService.getUsedDraws(7L, 1L)).thenReturn(25);
+
+        LuckyDrawException e = assertThrows(LuckyDrawException.class, () -> drawPassService.issue(7L, 1L));
+        assertEquals(ErrorConstants.ErrorType.USER_DRAW_LIMIT_REACHED.getCode(), e.getErrorCode());
+        verify(drawQuotaService, never()).tryConsume(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void redeemChainsPassesAndRejectsReplay() {
+        when(drawQuotaService.tryConsume(7L, 1L, 10, 25)).thenReturn(true);
+        DrawPassResponse first = drawPassService.issue(7L, 1L);
+
+        DrawPassService.Redemption redemption = drawPassService.redeem(7L, 1L, first.getDrawPass(), 3);
+        DrawPassResponse second = drawPassService.complete(redemption, 3);
+
+        assertEquals(7, second.getRemaining());
+        assertInvalid(() -> drawPassService.redeem(7L, 1L, first.getDrawPass(), 1));
+        assertNotNull(drawPassService.redeem(7L, 1L, second.getDrawPass(), 7));
+        verify(drawQuotaService, times(1)).tryConsume(any(), any(), anyInt(), anyInt());
+    }
+
+    @Test
+    void redeemRejectsPassOfAnotherUserOrActivity() {
+        when(drawQuotaService.tryConsume(7L, 1L, 10, 25)).thenReturn(true);
+        String token = drawPassService.issue(7L, 1L).getDrawPass();
+
+        assertInvalid(() -> drawPassService.redeem(8L, 1L, token, 1));
+        assertInvalid(() -> drawPassService.redeem(7L, 2L, token, 1));
+        assertInvalid(() -> drawPassService.redeem(7L, 1L, token + "x", 1));
+        assertInvalid(() -> drawPassService.redeem(7L, 1L, jwtUtil.generateToken("user", "USER", 7L), 1));
+    }
+
+    @Test
+    void redeemRejectsMoreDrawsThanLeft() {
+        when(drawQuotaService.tryConsume(7L, 1L, 10, 25)).thenReturn(true);
+        String token = drawPassService.issue(7L, 1L).getDrawPass();
+
+        LuckyDrawException e = assertThrows(LuckyDrawException.class, () -> drawPassService.redeem(7L, 1L, token, 11));
+        assertEquals(ErrorConstants.ErrorType.USER_MULTIPLE_DRAW_LIMIT_REACHED.getCode(), e.getErrorCode());
+    }
+
+    @Test
+    void abandonedPassCanBePresentedAgain() {
+        when(drawQuotaService.tryConsume(7L, 1L, 10, 25)).thenReturn(true);
+        String token = drawPassService.issue(7L, 1L).getDrawPass();
+
+        DrawPassService.Redemption redemption = drawPassService.redeem(7L, 1L, token, 1);
+        assertInvalid(() -> drawPassService.redeem(7L, 1L, token, 1));
+        drawPassService.abandon(redemption);
+
+        assertNotNull(drawPassService.redeem(7L, 1L, token, 1));
+    }
+
+    @Test
+    void reissueReleasesLeftoverAndSupersedesOldPass() {
+        when(drawQuotaService.tryConsume(7L, 1L, 10, 25)).thenReturn(true);
+        String token = drawPassService.issue(7L, 1L).getDrawPass();
+        DrawPassService.Redemption redemption = drawPassService.redeem(7L, 1L, token, 4);
+        DrawPassResponse next = drawPassService.complete(redemption, 4);
+
+        drawPassService.issue(7L, 1L);
+
+        verify(drawQuotaService).release(7L, 1L, 6);
+        assertInvalid(() -> drawPassService.redeem(7L, 1L, next.getDrawPass(), 1));
+    }
+
+    @Test
+    void sweepReleasesExpiredPasses() {
+        when(drawQuotaService.tryConsume(7L, 1L, 10, 25)).thenReturn(true);
+        String token = drawPassService.issue(7L, 1L).getDrawPass();
+
+        drawPassService.releaseExpired();
+        verify(drawQuotaService, never()).release(any(), any(), anyInt());
+
+        ReflectionTestUtils.setField(drawPassService, "clock", Clock.fixed(NOW.plusSeconds(301), ZoneOffset.UTC));
+        drawPassService.releaseExpired();
+
+        verify(drawQuotaService).release(7L, 1L, 10);
+        assertInvalid(() -> drawPassService.redeem(7L, 1L, token, 1));
+    }
+
+    private void assertInvalid(Runnable redeem) {
+        LuckyDrawException e = assertThrows(LuckyDrawException.class, redeem::run);
+        assertEquals(ErrorConstants.ErrorType.INVALID_DRAW_PASS.getCode(), e.getErrorCode());
+    }
+}
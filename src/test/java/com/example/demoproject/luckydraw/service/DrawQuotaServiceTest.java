@@ -0,0 +1,101 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.entity.UserActivityQuota;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.UserActivityQuotaRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Optional;
+
+@ExtendWith(MockitoExtension.class)
+class DrawQuotaServiceTest {
+
+    @Mock
+    private UserActivityQuotaRepository quotaRepository;
+
+    @Mock
+    private DrawRecordRepository drawRecordRepository;
+
+    @InjectMocks
+    private DrawQuotaService drawQuotaService;
+
+    @Test
+    void tryConsumeWithinLimitUsesSingleUpdate() {
+        when(quotaRepository.tryConsume(1L, 2L, 3, 10)).thenReturn(1);
+
+        assertTrue(drawQuotaService.tryConsume(1L, 2L, 3, 10));
+
+        verify(quotaRepository, never()).findByUserIdAndActivityId(any(), any());
+        verifyNoInteractions(drawRecordRepository);
+    }
+
+    @Test
+    void tryConsumeOverLimitReturnsFalse() {
+        when(quotaRepository.tryConsume(1L, 2L, 3, 10)).thenReturn(0);
+        when(quotaRepository.findByUserIdAndActivityId(1L, 2L))
+            .thenReturn(Optional.of(new UserActivityQuota(1L, 2L, 9)));
+
+        assertFalse(drawQuotaService.tryConsume(1L, 2L, 3, 10));
+
+        verify(quotaRepository, never()).saveAndFlush(any());
+    }
+
+    @Test
+    void tryConsumeFirstDrawSeedsQuotaFromHistory() {
+        when(quotaRepository.tryConsume(1L, 2L, 1, 10)).thenReturn(0).thenReturn(1);
+        when(quotaRepository.findByUserIdAndActivityId(1L, 2L)).thenReturn(Optional.empty());
+        when(drawRecordRepository.countByUserIdAndActivityId(1L, 2L)).thenReturn(4L);
+
+        assertTrue(drawQuotaService.tryConsume(1L, 2L, 1, 10));
+
+        verify(quotaRepository).saveAndFlush(argThat(quota ->
+            quota.getUserId().equals(1L) && quota.getActivityId().equals(2L) && quota.getUsedDraws() == 4));
+        verify(quotaRepository, times(2)).tryConsume(1L, 2L, 1, 10);
+    }
+
+    @Test
+    void tryConsumeParallelQuotaCreationIsReportedBusy() {
+        when(quotaRepository.tryConsume(1L, 2L, 1, 10)).thenReturn(0);
+        when(quotaRepository.findByUserIdAndActivityId(1L, 2L)).thenReturn(Optional.empty());
+        when(quotaRepository.saveAndFlush(any())).thenThrow(new DataIntegrityViolationException("duplicate key"));
+
+        LuckyDrawException exception = assertThrows(LuckyDrawException.class,
+            () -> drawQuotaService.tryConsume(1L, 2L, 1, 10));
+        assertEquals(ErrorConstants.ErrorType.SYSTEM_BUSY.getCode(), exception.getErrorCode());
+    }
+
+    @Test
+    void releaseIgnoresZeroCount() {
+        drawQuotaService.release(1L, 2L, 0);
+
+        verifyNoInteractions(quotaRepository);
+    }
+
+    @Test
+    void getUsedDrawsFallsBackToCountWithoutQuotaRow() {
+        when(quotaRepository.findByUserIdAndActivityId(1L, 2L)).thenReturn(Optional.empty());
+        when(drawRecordRepository.countByUserIdAndActivityId(1L, 2L)).thenReturn(6L);
+
+        assertEquals(6, drawQuotaService.getUsedDraws(1L, 2L));
+    }
+
+    @Test
+    void getUsedDrawsReadsQuotaRow() {
+        when(quotaRepository.findByUserIdAndActivityId(1L, 2L))
+            .thenReturn(Optional.of(new UserActivityQuota(1L, 2L, 7)));
+
+        assertEquals(7, drawQuotaService.getUsedDraws(1L, 2L));
+        verifyNoInteractions(drawRecordRepository);
+    }
+}
@@ -5,8 +5,6 @@ import static org.mockito.Mockito.*;
 
 import com.example.demoproject.luckydraw.entity.Activity;
 import com.example.demoproject.luckydraw.entity.Prize;
-import com.example.demoproject.luckydraw.repository.ActivityRepository;
-import com.example.demoproject.luckydraw.repository.PrizeRepository;
 import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
 import com.example.demoproject.auth.entity.User;
 import com.example.demoproject.auth.repository.AuthUserRepository;
@@ -22,16 +20,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 
 @ExtendWith(MockitoExtension.class)
 class DrawValidationServiceTest {
 
     @Mock
-    private ActivityRepository activityRepository;
-
-    @Mock
-    private PrizeRepository prizeRepository;
+    private DrawMetadataCache drawMetadataCache;
 
     @Mock
     private DrawRecordRepository drawRecordRepository;
@@ -42,6 +36,9 @@ class DrawValidationServiceTest {
     @Mock
     private UserActivityService userActivityService;
 
+    @Mock
+    private DrawQuotaService drawQuotaService;
+
     @InjectMocks
     private DrawValidationService drawValidationService;
 
@@ -81,7 +78,7 @@ class DrawValidationServiceTest {
     void findActivityWhenActivityExistsShouldReturnActivity() {
 
         Long activityId = 1L;
-        when(activityRepository.findById(activityId)).thenReturn(Optional.of(testActivity));
+        when(drawMetadataCache.getActivity(activityId)).thenReturn(testActivity);
 
 
         Activity result = drawValidationService.findActivity(activityId);
@@ -92,21 +89,21 @@ class DrawValidationServiceTest {
         assertEquals(testActivity.getDescription(), result.getDescription());
         assertEquals(testActivity.getMaxDraws(), result.getMaxDraws());
 
-        verify(activityRepository).findById(activityId);
+        verify(drawMetadataCache).getActivity(activityId);
     }
 
     @Test
     void findActivityWhenActivityNotFoundShouldThrowException() {
 
         Long activityId = 999L;
-        when(activityRepository.findById(activityId)).thenReturn(Optional.empty());
+        when(drawMetadataCache.getActivity(activityId)).thenThrow(new IllegalArgumentException("Activity not found"));
 
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
             () -> drawValidationService.findActivity(activityId));
         assertEquals("Activity not found", exception.getMessage());
 
-        verify(activityRepository).findById(activityId);
+        verify(drawMetadataCache).getActivity(activityId);
     }
 
     @Test
@@ -118,16 +115,13 @@ class DrawValidationServiceTest {
         Long userId = 1L;
         
         when(userActivityService.getCurrentUserId()).thenReturn(userId);
-        when(authUserRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(activityRepository.findById(activityId)).thenReturn(Optional.of(testActivity));
-        when(drawRecordRepository.countByUserAndActivity(testUser, testActivity)).thenReturn(5L);
+        when(drawQuotaService.tryConsume(userId, activityId, drawCount, maxDraws)).thenReturn(true);
 
         assertDoesNotThrow(() -> drawValidationService.validateUserMultipleDrawLimit(activityId, drawCount, maxDraws));
 
         verify(userActivityService).getCurrentUserId();
-        verify(authUserRepository).findById(userId);
-        verify(activityRepository).findById(activityId);
-        verify(drawRecordRepository).countByUserAndActivity(testUser, testActivity);
+        verify(drawQuotaService).tryConsume(userId, activityId, drawCount, maxDraws);
+        verifyNoInteractions(authUserRepository, drawMetadataCache, drawRecordRepository);
     }
 
     @Test
@@ -139,9 +133,7 @@ class DrawValidationServiceTest {
         Long userId = 1L;
         
         when(userActivityService.getCurrentUserId()).thenReturn(userId);
-        when(authUserRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(activityRepository.findById(activityId)).thenReturn(Optional.of(testActivity));
-        when(drawRecordRepository.countByUserAndActivity(testUser, testActivity)).thenReturn(8L);
+        when(drawQuotaService.tryConsume(userId, activityId, drawCount, maxDraws)).thenReturn(false);
 
         LuckyDrawException exception = assertThrows(LuckyDrawException.class, 
             () -> drawValidationService.validateUserMultipleDrawLimit(activityId, drawCount, maxDraws));
@@ -149,9 +141,7 @@ class DrawValidationServiceTest {
         assertEquals(ErrorConstants.ErrorType.USER_MULTIPLE_DRAW_LIMIT_REACHED.getMessage(), exception.getMessage());
 
         verify(userActivityService).getCurrentUserId();
-        verify(authUserRepository).findById(userId);
-        verify(activityRepository).findById(activityId);
-        verify(drawRecordRepository).countByUserAndActivity(testUser, testActivity);
+        verify(drawQuotaService).tryConsume(userId, activityId, drawCount, maxDraws);
     }
 
     @Test
@@ -162,22 +152,17 @@ class DrawValidationServiceTest {
         Long userId = 1L;
         
         when(userActivityService.getCurrentUserId()).thenReturn(userId);
-        when(authUserRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(activityRepository.findById(activityId)).thenReturn(Optional.of(testActivity));
-        when(drawRecordRepository.countByUserAndActivity(testUser, testActivity)).thenReturn(8L);
+        when(drawQuotaService.tryConsume(userId, activityId, drawCount, maxDraws)).thenReturn(true);
 
         assertDoesNotThrow(() -> drawValidationService.validateUserMultipleDrawLimit(activityId, drawCount, maxDraws));
 
-        verify(userActivityService).getCurrentUserId();
-        verify(authUserRepository).findById(userId);
-        verify(activityRepository).findById(activityId);
-        verify(drawRecordRepository).countByUserAndActivity(testUser, testActivity);
+        verify(drawQuotaService).tryConsume(userId, activityId, drawCount, maxDraws);
     }
 
     @Test
     void getAvailablePrizesWhenPrizesExistShouldReturnPrizes() {
 
-        when(prizeRepository.findByActivity(testActivity)).thenReturn(testPrizes);
+        when(drawMetadataCache.getPrizes(testActivity)).thenReturn(testPrizes);
 
         List<Prize> result = drawValidationService.getAvailablePrizes(testActivity);
 
@@ -186,20 +171,20 @@ class DrawValidationServiceTest {
         assertEquals(testPrizes.get(0).getId(), result.get(0).getId());
         assertEquals(testPrizes.get(1).getId(), result.get(1).getId());
 
-        verify(prizeRepository).findByActivity(testActivity);
+        verify(drawMetadataCache).getPrizes(testActivity);
     }
 
     @Test
     void getAvailablePrizesWhenNoPrizesExistShouldThrowException() {
 
-        when(prizeRepository.findByActivity(testActivity)).thenReturn(Arrays.asList());
+        when(drawMetadataCache.getPrizes(testActivity)).thenReturn(Arrays.asList());
 
         LuckyDrawException exception = assertThrows(LuckyDrawException.class, 
             () -> drawValidationService.getAvailablePrizes(testActivity));
         assertEquals(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE.getCode(), exception.getErrorCode());
         assertEquals(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE.getMessage(), exception.getMessage());
 
-        verify(prizeRepository).findByActivity(testActivity);
+        verify(drawMetadataCache).getPrizes(testActivity);
     }
 
     @Test
@@ -207,16 +192,14 @@ class DrawValidationServiceTest {
 
         assertThrows(IllegalArgumentException.class, 
             () -> drawValidationService.findActivity(null));
+        verifyNoInteractions(drawMetadataCache);
     }
 
     @Test
     void validateUserMultipleDrawLimitWithNullActivityIdShouldThrowException() {
 
-        when(userActivityService.getCurrentUserId()).thenReturn(1L);
-        when(authUserRepository.findById(1L)).thenReturn(Optional.of(testUser));
-        when(activityRepository.findById(null)).thenThrow(IllegalArgumentException.class);
-
         assertThrows(IllegalArgumentException.class, 
             () -> drawValidationService.validateUserMultipleDrawLimit(null, 5, 10));
+        verifyNoInteractions(drawQuotaService);
     }
-}
\ No newline at end of file
+}
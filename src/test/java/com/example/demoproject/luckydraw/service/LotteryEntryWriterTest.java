@@ -0,0 +1,95 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.entity.LotteryEntry;
+import com.example.demoproject.luckydraw.repository.LotteryEntryRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+class LotteryEntryWriterTest {
+
+    @Mock
+    private LotteryEntryRepository lotteryEntryRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private LotteryEntryWriter lotteryEntryWriter;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void writeInsertsNewEntriesInOneBatch() {
+        when(lotteryEntryRepository.findUserIds(eq(1L), anyCollection())).thenReturn(List.of(12L));
+        List<LotteryEntryWriter.Registration> batch = List.of(
+            new LotteryEntryWriter.Registration(1L, 11L),
+            new LotteryEntryWriter.Registration(1L, 12L),
+            new LotteryEntryWriter.Registration(1L, 11L),
+            new LotteryEntryWriter.Registration(1L, 13L));
+
+        lotteryEntryWriter.write(batch);
+
+        assertTrue(batch.get(0).getFuture().join());
+        assertFalse(batch.get(1).getFuture().join());
+        assertFalse(batch.get(2).getFuture().join());
+        assertTrue(batch.get(3).getFuture().join());
+        ArgumentCaptor<List<LotteryEntry>> saved = ArgumentCaptor.forClass(List.class);
+        verify(lotteryEntryRepository).saveAll(saved.capture());
+        assertEquals(List.of(11L, 13L), saved.getValue().stream().map(LotteryEntry::getUserId).toList());
+    }
+
+    @Test
+    void writeRetriesOneByOneWhenAnotherNodeWonTheRace() {
+        when(lotteryEntryRepository.findUserIds(eq(1L), anyCollection())).thenReturn(List.of());
+        when(lotteryEntryRepository.saveAll(any()))
+            .thenThrow(new DataIntegrityViolationException("duplicate"))
+            .thenReturn(List.of())
+            .thenThrow(new DataIntegrityViolationException("duplicate"));
+        List<LotteryEntryWriter.Registration> batch = List.of(
+            new LotteryEntryWriter.Registration(1L, 11L),
+            new LotteryEntryWriter.Registration(1L, 12L));
+
+        lotteryEntryWriter.write(batch);
+
+        assertTrue(batch.get(0).getFuture().join());
+        assertFalse(batch.get(1).getFuture().join());
+    }
+
+    @Test
+    void appendWaitsForItsBatch() {
+        when(lotteryEntryRepository.findUserIds(eq(1L), anyCollection())).thenReturn(List.of());
+        lotteryEntryWriter.start();
+        try {
+            assertTrue(lotteryEntryWriter.append(1L, 11L));
+        } finally {
+            lotteryEntryWriter.stop();
+        }
+        assertEquals(1L, lotteryEntryWriter.getStats().get("written"));
+    }
+}
@@ -0,0 +1,218 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.auth.entity.User;
+import com.example.demoproject.auth.repository.AuthUserRepository;
+import com.example.demoproject.luckydraw.constants.ActivityType;
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.dto.LotteryResult;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.ActivityRepository;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.LotteryEntryRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.LongStream;
+
+@ExtendWith(MockitoExtension.class)
+class LotteryServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    @Mock
+    private DrawValidationService drawValidationService;
+
+    @Mock
+    private UserActivityService userActivityService;
+
+    @Mock
+    private LotteryEntryWriter lotteryEntryWriter;
+
+    @Mock
+    private LotteryEntryRepository lotteryEntryRepository;
+
+    @Mock
+    private ActivityRepository activityRepository;
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private DrawRecordRepository drawRecordRepository;
+
+    @Mock
+    private AuthUserRepository authUserRepository;
+
+    @Mock
+    private DrawMetadataCache drawMetadataCache;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private LotteryService lotteryService;
+
+    private Activity testActivity;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        testActivity = new Activity("Test Lottery", "Test Description", 1);
+        testActivity.setId(1L);
+        testActivity.setType(ActivityType.LOTTERY);
+        testActivity.setStartTime(START);
+        testActivity.setEndTime(START.plusDays(1));
+        lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+        lenient().doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        lenient().when(authUserRepository.getReferenceById(anyLong())).thenAnswer(invocation -> {
+            User user = new User();
+            user.setId(invocation.getArgument(0));
+            return user;
+        });
+    }
+
+    private void setNow(LocalDateTime now) {
+        ReflectionTestUtils.setField(lotteryService, "clock", Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneId.of("UTC")));
+    }
+
+    private Prize prize(long id, int quantity) {
+        Prize prize = new Prize("Prize " + id, "Description " + id, quantity, BigDecimal.ZERO, testActivity);
+        prize.setId(id);
+        return prize;
+    }
+
+    @Test
+    void enterAppendsEntryWhileOpen() {
+        setNow(START.plusHours(1));
+        when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+        when(userActivityService.getCurrentUserId()).thenReturn(7L);
+        when(lotteryEntryWriter.append(1L, 7L)).thenReturn(true);
+
+        assertEquals(START.plusDays(1), lotteryService.enter(1L).getClosesAt());
+    }
+
+    @Test
+    void enterRejectsSecondEntry() {
+        setNow(START.plusHours(1));
+        when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+        when(userActivityService.getCurrentUserId()).thenReturn(7L);
+        when(lotteryEntryWriter.append(1L, 7L)).thenReturn(false);
+
+        LuckyDrawException e = assertThrows(LuckyDrawException.class, () -> lotteryService.enter(1L));
+        assertEquals(ErrorConstants.ErrorType.LOTTERY_ALREADY_ENTERED.getCode(), e.getErrorCode());
+    }
+
+    @Test
+    void enterRejectsClosedLottery() {
+        setNow(START.plusDays(2));
+        when(drawValidationService.findActivity(1L)).thenReturn(testActivity);
+
+        LuckyDrawException e = assertThrows(LuckyDrawException.class, () -> lotteryService.enter(1L));
+        assertEquals(ErrorConstants.ErrorType.LOTTERY_NOT_OPEN.getCode(), e.getErrorCode());
+        verifyNoInteractions(lotteryEntryWriter);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void selectWinnersAwardsEveryUnitToDistinctEntries() {
+        setNow(START.plusDays(2));
+        ReflectionTestUtils.setField(lotteryService, "selectionThreads", 3);
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(List.of(prize(2L, 3), prize(1L, 2)));
+        when(lotteryEntryRepository.findMinId(1L)).thenReturn(101L);
+        when(lotteryEntryRepository.findMaxId(1L)).thenReturn(130L);
+        // Entry ID n belongs to user n + 1000
+        when(lotteryEntryRepository.streamUserIds(eq(1L), anyLong(), anyLong())).thenAnswer(invocation ->
+            LongStream.rangeClosed(invocation.getArgument(1), invocation.getArgument(2)).mapToObj(id -> id + 1000).toList().stream());
+        when(activityRepository.claimWinnerSelection(1L, START.plusDays(2))).thenReturn(1);
+        when(prizeRepository.decrementQuantityBy(any(), anyInt())).thenReturn(1);
+
+        LotteryResult result = lotteryService.selectWinners(1L);
+
+        assertEquals(30L, result.getEntries());
+        assertEquals(5, result.getWinners());
+        verify(lotteryEntryRepository, times(3)).streamUserIds(eq(1L), anyLong(), anyLong());
+        verify(prizeRepository).decrementQuantityBy(1L, 2);
+        verify(prizeRepository).decrementQuantityBy(2L, 3);
+        ArgumentCaptor<List<DrawRecord>> records = ArgumentCaptor.forClass(List.class);
+        verify(drawRecordRepository).saveAll(records.capture());
+        Set<Long> winners = new HashSet<>();
+        records.getValue().forEach(record -> winners.add(record.getUser().getId()));
+        assertEquals(5, winners.size());
+        assertTrue(winners.stream().allMatch(userId -> userId >= 1101 && userId <= 1130));
+        verify(drawMetadataCache).invalidateActivity(1L);
+    }
+
+    @Test
+    void selectWinnersHandsOutOnlyWhatEntriesCover() {
+        setNow(START.plusDays(2));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(List.of(prize(1L, 2), prize(2L, 5)));
+        when(lotteryEntryRepository.findMinId(1L)).thenReturn(1L);
+        when(lotteryEntryRepository.findMaxId(1L)).thenReturn(3L);
+        when(lotteryEntryRepository.streamUserIds(eq(1L), anyLong(), anyLong())).thenAnswer(invocation ->
+            LongStream.rangeClosed(invocation.getArgument(1), invocation.getArgument(2)).boxed().toList().stream());
+        when(activityRepository.claimWinnerSelection(eq(1L), any())).thenReturn(1);
+        when(prizeRepository.decrementQuantityBy(any(), anyInt())).thenReturn(1);
+
+        assertEquals(3, lotteryService.selectWinners(1L).getWinners());
+        verify(prizeRepository).decrementQuantityBy(1L, 2);
+        verify(prizeRepository).decrementQuantityBy(2L, 1);
+    }
+
+    @Test
+    void selectWinnersRefusesOpenLottery() {
+        setNow(START.plusHours(1));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+
+        LuckyDrawException e = assertThrows(LuckyDrawException.class, () -> lotteryService.selectWinners(1L));
+        assertEquals(ErrorConstants.ErrorType.INVALID_STATE.getCode(), e.getErrorCode());
+        verifyNoInteractions(lotteryEntryRepository, drawRecordRepository);
+    }
+
+    @Test
+    void selectWinnersRecordsNothingWhenAnotherNodeClaimedIt() {
+        setNow(START.plusDays(2));
+        when(activityRepository.findById(1L)).thenReturn(Optional.of(testActivity));
+        when(prizeRepository.findByActivity(testActivity)).thenReturn(List.of(prize(1L, 1)));
+        when(activityRepository.claimWinnerSelection(eq(1L), any())).thenReturn(0);
+
+        assertThrows(LuckyDrawException.class, () -> lotteryService.selectWinners(1L));
+        verify(drawRecordRepository, never()).saveAll(any());
+        verify(prizeRepository, never()).decrementQuantityBy(any(), anyInt());
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.PrizeInventoryBucket;
+import com.example.demoproject.luckydraw.repository.PrizeInventoryBucketRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+class PrizeBucketInventoryTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private PrizeInventoryBucketRepository prizeInventoryBucketRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PrizeBucketInventory prizeBucketInventory;
+
+    private Prize testPrize;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(prizeBucketInventory, "inventoryMode", InventoryMode.BUCKETED);
+        ReflectionTestUtils.setField(prizeBucketInventory, "bucketCount", 4);
+
+        Activity testActivity = new Activity("Test Activity", "Test Description", 10);
+        testActivity.setId(1L);
+        testPrize = new Prize("AirPods Pro", "Wireless earbuds", 10, new BigDecimal("0.5"), testActivity);
+        testPrize.setId(1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void tryDecrementStopsAtFirstNonEmptyBucket() {
+        when(prizeInventoryBucketRepository.decrementIfAvailable(eq(1L), anyInt())).thenReturn(1);
+
+        assertTrue(prizeBucketInventory.tryDecrement(1L));
+
+        verify(prizeInventoryBucketRepository, times(1)).decrementIfAvailable(eq(1L), anyInt());
+    }
+
+    @Test
+    void tryDecrementFallsBackToOtherBuckets() {
+        when(prizeInventoryBucketRepository.decrementIfAvailable(eq(1L), anyInt())).thenReturn(0, 0, 1);
+
+        assertTrue(prizeBucketInventory.tryDecrement(1L));
+
+        ArgumentCaptor<Integer> buckets = ArgumentCaptor.forClass(Integer.class);
+        verify(prizeInventoryBucketRepository, times(3)).decrementIfAvailable(eq(1L), buckets.capture());
+        assertEquals(3, buckets.getAllValues().stream().distinct().count());
+    }
+
+    @Test
+    void tryDecrementFailsWhenEveryBucketIsEmpty() {
+        when(prizeInventoryBucketRepository.decrementIfAvailable(eq(1L), anyInt())).thenReturn(0);
+
+        assertFalse(prizeBucketInventory.tryDecrement(1L));
+
+        verify(prizeInventoryBucketRepository, times(4)).decrementIfAvailable(eq(1L), anyInt());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resizeSpreadsQuantityEvenly() {
+        runTransactionsInline();
+        when(prizeInventoryBucketRepository.findByPrizeIdOrderByBucketIndex(1L)).thenReturn(Collections.emptyList());
+
+        prizeBucketInventory.resize(1L, 10);
+
+        ArgumentCaptor<List<PrizeInventoryBucket>> saved = ArgumentCaptor.forClass(List.class);
+        verify(prizeInventoryBucketRepository).saveAll(saved.capture());
+        assertEquals(List.of(3, 3, 2, 2), saved.getValue().stream().map(PrizeInventoryBucket::getQuantity).toList());
+        assertEquals(List.of(0, 1, 2, 3), saved.getValue().stream().map(PrizeInventoryBucket::getBucketIndex).toList());
+    }
+
+    @Test
+    void resizeUpdatesExistingBucketsInPlace() {
+        runTransactionsInline();
+        List<PrizeInventoryBucket> existing = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            existing.add(new PrizeInventoryBucket(1L, i, 1));
+        }
+        when(prizeInventoryBucketRepository.findByPrizeIdOrderByBucketIndex(1L)).thenReturn(existing);
+
+        prizeBucketInventory.resize(1L, 6);
+
+        verify(prizeInventoryBucketRepository, never()).deleteAllInBatch(any());
+        verify(prizeInventoryBucketRepository).saveAll(existing);
+        assertEquals(List.of(2, 2, 1, 1), existing.stream().map(PrizeInventoryBucket::getQuantity).toList());
+    }
+
+    @Test
+    void getRemainingSumsBuckets() {
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 7L});
+        when(prizeInventoryBucketRepository.sumQuantityByPrizeIds(List.of(1L, 2L))).thenReturn(rows);
+
+        Map<Long, Integer> remaining = prizeBucketInventory.getRemaining(List.of(1L, 2L));
+
+        assertEquals(Map.of(1L, 7), remaining);
+    }
+
+    @Test
+    void initializeSplitsOnlyPrizesWithoutBuckets() {
+        runTransactionsInline();
+        Prize splitPrize = new Prize("iPad Pro", "Tablet", 4, new BigDecimal("0.1"), testPrize.getActivity());
+        splitPrize.setId(2L);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{2L, 4L});
+        when(prizeRepository.findAll()).thenReturn(List.of(testPrize, splitPrize));
+        when(prizeInventoryBucketRepository.countBucketsByPrizeId()).thenReturn(rows);
+        when(prizeInventoryBucketRepository.findByPrizeIdOrderByBucketIndex(1L)).thenReturn(Collections.emptyList());
+
+        prizeBucketInventory.initialize();
+
+        verify(prizeInventoryBucketRepository).findByPrizeIdOrderByBucketIndex(1L);
+        verify(prizeInventoryBucketRepository, never()).findByPrizeIdOrderByBucketIndex(2L);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void initializeResplitsPrizesWithAnotherBucketCount() {
+        runTransactionsInline();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 8L});
+        // Split into 8 buckets before the count was lowered to 4; 2 units sit above the new count
+        List<PrizeInventoryBucket> existing = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            existing.add(new PrizeInventoryBucket(1L, i, i < 6 ? 1 : 0));
+        }
+        when(prizeInventoryBucketRepository.countBucketsByPrizeId()).thenReturn(rows);
+        when(prizeRepository.findAll()).thenReturn(List.of(testPrize));
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        when(prizeInventoryBucketRepository.findByPrizeIdWithLock(1L)).thenReturn(existing);
+        when(prizeInventoryBucketRepository.findByPrizeIdOrderByBucketIndex(1L)).thenReturn(existing);
+
+        prizeBucketInventory.initialize();
+
+        // 4 of the 10 units of the last split were won; the 6 left are spread over 4 buckets
+        assertEquals(6, testPrize.getQuantity());
+        assertEquals(4, testPrize.getAwardedCount());
+        verify(prizeInventoryBucketRepository).deleteAllInBatch(existing);
+        ArgumentCaptor<List<PrizeInventoryBucket>> saved = ArgumentCaptor.forClass(List.class);
+        verify(prizeInventoryBucketRepository).saveAll(saved.capture());
+        assertEquals(List.of(2, 2, 1, 1), saved.getValue().stream().map(PrizeInventoryBucket::getQuantity).toList());
+    }
+
+    @Test
+    void initializeFoldsBucketsBackWhenDisabled() {
+        ReflectionTestUtils.setField(prizeBucketInventory, "inventoryMode", InventoryMode.CONDITIONAL_UPDATE);
+        runTransactionsInline();
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{1L, 6L});
+        when(prizeInventoryBucketRepository.count()).thenReturn(4L);
+        when(prizeRepository.findAll()).thenReturn(List.of(testPrize));
+        when(prizeInventoryBucketRepository.sumQuantityByPrizeIds(List.of(1L))).thenReturn(rows);
+
+        prizeBucketInventory.initialize();
+
+        assertEquals(6, testPrize.getQuantity());
+        assertEquals(4, testPrize.getAwardedCount());
+        verify(prizeRepository).saveAll(List.of(testPrize));
+        verify(prizeInventoryBucketRepository).deleteAllInBatch();
+    }
+}
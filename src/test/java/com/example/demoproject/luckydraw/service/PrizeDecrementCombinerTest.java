@@ -0,0 +1,149 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class PrizeDecrementCombinerTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PrizeDecrementCombiner prizeDecrementCombiner;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(prizeDecrementCombiner, "inventoryMode", InventoryMode.COMBINING);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @AfterEach
+    void tearDown() {
+        prizeDecrementCombiner.stop();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void applyCombinesDecrementsOfAPrizeIntoOneUpdate() {
+        when(prizeRepository.decrementQuantityBy(1L, 4)).thenReturn(1);
+        when(prizeRepository.decrementQuantityBy(2L, 1)).thenReturn(1);
+        List<PrizeDecrementCombiner.Decrement> batch = List.of(
+            new PrizeDecrementCombiner.Decrement(1L, 1),
+            new PrizeDecrementCombiner.Decrement(2L, 1),
+            new PrizeDecrementCombiner.Decrement(1L, 3));
+
+        prizeDecrementCombiner.apply(new ArrayList<>(batch));
+
+        assertEquals(1, batch.get(0).getFuture().join());
+        assertEquals(1, batch.get(1).getFuture().join());
+        assertEquals(3, batch.get(2).getFuture().join());
+        verify(prizeRepository, times(2)).decrementQuantityBy(any(), anyInt());
+    }
+
+    @Test
+    void applyHandsOutWhatIsLeftInArrivalOrder() {
+        when(prizeRepository.decrementQuantityBy(1L, 3)).thenReturn(0);
+        when(prizeRepository.findQuantityById(1L)).thenReturn(2);
+        when(prizeRepository.decrementQuantityBy(1L, 2)).thenReturn(1);
+        List<PrizeDecrementCombiner.Decrement> batch = List.of(
+            new PrizeDecrementCombiner.Decrement(1L, 1),
+            new PrizeDecrementCombiner.Decrement(1L, 1),
+            new PrizeDecrementCombiner.Decrement(1L, 1));
+
+        prizeDecrementCombiner.apply(new ArrayList<>(batch));
+
+        assertEquals(List.of(1, 1, 0), batch.stream().map(decrement -> decrement.getFuture().join()).toList());
+    }
+
+    @Test
+    void applyPutsBackUnitsOfAbandonedDecrements() {
+        when(prizeRepository.decrementQuantityBy(1L, 2)).thenReturn(1);
+        PrizeDecrementCombiner.Decrement waiting = new PrizeDecrementCombiner.Decrement(1L, 2);
+        PrizeDecrementCombiner.Decrement restore = new PrizeDecrementCombiner.Decrement(1L, -3);
+
+        prizeDecrementCombiner.apply(new ArrayList<>(List.of(waiting, restore)));
+
+        verify(prizeRepository).restoreQuantity(1L, 3);
+        assertEquals(2, waiting.getFuture().join());
+    }
+
+    @Test
+    void takeWaitsForCombinedUpdate() throws Exception {
+        when(prizeRepository.decrementQuantityBy(eq(1L), anyInt())).thenReturn(1);
+        ReflectionTestUtils.setField(prizeDecrementCombiner, "windowMs", 50L);
+        prizeDecrementCombiner.start();
+
+        ExecutorService callers = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(callers.submit(() -> prizeDecrementCombiner.tryDecrement(1L)));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+        // Eight winners, fewer UPDATEs: at least some of them shared one
+        verify(prizeRepository, atMost(7)).decrementQuantityBy(eq(1L), anyInt());
+    }
+
+    @Test
+    void takeQueuesRestoreWhenDrawRollsBack() throws Exception {
+        when(prizeRepository.decrementQuantityBy(1L, 1)).thenReturn(1);
+        prizeDecrementCombiner.start();
+        TransactionSynchronizationManager.initSynchronization();
+
+        assertTrue(prizeDecrementCombiner.tryDecrement(1L));
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+
+        verify(prizeRepository, timeout(2000)).restoreQuantity(1L, 1);
+    }
+
+    @Test
+    void takeRejectedWhenCombinerIsNotRunning() {
+        assertThrows(LuckyDrawException.class, () -> prizeDecrementCombiner.tryDecrement(1L));
+    }
+}
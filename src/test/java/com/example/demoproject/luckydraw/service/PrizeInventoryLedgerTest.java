@@ -0,0 +1,265 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+class PrizeInventoryLedgerTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private DrawRecordRepository drawRecordRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PrizeInventoryLedger prizeInventoryLedger;
+
+    private Prize testPrize;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(prizeInventoryLedger, "inventoryMode", InventoryMode.LEDGER);
+
+        Activity testActivity = new Activity("Test Activity", "Test Description", 10);
+        testActivity.setId(1L);
+        testPrize = new Prize("AirPods Pro", "Wireless earbuds", 3, new BigDecimal("0.5"), testActivity);
+        testPrize.setId(1L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void tryDecrementStopsAtZero() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+
+        assertTrue(prizeInventoryLedger.tryDecrement(1L));
+        assertTrue(prizeInventoryLedger.tryDecrement(1L));
+        assertTrue(prizeInventoryLedger.tryDecrement(1L));
+        assertFalse(prizeInventoryLedger.tryDecrement(1L));
+
+        assertEquals(0, prizeInventoryLedger.getRemaining(1L));
+        verify(prizeRepository, times(1)).findById(1L);
+    }
+
+    @Test
+    void tryDecrementNeverOversellsUnderConcurrency() throws InterruptedException {
+        testPrize.setQuantity(100);
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+
+        int threads = 16;
+        AtomicInteger granted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < 50; i++) {
+                    if (prizeInventoryLedger.tryDecrement(1L)) {
+                        granted.incrementAndGet();
+                    }
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(100, granted.get());
+        assertEquals(0, prizeInventoryLedger.getRemaining(1L));
+    }
+
+    @Test
+    void takeGrantsWhatIsLeft() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+
+        assertEquals(2, prizeInventoryLedger.take(1L, 2));
+        assertEquals(1, prizeInventoryLedger.take(1L, 5));
+        assertEquals(0, prizeInventoryLedger.take(1L, 5));
+        assertEquals(0, prizeInventoryLedger.getRemaining(1L));
+    }
+
+    @Test
+    void flushWritesAccumulatedDecrementsOnce() {
+        runTransactionsInline();
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        prizeInventoryLedger.tryDecrement(1L);
+        prizeInventoryLedger.tryDecrement(1L);
+
+        prizeInventoryLedger.flush();
+        prizeInventoryLedger.flush();
+
+        verify(prizeRepository, times(1)).applyLedgerDecrement(1L, 2);
+    }
+
+    @Test
+    void flushKeepsDecrementsWhenWriteFails() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        doThrow(new RuntimeException("DB down")).when(transactionTemplate).executeWithoutResult(any());
+        prizeInventoryLedger.tryDecrement(1L);
+
+        prizeInventoryLedger.flush();
+
+        reset(transactionTemplate);
+        runTransactionsInline();
+        prizeInventoryLedger.flush();
+        verify(prizeRepository).applyLedgerDecrement(1L, 1);
+    }
+
+    @Test
+    void flushInRolledBackCallerTransactionKeepsDecrements() {
+        runTransactionsInline();
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        prizeInventoryLedger.tryDecrement(1L);
+
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        try {
+            prizeInventoryLedger.flush();
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.setActualTransactionActive(false);
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        prizeInventoryLedger.flush();
+        verify(prizeRepository, times(2)).applyLedgerDecrement(1L, 1);
+    }
+
+    @Test
+    void reservationOpenAcrossAdminEditIsNotHandedOutTwice() {
+        runTransactionsInline();
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+
+        // A draw takes a unit and has not committed yet
+        List<TransactionSynchronization> draw = inTransaction(() -> assertTrue(prizeInventoryLedger.tryDecrement(1L)));
+
+        // The admin raises the quantity to 5 and the counter is reloaded
+        prizeInventoryLedger.flush();
+        testPrize.setQuantity(5);
+        prizeInventoryLedger.evict(1L);
+        assertEquals(4, prizeInventoryLedger.take(1L, 10));
+        assertEquals(0, prizeInventoryLedger.getRemaining(1L));
+
+        // The draw commits and its decrement reaches the table after the reload
+        draw.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        prizeInventoryLedger.flush();
+        verify(prizeRepository).applyLedgerDecrement(1L, 5);
+        testPrize.setQuantity(0);
+        prizeInventoryLedger.evict(1L);
+        assertEquals(0, prizeInventoryLedger.take(1L, 1));
+    }
+
+    @Test
+    void reloadedCounterLeavesOutUnflushedDecrements() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        assertTrue(prizeInventoryLedger.tryDecrement(1L));
+
+        prizeInventoryLedger.evict(1L);
+
+        assertEquals(2, prizeInventoryLedger.take(1L, 5));
+    }
+
+    @Test
+    void rolledBackDrawGivesUnitsToReloadedCounter() {
+        when(prizeRepository.findById(1L)).thenReturn(Optional.of(testPrize));
+        List<TransactionSynchronization> draw = inTransaction(() -> assertEquals(2, prizeInventoryLedger.take(1L, 2)));
+
+        prizeInventoryLedger.evict(1L);
+        assertEquals(1, prizeInventoryLedger.take(1L, 5));
+        draw.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        assertEquals(2, prizeInventoryLedger.getRemaining(1L));
+    }
+
+    /**
+     * Run a draw in a transaction that stays open; the returned synchronizations complete it
+     */
+    private static List<TransactionSynchronization> inTransaction(Runnable draw) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            draw.run();
+            return TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void flushDoesNothingWhenDisabled() {
+        ReflectionTestUtils.setField(prizeInventoryLedger, "inventoryMode", InventoryMode.PESSIMISTIC_LOCK);
+
+        prizeInventoryLedger.flush();
+
+        verifyNoInteractions(transactionTemplate, prizeRepository);
+    }
+
+    @Test
+    void reconcileReappliesUnflushedAwards() {
+        runTransactionsInline();
+        testPrize.setAwardedCount(5);
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[]{1L, 7L});
+        when(drawRecordRepository.countAwardedByPrize()).thenReturn(counts);
+        when(prizeRepository.findAll()).thenReturn(Collections.singletonList(testPrize));
+
+        prizeInventoryLedger.reconcile();
+
+        verify(prizeRepository).applyLedgerDecrement(1L, 2);
+    }
+
+    @Test
+    void reconcileSkipsPrizesThatAreInStep() {
+        runTransactionsInline();
+        testPrize.setAwardedCount(7);
+        List<Object[]> counts = new ArrayList<>();
+        counts.add(new Object[]{1L, 7L});
+        when(drawRecordRepository.countAwardedByPrize()).thenReturn(counts);
+        when(prizeRepository.findAll()).thenReturn(Collections.singletonList(testPrize));
+
+        prizeInventoryLedger.reconcile();
+
+        verify(prizeRepository, never()).applyLedgerDecrement(any(), anyInt());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+class PrizePacerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 6, 1, 0, 0);
+
+    private PrizePacer prizePacer;
+    private Activity testActivity;
+    private Prize testPrize;
+
+    @BeforeEach
+    void setUp() {
+        prizePacer = new PrizePacer();
+        testActivity = new Activity("Test Activity", "Test Description", 10);
+        testActivity.setId(1L);
+        testActivity.setStartTime(START);
+        testActivity.setEndTime(START.plusDays(10));
+        testActivity.setPaced(true);
+        testPrize = new Prize("iPhone 15 Pro", "Latest iPhone model", 100, new BigDecimal("0.01"), testActivity);
+        testPrize.setId(1L);
+    }
+
+    private void setNow(LocalDateTime now) {
+        ReflectionTestUtils.setField(prizePacer, "clock", Clock.fixed(now.toInstant(ZoneOffset.UTC), ZoneId.of("UTC")));
+    }
+
+    @Test
+    void releasesUnitsEvenlyOverTheWindow() {
+        assertEquals(0, prizePacer.releasedBy(testActivity, testPrize, START.minusHours(1)));
+        assertEquals(0, prizePacer.releasedBy(testActivity, testPrize, START));
+        assertEquals(25, prizePacer.releasedBy(testActivity, testPrize, START.plusDays(2).plusHours(12)));
+        assertEquals(100, prizePacer.releasedBy(testActivity, testPrize, START.plusDays(10)));
+    }
+
+    @Test
+    void acquireGrantsOnlyReleasedUnits() {
+        setNow(START.plusDays(1));
+
+        assertEquals(10, prizePacer.acquire(testActivity, testPrize, 15));
+        assertFalse(prizePacer.tryAcquire(testActivity, testPrize));
+
+        // Unused tokens carry over
+        setNow(START.plusDays(3));
+        assertEquals(20, prizePacer.acquire(testActivity, testPrize, 50));
+    }
+
+    @Test
+    void acquireCountsUnitsAlreadyAwarded() {
+        setNow(START.plusDays(5));
+        testPrize.setQuantity(60);
+        testPrize.setAwardedCount(40);
+
+        assertEquals(10, prizePacer.acquire(testActivity, testPrize, 20));
+    }
+
+    @Test
+    void acquireGrantsEverythingWhenNotPaced() {
+        testActivity.setPaced(false);
+        setNow(START.minusDays(1));
+
+        assertEquals(7, prizePacer.acquire(testActivity, testPrize, 7));
+        assertTrue(prizePacer.tryAcquire(testActivity, testPrize));
+    }
+}
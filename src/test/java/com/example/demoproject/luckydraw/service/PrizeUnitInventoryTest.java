@@ -0,0 +1,170 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.PrizeUnit;
+import com.example.demoproject.luckydraw.repository.PrizeRepository;
+import com.example.demoproject.luckydraw.repository.PrizeUnitRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+class PrizeUnitInventoryTest {
+
+    @Mock
+    private PrizeRepository prizeRepository;
+
+    @Mock
+    private PrizeUnitRepository prizeUnitRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private PrizeUnitInventory prizeUnitInventory;
+
+    @Captor
+    private ArgumentCaptor<List<PrizeUnit>> savedUnits;
+
+    private Prize testPrize;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(prizeUnitInventory, "inventoryMode", InventoryMode.UNIT_ROWS);
+
+        Activity testActivity = new Activity("Test Activity", "Test Description", 10);
+        testActivity.setId(1L);
+        testPrize = new Prize("AirPods Pro", "Wireless earbuds", 10, new BigDecimal("0.5"), testActivity);
+        testPrize.setId(1L);
+    }
+
+    private void runTransactionsInline() {
+        doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    private List<Object[]> rows(Object[]... rows) {
+        return new ArrayList<>(List.of(rows));
+    }
+
+    @Test
+    void claimWithSkipLockedSearchesAllUnitsAndMarksThemClaimed() {
+        ReflectionTestUtils.setField(prizeUnitInventory, "skipLocked", true);
+        PrizeUnit unit = new PrizeUnit(1L);
+        when(prizeUnitRepository.findUnclaimedSkipLocked(1L, PageRequest.of(0, 1))).thenReturn(List.of(unit));
+
+        List<PrizeUnit> claimed = prizeUnitInventory.claim(1L, 1);
+
+        assertEquals(List.of(unit), claimed);
+        assertNotNull(unit.getClaimedAt());
+        verify(prizeUnitRepository, never()).findIdRange(any());
+    }
+
+    @Test
+    void claimWithoutSkipLockedWrapsAroundFromRandomStart() {
+        when(prizeUnitRepository.findIdRange(1L)).thenReturn(rows(new Object[]{100L, 109L}));
+        PrizeUnit first = new PrizeUnit(1L);
+        PrizeUnit second = new PrizeUnit(1L);
+        when(prizeUnitRepository.findUnclaimedIds(eq(1L), anyLong(), eq(Long.MAX_VALUE), any(Pageable.class)))
+            .thenReturn(List.of(109L))
+            .thenReturn(List.of());
+        when(prizeUnitRepository.findUnclaimedIds(eq(1L), eq(Long.MIN_VALUE), anyLong(), eq(PageRequest.of(0, 1))))
+            .thenReturn(List.of(100L));
+        when(prizeUnitRepository.claimIfUnclaimed(anyLong(), any())).thenReturn(1);
+        when(prizeUnitRepository.getReferenceById(109L)).thenReturn(first);
+        when(prizeUnitRepository.getReferenceById(100L)).thenReturn(second);
+
+        List<PrizeUnit> claimed = prizeUnitInventory.claim(1L, 2);
+
+        assertEquals(List.of(first, second), claimed);
+        ArgumentCaptor<Long> start = ArgumentCaptor.forClass(Long.class);
+        verify(prizeUnitRepository).findUnclaimedIds(eq(1L), start.capture(), eq(Long.MAX_VALUE), eq(PageRequest.of(0, 2)));
+        assertTrue(start.getValue() >= 100L && start.getValue() <= 109L);
+    }
+
+    @Test
+    void claimWithoutSkipLockedPassesOverUnitsClaimedByOthers() {
+        when(prizeUnitRepository.findIdRange(1L)).thenReturn(rows(new Object[]{100L, 100L}));
+        PrizeUnit unit = new PrizeUnit(1L);
+        when(prizeUnitRepository.findUnclaimedIds(1L, 100L, Long.MAX_VALUE, PageRequest.of(0, 1)))
+            .thenReturn(List.of(100L));
+        when(prizeUnitRepository.findUnclaimedIds(1L, 101L, Long.MAX_VALUE, PageRequest.of(0, 1)))
+            .thenReturn(List.of(101L));
+        when(prizeUnitRepository.claimIfUnclaimed(eq(100L), any())).thenReturn(0);
+        when(prizeUnitRepository.claimIfUnclaimed(eq(101L), any())).thenReturn(1);
+        when(prizeUnitRepository.getReferenceById(101L)).thenReturn(unit);
+
+        assertEquals(List.of(unit), prizeUnitInventory.claim(1L, 1));
+        verify(prizeUnitRepository, never()).getReferenceById(100L);
+    }
+
+    @Test
+    void claimFindsNothingForPrizeWithoutUnits() {
+        when(prizeUnitRepository.findIdRange(1L)).thenReturn(rows(new Object[]{null, null}));
+
+        assertTrue(prizeUnitInventory.claim(1L, 1).isEmpty());
+        verify(prizeUnitRepository, never()).findUnclaimedIds(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void resizeReplacesUnclaimedUnits() {
+        runTransactionsInline();
+
+        prizeUnitInventory.resize(1L, 3);
+
+        verify(prizeUnitRepository).deleteUnclaimed(1L);
+        verify(prizeUnitRepository).saveAll(savedUnits.capture());
+        assertEquals(3, savedUnits.getValue().size());
+        assertTrue(savedUnits.getValue().stream().allMatch(unit -> unit.getClaimedAt() == null));
+    }
+
+    @Test
+    void getRemainingCountsUnclaimedUnits() {
+        when(prizeUnitRepository.countUnclaimedByPrizeIds(List.of(1L, 2L))).thenReturn(rows(new Object[]{1L, 7L}));
+
+        assertEquals(Map.of(1L, 7), prizeUnitInventory.getRemaining(List.of(1L, 2L)));
+    }
+
+    @Test
+    void initializeFoldsUnitsBackWhenDisabled() {
+        ReflectionTestUtils.setField(prizeUnitInventory, "inventoryMode", InventoryMode.CONDITIONAL_UPDATE);
+        runTransactionsInline();
+        when(prizeUnitRepository.count()).thenReturn(10L);
+        when(prizeRepository.findAll()).thenReturn(List.of(testPrize));
+        when(prizeUnitRepository.countUnclaimedByPrizeIds(List.of(1L))).thenReturn(rows(new Object[]{1L, 6L}));
+        when(prizeUnitRepository.countClaimedByPrizeIds(List.of(1L))).thenReturn(rows(new Object[]{1L, 4L}));
+
+        prizeUnitInventory.initialize();
+
+        assertEquals(6, testPrize.getQuantity());
+        assertEquals(4, testPrize.getAwardedCount());
+        verify(prizeRepository).saveAll(List.of(testPrize));
+        verify(prizeUnitRepository).deleteAllInBatch();
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.InventoryMode;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.entity.Prize;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+@ExtendWith(MockitoExtension.class)
+class SingleStatementDrawCommitTest {
+
+    @Mock
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private SingleStatementDrawCommit singleStatementDrawCommit;
+
+    private Activity testActivity;
+    private Prize testPrize;
+
+    @BeforeEach
+    void setUp() {
+        testActivity = new Activity("Test Activity", "Test Description", 5);
+        testActivity.setId(1L);
+        testPrize = new Prize("AirPods Pro", "Wireless earbuds", 10, new BigDecimal("0.5"), testActivity);
+        testPrize.setId(7L);
+    }
+
+    @Test
+    void enabledOnlyOnPostgresWithConditionalUpdate() {
+        ReflectionTestUtils.setField(singleStatementDrawCommit, "postgres", true);
+        assertFalse(singleStatementDrawCommit.isEnabled(), "off unless configured");
+
+        ReflectionTestUtils.setField(singleStatementDrawCommit, "configured", true);
+        assertTrue(singleStatementDrawCommit.isEnabled());
+
+        ReflectionTestUtils.setField(singleStatementDrawCommit, "postgres", false);
+        assertFalse(singleStatementDrawCommit.isEnabled());
+        ReflectionTestUtils.setField(singleStatementDrawCommit, "postgres", true);
+
+        ReflectionTestUtils.setField(singleStatementDrawCommit, "inventoryMode", InventoryMode.LEDGER);
+        assertFalse(singleStatementDrawCommit.isEnabled());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void commitMapsReturnedRowsToRecords() throws Exception {
+        LocalDateTime drawTime = LocalDateTime.of(2024, 1, 1, 12, 0);
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("prize_id")).thenReturn(7L, 0L);
+        when(rs.wasNull()).thenReturn(false, true);
+        when(rs.getTimestamp("draw_time")).thenReturn(Timestamp.valueOf(drawTime));
+        when(jdbcTemplate.query(eq(SingleStatementDrawCommit.COMMIT_SQL), any(MapSqlParameterSource.class), any(RowMapper.class)))
+            .thenAnswer(invocation -> {
+                RowMapper<DrawRecord> mapper = invocation.getArgument(2);
+                return List.of(mapper.mapRow(rs, 0), mapper.mapRow(rs, 1));
+            });
+
+        List<DrawRecord> records = singleStatementDrawCommit.commit(1L, testActivity, List.of(testPrize), Arrays.asList(testPrize, null));
+
+        assertEquals(2, records.size());
+        assertSame(testPrize, records.get(0).getPrize());
+        assertNull(records.get(1).getPrize());
+        assertEquals(drawTime, records.get(0).getDrawTime());
+
+        ArgumentCaptor<MapSqlParameterSource> params = ArgumentCaptor.forClass(MapSqlParameterSource.class);
+        verify(jdbcTemplate).query(eq(SingleStatementDrawCommit.COMMIT_SQL), params.capture(), any(RowMapper.class));
+        assertEquals(2, params.getValue().getValue("drawCount"));
+        assertEquals(5, params.getValue().getValue("maxDraws"));
+        assertArrayEquals(new Long[]{7L, null}, (Long[]) params.getValue().getValue("outcomes"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void commitReturnsNullWhenNothingWasWritten() {
+        when(jdbcTemplate.query(eq(SingleStatementDrawCommit.COMMIT_SQL), any(MapSqlParameterSource.class), any(RowMapper.class)))
+            .thenReturn(List.of());
+
+        assertNull(singleStatementDrawCommit.commit(1L, testActivity, List.of(testPrize), List.of(testPrize)));
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.constants.ErrorConstants;
+import com.example.demoproject.luckydraw.constants.ExecutionMode;
+import com.example.demoproject.luckydraw.dto.DrawResult;
+import com.example.demoproject.luckydraw.dto.MultipleDrawRequest;
+import com.example.demoproject.luckydraw.dto.MultipleDrawResult;
+import com.example.demoproject.luckydraw.exception.LuckyDrawException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class SingleWriterDrawEngineTest {
+
+    @Mock
+    private DrawExecutionService drawExecutionService;
+
+    @Mock
+    private UserActivityService userActivityService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private DrawMetrics drawMetrics;
+
+    @InjectMocks
+    private SingleWriterDrawEngine singleWriterDrawEngine;
+
+    private MultipleDrawResult thankYou;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "executionMode", ExecutionMode.SINGLE_WRITER);
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "shardCount", 2);
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "timeoutMs", 5000L);
+
+        thankYou = new MultipleDrawResult(List.of(new DrawResult("Thank You", "Better luck next time!", LocalDateTime.now())));
+        when(userActivityService.getCurrentUserId()).thenReturn(1L);
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+            ((TransactionCallback<Object>) invocation.getArgument(0)).doInTransaction(null));
+    }
+
+    @AfterEach
+    void tearDown() {
+        singleWriterDrawEngine.stop();
+    }
+
+    @Test
+    void submitReturnsWorkerResult() {
+        singleWriterDrawEngine.start();
+        MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+        when(drawExecutionService.executeDraws(1L, null, request)).thenReturn(thankYou);
+
+        assertSame(thankYou, singleWriterDrawEngine.submit(request));
+        verify(drawExecutionService).executeDraws(1L, null, request);
+    }
+
+    @Test
+    void submitRethrowsValidationError() {
+        singleWriterDrawEngine.start();
+        MultipleDrawRequest request = new MultipleDrawRequest(1L, 5);
+        when(drawExecutionService.executeDraws(1L, null, request))
+            .thenThrow(new LuckyDrawException(ErrorConstants.ErrorType.USER_MULTIPLE_DRAW_LIMIT_REACHED));
+
+        LuckyDrawException exception = assertThrows(LuckyDrawException.class,
+            () -> singleWriterDrawEngine.submit(request));
+        assertEquals(ErrorConstants.ErrorType.USER_MULTIPLE_DRAW_LIMIT_REACHED.getCode(), exception.getErrorCode());
+        // Validation errors don't roll back the batch
+        verify(transactionTemplate, never()).execute(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBatchIsRetriedOneByOne() throws Exception {
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "shardCount", 1);
+        singleWriterDrawEngine.start();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        MultipleDrawRequest blocking = new MultipleDrawRequest(1L, 1);
+        MultipleDrawRequest failing = new MultipleDrawRequest(2L, 1);
+        when(drawExecutionService.executeDraws(eq(1L), any(), any())).thenAnswer(invocation -> {
+            if (invocation.getArgument(2) == blocking) {
+                firstStarted.countDown();
+                releaseFirst.await();
+            }
+            if (invocation.getArgument(2) == failing) {
+                throw new IllegalStateException("constraint violation");
+            }
+            return thankYou;
+        });
+        // First batch commits, the second one fails as a whole
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).doThrow(new IllegalStateException("commit failed"))
+            .when(transactionTemplate).executeWithoutResult(any());
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        Future<MultipleDrawResult> first = executor.submit(() -> singleWriterDrawEngine.submit(blocking));
+        firstStarted.await();
+        Future<MultipleDrawResult> second = executor.submit(() -> singleWriterDrawEngine.submit(new MultipleDrawRequest(1L, 1)));
+        Future<MultipleDrawResult> third = executor.submit(() -> singleWriterDrawEngine.submit(failing));
+        while ((Integer) singleWriterDrawEngine.getStats().get("queued") < 2) {
+            Thread.sleep(1);
+        }
+        releaseFirst.countDown();
+
+        assertSame(thankYou, first.get());
+        assertSame(thankYou, second.get());
+        ExecutionException exception = assertThrows(ExecutionException.class, third::get);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        assertEquals(1L, singleWriterDrawEngine.getStats().get("batchRetries"));
+        verify(transactionTemplate, times(2)).execute(any());
+        executor.shutdown();
+    }
+
+    @Test
+    void startedDrawIsReturnedEvenAfterTimeout() {
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "timeoutMs", 20L);
+        singleWriterDrawEngine.start();
+        MultipleDrawRequest request = new MultipleDrawRequest(1L, 1);
+        when(drawExecutionService.executeDraws(1L, null, request)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return thankYou;
+        });
+
+        // The draw may commit, so the caller must not be told the system was busy
+        assertSame(thankYou, singleWriterDrawEngine.submit(request));
+    }
+
+    @Test
+    void queuedDrawTimesOutAsBusyAndIsSkipped() throws Exception {
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "shardCount", 1);
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "timeoutMs", 100L);
+        singleWriterDrawEngine.start();
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        MultipleDrawRequest blocking = new MultipleDrawRequest(1L, 1);
+        MultipleDrawRequest queued = new MultipleDrawRequest(1L, 1);
+        when(drawExecutionService.executeDraws(1L, null, blocking)).thenAnswer(invocation -> {
+            firstStarted.countDown();
+            releaseFirst.await();
+            return thankYou;
+        });
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<MultipleDrawResult> first = executor.submit(() -> singleWriterDrawEngine.submit(blocking));
+        firstStarted.await();
+        LuckyDrawException exception = assertThrows(LuckyDrawException.class,
+            () -> singleWriterDrawEngine.submit(queued));
+        releaseFirst.countDown();
+
+        assertEquals(ErrorConstants.ErrorType.SYSTEM_BUSY.getCode(), exception.getErrorCode());
+        assertSame(thankYou, first.get());
+        // Same shard, so the timed out request has been dequeued once this one completes
+        assertSame(thankYou, singleWriterDrawEngine.submit(blocking));
+        verify(drawExecutionService, never()).executeDraws(1L, null, queued);
+        executor.shutdown();
+    }
+
+    @Test
+    void concurrentSubmitsAreBatchedAndAllComplete() throws Exception {
+        singleWriterDrawEngine.start();
+        when(drawExecutionService.executeDraws(eq(1L), any(), any())).thenAnswer(invocation -> {
+            Thread.sleep(1);
+            return thankYou;
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<MultipleDrawResult>> futures = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            MultipleDrawRequest request = new MultipleDrawRequest((long) (i % 3) + 1, 1);
+            futures.add(executor.submit(() -> singleWriterDrawEngine.submit(request)));
+        }
+        for (Future<MultipleDrawResult> future : futures) {
+            assertSame(thankYou, future.get());
+        }
+        executor.shutdown();
+
+        Map<String, Object> stats = singleWriterDrawEngine.getStats();
+        assertEquals(0L, stats.get("rejected"));
+        assertTrue((Long) stats.get("batches") < 200, "requests should share batches");
+        verify(drawExecutionService, times(200)).executeDraws(eq(1L), any(), any());
+    }
+
+    @Test
+    void submitForSoldOutActivityIsRejectedBeforeQueueing() {
+        singleWriterDrawEngine.start();
+        doThrow(new LuckyDrawException(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE))
+            .when(drawExecutionService).rejectIfSoldOut(1L);
+
+        LuckyDrawException exception = assertThrows(LuckyDrawException.class,
+            () -> singleWriterDrawEngine.submit(new MultipleDrawRequest(1L, 1)));
+        assertEquals(ErrorConstants.ErrorType.NO_PRIZES_AVAILABLE.getCode(), exception.getErrorCode());
+        verify(drawExecutionService, never()).executeDraws(any(), any(), any());
+    }
+
+    @Test
+    void submitWhenDisabledIsRejected() {
+        ReflectionTestUtils.setField(singleWriterDrawEngine, "executionMode", ExecutionMode.DIRECT);
+        singleWriterDrawEngine.start();
+
+        LuckyDrawException exception = assertThrows(LuckyDrawException.class,
+            () -> singleWriterDrawEngine.submit(new MultipleDrawRequest(1L, 1)));
+        assertEquals(ErrorConstants.ErrorType.SYSTEM_BUSY.getCode(), exception.getErrorCode());
+        verifyNoInteractions(drawExecutionService);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.demoproject.luckydraw.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import com.example.demoproject.luckydraw.entity.TicketRoll;
+import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
+import com.example.demoproject.luckydraw.repository.TicketRollRepository;
+import com.example.demoproject.luckydraw.repository.TicketRollSlotRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+@ExtendWith(MockitoExtension.class)
+class TicketRollServiceTest {
+
+    @Mock
+    private TicketRollRepository ticketRollRepository;
+
+    @Mock
+    private TicketRollSlotRepository ticketRollSlotRepository;
+
+    @Mock
+    private DrawRecordRepository drawRecordRepository;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private TicketRollService ticketRollService;
+
+    private List<Prize> testPrizes;
+
+    @BeforeEach
+    void setUp() {
+        Activity testActivity = new Activity("Test Activity", "Test Description", 10);
+        testActivity.setId(1L);
+        Prize iphone = new Prize("iPhone 15 Pro", "Latest iPhone model", 5, new BigDecimal("0.05"), testActivity);
+        iphone.setId(1L);
+        Prize airpods = new Prize("AirPods Pro", "Wireless earbuds", 20, new BigDecimal("0.50"), testActivity);
+        airpods.setId(2L);
+        testPrizes = List.of(iphone, airpods);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void openRoll(int size) {
+        doAnswer(invocation -> {
+            ((Consumer<TransactionStatus>) invocation.getArgument(0)).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        ticketRollService.open(1L, size, testPrizes);
+    }
+
+    @Test
+    void generateMatchesProbabilitiesCappedByQuantity() {
+        long[] outcomes = ticketRollService.generate(100, testPrizes);
+
+        // iPhone: 0.05 x 100 = 5 units; AirPods: 0.50 x 100 = 50, capped at 20
+        assertEquals(5, Arrays.stream(outcomes).filter(id -> id == 1L).count());
+        assertEquals(20, Arrays.stream(outcomes).filter(id -> id == 2L).count());
+        assertEquals(75, Arrays.stream(outcomes).filter(id -> id == 0L).count());
+    }
+
+    @Test
+    void openPersistsRollAndEnablesActivity() {
+        openRoll(100);
+
+        assertTrue(ticketRollService.isEnabled(1L));
+        assertFalse(ticketRollService.isEnabled(2L));
+        verify(ticketRollRepository).save(any(TicketRoll.class));
+        verify(ticketRollSlotRepository).saveAll(argThat(slots -> ((List<?>) slots).size() == 100));
+        assertEquals(Map.of(1L, 5, 2L, 20), ticketRollService.getRemaining(1L));
+    }
+
+    @Test
+    void openTwiceIsRejected() {
+        when(ticketRollRepository.existsByActivityId(1L)).thenReturn(true);
+
+        assertThrows(IllegalStateException.class, () -> openRoll(100));
+        assertFalse(ticketRollService.isEnabled(1L));
+    }
+
+    @Test
+    void claimHandsOutEveryPositionOnceThenStops() {
+        openRoll(10);
+
+        Set<Integer> positions = new HashSet<>();
+        ticketRollService.claim(1L, 4).forEach(claim -> positions.add(claim.getPosition()));
+        ticketRollService.claim(1L, 4).forEach(claim -> positions.add(claim.getPosition()));
+        List<TicketRollService.Claim> last = ticketRollService.claim(1L, 4);
+
+        assertEquals(2, last.size());
+        last.forEach(claim -> positions.add(claim.getPosition()));
+        assertEquals(10, positions.size());
+        assertTrue(ticketRollService.claim(1L, 1).isEmpty());
+        assertTrue(ticketRollService.getRemaining(1L).isEmpty());
+    }
+
+    @Test
+    void claimIsReturnedWhenTransactionRollsBack() {
+        openRoll(2);
+        TransactionSynchronizationManager.initSynchronization();
+
+        TicketRollService.Claim claim = ticketRollService.claim(1L, 1).get(0);
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        List<TicketRollService.Claim> next = ticketRollService.claim(1L, 2);
+        assertEquals(2, next.size());
+        assertEquals(claim.getPosition(), next.get(0).getPosition());
+    }
+
+    @Test
+    void loadResumesAfterCommittedPositionsAndReusesGaps() {
+        TicketRoll roll = new TicketRoll(1L, 5);
+        when(ticketRollRepository.findAll()).thenReturn(List.of(roll));
+        when(ticketRollSlotRepository.findOutcomesByActivityId(1L)).thenReturn(Arrays.asList(1L, null, 2L, null, 2L));
+        // Position 1 was claimed by a draw that never committed
+        when(drawRecordRepository.findRollPositionsByActivityId(1L)).thenReturn(List.of(0, 2));
+
+        ticketRollService.load();
+
+        assertTrue(ticketRollService.isEnabled(1L));
+        assertEquals(Map.of(2L, 1), ticketRollService.getRemaining(1L));
+        List<TicketRollService.Claim> claims = ticketRollService.claim(1L, 5);
+        assertEquals(List.of(1, 3, 4), claims.stream().map(TicketRollService.Claim::getPosition).toList());
+        assertNull(claims.get(0).getPrizeId());
+        assertEquals(2L, claims.get(2).getPrizeId());
+    }
+}
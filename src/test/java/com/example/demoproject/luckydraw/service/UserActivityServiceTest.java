@@ -4,8 +4,6 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import com.example.demoproject.luckydraw.entity.Activity;
-import com.example.demoproject.luckydraw.repository.ActivityRepository;
-import com.example.demoproject.luckydraw.repository.DrawRecordRepository;
 import com.example.demoproject.auth.entity.User;
 import com.example.demoproject.auth.repository.AuthUserRepository;
 import com.example.demoproject.luckydraw.dto.UserActivityInfo;
@@ -30,10 +28,10 @@ class UserActivityServiceTest {
     private AuthUserRepository authUserRepository;
 
     @Mock
-    private ActivityRepository activityRepository;
+    private DrawMetadataCache drawMetadataCache;
 
     @Mock
-    private DrawRecordRepository drawRecordRepository;
+    private DrawQuotaService drawQuotaService;
 
     @Mock
     private Authentication authentication;
@@ -101,8 +99,8 @@ class UserActivityServiceTest {
         
         when(authentication.getDetails()).thenReturn(authDetails);
         when(authUserRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(activityRepository.findById(activityId)).thenReturn(Optional.of(testActivity));
-        when(drawRecordRepository.countByUserAndActivity(testUser, testActivity)).thenReturn((long) currentDraws);
+        when(drawMetadataCache.getActivity(activityId)).thenReturn(testActivity);
+        when(drawQuotaService.getUsedDraws(userId, activityId)).thenReturn(currentDraws);
 
         UserActivityInfo result = userActivityService.getUserActivityInfo(activityId);
 
@@ -115,8 +113,8 @@ class UserActivityServiceTest {
 
         verify(authentication).getDetails();
         verify(authUserRepository).findById(userId);
-        verify(activityRepository).findById(activityId);
-        verify(drawRecordRepository).countByUserAndActivity(testUser, testActivity);
+        verify(drawMetadataCache).getActivity(activityId);
+        verify(drawQuotaService).getUsedDraws(userId, activityId);
     }
 
     @Test
@@ -135,8 +133,8 @@ class UserActivityServiceTest {
 
         verify(authentication).getDetails();
         verify(authUserRepository).findById(userId);
-        verify(activityRepository, never()).findById(any());
-        verify(drawRecordRepository, never()).countByUserAndActivity(any(), any());
+        verify(drawMetadataCache, never()).getActivity(any());
+        verify(drawQuotaService, never()).getUsedDraws(any(), any());
     }
 
     @Test
@@ -146,7 +144,7 @@ class UserActivityServiceTest {
         
         when(authentication.getDetails()).thenReturn(authDetails);
         when(authUserRepository.findById(userId)).thenReturn(Optional.of(testUser));
-        when(activityRepository.findById(activityId)).thenReturn(Optional.empty());
+        when(drawMetadataCache.getActivity(activityId)).thenThrow(new IllegalArgumentException("Activity not found"));
 
         IllegalArgumentException exception = assertThrows(IllegalArgumentException.class, 
             () -> userActivityService.getUserActivityInfo(activityId));
@@ -154,7 +152,7 @@ class UserActivityServiceTest {
 
         verify(authentication).getDetails();
         verify(authUserRepository).findById(userId);
-        verify(activityRepository).findById(activityId);
-        verify(drawRecordRepository, never()).countByUserAndActivity(any(), any());
+        verify(drawMetadataCache).getActivity(activityId);
+        verify(drawQuotaService, never()).getUsedDraws(any(), any());
     }
 }
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.example.demoproject.luckydraw.util;
+
+import com.example.demoproject.auth.entity.User;
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.DrawRecord;
+import com.example.demoproject.luckydraw.entity.Prize;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DrawJournalSegmentTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void readReturnsAppendedRecords() throws IOException {
+        Path file = dir.resolve("1.journal");
+        DrawRecord win = record(7L, 3L, 11L);
+        win.setDrawTime(LocalDateTime.of(2024, 5, 1, 12, 30, 15, 123456789));
+        DrawRecord blank = record(8L, 3L, null);
+        blank.setRollPosition(42);
+
+        try (DrawJournalSegment segment = DrawJournalSegment.create(file, 1L, 4096)) {
+            assertTrue(segment.append(win));
+            assertTrue(segment.append(blank));
+            segment.force();
+            assertEquals(2, segment.getFrames());
+        }
+
+        List<DrawJournalSegment.Frame> frames = DrawJournalSegment.read(file);
+        assertEquals(2, frames.size());
+        assertEquals(7L, frames.get(0).getUserId());
+        assertEquals(3L, frames.get(0).getActivityId());
+        assertEquals(11L, frames.get(0).getPrizeId());
+        assertEquals(win.getDrawTime(), frames.get(0).getDrawTime());
+        assertNull(frames.get(0).getRollPosition());
+        assertNull(frames.get(1).getPrizeId());
+        assertEquals(42, frames.get(1).getRollPosition());
+    }
+
+    @Test
+    void appendReturnsFalseWhenSegmentIsFull() throws IOException {
+        try (DrawJournalSegment segment = DrawJournalSegment.create(dir.resolve("1.journal"), 1L, 8 + 2 * DrawJournalSegment.FRAME_BYTES)) {
+            assertEquals(2, segment.getRemainingFrames());
+            assertTrue(segment.append(record(1L, 1L, null)));
+            assertTrue(segment.append(record(2L, 1L, null)));
+            assertFalse(segment.append(record(3L, 1L, null)));
+            assertEquals(2, segment.getFrames());
+        }
+    }
+
+    @Test
+    void readStopsAtTornFrame() throws IOException {
+        Path file = dir.resolve("1.journal");
+        try (DrawJournalSegment segment = DrawJournalSegment.create(file, 1L, 4096)) {
+            segment.append(record(1L, 1L, 5L));
+            segment.append(record(2L, 1L, 5L));
+            segment.append(record(3L, 1L, 5L));
+            segment.force();
+        }
+        // Corrupt the user ID of the second frame, as a crash during the write would
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.seek(8 + DrawJournalSegment.FRAME_BYTES + 8);
+            raf.writeLong(99L);
+        }
+
+        List<DrawJournalSegment.Frame> frames = DrawJournalSegment.read(file);
+
+        assertEquals(1, frames.size());
+        assertEquals(1L, frames.get(0).getUserId());
+    }
+
+    @Test
+    void readSkipsVoidedFrames() throws IOException {
+        Path file = dir.resolve("1.journal");
+        try (DrawJournalSegment segment = DrawJournalSegment.create(file, 1L, 4096)) {
+            segment.append(record(1L, 1L, 5L));
+            segment.append(record(2L, 1L, 5L));
+            segment.append(record(3L, 1L, 5L));
+            segment.append(record(4L, 1L, 5L));
+            segment.voidFrames(1, 2);
+            segment.force();
+        }
+
+        List<DrawJournalSegment.Frame> frames = DrawJournalSegment.read(file);
+
+        assertEquals(List.of(1L, 4L), frames.stream().map(DrawJournalSegment.Frame::getUserId).toList());
+    }
+
+    @Test
+    void readRejectsOtherFiles() throws IOException {
+        Path file = dir.resolve("other.journal");
+        Files.write(file, new byte[64]);
+
+        assertThrows(IOException.class, () -> DrawJournalSegment.read(file));
+    }
+
+    private static DrawRecord record(Long userId, Long activityId, Long prizeId) {
+        User user = new User();
+        user.setId(userId);
+        Activity activity = new Activity("Activity", "Description", 5);
+        activity.setId(activityId);
+        Prize prize = null;
+        if (prizeId != null) {
+            prize = new Prize("Prize", "Description", 1, new BigDecimal("0.5"), activity);
+            prize.setId(prizeId);
+        }
+        return new DrawRecord(user, activity, prize);
+    }
+}
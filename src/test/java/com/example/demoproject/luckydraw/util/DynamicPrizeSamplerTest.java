@@ -0,0 +1,200 @@
+package com.example.demoproject.luckydraw.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+class DynamicPrizeSamplerTest {
+
+    private static final int GRID = 1_000_000;
+
+    private Activity testActivity;
+
+    @BeforeEach
+    void setUp() {
+        testActivity = new Activity();
+        testActivity.setId(1L);
+    }
+
+    private Prize prize(long id, String probability) {
+        Prize prize = new Prize("Prize " + id, "Description " + id, 10, new BigDecimal(probability), testActivity);
+        prize.setId(id);
+        return prize;
+    }
+
+    /**
+     * Sweep an even grid over [0, 1) so the measured share of each slot is deterministic
+     */
+    private double[] slotShares(DynamicPrizeSampler sampler) {
+        double[] shares = new double[sampler.size() + 1];
+        for (int i = 0; i < GRID; i++) {
+            shares[sampler.sample((i + 0.5) / GRID)]++;
+        }
+        for (int i = 0; i < shares.length; i++) {
+            shares[i] /= GRID;
+        }
+        return shares;
+    }
+
+    @Test
+    void sampleMatchesConfiguredProbabilitiesIncludingThankYou() {
+        List<Prize> prizes = Arrays.asList(prize(1L, "0.05"), prize(2L, "0.10"), prize(3L, "0.15"));
+
+        double[] shares = slotShares(DynamicPrizeSampler.build(prizes));
+
+        assertEquals(0.05, shares[0], 1e-5);
+        assertEquals(0.10, shares[1], 1e-5);
+        assertEquals(0.15, shares[2], 1e-5);
+        assertEquals(0.70, shares[3], 1e-5);
+    }
+
+    @Test
+    void sampleTruncatesLikeCumulativeMethodWhenTotalExceedsOne() {
+        List<Prize> prizes = Arrays.asList(prize(1L, "0.6"), prize(2L, "0.6"), prize(3L, "0.2"));
+
+        double[] shares = slotShares(DynamicPrizeSampler.build(prizes));
+
+        assertEquals(0.6, shares[0], 1e-5);
+        assertEquals(0.4, shares[1], 1e-5);
+        assertEquals(0.0, shares[2], 1e-5);
+        assertEquals(0.0, shares[3], 1e-5);
+    }
+
+    @Test
+    void segmentMultipliersScaleProbabilitiesAndThankYouTakesTheRest() {
+        List<Prize> prizes = Arrays.asList(prize(1L, "0.05"), prize(2L, "0.10"), prize(3L, "0.15"));
+        Map<Long, BigDecimal> vip = Map.of(1L, new BigDecimal("3"), 3L, new BigDecimal("0.5"));
+
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(prizes, vip);
+        double[] shares = slotShares(sampler);
+
+        assertEquals(0.15, shares[0], 1e-5);
+        assertEquals(0.10, shares[1], 1e-5);
+        assertEquals(0.075, shares[2], 1e-5);
+        assertEquals(0.675, shares[3], 1e-5);
+        assertTrue(sampler.isBuiltWith(vip));
+        assertFalse(sampler.isBuiltWith(Map.of(1L, new BigDecimal("3"), 3L, new BigDecimal("0.5"))));
+    }
+
+    @Test
+    void soldOutPrizeSharesItsProbabilityWithTheRest() {
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(
+            Arrays.asList(prize(1L, "0.2"), prize(2L, "0.2"), prize(3L, "0.1")));
+
+        assertTrue(sampler.setInStock(1L, false));
+        double[] shares = slotShares(sampler);
+
+        assertEquals(0.0, shares[0], 1e-9);
+        assertEquals(0.25, shares[1], 1e-5);
+        assertEquals(0.125, shares[2], 1e-5);
+        assertEquals(0.625, shares[3], 1e-5);
+
+        sampler.setInStock(1L, true);
+        assertEquals(0.2, slotShares(sampler)[0], 1e-5);
+    }
+
+    @Test
+    void buildStartsPrizesWithoutQuantitySoldOut() {
+        Prize empty = prize(1L, "1.0");
+        empty.setQuantity(0);
+
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(Collections.singletonList(empty));
+
+        assertFalse(sampler.isInStock(0));
+        assertEquals(sampler.getBlankSlot(), sampler.sample(0.5));
+    }
+
+    @Test
+    void sampleBlankWhenEverythingIsSoldOutAndThankYouHasNoWeight() {
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(Arrays.asList(prize(1L, "0.5"), prize(2L, "0.5")));
+
+        sampler.setInStock(1L, false);
+        sampler.setInStock(2L, false);
+
+        assertEquals(sampler.getBlankSlot(), sampler.sample(0.0));
+        assertEquals(sampler.getBlankSlot(), sampler.sample(0.9999999));
+        assertArrayEquals(new int[]{0, 0, 7}, sampler.sampleCounts(7, new Random(1)));
+    }
+
+    @Test
+    void soldOutOnlyWhenNoPrizeIsLeft() {
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(Arrays.asList(prize(1L, "0.1"), prize(2L, "0")));
+        assertFalse(sampler.isSoldOut());
+
+        sampler.setInStock(1L, false);
+        assertFalse(sampler.isSoldOut());
+        sampler.setInStock(2L, false);
+        assertTrue(sampler.isSoldOut());
+
+        sampler.setInStock(2L, true);
+        assertFalse(sampler.isSoldOut());
+    }
+
+    @Test
+    void setInStockIgnoresUnknownPrize() {
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(Collections.singletonList(prize(1L, "0.5")));
+
+        assertFalse(sampler.setInStock(99L, false));
+        assertTrue(sampler.isInStock(0));
+    }
+
+    @Test
+    void refreshTakesStockFromReloadedList() {
+        Prize first = prize(1L, "0.3");
+        Prize second = prize(2L, "0.3");
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(Arrays.asList(first, second));
+        sampler.setInStock(1L, false);
+
+        Prize reloadedFirst = prize(1L, "0.3");
+        Prize reloadedSecond = prize(2L, "0.3");
+        reloadedSecond.setQuantity(0);
+        assertTrue(sampler.refresh(Arrays.asList(reloadedFirst, reloadedSecond)));
+
+        assertTrue(sampler.isInStock(0));
+        assertFalse(sampler.isInStock(1));
+        assertFalse(sampler.refresh(Arrays.asList(reloadedSecond, reloadedFirst)));
+    }
+
+    @Test
+    void sampleCountsSkipSoldOutPrizesAndAddUpToDrawCount() {
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(
+            Arrays.asList(prize(1L, "0.05"), prize(2L, "0.10"), prize(3L, "0.15")));
+        sampler.setInStock(2L, false);
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100; i++) {
+            int[] counts = sampler.sampleCounts(500, random);
+            assertEquals(0, counts[1]);
+            assertEquals(500, Arrays.stream(counts).sum());
+        }
+    }
+
+    @Test
+    void sampleStaysLogarithmicWithThousandsOfPrizes() {
+        List<Prize> prizes = new ArrayList<>();
+        for (long id = 1; id <= 5000; id++) {
+            prizes.add(prize(id, "0.0001"));
+        }
+        DynamicPrizeSampler sampler = DynamicPrizeSampler.build(prizes);
+
+        // Sell out every prize but the last; its share of the prize mass is all that is left
+        for (long id = 1; id < 5000; id++) {
+            sampler.setInStock(id, false);
+        }
+        double[] shares = slotShares(sampler);
+
+        assertEquals(0.0001 / 0.5001, shares[4999], 1e-5);
+        assertEquals(0.5 / 0.5001, shares[5000], 1e-5);
+    }
+}
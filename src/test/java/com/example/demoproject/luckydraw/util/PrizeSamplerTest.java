@@ -0,0 +1,169 @@
+package com.example.demoproject.luckydraw.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import com.example.demoproject.luckydraw.entity.Activity;
+import com.example.demoproject.luckydraw.entity.Prize;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+class PrizeSamplerTest {
+
+    private static final int GRID = 1_000_000;
+
+    private Activity testActivity;
+
+    @BeforeEach
+    void setUp() {
+        testActivity = new Activity();
+        testActivity.setId(1L);
+    }
+
+    private Prize prize(long id, String probability) {
+        Prize prize = new Prize("Prize " + id, "Description " + id, 10, new BigDecimal(probability), testActivity);
+        prize.setId(id);
+        return prize;
+    }
+
+    /**
+     * Sweep an even grid over [0, 1) so the measured share of each slot is deterministic
+     */
+    private double[] slotShares(PrizeSampler sampler) {
+        double[] shares = new double[sampler.size() + 1];
+        for (int i = 0; i < GRID; i++) {
+            shares[sampler.sample((i + 0.5) / GRID)]++;
+        }
+        for (int i = 0; i < shares.length; i++) {
+            shares[i] /= GRID;
+        }
+        return shares;
+    }
+
+    @Test
+    void sampleMatchesConfiguredProbabilitiesIncludingThankYou() {
+        List<Prize> prizes = Arrays.asList(prize(1L, "0.05"), prize(2L, "0.10"), prize(3L, "0.15"));
+
+        double[] shares = slotShares(PrizeSampler.build(prizes));
+
+        assertEquals(0.05, shares[0], 1e-5);
+        assertEquals(0.10, shares[1], 1e-5);
+        assertEquals(0.15, shares[2], 1e-5);
+        assertEquals(0.70, shares[3], 1e-5);
+    }
+
+    @Test
+    void sampleTruncatesLikeCumulativeMethodWhenTotalExceedsOne() {
+        List<Prize> prizes = Arrays.asList(prize(1L, "0.6"), prize(2L, "0.6"), prize(3L, "0.2"));
+
+        double[] shares = slotShares(PrizeSampler.build(prizes));
+
+        assertEquals(0.6, shares[0], 1e-5);
+        assertEquals(0.4, shares[1], 1e-5);
+        assertEquals(0.0, shares[2], 1e-5);
+        assertEquals(0.0, shares[3], 1e-5);
+    }
+
+    @Test
+    void sampleAlwaysBlankWhenAllProbabilitiesAreZero() {
+        PrizeSampler sampler = PrizeSampler.build(Arrays.asList(prize(1L, "0"), prize(2L, "0")));
+
+        assertEquals(sampler.getBlankSlot(), sampler.sample(0.0));
+        assertEquals(sampler.getBlankSlot(), sampler.sample(0.5));
+        assertEquals(sampler.getBlankSlot(), sampler.sample(0.9999999));
+    }
+
+    @Test
+    void sampleNeverBlankWhenProbabilitiesSumToOne() {
+        PrizeSampler sampler = PrizeSampler.build(Arrays.asList(prize(1L, "0.25"), prize(2L, "0.75")));
+
+        double[] shares = slotShares(sampler);
+
+        assertEquals(0.25, shares[0], 1e-5);
+        assertEquals(0.75, shares[1], 1e-5);
+        assertEquals(0.0, shares[2], 1e-9);
+    }
+
+    @Test
+    void buildEmptyListOnlyHasBlankSlot() {
+        PrizeSampler sampler = PrizeSampler.build(Collections.emptyList());
+
+        assertEquals(0, sampler.size());
+        assertEquals(0, sampler.sample(0.42));
+    }
+
+    @Test
+    void isSlotForDetectsReorderedPrizes() {
+        Prize first = prize(1L, "0.1");
+        Prize second = prize(2L, "0.2");
+        PrizeSampler sampler = PrizeSampler.build(Arrays.asList(first, second));
+
+        assertTrue(sampler.isSlotFor(0, first));
+        assertFalse(sampler.isSlotFor(0, second));
+    }
+
+    @Test
+    void matchesDetectsReorderedPrizes() {
+        Prize first = prize(1L, "0.1");
+        Prize second = prize(2L, "0.2");
+        PrizeSampler sampler = PrizeSampler.build(Arrays.asList(first, second));
+
+        assertTrue(sampler.matches(Arrays.asList(first, second)));
+        assertFalse(sampler.matches(Arrays.asList(second, first)));
+        assertFalse(sampler.matches(Collections.singletonList(first)));
+    }
+
+    @Test
+    void sampleCountsAddUpToDrawCount() {
+        PrizeSampler sampler = PrizeSampler.build(Arrays.asList(prize(1L, "0.05"), prize(2L, "0.10"), prize(3L, "0.15")));
+        Random random = new Random(42);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(500, Arrays.stream(sampler.sampleCounts(500, random)).sum());
+        }
+    }
+
+    @Test
+    void sampleCountsMatchConfiguredProbabilitiesOnAverage() {
+        PrizeSampler sampler = PrizeSampler.build(Arrays.asList(prize(1L, "0.05"), prize(2L, "0.10"), prize(3L, "0.60")));
+        Random random = new Random(7);
+        long[] totals = new long[4];
+        int rounds = 2000;
+
+        for (int i = 0; i < rounds; i++) {
+            int[] counts = sampler.sampleCounts(500, random);
+            for (int slot = 0; slot < counts.length; slot++) {
+                totals[slot] += counts[slot];
+            }
+        }
+
+        double draws = rounds * 500.0;
+        assertEquals(0.05, totals[0] / draws, 0.002);
+        assertEquals(0.10, totals[1] / draws, 0.002);
+        assertEquals(0.60, totals[2] / draws, 0.002);
+        assertEquals(0.25, totals[3] / draws, 0.002);
+    }
+
+    @Test
+    void sampleCountsAllBlankWhenProbabilitiesAreZero() {
+        PrizeSampler sampler = PrizeSampler.build(Arrays.asList(prize(1L, "0"), prize(2L, "0")));
+
+        assertArrayEquals(new int[]{0, 0, 500}, sampler.sampleCounts(500, new Random(1)));
+    }
+
+    @Test
+    void binomialHandlesEdgeProbabilities() {
+        Random random = new Random(3);
+
+        assertEquals(0, PrizeSampler.binomial(100, 0.0, random));
+        assertEquals(100, PrizeSampler.binomial(100, 1.0, random));
+        assertEquals(0, PrizeSampler.binomial(0, 0.5, random));
+        int sample = PrizeSampler.binomial(100, 0.9, random);
+        assertTrue(sample >= 0 && sample <= 100);
+    }
+}
@@ -8,11 +8,13 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @ExtendWith(MockitoExtension.class)
 class PrizeSelectionUtilTest {
@@ -143,4 +145,116 @@ class PrizeSelectionUtilTest {
         assertNotNull(result);
         assertEquals(edgePrize.getId(), result.getId());
     }
-} 
\ No newline at end of file
+
+    @Test
+    void selectPrizeUsesCachedSamplerUntilInvalidated() {
+        prize1.setProbability(new BigDecimal("1.0"));
+        List<Prize> prizes = Arrays.asList(prize1, prize2);
+
+        assertEquals(prize1.getId(), prizeSelectionUtil.selectPrize(prizes).getId());
+
+        // Cached table still favours prize1 until the admin update invalidates it
+        prize1.setProbability(new BigDecimal("0"));
+        prize2.setProbability(new BigDecimal("1.0"));
+        assertEquals(prize1.getId(), prizeSelectionUtil.selectPrize(prizes).getId());
+
+        prizeSelectionUtil.invalidate(testActivity.getId());
+        assertEquals(prize2.getId(), prizeSelectionUtil.selectPrize(prizes).getId());
+    }
+
+    @Test
+    void selectPrizeSkipsPrizeMarkedSoldOut() {
+        prize1.setProbability(new BigDecimal("0.5"));
+        prize2.setProbability(new BigDecimal("0.5"));
+        List<Prize> prizes = Arrays.asList(prize1, prize2);
+        prizeSelectionUtil.selectPrize(prizes);
+
+        prizeSelectionUtil.markSoldOut(prize1);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(prize2.getId(), prizeSelectionUtil.selectPrize(prizes).getId());
+        }
+        assertArrayEquals(new int[]{0, 10, 0}, prizeSelectionUtil.sampleCounts(prizes, 10));
+    }
+
+    @Test
+    void isSoldOutOnceEveryPrizeIsMarked() {
+        List<Prize> prizes = Arrays.asList(prize1, prize2);
+        assertFalse(prizeSelectionUtil.isSoldOut(testActivity.getId()));
+        assertFalse(prizeSelectionUtil.isSoldOut(prizes));
+
+        prizeSelectionUtil.markSoldOut(prize1);
+        assertFalse(prizeSelectionUtil.isSoldOut(prizes));
+        prizeSelectionUtil.markSoldOut(prize2);
+
+        assertTrue(prizeSelectionUtil.isSoldOut(prizes));
+        assertTrue(prizeSelectionUtil.isSoldOut(testActivity.getId()));
+        assertNull(prizeSelectionUtil.selectPrize(prizes));
+    }
+
+    @Test
+    void selectPrizeTurnsSoldOutHitIntoThankYouWhenNotSkipping() {
+        ReflectionTestUtils.setField(prizeSelectionUtil, "skipSoldOut", false);
+        prize1.setProbability(new BigDecimal("1.0"));
+        List<Prize> prizes = Arrays.asList(prize1, prize2);
+        prizeSelectionUtil.selectPrize(prizes);
+
+        prizeSelectionUtil.markSoldOut(prize1);
+        assertEquals(prize1.getId(), prizeSelectionUtil.selectPrize(prizes).getId());
+
+        prize1.setQuantity(0);
+        assertNull(prizeSelectionUtil.selectPrize(prizes));
+    }
+
+    @Test
+    void selectPrizeRebuildsWhenPrizeOrderChanges() {
+        prize1.setProbability(new BigDecimal("1.0"));
+        prize2.setProbability(new BigDecimal("0"));
+
+        assertEquals(prize1.getId(), prizeSelectionUtil.selectPrize(Arrays.asList(prize1, prize2)).getId());
+        assertEquals(prize1.getId(), prizeSelectionUtil.selectPrize(Arrays.asList(prize2, prize1)).getId());
+    }
+
+    @Test
+    void selectPrizeKeepsOneSamplerPerSegment() {
+        // Base odds: prize1 takes everything; VIP odds: prize1 is off and prize2 doubles to 1.0
+        prize1.setProbability(new BigDecimal("1.0"));
+        prize2.setProbability(new BigDecimal("0.5"));
+        List<Prize> prizes = Arrays.asList(prize1, prize2);
+        Map<Long, BigDecimal> vip = Map.of(1L, new BigDecimal("0"), 2L, new BigDecimal("2"));
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(prize1.getId(), prizeSelectionUtil.selectPrize(prizes).getId());
+            assertEquals(prize2.getId(), prizeSelectionUtil.selectPrize(prizes, "VIP", vip).getId());
+        }
+        // A segment without multipliers shares the base sampler
+        assertEquals(prize1.getId(), prizeSelectionUtil.selectPrize(prizes, "NEW", Map.of()).getId());
+    }
+
+    @Test
+    void markSoldOutReachesEverySegment() {
+        List<Prize> prizes = Arrays.asList(prize1, prize2);
+        Map<Long, BigDecimal> vip = Map.of(1L, new BigDecimal("2"));
+        prizeSelectionUtil.selectPrize(prizes);
+        prizeSelectionUtil.selectPrize(prizes, "VIP", vip);
+
+        prizeSelectionUtil.markSoldOut(prize1);
+        prizeSelectionUtil.markSoldOut(prize2);
+
+        assertNull(prizeSelectionUtil.selectPrize(prizes, "VIP", vip));
+        assertTrue(prizeSelectionUtil.isSoldOut(testActivity.getId()));
+    }
+
+    @Test
+    void samplerRebuildsWhenSegmentMultipliersAreReloaded() {
+        prize1.setProbability(new BigDecimal("0.5"));
+        prize2.setProbability(new BigDecimal("0.5"));
+        List<Prize> prizes = Arrays.asList(prize1, prize2);
+
+        prizeSelectionUtil.selectPrize(prizes, "VIP", Map.of(1L, new BigDecimal("2")));
+        // Another node changed the multipliers; the reloaded map is a new instance
+        Map<Long, BigDecimal> reloaded = Map.of(1L, new BigDecimal("0"), 2L, new BigDecimal("2"));
+
+        assertArrayEquals(new int[]{0, 10, 0}, prizeSelectionUtil.sampleCounts(prizes, 10, "VIP", reloaded));
+    }
+}
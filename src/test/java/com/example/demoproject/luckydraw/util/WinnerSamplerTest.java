@@ -0,0 +1,83 @@
+package com.example.demoproject.luckydraw.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+
+class WinnerSamplerTest {
+
+    @Test
+    void keepsTheEntriesWithTheSmallestKeys() {
+        WinnerSampler sampler = new WinnerSampler(2);
+        sampler.offer(1L, 0.9);
+        sampler.offer(2L, 0.1);
+        sampler.offer(3L, 0.5);
+        sampler.offer(4L, 0.7);
+
+        assertEquals(List.of(2L, 3L), sampler.winners());
+        assertEquals(4, sampler.getSeen());
+    }
+
+    @Test
+    void keepsEveryEntryWhenThereAreFewerThanWinners() {
+        WinnerSampler sampler = new WinnerSampler(5);
+        Random random = new Random(1);
+        for (long userId = 1; userId <= 3; userId++) {
+            sampler.offer(userId, random);
+        }
+
+        assertEquals(new HashSet<>(List.of(1L, 2L, 3L)), new HashSet<>(sampler.winners()));
+    }
+
+    @Test
+    void mergedPartitionsMatchOneSample() {
+        WinnerSampler whole = new WinnerSampler(3);
+        WinnerSampler left = new WinnerSampler(3);
+        WinnerSampler right = new WinnerSampler(3);
+        double[] keys = {0.42, 0.07, 0.93, 0.15, 0.66, 0.31, 0.88, 0.02};
+        for (int i = 0; i < keys.length; i++) {
+            whole.offer(i, keys[i]);
+            (i < 4 ? left : right).offer(i, keys[i]);
+        }
+
+        left.merge(right);
+
+        assertEquals(whole.winners(), left.winners());
+        assertEquals(8, left.getSeen());
+    }
+
+    @Test
+    void everyEntryIsPickedEquallyOften() {
+        int entries = 20;
+        int winners = 5;
+        int rounds = 20_000;
+        int[] picked = new int[entries];
+        Random random = new Random(42);
+
+        for (int round = 0; round < rounds; round++) {
+            WinnerSampler sampler = new WinnerSampler(winners);
+            for (int userId = 0; userId < entries; userId++) {
+                sampler.offer(userId, random);
+            }
+            sampler.winners().forEach(userId -> picked[userId.intValue()]++);
+        }
+
+        double expected = rounds * winners / (double) entries;
+        for (int count : picked) {
+            assertEquals(expected, count, expected * 0.05);
+        }
+    }
+
+    @Test
+    void noWinnersWhenThereIsNothingToWin() {
+        WinnerSampler sampler = new WinnerSampler(0);
+        sampler.offer(1L, 0.5);
+
+        assertTrue(sampler.winners().isEmpty());
+        assertEquals(1, sampler.getSeen());
+    }
+}
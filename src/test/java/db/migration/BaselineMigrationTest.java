@@ -0,0 +1,98 @@
+package db.migration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.output.MigrateResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Migrates a database created before Flyway owned the schema, the way prod and stage do with
+ * baseline-on-migrate: it is taken as V1 and everything after runs against its data.
+ */
+class BaselineMigrationTest {
+
+    private static final String URL = "jdbc:h2:mem:baseline;DB_CLOSE_DELAY=-1";
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection(URL);
+        // The schema Hibernate generated for the original entities, with its constraint names
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table users (id bigserial primary key, username varchar(255) not null,"
+                + " password varchar(255) not null, role varchar(255) not null,"
+                + " constraint uk_r43af9ap4edm43mmtq01oddj6 unique (username))");
+            statement.execute("create table activities (id bigserial primary key, name varchar(255) not null,"
+                + " description varchar(255) not null, max_draws integer not null)");
+            statement.execute("create table prizes (id bigserial primary key, name varchar(255) not null,"
+                + " description varchar(255) not null, quantity integer not null, probability numeric(5,4) not null,"
+                + " activity_id bigint, constraint fkqmd5bqyv0ivwtbyh2a1xl8ogj foreign key (activity_id) references activities)");
+            statement.execute("create table draw_records (id bigserial primary key, user_id bigint, activity_id bigint,"
+                + " prize_id bigint, draw_time timestamp(6) not null,"
+                + " constraint fk7yb1rxe3nmmwh7qe1dcbdfqnv foreign key (user_id) references users,"
+                + " constraint fkbn0pnqbk7ja0yyt8c0n5j6jhq foreign key (activity_id) references activities,"
+                + " constraint fkm7pqxdp7mbbhjcxt1wr5c5yn2 foreign key (prize_id) references prizes)");
+            statement.execute("create table audit_logs (id bigserial primary key, admin_user_id bigint,"
+                + " action varchar(255) not null, entity_type varchar(255) not null, entity_id bigint not null,"
+                + " old_values text, new_values text, timestamp timestamp(6) not null,"
+                + " constraint fk9xb2sf5ovpkjbdtgvhwn2ywwr foreign key (admin_user_id) references users)");
+            statement.execute("insert into users (id, username, password, role) values (1, 'user', 'password', 'ROLE_USER')");
+            statement.execute("insert into activities (id, name, description, max_draws) values (1, 'Activity', 'Description', 10)");
+            statement.execute("insert into prizes (id, name, description, quantity, probability, activity_id)"
+                + " values (4, 'Prize', 'Description', 8, 0.5, 1)");
+            statement.execute("insert into draw_records (id, user_id, activity_id, prize_id, draw_time) values"
+                + " (1, 1, 1, 4, current_timestamp), (2, 1, 1, null, current_timestamp), (9, 1, 1, 4, current_timestamp)");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("drop all objects");
+        }
+        connection.close();
+    }
+
+    @Test
+    void laterMigrationsRunAgainstTheBaselinedSchema() throws Exception {
+        MigrateResult result = Flyway.configure()
+            .dataSource(URL, null, null)
+            .locations("classpath:db/migration")
+            .baselineOnMigrate(true)
+            .load()
+            .migrate();
+
+        assertEquals("5", result.targetSchemaVersion);
+        assertEquals(4, result.migrationsExecuted);
+        assertEquals(2L, queryLong("select awarded_count from prizes where id = 4"));
+        assertEquals(0L, queryLong("select version from prizes where id = 4"));
+        assertEquals("INSTANT", queryString("select type from activities where id = 1"));
+        assertEquals(59L, queryLong("select next value for draw_records_seq"));
+        assertEquals(54L, queryLong("select next value for prizes_seq"));
+    }
+
+    private long queryLong(String sql) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+
+    private String queryString(String sql) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(sql)) {
+            resultSet.next();
+            return resultSet.getString(1);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package db.migration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.flywaydb.core.api.migration.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+@ExtendWith(MockitoExtension.class)
+class V4__Draw_id_sequencesTest {
+
+    @Mock
+    private Context context;
+
+    private Connection connection;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        connection = DriverManager.getConnection("jdbc:h2:mem:v4_sequences");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("create table draw_records (id bigint primary key)");
+            statement.execute("create table prizes (id bigint primary key)");
+            statement.execute("create table audit_logs (id bigint primary key)");
+            statement.execute("insert into draw_records values (1), (7)");
+            statement.execute("insert into prizes values (3)");
+        }
+        when(context.getConnection()).thenReturn(connection);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    void sequencesStartFiftyAboveHighestId() throws Exception {
+        new V4__Draw_id_sequences().migrate(context);
+
+        assertEquals(57, nextValue("draw_records_seq"));
+        assertEquals(53, nextValue("prizes_seq"));
+        assertEquals(50, nextValue("audit_logs_seq"));
+        assertEquals(107, nextValue("draw_records_seq"));
+    }
+
+    private long nextValue(String sequence) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select next value for " + sequence)) {
+            resultSet.next();
+            return resultSet.getLong(1);
+        }
+    }
+}